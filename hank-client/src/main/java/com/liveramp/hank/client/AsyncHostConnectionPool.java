@@ -0,0 +1,300 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.apache.thrift.TException;
+import org.apache.thrift.async.AsyncMethodCallback;
+import org.apache.thrift.async.TAsyncClientManager;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.transport.TNonblockingSocket;
+
+import com.liveramp.hank.coordinator.Host;
+import com.liveramp.hank.coordinator.HostState;
+import com.liveramp.hank.generated.HankBulkResponse;
+import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.generated.PartitionServer;
+
+/**
+ * Non-blocking connections to a single host, driven by a shared TAsyncClientManager.
+ * <p/>
+ * A Thrift async connection can only carry one call at a time, so up to a given number of connections are
+ * opened lazily, and calls that find no idle connection are queued and sent as soon as a connection completes
+ * its current call. No thread is ever blocked waiting for a connection. A connection that fails is closed and
+ * replaced by a new one on demand. Callbacks are invoked on the selector thread of the client manager.
+ */
+class AsyncHostConnectionPool {
+
+  private static final Logger LOG = Logger.getLogger(AsyncHostConnectionPool.class);
+
+  interface Callback<T> {
+
+    public void onComplete(T response);
+
+    public void onError(Exception e);
+  }
+
+  private final Host host;
+  private final TAsyncClientManager clientManager;
+  private final TProtocolFactory protocolFactory = new TCompactProtocol.Factory();
+  private final int maxNumConnections;
+  private final int establishConnectionTimeoutMs;
+  private final int queryTimeoutMs;
+  private final int bulkQueryTimeoutMs;
+
+  // Guarded by this
+  private final LinkedList<Connection> idleConnections = new LinkedList<Connection>();
+  private final LinkedList<Call> pendingCalls = new LinkedList<Call>();
+  private int numConnections = 0;
+  private boolean closed = false;
+
+  // A timeout of 0 means no timeout
+  AsyncHostConnectionPool(Host host,
+                          TAsyncClientManager clientManager,
+                          int maxNumConnections,
+                          int establishConnectionTimeoutMs,
+                          int queryTimeoutMs,
+                          int bulkQueryTimeoutMs) {
+    this.host = host;
+    this.clientManager = clientManager;
+    this.maxNumConnections = Math.max(1, maxNumConnections);
+    this.establishConnectionTimeoutMs = establishConnectionTimeoutMs;
+    this.queryTimeoutMs = queryTimeoutMs;
+    this.bulkQueryTimeoutMs = bulkQueryTimeoutMs;
+  }
+
+  Host getHost() {
+    return host;
+  }
+
+  boolean isServing() {
+    try {
+      return HostState.SERVING.equals(host.getState());
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  boolean isOffline() {
+    try {
+      return HostState.OFFLINE.equals(host.getState());
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  synchronized int getNumPendingCalls() {
+    return pendingCalls.size();
+  }
+
+  void get(final int domainId, final ByteBuffer key, final Callback<HankResponse> callback) {
+    submit(new Call() {
+      @Override
+      void send(final Connection connection) throws TException {
+        connection.client.setTimeout(queryTimeoutMs);
+        connection.client.get(domainId, key, new AsyncMethodCallback<PartitionServer.AsyncClient.get_call>() {
+          @Override
+          public void onComplete(PartitionServer.AsyncClient.get_call call) {
+            HankResponse response;
+            try {
+              response = call.getResult();
+            } catch (TException e) {
+              onConnectionError(connection, e);
+              callback.onError(e);
+              return;
+            }
+            release(connection);
+            callback.onComplete(response);
+          }
+
+          @Override
+          public void onError(Exception e) {
+            onConnectionError(connection, e);
+            callback.onError(e);
+          }
+        });
+      }
+
+      @Override
+      void fail(Exception e) {
+        callback.onError(e);
+      }
+    });
+  }
+
+  void getBulk(final int domainId, final List<ByteBuffer> keys, final Callback<HankBulkResponse> callback) {
+    submit(new Call() {
+      @Override
+      void send(final Connection connection) throws TException {
+        connection.client.setTimeout(bulkQueryTimeoutMs);
+        connection.client.getBulk(domainId, keys, new AsyncMethodCallback<PartitionServer.AsyncClient.getBulk_call>() {
+          @Override
+          public void onComplete(PartitionServer.AsyncClient.getBulk_call call) {
+            HankBulkResponse response;
+            try {
+              response = call.getResult();
+            } catch (TException e) {
+              onConnectionError(connection, e);
+              callback.onError(e);
+              return;
+            }
+            release(connection);
+            callback.onComplete(response);
+          }
+
+          @Override
+          public void onError(Exception e) {
+            onConnectionError(connection, e);
+            callback.onError(e);
+          }
+        });
+      }
+
+      @Override
+      void fail(Exception e) {
+        callback.onError(e);
+      }
+    });
+  }
+
+  // Close idle connections and fail pending calls. Connections in use are closed when their call completes.
+  void close() {
+    List<Connection> connectionsToClose;
+    List<Call> callsToFail;
+    synchronized (this) {
+      closed = true;
+      connectionsToClose = new LinkedList<Connection>(idleConnections);
+      callsToFail = new LinkedList<Call>(pendingCalls);
+      idleConnections.clear();
+      pendingCalls.clear();
+      numConnections -= connectionsToClose.size();
+    }
+    for (Connection connection : connectionsToClose) {
+      connection.close();
+    }
+    for (Call call : callsToFail) {
+      call.fail(new IOException("Connection pool to " + host.getAddress() + " is closed."));
+    }
+  }
+
+  private void submit(Call call) {
+    Connection connection = null;
+    Exception error = null;
+    synchronized (this) {
+      if (closed) {
+        error = new IOException("Connection pool to " + host.getAddress() + " is closed.");
+      } else {
+        connection = idleConnections.poll();
+        if (connection == null) {
+          if (numConnections >= maxNumConnections) {
+            // Sent when a connection becomes available
+            pendingCalls.add(call);
+            return;
+          }
+          ++numConnections;
+          try {
+            connection = new Connection();
+          } catch (IOException e) {
+            --numConnections;
+            LOG.error("Failed to create connection to " + host.getAddress(), e);
+            error = e;
+          }
+        }
+      }
+    }
+    if (error != null) {
+      call.fail(error);
+      return;
+    }
+    send(connection, call);
+  }
+
+  private void send(Connection connection, Call call) {
+    try {
+      call.send(connection);
+    } catch (Exception e) {
+      onConnectionError(connection, e);
+      call.fail(e);
+    }
+  }
+
+  // Hand the connection over to the next pending call, or make it idle
+  private void release(Connection connection) {
+    Call nextCall;
+    synchronized (this) {
+      nextCall = pendingCalls.poll();
+      if (nextCall == null) {
+        if (closed) {
+          --numConnections;
+        } else {
+          idleConnections.add(connection);
+          return;
+        }
+      }
+    }
+    if (nextCall == null) {
+      connection.close();
+    } else {
+      send(connection, nextCall);
+    }
+  }
+
+  // The connection can not be reused after an error. Close it and let the next pending call open a new one.
+  private void onConnectionError(Connection connection, Exception e) {
+    LOG.error("Error on connection to " + host.getAddress(), e);
+    connection.close();
+    Call nextCall;
+    synchronized (this) {
+      --numConnections;
+      nextCall = pendingCalls.poll();
+    }
+    if (nextCall != null) {
+      submit(nextCall);
+    }
+  }
+
+  private abstract static class Call {
+
+    abstract void send(Connection connection) throws TException;
+
+    abstract void fail(Exception e);
+  }
+
+  private class Connection {
+
+    private final TNonblockingSocket transport;
+    private final PartitionServer.AsyncClient client;
+
+    // The socket connects lazily when the first call is sent
+    private Connection() throws IOException {
+      transport = new TNonblockingSocket(host.getAddress().getHostName(),
+          host.getAddress().getPortNumber(),
+          establishConnectionTimeoutMs);
+      client = new PartitionServer.AsyncClient(protocolFactory, clientManager, transport);
+    }
+
+    private void close() {
+      transport.close();
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.client;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.liveramp.hank.coordinator.PartitionServerAddress;
+import com.liveramp.hank.generated.HankBulkResponse;
+import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.partition_server.DoublePopulationStatisticsAggregator;
+
+/**
+ * Coalesces concurrent gets for the same host and domain into bulk requests.
+ * <p/>
+ * The first get of a batch waits until the batch is full or a given delay has elapsed, then sends all keys of the
+ * batch in one bulk request and hands each response over to the thread waiting for it. Gets that arrive while a
+ * batch is being sent start a new batch.
+ */
+class GetBatcher {
+
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final ConcurrentMap<BatchKey, HostDomainBatcher> batchers = new ConcurrentHashMap<BatchKey, HostDomainBatcher>();
+
+  private DoublePopulationStatisticsAggregator batchSizes = new DoublePopulationStatisticsAggregator();
+  private DoublePopulationStatisticsAggregator queueingDelaysMs = new DoublePopulationStatisticsAggregator();
+
+  GetBatcher(int maxBatchSize, long maxDelayMicros) {
+    this.maxBatchSize = Math.max(1, maxBatchSize);
+    this.maxDelayNanos = maxDelayMicros * 1000;
+  }
+
+  // Return null if the batch failed, in which case the get should be performed on its own
+  HankResponse get(HostConnectionPool hostConnectionPool,
+                   PartitionServerAddress address,
+                   int domainId,
+                   ByteBuffer key) {
+    BatchKey batchKey = new BatchKey(address, domainId);
+    HostDomainBatcher batcher = batchers.get(batchKey);
+    if (batcher == null) {
+      HostDomainBatcher newBatcher = new HostDomainBatcher(hostConnectionPool, domainId);
+      batcher = batchers.putIfAbsent(batchKey, newBatcher);
+      if (batcher == null) {
+        batcher = newBatcher;
+      }
+    }
+    return batcher.get(key);
+  }
+
+  // Forget batchers of connection pools that are no longer used
+  void clear() {
+    batchers.clear();
+  }
+
+  // Number of keys per bulk request since the last call
+  synchronized DoublePopulationStatisticsAggregator getAndResetBatchSizes() {
+    DoublePopulationStatisticsAggregator result = batchSizes;
+    batchSizes = new DoublePopulationStatisticsAggregator();
+    return result;
+  }
+
+  // Time in ms that batches waited before being sent, since the last call
+  synchronized DoublePopulationStatisticsAggregator getAndResetQueueingDelaysMs() {
+    DoublePopulationStatisticsAggregator result = queueingDelaysMs;
+    queueingDelaysMs = new DoublePopulationStatisticsAggregator();
+    return result;
+  }
+
+  private synchronized void recordBatch(int batchSize, double queueingDelayMs) {
+    batchSizes.aggregate(batchSize);
+    queueingDelaysMs.aggregate(queueingDelayMs);
+  }
+
+  private class HostDomainBatcher {
+
+    private final HostConnectionPool hostConnectionPool;
+    private final int domainId;
+    // Batch accepting new keys, guarded by this
+    private Batch currentBatch = null;
+
+    private HostDomainBatcher(HostConnectionPool hostConnectionPool, int domainId) {
+      this.hostConnectionPool = hostConnectionPool;
+      this.domainId = domainId;
+    }
+
+    private HankResponse get(ByteBuffer key) {
+      Batch batch;
+      int keyIndex;
+      boolean isLeader = false;
+      synchronized (this) {
+        if (currentBatch == null) {
+          currentBatch = new Batch();
+          isLeader = true;
+        }
+        batch = currentBatch;
+        keyIndex = batch.keys.size();
+        batch.keys.add(key);
+        if (batch.keys.size() >= maxBatchSize) {
+          currentBatch = null;
+          batch.full.countDown();
+        }
+      }
+      if (isLeader) {
+        send(batch);
+      }
+      try {
+        batch.done.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+      HankBulkResponse bulkResponse = batch.response;
+      if (bulkResponse == null
+          || !bulkResponse.is_set_responses()
+          || bulkResponse.get_responses().size() != batch.keys.size()) {
+        return null;
+      }
+      HankResponse response = bulkResponse.get_responses().get(keyIndex);
+      return response.is_set_xception() ? null : response;
+    }
+
+    private void send(Batch batch) {
+      boolean interrupted = false;
+      try {
+        batch.full.await(maxDelayNanos, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+      synchronized (this) {
+        if (currentBatch == batch) {
+          currentBatch = null;
+        }
+      }
+      recordBatch(batch.keys.size(), (System.nanoTime() - batch.startNanos) / 1000000d);
+      try {
+        batch.response = hostConnectionPool.getBulk(domainId, batch.keys, 1);
+      } finally {
+        batch.done.countDown();
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  private static class Batch {
+
+    private final long startNanos = System.nanoTime();
+    private final List<ByteBuffer> keys = new ArrayList<ByteBuffer>();
+    private final CountDownLatch full = new CountDownLatch(1);
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile HankBulkResponse response;
+  }
+
+  private static class BatchKey {
+
+    private final PartitionServerAddress address;
+    private final int domainId;
+
+    private BatchKey(PartitionServerAddress address, int domainId) {
+      this.address = address;
+      this.domainId = domainId;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * address.hashCode() + domainId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof BatchKey)) {
+        return false;
+      }
+      BatchKey other = (BatchKey)obj;
+      return domainId == other.domainId && address.equals(other.address);
+    }
+  }
+}
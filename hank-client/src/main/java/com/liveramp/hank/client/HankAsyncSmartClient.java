@@ -0,0 +1,655 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.apache.thrift.async.TAsyncClientManager;
+
+import com.liveramp.commons.util.BytesUtils;
+import com.liveramp.hank.config.HankSmartClientConfigurator;
+import com.liveramp.hank.coordinator.Coordinator;
+import com.liveramp.hank.coordinator.Domain;
+import com.liveramp.hank.coordinator.Host;
+import com.liveramp.hank.coordinator.HostDomain;
+import com.liveramp.hank.coordinator.HostDomainPartition;
+import com.liveramp.hank.coordinator.PartitionServerAddress;
+import com.liveramp.hank.coordinator.Ring;
+import com.liveramp.hank.coordinator.RingGroup;
+import com.liveramp.hank.coordinator.RingGroupDataLocationChangeListener;
+import com.liveramp.hank.generated.HankBulkResponse;
+import com.liveramp.hank.generated.HankException;
+import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.util.ConcurrentMemoryBoundCacheExpiring;
+import com.liveramp.hank.util.HankResponseMemoryUsageEstimator;
+
+import static com.liveramp.hank.client.HostConnectionPool.getHostListShuffleSeed;
+
+/**
+ * A smart client that never blocks the calling thread. Queries are sent over non-blocking Thrift connections
+ * that are all driven by a single selector thread, and results are delivered through HankFutures or callbacks.
+ * Any number of queries can be outstanding: each host gets a bounded number of connections and queries in excess
+ * are queued in memory until a connection to that host is available.
+ * <p/>
+ * Failed queries are retried on other replicas of the partition, up to the configured maximum number of tries.
+ * Callbacks are invoked on the selector thread and must not block.
+ */
+public class HankAsyncSmartClient implements HankClientIface, RingGroupDataLocationChangeListener {
+
+  private static final long CACHE_UPDATER_MINIMUM_WAIT_MS = 5 * 1000;
+
+  private static final HankResponse NO_SUCH_DOMAIN = HankResponse.xception(HankException.no_such_domain(true));
+  private static final HankBulkResponse NO_SUCH_DOMAIN_BULK = HankBulkResponse.xception(HankException.no_such_domain(true));
+  private static final HankResponse NO_REPLICA = HankResponse.xception(HankException.no_replica(true));
+  private static final HankResponse NO_CONNECTION_AVAILABLE = HankResponse.xception(HankException.no_connection_available(true));
+  private static final HankResponse CLIENT_STOPPED = HankResponse.xception(HankException.internal_error("Client was stopped"));
+  private static final HankBulkResponse CLIENT_STOPPED_BULK = HankBulkResponse.xception(HankException.internal_error("Client was stopped"));
+
+  private static final Logger LOG = Logger.getLogger(HankAsyncSmartClient.class);
+
+  private final RingGroup ringGroup;
+  private final Coordinator coordinator;
+  private final int numConnectionsPerHost;
+  private final int queryMaxNumTries;
+  private final int establishConnectionTimeoutMs;
+  private final int queryTimeoutMs;
+  private final int bulkQueryTimeoutMs;
+
+  private final ConcurrentMemoryBoundCacheExpiring<DomainAndKey, HankResponse> responseCache;
+
+  private final TAsyncClientManager clientManager;
+
+  // Futures that have not completed yet, failed when the client is stopped
+  private final Set<HankFuture<HankResponse>> pendingGetFutures
+      = Collections.newSetFromMap(new ConcurrentHashMap<HankFuture<HankResponse>, Boolean>());
+  private final Set<HankFuture<HankBulkResponse>> pendingGetBulkFutures
+      = Collections.newSetFromMap(new ConcurrentHashMap<HankFuture<HankBulkResponse>, Boolean>());
+  private volatile boolean stopped = false;
+
+  // Connection Cache
+
+  private Map<PartitionServerAddress, AsyncHostConnectionPool> serverAddressToConnectionPool
+      = new HashMap<PartitionServerAddress, AsyncHostConnectionPool>();
+  // Connection pools of the hosts serving each partition, in the order in which they should be tried
+  private Map<Integer, Map<Integer, List<AsyncHostConnectionPool>>> domainToPartitionToConnectionPools
+      = new HashMap<Integer, Map<Integer, List<AsyncHostConnectionPool>>>();
+
+  private final Object connectionCacheLock = new Object();
+  private final ConnectionCacheUpdaterRunnable connectionCacheUpdaterRunnable = new ConnectionCacheUpdaterRunnable();
+  private final Thread connectionCacheUpdaterThread;
+
+  public HankAsyncSmartClient(Coordinator coordinator,
+                              HankSmartClientConfigurator configurator) throws IOException {
+    this(coordinator, configurator.getRingGroupName(), new HankSmartClientOptions()
+        .setNumConnectionsPerHost(configurator.getNumConnectionsPerHost())
+        .setQueryMaxNumTries(configurator.getQueryNumMaxTries())
+        .setEstablishConnectionTimeoutMs(configurator.getEstablishConnectionTimeoutMs())
+        .setQueryTimeoutMs(configurator.getQueryTimeoutMs())
+        .setBulkQueryTimeoutMs(configurator.getBulkQueryTimeoutMs()));
+  }
+
+  public HankAsyncSmartClient(Coordinator coordinator, String ringGroupName) throws IOException {
+    this(coordinator, ringGroupName, new HankSmartClientOptions());
+  }
+
+  public HankAsyncSmartClient(Coordinator coordinator,
+                              String ringGroupName,
+                              HankSmartClientOptions options) throws IOException {
+    this.coordinator = coordinator;
+    ringGroup = coordinator.getRingGroup(ringGroupName);
+
+    if (ringGroup == null) {
+      throw new IOException("Could not find Ring Group " + ringGroupName + " with Coordinator " + coordinator.toString());
+    }
+
+    ringGroup.registerClient(Clients.getClientMetadata(this));
+
+    this.numConnectionsPerHost = options.getNumConnectionsPerHost();
+    this.queryMaxNumTries = options.getQueryMaxNumTries();
+    this.establishConnectionTimeoutMs = options.getEstablishConnectionTimeoutMs();
+    this.queryTimeoutMs = options.getQueryTimeoutMs();
+    this.bulkQueryTimeoutMs = options.getBulkQueryTimeoutMs();
+    this.responseCache = new ConcurrentMemoryBoundCacheExpiring<DomainAndKey, HankResponse>(
+        options.getResponseCacheEnabled(),
+        options.getResponseCacheNumBytesCapacity(),
+        options.getResponseCacheNumItemsCapacity(),
+        options.getResponseCacheExpirationSeconds(),
+        new DomainAndKey.DomainAndKeyMemoryUsageEstimator(),
+        new HankResponseMemoryUsageEstimator());
+
+    this.clientManager = new TAsyncClientManager();
+
+    // Initialize connection cache and connection cache updater
+    updateConnectionCache();
+    ringGroup.addDataLocationChangeListener(this);
+    connectionCacheUpdaterThread = new Thread(connectionCacheUpdaterRunnable, "Async Connection Cache Updater Thread");
+    connectionCacheUpdaterThread.setDaemon(true);
+    connectionCacheUpdaterThread.start();
+  }
+
+  private void updateConnectionCache() throws IOException {
+    LOG.info(getLogPrefix() + "Loading Hank's async smart client metadata cache and connections.");
+
+    final Map<PartitionServerAddress, AsyncHostConnectionPool> newServerAddressToConnectionPool
+        = new HashMap<PartitionServerAddress, AsyncHostConnectionPool>();
+    final Map<Integer, Map<Integer, List<AsyncHostConnectionPool>>> newDomainToPartitionToConnectionPools
+        = new HashMap<Integer, Map<Integer, List<AsyncHostConnectionPool>>>();
+
+    // Build new cache
+    for (Ring ring : ringGroup.getRings()) {
+      for (Host host : ring.getHosts()) {
+        // Reuse current connection pool to that host if one exists
+        AsyncHostConnectionPool connectionPool = serverAddressToConnectionPool.get(host.getAddress());
+        if (connectionPool == null) {
+          LOG.info(getLogPrefix() + "Using up to " + numConnectionsPerHost + " async connections to " + host
+              + " with connection establishment timeout = " + establishConnectionTimeoutMs + "ms"
+              + ", query timeout = " + queryTimeoutMs + "ms"
+              + ", bulk query timeout = " + bulkQueryTimeoutMs + "ms");
+          connectionPool = new AsyncHostConnectionPool(host, clientManager, numConnectionsPerHost,
+              establishConnectionTimeoutMs, queryTimeoutMs, bulkQueryTimeoutMs);
+        }
+        newServerAddressToConnectionPool.put(host.getAddress(), connectionPool);
+
+        for (HostDomain hostDomain : host.getAssignedDomains()) {
+          Domain domain = hostDomain.getDomain();
+          if (domain == null) {
+            throw new IOException(String.format("Could not load Domain from HostDomain %s", hostDomain.toString()));
+          }
+          Map<Integer, List<AsyncHostConnectionPool>> partitionToConnectionPools =
+              newDomainToPartitionToConnectionPools.get(domain.getId());
+          if (partitionToConnectionPools == null) {
+            partitionToConnectionPools = new HashMap<Integer, List<AsyncHostConnectionPool>>();
+            newDomainToPartitionToConnectionPools.put(domain.getId(), partitionToConnectionPools);
+          }
+          for (HostDomainPartition partition : hostDomain.getPartitions()) {
+            if (!partition.isDeletable()) {
+              List<AsyncHostConnectionPool> connectionPools = partitionToConnectionPools.get(partition.getPartitionNumber());
+              if (connectionPools == null) {
+                connectionPools = new ArrayList<AsyncHostConnectionPool>();
+                partitionToConnectionPools.put(partition.getPartitionNumber(), connectionPools);
+              }
+              connectionPools.add(connectionPool);
+            }
+          }
+        }
+      }
+    }
+
+    // Shuffle the replicas of each partition deterministically, like HostConnectionPool does
+    for (Map.Entry<Integer, Map<Integer, List<AsyncHostConnectionPool>>> domainEntry
+        : newDomainToPartitionToConnectionPools.entrySet()) {
+      for (Map.Entry<Integer, List<AsyncHostConnectionPool>> partitionEntry : domainEntry.getValue().entrySet()) {
+        List<AsyncHostConnectionPool> connectionPools = partitionEntry.getValue();
+        Collections.sort(connectionPools, new HostComparator());
+        Collections.shuffle(connectionPools,
+            new Random(getHostListShuffleSeed(domainEntry.getKey(), partitionEntry.getKey())));
+      }
+    }
+
+    // Switch old cache for new cache
+    final Map<PartitionServerAddress, AsyncHostConnectionPool> oldServerAddressToConnectionPool;
+    synchronized (connectionCacheLock) {
+      oldServerAddressToConnectionPool = serverAddressToConnectionPool;
+      serverAddressToConnectionPool = newServerAddressToConnectionPool;
+      domainToPartitionToConnectionPools = newDomainToPartitionToConnectionPools;
+    }
+
+    // Clean up old cache when new cache is in place. Only close connection pools that have not been reused.
+    for (Map.Entry<PartitionServerAddress, AsyncHostConnectionPool> entry : oldServerAddressToConnectionPool.entrySet()) {
+      if (!newServerAddressToConnectionPool.containsKey(entry.getKey())) {
+        entry.getValue().close();
+      }
+    }
+  }
+
+  private static class HostComparator implements Comparator<AsyncHostConnectionPool> {
+
+    @Override
+    public int compare(AsyncHostConnectionPool a, AsyncHostConnectionPool b) {
+      return a.getHost().compareTo(b.getHost());
+    }
+  }
+
+  private class ConnectionCacheUpdaterRunnable implements Runnable {
+
+    private volatile boolean stopping = false;
+    private Semaphore semaphore = new Semaphore(0);
+
+    @Override
+    public void run() {
+      while (!stopping) {
+        try {
+          // Acquire all available permits or wait if there are none
+          int availablePermits = semaphore.availablePermits();
+          if (availablePermits == 0) {
+            semaphore.acquire();
+          } else {
+            semaphore.acquire(availablePermits);
+          }
+        } catch (InterruptedException e) {
+          // Stop immediately if interrupted
+          stopping = true;
+        }
+        if (!stopping) {
+          try {
+            updateConnectionCache();
+            // Sleep for a given time period to avoid doing cache updates too frequently
+            Thread.sleep(CACHE_UPDATER_MINIMUM_WAIT_MS);
+          } catch (Exception e) {
+            // Log exception but do not rethrow since we don't want to exit the cache updater
+            LOG.error(getLogPrefix() + "Error while updating cache: ", e);
+          }
+        }
+      }
+      LOG.info(getLogPrefix() + "Cache Updater stopping.");
+    }
+
+    public void wakeUp() {
+      semaphore.release();
+    }
+
+    public void cancel() {
+      stopping = true;
+    }
+  }
+
+  // Asynchronous get
+  public HankFuture<HankResponse> get(String domainName, ByteBuffer key) {
+    HankFuture<HankResponse> future = new HankFuture<HankResponse>();
+    Domain domain = coordinator.getDomain(domainName);
+    if (domain == null) {
+      LOG.error(getLogPrefix() + "No such Domain: " + domainName);
+      future.complete(NO_SUCH_DOMAIN);
+    } else if (trackPendingFuture(future, pendingGetFutures, CLIENT_STOPPED)) {
+      try {
+        _get(domain, key, future);
+      } catch (RuntimeException e) {
+        pendingGetFutures.remove(future);
+        throw e;
+      }
+    }
+    return future;
+  }
+
+  // Asynchronous get, the callback is invoked with the response
+  public void get(String domainName, ByteBuffer key, final GetCallback callback) {
+    get(domainName, key).addCallback(new HankFuture.Callback<HankResponse>() {
+      @Override
+      public void onComplete(HankResponse response) {
+        callback.onComplete(response);
+      }
+    });
+  }
+
+  // Asynchronous getBulk
+  public HankFuture<HankBulkResponse> getBulk(String domainName, List<ByteBuffer> keys) {
+    HankFuture<HankBulkResponse> future = new HankFuture<HankBulkResponse>();
+    Domain domain = coordinator.getDomain(domainName);
+    if (domain == null) {
+      LOG.error(getLogPrefix() + "No such Domain: " + domainName);
+      future.complete(NO_SUCH_DOMAIN_BULK);
+    } else if (trackPendingFuture(future, pendingGetBulkFutures, CLIENT_STOPPED_BULK)) {
+      try {
+        _getBulk(domain, keys, future);
+      } catch (RuntimeException e) {
+        pendingGetBulkFutures.remove(future);
+        throw e;
+      }
+    }
+    return future;
+  }
+
+  // Asynchronous getBulk, the callback is invoked with the responses
+  public void getBulk(String domainName, List<ByteBuffer> keys, final GetBulkCallback callback) {
+    getBulk(domainName, keys).addCallback(new HankFuture.Callback<HankBulkResponse>() {
+      @Override
+      public void onComplete(HankBulkResponse response) {
+        callback.onComplete(response);
+      }
+    });
+  }
+
+  // Register a future until it completes so that stop() can fail it. Return false if the client
+  // was already stopped, in which case the future has been completed with the given response.
+  private <T> boolean trackPendingFuture(final HankFuture<T> future,
+                                         final Set<HankFuture<T>> pendingFutures,
+                                         T stoppedResponse) {
+    pendingFutures.add(future);
+    future.addCallback(new HankFuture.Callback<T>() {
+      @Override
+      public void onComplete(T response) {
+        pendingFutures.remove(future);
+      }
+    });
+    // Checked after registering, so that a concurrent stop() either sees the future or is seen here
+    if (stopped) {
+      future.complete(stoppedResponse);
+      return false;
+    }
+    return true;
+  }
+
+  private static void checkKey(ByteBuffer key) {
+    // Check for null keys
+    if (key == null) {
+      throw new NullKeyException();
+    }
+    // Check for empty keys
+    if (key.remaining() == 0) {
+      throw new EmptyKeyException();
+    }
+  }
+
+  private void _get(Domain domain, ByteBuffer key, HankFuture<HankResponse> future) {
+    checkKey(key);
+    // Attempt to load from cache
+    HankResponse cachedResponse = responseCache.get(new DomainAndKey(domain, key));
+    if (cachedResponse != null) {
+      future.complete(cachedResponse);
+      return;
+    }
+    new GetRequest(domain, key, future, null).start();
+  }
+
+  // Keys are grouped by the first replica to try for their partition, and each group is sent as one bulk request.
+  // Keys that fail are retried individually on the other replicas of their partition.
+  private void _getBulk(final Domain domain, final List<ByteBuffer> keys, final HankFuture<HankBulkResponse> future) {
+    final HankResponse[] responses = new HankResponse[keys.size()];
+    final AtomicInteger numRemainingKeys = new AtomicInteger(keys.size() + 1);
+
+    Map<AsyncHostConnectionPool, List<Integer>> connectionPoolToKeyIndices
+        = new HashMap<AsyncHostConnectionPool, List<Integer>>();
+    Map<Integer, List<AsyncHostConnectionPool>> partitionToConnectionPools = getPartitionToConnectionPools(domain);
+    for (int i = 0; i < keys.size(); ++i) {
+      ByteBuffer key = keys.get(i);
+      checkKey(key);
+      HankResponse cachedResponse = responseCache.get(new DomainAndKey(domain, key));
+      if (cachedResponse != null) {
+        responses[i] = cachedResponse;
+        numRemainingKeys.decrementAndGet();
+        continue;
+      }
+      List<AsyncHostConnectionPool> replicas = getReplicasToTry(domain, partitionToConnectionPools, key);
+      if (replicas == null || replicas.isEmpty()) {
+        responses[i] = replicas == null ? NO_REPLICA : NO_CONNECTION_AVAILABLE;
+        numRemainingKeys.decrementAndGet();
+        continue;
+      }
+      List<Integer> keyIndices = connectionPoolToKeyIndices.get(replicas.get(0));
+      if (keyIndices == null) {
+        keyIndices = new ArrayList<Integer>();
+        connectionPoolToKeyIndices.put(replicas.get(0), keyIndices);
+      }
+      keyIndices.add(i);
+    }
+
+    final BulkCompletion completion = new BulkCompletion(domain, keys, responses, numRemainingKeys, future);
+    for (Map.Entry<AsyncHostConnectionPool, List<Integer>> entry : connectionPoolToKeyIndices.entrySet()) {
+      final AsyncHostConnectionPool connectionPool = entry.getKey();
+      final List<Integer> keyIndices = entry.getValue();
+      List<ByteBuffer> hostKeys = new ArrayList<ByteBuffer>(keyIndices.size());
+      for (Integer keyIndex : keyIndices) {
+        hostKeys.add(keys.get(keyIndex));
+      }
+      connectionPool.getBulk(domain.getId(), hostKeys, new AsyncHostConnectionPool.Callback<HankBulkResponse>() {
+        @Override
+        public void onComplete(HankBulkResponse bulkResponse) {
+          boolean validResponses = bulkResponse.is_set_responses()
+              && bulkResponse.get_responses().size() == keyIndices.size();
+          if (!validResponses) {
+            LOG.error(getLogPrefix() + "Failed to perform bulk get on " + connectionPool.getHost().getAddress()
+                + ", response: " + bulkResponse + ". Retrying " + keyIndices.size() + " keys on other replicas.");
+          }
+          for (int j = 0; j < keyIndices.size(); ++j) {
+            HankResponse response = validResponses ? bulkResponse.get_responses().get(j) : null;
+            if (response == null || response.is_set_xception()) {
+              completion.retry(keyIndices.get(j), connectionPool);
+            } else {
+              completion.complete(keyIndices.get(j), response);
+            }
+          }
+        }
+
+        @Override
+        public void onError(Exception e) {
+          LOG.error(getLogPrefix() + "Failed to perform bulk get on " + connectionPool.getHost().getAddress()
+              + ". Retrying " + keyIndices.size() + " keys on other replicas.", e);
+          for (Integer keyIndex : keyIndices) {
+            completion.retry(keyIndex, connectionPool);
+          }
+        }
+      });
+    }
+    // Account for the keys that were answered locally
+    completion.countDown();
+  }
+
+  // Gather responses of a bulk request and complete its future once all keys have a response
+  private class BulkCompletion {
+
+    private final Domain domain;
+    private final List<ByteBuffer> keys;
+    private final HankResponse[] responses;
+    private final AtomicInteger numRemainingKeys;
+    private final HankFuture<HankBulkResponse> future;
+
+    private BulkCompletion(Domain domain,
+                           List<ByteBuffer> keys,
+                           HankResponse[] responses,
+                           AtomicInteger numRemainingKeys,
+                           HankFuture<HankBulkResponse> future) {
+      this.domain = domain;
+      this.keys = keys;
+      this.responses = responses;
+      this.numRemainingKeys = numRemainingKeys;
+      this.future = future;
+    }
+
+    private void complete(int keyIndex, HankResponse response) {
+      cacheResponse(domain, keys.get(keyIndex), response);
+      responses[keyIndex] = response;
+      countDown();
+    }
+
+    private void retry(final int keyIndex, AsyncHostConnectionPool failedConnectionPool) {
+      HankFuture<HankResponse> keyFuture = new HankFuture<HankResponse>();
+      keyFuture.addCallback(new HankFuture.Callback<HankResponse>() {
+        @Override
+        public void onComplete(HankResponse response) {
+          responses[keyIndex] = response;
+          countDown();
+        }
+      });
+      new GetRequest(domain, keys.get(keyIndex), keyFuture, failedConnectionPool).start();
+    }
+
+    private void countDown() {
+      if (numRemainingKeys.decrementAndGet() == 0) {
+        List<HankResponse> allResponses = new ArrayList<HankResponse>(responses.length);
+        Collections.addAll(allResponses, responses);
+        future.complete(HankBulkResponse.responses(allResponses));
+      }
+    }
+  }
+
+  // A get that is retried on the next replica of its partition when it fails
+  private class GetRequest implements AsyncHostConnectionPool.Callback<HankResponse> {
+
+    private final Domain domain;
+    private final ByteBuffer key;
+    private final HankFuture<HankResponse> future;
+    private final AsyncHostConnectionPool connectionPoolToSkip;
+    private final int maxNumTries;
+    private List<AsyncHostConnectionPool> replicas;
+    private int numTries = 0;
+
+    private GetRequest(Domain domain,
+                       ByteBuffer key,
+                       HankFuture<HankResponse> future,
+                       AsyncHostConnectionPool connectionPoolToSkip) {
+      this.domain = domain;
+      this.key = key;
+      this.future = future;
+      this.connectionPoolToSkip = connectionPoolToSkip;
+      // A retried key has already been tried once
+      this.maxNumTries = connectionPoolToSkip == null ? queryMaxNumTries : Math.max(1, queryMaxNumTries - 1);
+    }
+
+    private void start() {
+      replicas = getReplicasToTry(domain, getPartitionToConnectionPools(domain), key);
+      if (replicas == null) {
+        LOG.error(getLogPrefix() + String.format("Could not find list of hosts for domain %s (id: %d) when looking for key %s",
+            domain.getName(), domain.getId(), BytesUtils.bytesToHexString(key)));
+        future.complete(NO_REPLICA);
+        return;
+      }
+      if (connectionPoolToSkip != null && replicas.size() > 1) {
+        replicas.remove(connectionPoolToSkip);
+      }
+      tryNextReplica();
+    }
+
+    private void tryNextReplica() {
+      if (numTries >= replicas.size()) {
+        future.complete(NO_CONNECTION_AVAILABLE);
+        return;
+      }
+      replicas.get(numTries++).get(domain.getId(), key, this);
+    }
+
+    @Override
+    public void onComplete(HankResponse response) {
+      if (response.is_set_xception() && numTries < Math.min(maxNumTries, replicas.size())) {
+        tryNextReplica();
+        return;
+      }
+      if (response.is_set_xception()) {
+        LOG.error(getLogPrefix() + "Failed to perform get: domain " + domain.getName()
+            + ", key: " + BytesUtils.bytesToHexString(key) + ", response: " + response);
+      } else {
+        cacheResponse(domain, key, response);
+      }
+      future.complete(response);
+    }
+
+    @Override
+    public void onError(Exception e) {
+      if (numTries < Math.min(maxNumTries, replicas.size())) {
+        tryNextReplica();
+        return;
+      }
+      LOG.error(getLogPrefix() + "Failed to perform get: domain " + domain.getName()
+          + ", key: " + BytesUtils.bytesToHexString(key), e);
+      future.complete(HankResponse.xception(HankException.failed_retries(numTries)));
+    }
+  }
+
+  private Map<Integer, List<AsyncHostConnectionPool>> getPartitionToConnectionPools(Domain domain) {
+    synchronized (connectionCacheLock) {
+      return domainToPartitionToConnectionPools.get(domain.getId());
+    }
+  }
+
+  // Return the replicas serving the key's partition, in the order in which they should be tried, or null if the
+  // partition is unknown. Serving hosts come first, starting at a position determined by the key's hash, then
+  // offline hosts. Hosts in any other state are not used.
+  private List<AsyncHostConnectionPool> getReplicasToTry(Domain domain,
+                                                         Map<Integer, List<AsyncHostConnectionPool>> partitionToConnectionPools,
+                                                         ByteBuffer key) {
+    if (partitionToConnectionPools == null) {
+      return null;
+    }
+    int partition = domain.getPartitioner().partition(key, domain.getNumParts());
+    List<AsyncHostConnectionPool> connectionPools = partitionToConnectionPools.get(partition);
+    if (connectionPools == null) {
+      return null;
+    }
+    int keyHash = domain.getPartitioner().partition(key, Integer.MAX_VALUE);
+    List<AsyncHostConnectionPool> result = new ArrayList<AsyncHostConnectionPool>(connectionPools.size());
+    int numConnectionPools = connectionPools.size();
+    for (int i = 0; i < numConnectionPools; ++i) {
+      AsyncHostConnectionPool connectionPool = connectionPools.get((keyHash + i) % numConnectionPools);
+      if (connectionPool.isServing()) {
+        result.add(connectionPool);
+      }
+    }
+    for (int i = 0; i < numConnectionPools; ++i) {
+      AsyncHostConnectionPool connectionPool = connectionPools.get((keyHash + i) % numConnectionPools);
+      if (connectionPool.isOffline()) {
+        result.add(connectionPool);
+      }
+    }
+    return result;
+  }
+
+  // Cache response if necessary, do not cache exceptions
+  private void cacheResponse(Domain domain, ByteBuffer key, HankResponse response) {
+    if (responseCache.isEnabled() && (response.is_set_not_found() || response.is_set_value())) {
+      responseCache.put(
+          new DomainAndKey(domain, BytesUtils.byteBufferDeepCopy(key)),
+          response.deepCopy());
+    }
+  }
+
+  public void stop() {
+    connectionCacheUpdaterRunnable.cancel();
+    connectionCacheUpdaterThread.interrupt();
+    try {
+      connectionCacheUpdaterThread.join();
+    } catch (InterruptedException e) {
+      LOG.info(getLogPrefix() + "Interrupted while waiting for updater thread to terminate during shutdown.");
+    }
+    synchronized (connectionCacheLock) {
+      for (AsyncHostConnectionPool connectionPool : serverAddressToConnectionPool.values()) {
+        connectionPool.close();
+      }
+    }
+    // Callbacks of calls still in flight will not run once the client manager is stopped,
+    // fail their futures so that callers are not left waiting forever
+    stopped = true;
+    for (HankFuture<HankResponse> future : pendingGetFutures) {
+      future.complete(CLIENT_STOPPED);
+    }
+    for (HankFuture<HankBulkResponse> future : pendingGetBulkFutures) {
+      future.complete(CLIENT_STOPPED_BULK);
+    }
+    clientManager.stop();
+  }
+
+  @Override
+  public void onDataLocationChange(RingGroup ringGroup) {
+    LOG.debug("Async smart client notified of data location change.");
+    connectionCacheUpdaterRunnable.wakeUp();
+  }
+
+  private String getLogPrefix() {
+    return ringGroup.getName() + ": ";
+  }
+}
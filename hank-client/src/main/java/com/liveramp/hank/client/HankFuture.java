@@ -0,0 +1,119 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Handle on the result of an asynchronous query. Failures are reported as exception responses, so the result
+ * is always set eventually. Callbacks run on the thread that completes the query (usually the client's selector
+ * thread) and should return quickly.
+ */
+public class HankFuture<T> implements Future<T> {
+
+  private static final Logger LOG = Logger.getLogger(HankFuture.class);
+
+  public interface Callback<T> {
+
+    public void onComplete(T result);
+  }
+
+  private final CountDownLatch latch = new CountDownLatch(1);
+  private volatile T result;
+  private List<Callback<T>> callbacks = new ArrayList<Callback<T>>(1);
+
+  // Return a future that is already complete
+  public static <T> HankFuture<T> completed(T result) {
+    HankFuture<T> future = new HankFuture<T>();
+    future.complete(result);
+    return future;
+  }
+
+  // Run the callback when the result is available, or immediately if it already is
+  public void addCallback(Callback<T> callback) {
+    synchronized (this) {
+      if (callbacks != null) {
+        callbacks.add(callback);
+        return;
+      }
+    }
+    runCallback(callback, result);
+  }
+
+  // Return false if the result had already been set
+  boolean complete(T result) {
+    List<Callback<T>> callbacksToRun;
+    synchronized (this) {
+      if (callbacks == null) {
+        return false;
+      }
+      this.result = result;
+      callbacksToRun = callbacks;
+      callbacks = null;
+    }
+    latch.countDown();
+    for (Callback<T> callback : callbacksToRun) {
+      runCallback(callback, result);
+    }
+    return true;
+  }
+
+  private void runCallback(Callback<T> callback, T result) {
+    try {
+      callback.onComplete(result);
+    } catch (Throwable t) {
+      LOG.error("Callback failed", t);
+    }
+  }
+
+  // Queries can not be cancelled
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    return false;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return false;
+  }
+
+  @Override
+  public boolean isDone() {
+    return latch.getCount() == 0;
+  }
+
+  @Override
+  public T get() throws InterruptedException {
+    latch.await();
+    return result;
+  }
+
+  @Override
+  public T get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+    if (!latch.await(timeout, unit)) {
+      throw new TimeoutException();
+    }
+    return result;
+  }
+}
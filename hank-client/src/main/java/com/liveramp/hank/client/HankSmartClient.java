@@ -18,11 +18,19 @@ package com.liveramp.hank.client;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -45,11 +53,13 @@ import com.liveramp.hank.coordinator.RingGroupDataLocationChangeListener;
 import com.liveramp.hank.generated.HankBulkResponse;
 import com.liveramp.hank.generated.HankException;
 import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.partition_server.DoublePopulationStatisticsAggregator;
 import com.liveramp.hank.util.AtomicLongCollection;
+import com.liveramp.hank.util.ConcurrentMemoryBoundCacheExpiring;
 import com.liveramp.hank.util.FormatUtils;
 import com.liveramp.hank.util.HankResponseMemoryUsageEstimator;
 import com.liveramp.hank.util.HankTimer;
-import com.liveramp.hank.util.SynchronizedMemoryBoundCacheExpiring;
+import com.liveramp.hank.util.LatencyHistogram;
 import com.liveramp.hank.util.UpdateStatisticsRunnable;
 
 import static com.liveramp.hank.client.HostConnectionPool.getHostListShuffleSeed;
@@ -61,6 +71,8 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
   private static final HankResponse NO_SUCH_DOMAIN = HankResponse.xception(HankException.no_such_domain(true));
   private static final HankBulkResponse NO_SUCH_DOMAIN_BULK = HankBulkResponse.xception(HankException.no_such_domain(true));
   private static final HankResponse NO_REPLICA = HankResponse.xception(HankException.no_replica(true));
+  private static final HankResponse NO_CONNECTION_AVAILABLE = HankResponse.xception(HankException.no_connection_available(true));
+  private static final HankBulkResponse NO_CONNECTION_AVAILABLE_BULK = HankBulkResponse.xception(HankException.no_connection_available(true));
 
   private static final long GET_TASK_EXECUTOR_THREAD_KEEP_ALIVE_TIME = 1;
   private static final TimeUnit GET_TASK_EXECUTOR_THREAD_KEEP_ALIVE_TIME_UNIT = TimeUnit.MINUTES;
@@ -82,25 +94,33 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
   private final int establishConnectionTimeoutMs;
   private final int queryTimeoutMs;
   private final int bulkQueryTimeoutMs;
+  private final double hedgedRequestsLatencyPercentile;
+  private final double hedgedRequestsMaxLoadRatio;
+  private final ReplicaSelectionPolicy replicaSelectionPolicy;
 
-  private final SynchronizedMemoryBoundCacheExpiring<DomainAndKey, HankResponse> responseCache;
+  private final ConcurrentMemoryBoundCacheExpiring<DomainAndKey, HankResponse> responseCache;
   // 0: num queries
   // 1: num cache hits
+  // 2: num coalesced hits
   private final AtomicLongCollection requestsCounters;
+  // Latencies of gets that were not served by the cache
+  private final LatencyHistogram getLatencies = new LatencyHistogram();
+  // Null when concurrent gets for the same key are not coalesced
+  private final ConcurrentMap<DomainAndKey, InFlightGet> inFlightGets;
 
   private final ThreadPoolExecutor getTaskExecutor;
+  // Null when gets are not hedged
+  private final ExecutorService hedgedRequestExecutor;
+  // Null when gets are not batched
+  private final GetBatcher getBatcher;
 
   private final UpdateRuntimeStatisticsRunnable updateRuntimeStatisticsRunnable;
   private final Thread updateRuntimeStatisticsThread;
 
-  // Connection Cache
+  // Connection Cache, replaced as a whole on updates
 
-  private Map<HostAddress, HostConnectionPool> partitionServerAddressToConnectionPool
-      = new HashMap<HostAddress, HostConnectionPool>();
-  private Map<Integer, Map<Integer, HostConnectionPool>> domainToPartitionToConnectionPool
-      = new HashMap<Integer, Map<Integer, HostConnectionPool>>();
+  private volatile RoutingTable routingTable = RoutingTable.EMPTY;
 
-  private final Object connectionCacheLock = new Object();
   private final ConnectionCacheUpdaterRunnable connectionCacheUpdaterRunnable = new ConnectionCacheUpdaterRunnable();
   private final Thread connectionCacheUpdaterThread;
 
@@ -122,6 +142,40 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
     }
   }
 
+  // A get that other gets for the same domain and key can wait on. The leader's response is kept as is, and each
+  // waiter gets its own copy of it.
+  private static class InFlightGet {
+
+    private boolean done = false;
+    private int numWaiters = 0;
+    private HankResponse response = null;
+
+    // Return null if the response is not available and the caller should perform the get itself
+    private synchronized HankResponse await() {
+      if (done) {
+        return null;
+      }
+      ++numWaiters;
+      while (!done) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return null;
+        }
+      }
+      return response == null ? null : response.deepCopy();
+    }
+
+    private synchronized void complete(HankResponse leaderResponse) {
+      done = true;
+      if (numWaiters > 0) {
+        response = leaderResponse;
+      }
+      notifyAll();
+    }
+  }
+
   public HankSmartClient(Coordinator coordinator,
                          HankSmartClientConfigurator configurator) throws IOException, TException {
     this(coordinator, configurator.getRingGroupName(), new HankSmartClientOptions()
@@ -155,14 +209,22 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
     this.establishConnectionTimeoutMs = options.getEstablishConnectionTimeoutMs();
     this.queryTimeoutMs = options.getQueryTimeoutMs();
     this.bulkQueryTimeoutMs = options.getBulkQueryTimeoutMs();
-    this.responseCache = new SynchronizedMemoryBoundCacheExpiring<DomainAndKey, HankResponse>(
+    this.hedgedRequestsLatencyPercentile = options.getHedgedRequestsLatencyPercentile();
+    this.hedgedRequestsMaxLoadRatio = options.getHedgedRequestsMaxLoadRatio();
+    this.replicaSelectionPolicy = options.getReplicaSelectionPolicy();
+    this.responseCache = new ConcurrentMemoryBoundCacheExpiring<DomainAndKey, HankResponse>(
         options.getResponseCacheEnabled(),
         options.getResponseCacheNumBytesCapacity(),
         options.getResponseCacheNumItemsCapacity(),
         options.getResponseCacheExpirationSeconds(),
         new DomainAndKey.DomainAndKeyMemoryUsageEstimator(),
         new HankResponseMemoryUsageEstimator());
-    this.requestsCounters = new AtomicLongCollection(2, new long[]{0, 0});
+    this.requestsCounters = new AtomicLongCollection(3, new long[]{0, 0, 0});
+    if (options.getGetCoalescingEnabled()) {
+      this.inFlightGets = new ConcurrentHashMap<DomainAndKey, InFlightGet>();
+    } else {
+      this.inFlightGets = null;
+    }
 
     // This creates a thread pool executor with a specific maximum number of threads.
     // We allow core threads to timeout after the keep alive time. We use a custom bounded
@@ -176,6 +238,26 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
         new AlwaysBlockingLinkedBlockingQueue(GET_TASK_EXECUTOR_QUEUE_SIZE));
     getTaskExecutor.allowCoreThreadTimeOut(true);
 
+    // Hedged gets run on their own threads, since they are performed by GET tasks themselves. Tasks are
+    // rejected when all threads are busy, in which case gets are performed without hedging.
+    if (options.getHedgedRequestsEnabled()) {
+      this.hedgedRequestExecutor = new ThreadPoolExecutor(
+          0,
+          options.getHedgedRequestsMaxNumThreads(),
+          GET_TASK_EXECUTOR_THREAD_KEEP_ALIVE_TIME,
+          GET_TASK_EXECUTOR_THREAD_KEEP_ALIVE_TIME_UNIT,
+          new SynchronousQueue<Runnable>(),
+          new HedgedRequestThreadFactory());
+    } else {
+      this.hedgedRequestExecutor = null;
+    }
+
+    if (options.getGetBatchingMaxDelayMicros() > 0) {
+      this.getBatcher = new GetBatcher(options.getGetBatchingMaxNumKeys(), options.getGetBatchingMaxDelayMicros());
+    } else {
+      this.getBatcher = null;
+    }
+
     // Initialize Load statistics runner
     updateRuntimeStatisticsRunnable = new UpdateRuntimeStatisticsRunnable();
     updateRuntimeStatisticsThread = new Thread(updateRuntimeStatisticsRunnable, "Update Load Statistics");
@@ -198,18 +280,22 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
         = new HashMap<HostAddress, HostConnectionPool>();
     final Map<Integer, Map<Integer, HostConnectionPool>> newDomainToPartitionToConnectionPool
         = new HashMap<Integer, Map<Integer, HostConnectionPool>>();
+    final Map<Integer, Domain> newDomainIdToDomain = new HashMap<Integer, Domain>();
 
     // Build new cache
     buildNewConnectionCache(
         newPartitionServerAddressToConnectionPool,
-        newDomainToPartitionToConnectionPool);
+        newDomainToPartitionToConnectionPool,
+        newDomainIdToDomain);
 
     // Switch old cache for new cache
     final Map<HostAddress, HostConnectionPool> oldPartitionServerAddressToConnectionPool
-        = partitionServerAddressToConnectionPool;
-    synchronized (connectionCacheLock) {
-      partitionServerAddressToConnectionPool = newPartitionServerAddressToConnectionPool;
-      domainToPartitionToConnectionPool = newDomainToPartitionToConnectionPool;
+        = routingTable.getPartitionServerAddressToConnectionPool();
+    routingTable = new RoutingTable(newPartitionServerAddressToConnectionPool,
+        newDomainIdToDomain,
+        newDomainToPartitionToConnectionPool);
+    if (getBatcher != null) {
+      getBatcher.clear();
     }
 
     // Clean up old cache when new cache is in place
@@ -218,7 +304,7 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
       HostAddress address = entry.getKey();
       HostConnectionPool connections = entry.getValue();
       // Only close connections that have not been reused
-      if (!partitionServerAddressToConnectionPool.containsKey(address)) {
+      if (!newPartitionServerAddressToConnectionPool.containsKey(address)) {
         for (HostConnection connection : connections.getConnections()) {
           connection.disconnect();
         }
@@ -271,9 +357,13 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
 
   private void buildNewConnectionCache(
       final Map<HostAddress, HostConnectionPool> newPartitionServerAddressToConnectionPool,
-      final Map<Integer, Map<Integer, HostConnectionPool>> newDomainToPartitionToConnectionPool)
+      final Map<Integer, Map<Integer, HostConnectionPool>> newDomainToPartitionToConnectionPool,
+      final Map<Integer, Domain> newDomainIdToDomain)
       throws IOException, TException {
 
+    final Map<HostAddress, HostConnectionPool> partitionServerAddressToConnectionPool
+        = routingTable.getPartitionServerAddressToConnectionPool();
+
     final Map<Integer, Map<Integer, List<HostAddress>>> newDomainToPartitionToPartitionServerAddressList
         = new HashMap<Integer, Map<Integer, List<HostAddress>>>();
 
@@ -290,6 +380,7 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
           if (domain == null) {
             throw new IOException(String.format("Could not load Domain from HostDomain %s", hostDomain.toString()));
           }
+          newDomainIdToDomain.put(domain.getId(), domain);
           if (LOG.isDebugEnabled()) {
             LOG.debug(getLogPrefix() + "Loading partition metadata for Host: " + host.getAddress() + ", Domain: " + domain.getName());
           }
@@ -348,17 +439,28 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
         }
         Integer partitionId = partitionToAddressesEntry.getKey();
         partitionToConnectionPool.put(partitionId,
-            HostConnectionPool.createFromList(connections, getHostListShuffleSeed(domainId, partitionId)));
+            HostConnectionPool.createFromList(connections, getHostListShuffleSeed(domainId, partitionId),
+                hedgedRequestExecutor, hedgedRequestsLatencyPercentile, hedgedRequestsMaxLoadRatio,
+                replicaSelectionPolicy));
       }
       newDomainToPartitionToConnectionPool.put(domainId, partitionToConnectionPool);
     }
   }
 
+  // Resolve served domains from the connection cache, and others from the coordinator
+  private Domain getDomain(String domainName) {
+    Domain domain = routingTable.getDomain(domainName);
+    if (domain == null) {
+      domain = coordinator.getDomain(domainName);
+    }
+    return domain;
+  }
+
   // Synchronous get
   @Override
   public HankResponse get(String domainName, ByteBuffer key) {
     // Get Domain
-    Domain domain = this.coordinator.getDomain(domainName);
+    Domain domain = getDomain(domainName);
     if (domain == null) {
       LOG.error(getLogPrefix() + "No such Domain: " + domainName);
       return NO_SUCH_DOMAIN;
@@ -370,29 +472,46 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
   @Override
   public HankBulkResponse getBulk(String domainName, List<ByteBuffer> keys) {
     // Get Domain
-    Domain domain = coordinator.getDomain(domainName);
+    Domain domain = getDomain(domainName);
     if (domain == null) {
       LOG.error(getLogPrefix() + "No such Domain: " + domainName);
       return NO_SUCH_DOMAIN_BULK;
     }
-    // Execute futures
-    List<FutureGet> futureGets = new ArrayList<FutureGet>(keys.size());
-    for (ByteBuffer key : keys) {
-      futureGets.add(_concurrentGet(domain, key));
+    Domain[] domains = new Domain[keys.size()];
+    Arrays.fill(domains, domain);
+    return _getBulk(domains, keys);
+  }
+
+  // Synchronous getBulk across domains. Key i is looked up in domain i.
+  @Override
+  public HankBulkResponse getMultiBulk(List<String> domainNames, List<ByteBuffer> keys) {
+    if (domainNames.size() != keys.size()) {
+      throw new IllegalArgumentException("Got " + domainNames.size() + " domains for " + keys.size() + " keys");
     }
-    // Build responses list
-    List<HankResponse> allResponses = new ArrayList<HankResponse>(keys.size());
-    for (FutureGet futureGet : futureGets) {
-      allResponses.add(futureGet.getResponse());
+    // Get Domains
+    Map<String, Domain> nameToDomain = new HashMap<String, Domain>();
+    Domain[] domains = new Domain[keys.size()];
+    for (int i = 0; i < domains.length; ++i) {
+      String domainName = domainNames.get(i);
+      Domain domain = nameToDomain.get(domainName);
+      if (domain == null) {
+        domain = getDomain(domainName);
+        if (domain == null) {
+          LOG.error(getLogPrefix() + "No such Domain: " + domainName);
+          return NO_SUCH_DOMAIN_BULK;
+        }
+        nameToDomain.put(domainName, domain);
+      }
+      domains[i] = domain;
     }
-    return HankBulkResponse.responses(allResponses);
+    return _getBulk(domains, keys);
   }
 
   // Asynchronous get
   @Override
   public FutureGet concurrentGet(String domainName, ByteBuffer key) {
     // Get Domain
-    Domain domain = this.coordinator.getDomain(domainName);
+    Domain domain = getDomain(domainName);
     if (domain == null) {
       LOG.error(getLogPrefix() + "No such Domain: " + domainName);
       FutureGet noSuchDomainFutureGet = new FutureGet(new StaticGetTaskRunnable(NO_SUCH_DOMAIN));
@@ -407,7 +526,7 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
   public List<FutureGet> concurrentGet(String domainName, List<ByteBuffer> keys) {
     List<FutureGet> result = new ArrayList<FutureGet>(keys.size());
     // Get Domain
-    Domain domain = this.coordinator.getDomain(domainName);
+    Domain domain = getDomain(domainName);
     if (domain == null) {
       LOG.error(getLogPrefix() + "No such Domain: " + domainName);
       FutureGet noSuchDomainFutureGet = new FutureGet(new StaticGetTaskRunnable(NO_SUCH_DOMAIN));
@@ -440,50 +559,286 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
     }
 
     // Attempt to load from cache
-    HankResponse cachedResponse = responseCache.get(new DomainAndKey(domain, key));
+    HankResponse cachedResponse = responseCache.isEnabled() ? responseCache.get(new DomainAndKey(domain, key)) : null;
     if (cachedResponse != null) {
       // One request, in cache
-      requestsCounters.increment(1, 1);
+      requestsCounters.increment(1, 1, 0);
       return cachedResponse;
+    } else if (inFlightGets == null) {
+      return _getNotCached(domain, key);
     } else {
-      try {
-        // Determine HostConnectionPool to use
-        int partition = domain.getPartitioner().partition(key, domain.getNumParts());
-        int keyHash = domain.getPartitioner().partition(key, Integer.MAX_VALUE);
+      return _getCoalesced(domain, key);
+    }
+  }
 
-        Map<Integer, HostConnectionPool> partitionToConnectionPool;
-        synchronized (connectionCacheLock) {
-          partitionToConnectionPool = domainToPartitionToConnectionPool.get(domain.getId());
-        }
-        if (partitionToConnectionPool == null) {
-          LOG.error(getLogPrefix() + String.format("Could not find domain to partition map for domain %s (id: %d)", domain.getName(), domain.getId()));
-          return NO_REPLICA;
-        }
+  // Share the response of an identical get that is already in flight, if any
+  private HankResponse _getCoalesced(Domain domain, ByteBuffer key) {
+    DomainAndKey domainAndKey = new DomainAndKey(domain, key);
+    InFlightGet inFlightGet = new InFlightGet();
+    InFlightGet leader = inFlightGets.putIfAbsent(domainAndKey, inFlightGet);
+    if (leader != null) {
+      HankResponse response = leader.await();
+      if (response != null) {
+        // One request, served by an in-flight request
+        requestsCounters.increment(1, 0, 1);
+        return response;
+      }
+      // The leader failed or completed before this get could join it
+      return _getNotCached(domain, key);
+    }
+    HankResponse response = null;
+    try {
+      response = _getNotCached(domain, key);
+      return response;
+    } finally {
+      inFlightGets.remove(domainAndKey, inFlightGet);
+      inFlightGet.complete(response);
+    }
+  }
 
-        HostConnectionPool hostConnectionPool = partitionToConnectionPool.get(partition);
-        if (hostConnectionPool == null) {
-          // this is a problem, since the cache must not have been loaded correctly
-          LOG.error(getLogPrefix() + String.format("Could not find list of hosts for domain %s (id: %d) when looking for partition %d", domain.getName(), domain.getId(), partition));
-          return NO_REPLICA;
+  private HankResponse _getNotCached(Domain domain, ByteBuffer key) {
+    long startNanos = System.nanoTime();
+    try {
+      // Determine HostConnectionPool to use
+      RoutingTable.DomainRoutes domainRoutes = routingTable.getDomainRoutes(domain.getId());
+      if (domainRoutes == null) {
+        LOG.error(getLogPrefix() + String.format("Could not find domain to partition map for domain %s (id: %d)", domain.getName(), domain.getId()));
+        return NO_REPLICA;
+      }
+      int hash = domainRoutes.hash(key);
+      int partition = domainRoutes.getPartition(key, hash);
+      int keyHash = hash & Integer.MAX_VALUE;
+
+      HostConnectionPool hostConnectionPool = domainRoutes.getConnectionPool(partition);
+      if (hostConnectionPool == null) {
+        // this is a problem, since the cache must not have been loaded correctly
+        LOG.error(getLogPrefix() + String.format("Could not find list of hosts for domain %s (id: %d) when looking for partition %d", domain.getName(), domain.getId(), partition));
+        return NO_REPLICA;
+      }
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("Looking in domain " + domain.getName() + ", in partition " + partition + ", for key: " + BytesUtils.bytesToHexString(key));
+      }
+      // Perform get, as part of a bulk request if gets are batched
+      HankResponse response = null;
+      if (getBatcher != null) {
+        response = getBatched(domain, key, hostConnectionPool, keyHash);
+      }
+      if (response == null) {
+        response = hostConnectionPool.get(domain, key, queryMaxNumTries, keyHash);
+      }
+      // Cache response if necessary, do not cache exceptions
+      if (responseCache.isEnabled() && (response.is_set_not_found() || response.is_set_value())) {
+        responseCache.put(
+            new DomainAndKey(domain, BytesUtils.byteBufferDeepCopy(key)),
+            response.deepCopy());
+      }
+      if (response.is_set_xception()) {
+        LOG.error(getLogPrefix() + "Failed to perform get: domain " + domain.getName() + ", partition " + partition + ", key: " + BytesUtils.bytesToHexString(key) + ", partitioner: " + domain.getPartitioner() + ", response: " + response);
+      }
+      return response;
+    } finally {
+      // One request, not in cache
+      requestsCounters.increment(1, 0, 0);
+      getLatencies.recordNanos(System.nanoTime() - startNanos);
+    }
+  }
+
+  // Return null if the get could not be performed as part of a batch
+  private HankResponse getBatched(Domain domain, ByteBuffer key, HostConnectionPool hostConnectionPool, int keyHash) {
+    Host host = hostConnectionPool.getHostToUse(keyHash);
+    if (host == null) {
+      return null;
+    }
+    HostConnectionPool hostToConnectionPool = routingTable.getConnectionPool(host.getAddress());
+    if (hostToConnectionPool == null) {
+      return null;
+    }
+    return getBatcher.get(hostToConnectionPool, host.getAddress(), domain.getId(), key);
+  }
+
+  // Keys are grouped by the host chosen for their partition, and each group is sent as one bulk request.
+  // A group can span several domains, in which case it is sent as a multi domain bulk request.
+  // Groups (or keys) that fail are retried per partition, initially skipping the host that failed.
+  private HankBulkResponse _getBulk(Domain[] domains, List<ByteBuffer> keys) {
+    HankResponse[] responses = new HankResponse[keys.size()];
+    int[] partitions = new int[keys.size()];
+
+    RoutingTable routingTable = this.routingTable;
+
+    // Group keys that are not in cache per host
+    Map<PartitionServerAddress, BulkRequest> hostToBulkRequest = new HashMap<PartitionServerAddress, BulkRequest>();
+    int numCacheHits = 0;
+    for (int i = 0; i < keys.size(); ++i) {
+      Domain domain = domains[i];
+      ByteBuffer key = keys.get(i);
+      // Check for null keys
+      if (key == null) {
+        throw new NullKeyException();
+      }
+      // Check for empty keys
+      if (key.remaining() == 0) {
+        throw new EmptyKeyException();
+      }
+      HankResponse cachedResponse = responseCache.isEnabled() ? responseCache.get(new DomainAndKey(domain, key)) : null;
+      if (cachedResponse != null) {
+        responses[i] = cachedResponse;
+        ++numCacheHits;
+        continue;
+      }
+      RoutingTable.DomainRoutes domainRoutes = routingTable.getDomainRoutes(domain.getId());
+      int partition = domainRoutes == null ? domain.getPartitioner().partition(key, domain.getNumParts())
+          : domainRoutes.getPartition(key, domainRoutes.hash(key));
+      partitions[i] = partition;
+      HostConnectionPool hostConnectionPool = domainRoutes == null ? null : domainRoutes.getConnectionPool(partition);
+      if (hostConnectionPool == null) {
+        LOG.error(getLogPrefix() + String.format("Could not find list of hosts for domain %s (id: %d) when looking for partition %d", domain.getName(), domain.getId(), partition));
+        responses[i] = NO_REPLICA;
+        continue;
+      }
+      Host host = hostConnectionPool.getHostToUse();
+      if (host == null) {
+        responses[i] = NO_CONNECTION_AVAILABLE;
+        continue;
+      }
+      BulkRequest bulkRequest = hostToBulkRequest.get(host.getAddress());
+      if (bulkRequest == null) {
+        bulkRequest = new BulkRequest(host, routingTable.getConnectionPool(host.getAddress()));
+        hostToBulkRequest.put(host.getAddress(), bulkRequest);
+      }
+      bulkRequest.add(i, domain.getId(), key);
+    }
+    requestsCounters.increment(keys.size(), numCacheHits, 0);
+
+    // Send one bulk request per host, with a single try since failures are retried on other replicas
+    for (BulkRequest bulkRequest : hostToBulkRequest.values()) {
+      executeBulkRequest(bulkRequest, 1, null);
+    }
+
+    // Gather responses and group failed keys per domain partition
+    Map<Long, BulkRequest> partitionToRetryBulkRequest = new HashMap<Long, BulkRequest>();
+    for (BulkRequest bulkRequest : hostToBulkRequest.values()) {
+      HankBulkResponse bulkResponse = bulkRequest.getBulkResponse();
+      for (int j = 0; j < bulkRequest.keys.size(); ++j) {
+        HankResponse response = null;
+        if (bulkResponse.is_set_responses()
+            && bulkResponse.get_responses().size() == bulkRequest.keys.size()) {
+          response = bulkResponse.get_responses().get(j);
         }
-        if (LOG.isTraceEnabled()) {
-          LOG.trace("Looking in domain " + domain.getName() + ", in partition " + partition + ", for key: " + BytesUtils.bytesToHexString(key));
+        int keyIndex = bulkRequest.keyIndices.get(j);
+        if (response == null || response.is_set_xception()) {
+          Domain domain = domains[keyIndex];
+          int partition = partitions[keyIndex];
+          // Domain id in the high bits, partition in the low bits
+          Long domainPartition = ((long)domain.getId() << 32) | partition;
+          BulkRequest retryBulkRequest = partitionToRetryBulkRequest.get(domainPartition);
+          if (retryBulkRequest == null) {
+            retryBulkRequest = new BulkRequest(bulkRequest.host,
+                routingTable.getDomainRoutes(domain.getId()).getConnectionPool(partition));
+            partitionToRetryBulkRequest.put(domainPartition, retryBulkRequest);
+          }
+          retryBulkRequest.add(keyIndex, domain.getId(), keys.get(keyIndex));
+        } else {
+          responses[keyIndex] = response;
         }
-        // Perform get
-        HankResponse response = hostConnectionPool.get(domain, key, queryMaxNumTries, keyHash);
-        // Cache response if necessary, do not cache exceptions
-        if (responseCache.isEnabled() && response.is_set_not_found() || response.is_set_value()) {
-          responseCache.put(
-              new DomainAndKey(domain, BytesUtils.byteBufferDeepCopy(key)),
-              response.deepCopy());
+      }
+    }
+
+    // Retry failed keys on other replicas of their partition
+    if (!partitionToRetryBulkRequest.isEmpty()) {
+      LOG.error(getLogPrefix() + "Failed to perform bulk get for some keys. Retrying "
+          + partitionToRetryBulkRequest.size() + " partitions on other replicas.");
+      for (BulkRequest retryBulkRequest : partitionToRetryBulkRequest.values()) {
+        executeBulkRequest(retryBulkRequest, Math.max(1, queryMaxNumTries - 1), retryBulkRequest.host);
+      }
+      for (BulkRequest retryBulkRequest : partitionToRetryBulkRequest.values()) {
+        HankBulkResponse bulkResponse = retryBulkRequest.getBulkResponse();
+        for (int j = 0; j < retryBulkRequest.keys.size(); ++j) {
+          HankResponse response;
+          if (bulkResponse.is_set_xception()) {
+            response = HankResponse.xception(bulkResponse.get_xception());
+          } else if (bulkResponse.get_responses().size() != retryBulkRequest.keys.size()) {
+            response = HankResponse.xception(HankException.internal_error("Unexpected number of responses in bulk get"));
+          } else {
+            response = bulkResponse.get_responses().get(j);
+          }
+          responses[retryBulkRequest.keyIndices.get(j)] = response;
         }
-        if (response.is_set_xception()) {
-          LOG.error(getLogPrefix() + "Failed to perform get: domain " + domain.getName() + ", partition " + partition + ", key: " + BytesUtils.bytesToHexString(key) + ", partitioner: " + domain.getPartitioner() + ", response: " + response);
+      }
+    }
+
+    // Cache responses if necessary, do not cache exceptions
+    List<HankResponse> allResponses = new ArrayList<HankResponse>(keys.size());
+    for (int i = 0; i < responses.length; ++i) {
+      HankResponse response = responses[i];
+      if (responseCache.isEnabled() && (response.is_set_not_found() || response.is_set_value())) {
+        responseCache.put(
+            new DomainAndKey(domains[i], BytesUtils.byteBufferDeepCopy(keys.get(i))),
+            response.deepCopy());
+      }
+      allResponses.add(response);
+    }
+    return HankBulkResponse.responses(allResponses);
+  }
+
+  private void executeBulkRequest(final BulkRequest bulkRequest,
+                                  final int maxNumTries,
+                                  final Host hostToSkip) {
+    if (bulkRequest.hostConnectionPool == null) {
+      return;
+    }
+    bulkRequest.task = new FutureTask<HankBulkResponse>(new Callable<HankBulkResponse>() {
+      @Override
+      public HankBulkResponse call() {
+        if (bulkRequest.hasMultipleDomains) {
+          return bulkRequest.hostConnectionPool.getMultiBulk(bulkRequest.domainIds, bulkRequest.keys, maxNumTries, hostToSkip);
+        } else {
+          return bulkRequest.hostConnectionPool.getBulk(bulkRequest.domainIds.get(0), bulkRequest.keys, maxNumTries, hostToSkip);
         }
-        return response;
-      } finally {
-        // One request, not in cache
-        requestsCounters.increment(1, 0);
+      }
+    });
+    getTaskExecutor.execute(bulkRequest.task);
+  }
+
+  // Keys sent in one bulk request, their domain, and their index in the original list of keys
+  private static class BulkRequest {
+
+    // The host queried, or the host that failed when retrying
+    private final Host host;
+    private final HostConnectionPool hostConnectionPool;
+    private final List<Integer> keyIndices = new ArrayList<Integer>();
+    private final List<Integer> domainIds = new ArrayList<Integer>();
+    private final List<ByteBuffer> keys = new ArrayList<ByteBuffer>();
+    // Requests with keys of a single domain are sent as regular bulk requests
+    private boolean hasMultipleDomains = false;
+    private FutureTask<HankBulkResponse> task;
+
+    private BulkRequest(Host host, HostConnectionPool hostConnectionPool) {
+      this.host = host;
+      this.hostConnectionPool = hostConnectionPool;
+    }
+
+    private void add(int keyIndex, int domainId, ByteBuffer key) {
+      if (!domainIds.isEmpty() && domainIds.get(0) != domainId) {
+        hasMultipleDomains = true;
+      }
+      keyIndices.add(keyIndex);
+      domainIds.add(domainId);
+      keys.add(key);
+    }
+
+    // Wait for the request to complete
+    private HankBulkResponse getBulkResponse() {
+      if (task == null) {
+        return NO_CONNECTION_AVAILABLE_BULK;
+      }
+      try {
+        return task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return HankBulkResponse.xception(HankException.internal_error("Interrupted while waiting for bulk get"));
+      } catch (ExecutionException e) {
+        LOG.error("Failed to perform bulk get", e);
+        return HankBulkResponse.xception(HankException.internal_error("Failed to perform bulk get: " + e.getMessage()));
       }
     }
   }
@@ -491,6 +846,9 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
   @Override
   public void stop() {
     stopGetTaskExecutor();
+    if (hedgedRequestExecutor != null) {
+      hedgedRequestExecutor.shutdownNow();
+    }
     connectionCacheUpdaterRunnable.cancel();
     connectionCacheUpdaterThread.interrupt();
     updateRuntimeStatisticsRunnable.cancel();
@@ -518,11 +876,9 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
   }
 
   private void disconnect() {
-    synchronized (connectionCacheLock) {
-      for (HostConnectionPool hostConnectionPool : partitionServerAddressToConnectionPool.values()) {
-        for (HostConnection connection : hostConnectionPool.getConnections()) {
-          connection.disconnect();
-        }
+    for (HostConnectionPool hostConnectionPool : routingTable.getPartitionServerAddressToConnectionPool().values()) {
+      for (HostConnection connection : hostConnectionPool.getConnections()) {
+        connection.disconnect();
       }
     }
   }
@@ -588,6 +944,16 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
     }
   }
 
+  private static class HedgedRequestThreadFactory implements ThreadFactory {
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread result = new Thread(runnable, "HedgedRequestThread");
+      result.setDaemon(true);
+      return result;
+    }
+  }
+
   private class UpdateRuntimeStatisticsRunnable extends UpdateStatisticsRunnable implements Runnable {
 
     private final Map<PartitionServerAddress, ConnectionLoad> partitionServerToConnectionLoad;
@@ -603,7 +969,7 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
       partitionServerToConnectionLoad.clear();
       for (int i = 0; i < UPDATE_RUNTIME_STATISTICS_NUM_MEASUREMENTS; ++i) {
         for (Map.Entry<HostAddress, HostConnectionPool> entry
-            : partitionServerAddressToConnectionPool.entrySet()) {
+            : routingTable.getPartitionServerAddressToConnectionPool().entrySet()) {
           PartitionServerAddress serverAddress = entry.getKey().getPartitionServerAddress();
           ConnectionLoad currentConnectionLoad = entry.getValue().getConnectionLoad();
           ConnectionLoad totalConnectionLoad = partitionServerToConnectionLoad.get(serverAddress);
@@ -631,20 +997,73 @@ public class HankSmartClient implements HankSmartClientIface, RingGroupDataLocat
               + "% (" + connectionLoad.getNumConnectionsLocked() + "/" + connectionLoad.getNumConnections() + " locked connections)");
         }
       }
+      // Log average latency to each host, across all partitions
+      Map<PartitionServerAddress, Double> serverToTotalLatencyMs = new HashMap<PartitionServerAddress, Double>();
+      Map<PartitionServerAddress, Integer> serverToNumLatencies = new HashMap<PartitionServerAddress, Integer>();
+      long numHedgedRequests = 0;
+      for (RoutingTable.DomainRoutes domainRoutes : routingTable.getAllDomainRoutes()) {
+        if (domainRoutes == null) {
+          continue;
+        }
+        for (HostConnectionPool hostConnectionPool : domainRoutes.getAllConnectionPools()) {
+          if (hostConnectionPool == null) {
+            continue;
+          }
+          numHedgedRequests += hostConnectionPool.getAndClearNumHedgedRequests();
+          for (Map.Entry<Host, Double> entry : hostConnectionPool.getHostLatencyEwmasMs().entrySet()) {
+            PartitionServerAddress serverAddress = entry.getKey().getAddress();
+            Double totalLatencyMs = serverToTotalLatencyMs.get(serverAddress);
+            Integer numLatencies = serverToNumLatencies.get(serverAddress);
+            serverToTotalLatencyMs.put(serverAddress, (totalLatencyMs == null ? 0 : totalLatencyMs) + entry.getValue());
+            serverToNumLatencies.put(serverAddress, (numLatencies == null ? 0 : numLatencies) + 1);
+          }
+        }
+      }
+      for (Map.Entry<PartitionServerAddress, Double> entry : serverToTotalLatencyMs.entrySet()) {
+        LOG.info(getLogPrefix() + "Latency of queries to " + entry.getKey() + " (moving average): "
+            + FormatUtils.formatDouble(entry.getValue() / serverToNumLatencies.get(entry.getKey())) + "ms");
+      }
+      // Log get batching statistics
+      if (getBatcher != null) {
+        DoublePopulationStatisticsAggregator batchSizes = getBatcher.getAndResetBatchSizes();
+        DoublePopulationStatisticsAggregator queueingDelaysMs = getBatcher.getAndResetQueueingDelaysMs();
+        if (batchSizes.getNumValues() > 0) {
+          double[] batchSizeDeciles = batchSizes.computeDeciles();
+          LOG.info(getLogPrefix() + "Get batching: " + batchSizes.getNumValues() + " batches"
+              + ", batch size (mean / median / 90%): " + FormatUtils.formatDouble(batchSizes.getMean())
+              + " / " + FormatUtils.formatDouble(batchSizeDeciles[4])
+              + " / " + FormatUtils.formatDouble(batchSizeDeciles[8])
+              + ", added queueing delay (mean / median / 90%): " + queueingDelaysMs.format());
+        }
+      }
       // Restart timer
       long timerDurationMs = timer.getDurationMs();
       timer.restart();
       // Log requests counters
-      long[] requestsCounterValues = requestsCounters.getAsArrayAndSet(0, 0);
+      long[] requestsCounterValues = requestsCounters.getAsArrayAndSet(0, 0, 0);
       long numRequests = requestsCounterValues[0];
       long numCacheHits = requestsCounterValues[1];
+      long numCoalescedHits = requestsCounterValues[2];
       if (timerDurationMs != 0 && numRequests != 0) {
         double throughput = (double)numRequests / ((double)timerDurationMs / 1000d);
         double cacheHitRate = (double)numCacheHits / (double)numRequests;
+        double coalescedHitRate = (double)numCoalescedHits / (double)numRequests;
         LOG.info(getLogPrefix()
             + "Throughput: " + FormatUtils.formatDouble(throughput) + " queries/s"
             + ", client-side cache hit rate: " + FormatUtils.formatDouble(cacheHitRate * 100) + "%"
-            + ", cache: " + responseCache.size() + " items totaling " + FormatUtils.formatNumBytes(responseCache.getNumManagedBytes()));
+            + ", coalesced hit rate: " + FormatUtils.formatDouble(coalescedHitRate * 100) + "%"
+            + ", cache: " + responseCache.size() + " items totaling " + FormatUtils.formatNumBytes(responseCache.getNumManagedBytes())
+            + ", hedged requests: " + FormatUtils.formatDouble((double)numHedgedRequests / (double)numRequests * 100) + "%");
+      }
+      // Log latencies of gets that were not served by the cache
+      LatencyHistogram latencies = getLatencies.getAndReset();
+      if (latencies.getNumValues() > 0) {
+        LOG.info(getLogPrefix() + "GET latency (mean / median / 99% / 99.9% / max): "
+            + FormatUtils.formatDouble(latencies.getMeanMicros() / 1000d)
+            + " / " + FormatUtils.formatDouble(latencies.getValueAtPercentileMicros(50) / 1000d)
+            + " / " + FormatUtils.formatDouble(latencies.getValueAtPercentileMicros(99) / 1000d)
+            + " / " + FormatUtils.formatDouble(latencies.getValueAtPercentileMicros(99.9) / 1000d)
+            + " / " + FormatUtils.formatDouble(latencies.getMaximumMicros() / 1000d) + " ms");
       }
     }
 
@@ -29,6 +29,14 @@ public class HankSmartClientOptions {
   private long responseCacheNumBytesCapacity = 0;
   private int responseCacheNumItemsCapacity = 0;
   private long responseCacheExpirationSeconds = 0;
+  private boolean hedgedRequestsEnabled = false;
+  private double hedgedRequestsLatencyPercentile = 95;
+  private double hedgedRequestsMaxLoadRatio = 0.05;
+  private int hedgedRequestsMaxNumThreads = 64;
+  private ReplicaSelectionPolicy replicaSelectionPolicy = null;
+  private long getBatchingMaxDelayMicros = 0;
+  private int getBatchingMaxNumKeys = 64;
+  private boolean getCoalescingEnabled = false;
 
   public int getNumConnectionsPerHost() {
     return numConnectionsPerHost;
@@ -128,4 +136,83 @@ public class HankSmartClientOptions {
     this.responseCacheExpirationSeconds = responseCacheExpirationSeconds;
     return this;
   }
+
+  public boolean getHedgedRequestsEnabled() {
+    return hedgedRequestsEnabled;
+  }
+
+  // Send a second request to another replica when a get has not completed within a percentile of recent latency
+  public HankSmartClientOptions setHedgedRequestsEnabled(boolean hedgedRequestsEnabled) {
+    this.hedgedRequestsEnabled = hedgedRequestsEnabled;
+    return this;
+  }
+
+  public double getHedgedRequestsLatencyPercentile() {
+    return hedgedRequestsLatencyPercentile;
+  }
+
+  public HankSmartClientOptions setHedgedRequestsLatencyPercentile(double hedgedRequestsLatencyPercentile) {
+    this.hedgedRequestsLatencyPercentile = hedgedRequestsLatencyPercentile;
+    return this;
+  }
+
+  public double getHedgedRequestsMaxLoadRatio() {
+    return hedgedRequestsMaxLoadRatio;
+  }
+
+  // Maximum number of hedged requests, as a ratio of the number of gets
+  public HankSmartClientOptions setHedgedRequestsMaxLoadRatio(double hedgedRequestsMaxLoadRatio) {
+    this.hedgedRequestsMaxLoadRatio = hedgedRequestsMaxLoadRatio;
+    return this;
+  }
+
+  public int getHedgedRequestsMaxNumThreads() {
+    return hedgedRequestsMaxNumThreads;
+  }
+
+  // Maximum number of threads performing hedged gets. When they are all busy, gets are not hedged.
+  public HankSmartClientOptions setHedgedRequestsMaxNumThreads(int hedgedRequestsMaxNumThreads) {
+    this.hedgedRequestsMaxNumThreads = hedgedRequestsMaxNumThreads;
+    return this;
+  }
+
+  public ReplicaSelectionPolicy getReplicaSelectionPolicy() {
+    return replicaSelectionPolicy;
+  }
+
+  // Null means round robin
+  public HankSmartClientOptions setReplicaSelectionPolicy(ReplicaSelectionPolicy replicaSelectionPolicy) {
+    this.replicaSelectionPolicy = replicaSelectionPolicy;
+    return this;
+  }
+
+  public long getGetBatchingMaxDelayMicros() {
+    return getBatchingMaxDelayMicros;
+  }
+
+  // Coalesce concurrent gets to the same host and domain into bulk requests, waiting at most this long for
+  // a batch to fill up. 0 disables batching.
+  public HankSmartClientOptions setGetBatchingMaxDelayMicros(long getBatchingMaxDelayMicros) {
+    this.getBatchingMaxDelayMicros = getBatchingMaxDelayMicros;
+    return this;
+  }
+
+  public int getGetBatchingMaxNumKeys() {
+    return getBatchingMaxNumKeys;
+  }
+
+  public HankSmartClientOptions setGetBatchingMaxNumKeys(int getBatchingMaxNumKeys) {
+    this.getBatchingMaxNumKeys = getBatchingMaxNumKeys;
+    return this;
+  }
+
+  public boolean getGetCoalescingEnabled() {
+    return getCoalescingEnabled;
+  }
+
+  // Let concurrent gets for the same domain and key share a single request
+  public HankSmartClientOptions setGetCoalescingEnabled(boolean getCoalescingEnabled) {
+    this.getCoalescingEnabled = getCoalescingEnabled;
+    return this;
+  }
 }
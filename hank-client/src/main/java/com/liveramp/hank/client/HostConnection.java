@@ -108,13 +108,13 @@ public class HostConnection implements WatchedNodeListener<HostState> {
   }
 
   private boolean tryLockWithTimeout() {
-    // If configured timeout is 0, wait indefinitely
-    if (tryLockTimeoutMs == 0) {
-      lock();
-      return true;
-    }
-    // Otherwise, perform a lock with timeout. If interrupted, simply report that we failed to lock.
+    // If configured timeout is 0, wait indefinitely. Otherwise, perform a lock with timeout.
+    // If interrupted (for example when a hedged get is cancelled), simply report that we failed to lock.
     try {
+      if (tryLockTimeoutMs == 0) {
+        lock.lockInterruptibly();
+        return true;
+      }
       return lock.tryLock(tryLockTimeoutMs, TimeUnit.MILLISECONDS);
     } catch (InterruptedException e) {
       return false;
@@ -156,6 +156,16 @@ public class HostConnection implements WatchedNodeListener<HostState> {
   }
 
   public HankBulkResponse getBulk(int domainId, List<ByteBuffer> keys) throws IOException {
+    return getBulk(domainId, null, keys);
+  }
+
+  // Key i is looked up in domain i
+  public HankBulkResponse getMultiBulk(List<Integer> domainIds, List<ByteBuffer> keys) throws IOException {
+    return getBulk(-1, domainIds, keys);
+  }
+
+  // Look up all keys in the given domain, or each key in its own domain when domainIds is not null
+  private HankBulkResponse getBulk(int domainId, List<Integer> domainIds, List<ByteBuffer> keys) throws IOException {
     // Lock the connection only if needed
     if (!lock.isHeldByCurrentThread()) {
       // Try to lock within a given timeframe
@@ -176,7 +186,7 @@ public class HostConnection implements WatchedNodeListener<HostState> {
         // Set socket timeout to bulk mode
         setSocketTimeout(bulkQueryTimeoutMs);
         // Perform query
-        HankBulkResponse result = client.getBulk(domainId, keys);
+        HankBulkResponse result = domainIds == null ? client.getBulk(domainId, keys) : client.getMultiBulk(domainIds, keys);
         if (result.is_set_xception()) {
           throw new IOException("Server failed to execute GET BULK: " + result.get_xception());
         } else {
@@ -264,4 +274,9 @@ public class HostConnection implements WatchedNodeListener<HostState> {
   public boolean isLocked() {
     return lock.isLocked();
   }
+
+  // Number of queries being performed or waiting for this connection (estimate)
+  int getNumOutstandingRequests() {
+    return (lock.isLocked() ? 1 : 0) + lock.getQueueLength();
+  }
 }
@@ -27,6 +27,16 @@ import org.apache.log4j.Logger;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * HostConnectionPool manages a collection of connections to Hosts. For a given
@@ -60,6 +70,15 @@ import java.util.*;
  * case of failure, HostConnectionPool will re-attempt a given number of times,
  * each time determining a new connection to use as described earlier. (And
  * using a local Host iterator.)
+ * <p/>
+ * Optionally, gets can be hedged: when a get has not completed within a given
+ * percentile of recent latencies, a second request is sent to another host and
+ * the first successful response is used. The number of hedged requests is
+ * bounded by a ratio of the number of gets.
+ * <p/>
+ * The host that a query tries first can be changed with a ReplicaSelectionPolicy,
+ * for example to take load and latency into account. By default, hosts are used
+ * in round robin order (or according to the key's hash) as described above.
  */
 public class HostConnectionPool {
 
@@ -71,6 +90,25 @@ public class HostConnectionPool {
   private int globalPreviouslyUsedHostIndex;
   private final Random random = new Random();
 
+  // Hedged request tokens are counted in millionths of a token
+  private static final long HEDGED_REQUEST_TOKEN = 1000000;
+  // Maximum number of hedged requests that can be sent in a burst
+  private static final long MAX_NUM_HEDGED_REQUEST_TOKENS = 10 * HEDGED_REQUEST_TOKEN;
+  // Key hash of gets that have no host affinity
+  private static final int NO_KEY_HASH = -1;
+
+  private final LatencyTracker latencyTracker;
+  // Latencies are only measured when gets are hedged or when the replica selection policy uses them
+  private final boolean recordLatencies;
+  private final Executor hedgedRequestExecutor;
+  // Each get earns a fraction of a token, each hedged request spends a token
+  private final long hedgedRequestTokenIncrement;
+  private final AtomicLong numHedgedRequestTokens = new AtomicLong(0);
+  private final AtomicLong numHedgedRequests = new AtomicLong();
+
+  private final ReplicaSelectionPolicy replicaSelectionPolicy;
+  private final ReplicaSelectionPolicy.ReplicaStatistics replicaStatistics = new HostReplicaStatistics();
+
   private static final HankResponse NO_CONNECTION_AVAILABLE_RESPONSE
       = HankResponse.xception(HankException.no_connection_available(true));
   private static final HankBulkResponse NO_CONNECTION_AVAILABLE_BULK_RESPONSE
@@ -94,6 +132,17 @@ public class HostConnectionPool {
   }
 
   HostConnectionPool(Map<Host, List<HostConnection>> hostToConnectionsMap, Integer hostShuffleSeed) {
+    this(hostToConnectionsMap, hostShuffleSeed, null, 0, 0, null);
+  }
+
+  // Gets are hedged only when given an executor to run them. Hosts are used in round robin order when no
+  // replica selection policy is given.
+  HostConnectionPool(Map<Host, List<HostConnection>> hostToConnectionsMap,
+                     Integer hostShuffleSeed,
+                     Executor hedgedRequestExecutor,
+                     double hedgedRequestsLatencyPercentile,
+                     double hedgedRequestsMaxLoadRatio,
+                     ReplicaSelectionPolicy replicaSelectionPolicy) {
     if (hostToConnectionsMap.size() == 0) {
       throw new RuntimeException("HostConnectionPool must be initialized with a non empty collection of connections.");
     }
@@ -125,9 +174,25 @@ public class HostConnectionPool {
     // Previously used host is randomized so that different connection pools start querying
     // different hosts.
     globalPreviouslyUsedHostIndex = random.nextInt(hostToConnections.size());
+
+    this.latencyTracker = new LatencyTracker(hostToConnections.size(), hedgedRequestsLatencyPercentile);
+    this.hedgedRequestExecutor = hedgedRequestExecutor;
+    this.hedgedRequestTokenIncrement = (long)(hedgedRequestsMaxLoadRatio * HEDGED_REQUEST_TOKEN);
+    this.replicaSelectionPolicy = replicaSelectionPolicy == null
+        ? new RoundRobinReplicaSelectionPolicy() : replicaSelectionPolicy;
+    this.recordLatencies = hedgedRequestExecutor != null || this.replicaSelectionPolicy.usesLatencies();
   }
 
   static HostConnectionPool createFromList(Collection<HostConnection> connections, Integer hostShuffleSeed) {
+    return createFromList(connections, hostShuffleSeed, null, 0, 0, null);
+  }
+
+  static HostConnectionPool createFromList(Collection<HostConnection> connections,
+                                           Integer hostShuffleSeed,
+                                           Executor hedgedRequestExecutor,
+                                           double hedgedRequestsLatencyPercentile,
+                                           double hedgedRequestsMaxLoadRatio,
+                                           ReplicaSelectionPolicy replicaSelectionPolicy) {
     Map<Host, List<HostConnection>> hostToConnectionsMap = new HashMap<Host, List<HostConnection>>();
     for (HostConnection connection : connections) {
       List<HostConnection> connectionList = hostToConnectionsMap.get(connection.getHost());
@@ -137,7 +202,8 @@ public class HostConnectionPool {
       }
       connectionList.add(connection);
     }
-    return new HostConnectionPool(hostToConnectionsMap, hostShuffleSeed);
+    return new HostConnectionPool(hostToConnectionsMap, hostShuffleSeed,
+        hedgedRequestExecutor, hedgedRequestsLatencyPercentile, hedgedRequestsMaxLoadRatio, replicaSelectionPolicy);
   }
 
   Collection<HostConnection> getConnections() {
@@ -152,7 +218,9 @@ public class HostConnectionPool {
 
   // Return a connection to a host, initially skipping the previously used host
   private synchronized HostConnectionAndHostIndex getConnectionToUse() {
-    HostConnectionAndHostIndex result = getNextConnectionToUse(globalPreviouslyUsedHostIndex);
+    int hostIndexToTry = replicaSelectionPolicy.getHostIndexToTry(replicaStatistics,
+        getNextHostIndexToUse(globalPreviouslyUsedHostIndex), false);
+    HostConnectionAndHostIndex result = getNextConnectionToUse(getPreviousHostIndex(hostIndexToTry));
     if (result != null) {
       globalPreviouslyUsedHostIndex = result.hostIndex;
     }
@@ -162,7 +230,9 @@ public class HostConnectionPool {
   // Attempt to find a connection for that key where it is likely to be in the cache if it was queried
   // recently. (Globally random, but deterministic on the key.)
   private HostConnectionAndHostIndex getConnectionToUseForKey(int keyHash) {
-    return getNextConnectionToUse(keyHash % hostToConnections.size());
+    int hostIndexToTry = replicaSelectionPolicy.getHostIndexToTry(replicaStatistics,
+        getNextHostIndexToUse(keyHash % hostToConnections.size()), true);
+    return getNextConnectionToUse(getPreviousHostIndex(hostIndexToTry));
   }
 
   // Return a connection to an arbitrary host, initially skipping the supplied host (likely because there was
@@ -226,6 +296,48 @@ public class HostConnectionPool {
     return null;
   }
 
+  // Return the host that the next query should be sent to, preferring serving hosts and rotating between them.
+  // Offline hosts are returned opportunistically when no host is serving. Return null if no host is available.
+  synchronized Host getHostToUse() {
+    return getHostToUse(null);
+  }
+
+  // When given a key hash, prefer the host that gets for that key would use
+  synchronized Host getHostToUse(Integer keyHash) {
+    int defaultHostIndex = keyHash == null
+        ? getNextHostIndexToUse(globalPreviouslyUsedHostIndex)
+        : getNextHostIndexToUse(keyHash % hostToConnections.size());
+    int hostIndex = getPreviousHostIndex(replicaSelectionPolicy.getHostIndexToTry(replicaStatistics,
+        defaultHostIndex, keyHash != null));
+    for (int tryId = 0; tryId < hostToConnections.size(); ++tryId) {
+      hostIndex = getNextHostIndexToUse(hostIndex);
+      HostConnection hostConnection = hostToConnections.get(hostIndex).get(0).hostConnection;
+      if (hostConnection.isServing()) {
+        if (keyHash == null) {
+          globalPreviouslyUsedHostIndex = hostIndex;
+        }
+        return hostConnection.getHost();
+      }
+    }
+    for (List<HostConnectionAndHostIndex> connectionAndHostList : hostToConnections) {
+      HostConnection hostConnection = connectionAndHostList.get(0).hostConnection;
+      if (hostConnection.isOffline()) {
+        return hostConnection.getHost();
+      }
+    }
+    return null;
+  }
+
+  private int getHostIndex(Host host) {
+    for (List<HostConnectionAndHostIndex> connectionAndHostList : hostToConnections) {
+      HostConnectionAndHostIndex connectionAndHostIndex = connectionAndHostList.get(0);
+      if (connectionAndHostIndex.hostConnection.getHost().equals(host)) {
+        return connectionAndHostIndex.hostIndex;
+      }
+    }
+    return -1;
+  }
+
   private int getNextHostIndexToUse(int previouslyUsedHostIndex) {
     if (previouslyUsedHostIndex >= (hostToConnections.size() - 1)) {
       return 0;
@@ -234,15 +346,148 @@ public class HostConnectionPool {
     }
   }
 
+  private int getPreviousHostIndex(int hostIndex) {
+    if (hostIndex <= 0) {
+      return hostToConnections.size() - 1;
+    } else {
+      return hostIndex - 1;
+    }
+  }
+
   public HankResponse get(Domain domain, ByteBuffer key, int maxNumTries, Integer keyHash) {
+    return get(domain, key, maxNumTries, keyHash == null ? NO_KEY_HASH : keyHash.intValue());
+  }
+
+  // A negative key hash means that the get has no host affinity
+  public HankResponse get(Domain domain, ByteBuffer key, int maxNumTries, int keyHash) {
+    if (hedgedRequestExecutor != null && hostToConnections.size() > 1) {
+      long hedgeDelayNanos = latencyTracker.getPercentileLatencyNanos();
+      if (hedgeDelayNanos >= 0) {
+        return getHedged(domain, key, maxNumTries, keyHash, hedgeDelayNanos);
+      }
+    }
+    return get(domain, key, maxNumTries, keyHash, -1, null);
+  }
+
+  // Run the get on the hedged request executor. If it has not completed after the given delay, send a second
+  // request to another host, and use the first successful response. The other request is then cancelled.
+  // When the executor has no thread available, the get is performed without hedging.
+  private HankResponse getHedged(final Domain domain,
+                                 final ByteBuffer key,
+                                 final int maxNumTries,
+                                 final int keyHash,
+                                 long hedgeDelayNanos) {
+    CompletionService<HankResponse> completionService = new ExecutorCompletionService<HankResponse>(hedgedRequestExecutor);
+    final AtomicInteger usedHostIndex = new AtomicInteger(-1);
+    Future<HankResponse> request;
+    try {
+      request = completionService.submit(new Callable<HankResponse>() {
+        @Override
+        public HankResponse call() {
+          return get(domain, key, maxNumTries, keyHash, -1, usedHostIndex);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      return get(domain, key, maxNumTries, keyHash, -1, null);
+    }
+    Future<HankResponse> hedgedRequest = null;
+    int numOutstandingRequests = 1;
+    try {
+      Future<HankResponse> completed = completionService.poll(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+      if (completed == null && tryAcquireHedgedRequestToken()) {
+        final int hostToSkipIndex = usedHostIndex.get();
+        try {
+          hedgedRequest = completionService.submit(new Callable<HankResponse>() {
+            @Override
+            public HankResponse call() {
+              return get(domain, key, 1, keyHash, hostToSkipIndex, null);
+            }
+          });
+          numHedgedRequests.incrementAndGet();
+          ++numOutstandingRequests;
+        } catch (RejectedExecutionException e) {
+          // No thread is available for the hedged request, keep waiting for the first one
+        }
+      }
+      while (true) {
+        if (completed == null) {
+          completed = completionService.take();
+        }
+        --numOutstandingRequests;
+        HankResponse response = getResponse(completed);
+        // Wait for the other request if this one failed
+        if (!response.is_set_xception() || numOutstandingRequests == 0) {
+          return response;
+        }
+        completed = null;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return HankResponse.xception(HankException.internal_error("Interrupted while waiting for get"));
+    } finally {
+      // Release the thread and connection of the request that lost, if it is still running
+      request.cancel(true);
+      if (hedgedRequest != null) {
+        hedgedRequest.cancel(true);
+      }
+    }
+  }
+
+  private static HankResponse getResponse(Future<HankResponse> future) throws InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      LOG.error("Failed to perform get", e);
+      return HankResponse.xception(HankException.internal_error("Failed to perform get: " + e.getMessage()));
+    }
+  }
+
+  private boolean tryAcquireHedgedRequestToken() {
+    while (true) {
+      long numTokens = numHedgedRequestTokens.get();
+      if (numTokens < HEDGED_REQUEST_TOKEN) {
+        return false;
+      }
+      if (numHedgedRequestTokens.compareAndSet(numTokens, numTokens - HEDGED_REQUEST_TOKEN)) {
+        return true;
+      }
+    }
+  }
+
+  // Does not write when the bucket is full, which is the common case when few gets are hedged
+  private void addHedgedRequestToken() {
+    while (true) {
+      long numTokens = numHedgedRequestTokens.get();
+      if (numTokens >= MAX_NUM_HEDGED_REQUEST_TOKENS) {
+        return;
+      }
+      long newNumTokens = Math.min(MAX_NUM_HEDGED_REQUEST_TOKENS, numTokens + hedgedRequestTokenIncrement);
+      if (numHedgedRequestTokens.compareAndSet(numTokens, newNumTokens)) {
+        return;
+      }
+    }
+  }
+
+  // Initially skip the host with the given index, if any. Report the host used in usedHostIndex, if given.
+  private HankResponse get(Domain domain,
+                           ByteBuffer key,
+                           int maxNumTries,
+                           int keyHash,
+                           int hostToSkipIndex,
+                           AtomicInteger usedHostIndex) {
     int domainId = domain.getId();
     HostConnectionAndHostIndex connectionAndHostIndex = null;
     int numTries = 0;
+    if (hedgedRequestExecutor != null && hostToSkipIndex < 0) {
+      addHedgedRequestToken();
+    }
     while (true) {
       // Either get a connection to an arbitrary host, or get a connection skipping the
       // previous host used (since it failed)
       if (connectionAndHostIndex == null) {
-        if (keyHash == null) {
+        if (hostToSkipIndex >= 0) {
+          connectionAndHostIndex = getNextConnectionToUse(hostToSkipIndex);
+        } else if (keyHash < 0) {
           connectionAndHostIndex = getConnectionToUse();
         } else {
           connectionAndHostIndex = getConnectionToUseForKey(keyHash);
@@ -255,13 +500,26 @@ public class HostConnectionPool {
         LOG.error("No connection is available. Giving up. Domain = " + domain.getName() + ", Key=" + BytesUtils.bytesToHexString(key));
         return NO_CONNECTION_AVAILABLE_RESPONSE;
       } else {
+        if (usedHostIndex != null) {
+          usedHostIndex.set(connectionAndHostIndex.hostIndex);
+        }
         // Perform query
         try {
-          return connectionAndHostIndex.hostConnection.get(domainId, key);
+          if (!recordLatencies) {
+            return connectionAndHostIndex.hostConnection.get(domainId, key);
+          }
+          long startNanos = System.nanoTime();
+          HankResponse response = connectionAndHostIndex.hostConnection.get(domainId, key);
+          long endNanos = System.nanoTime();
+          latencyTracker.record(connectionAndHostIndex.hostIndex, endNanos - startNanos, endNanos);
+          return response;
         } catch (IOException e) {
           // In case of error, keep count of the number of times we retry
           ++numTries;
-          if (numTries < maxNumTries) {
+          if (Thread.currentThread().isInterrupted()) {
+            // Cancelled, for example because a hedged request completed first. Do not use another connection.
+            return HankResponse.xception(HankException.internal_error("Interrupted while performing get"));
+          } else if (numTries < maxNumTries) {
             // Simply log the error and retry
             LOG.error("Failed to perform query with host: "
                 + connectionAndHostIndex.hostConnection.getHost().getAddress()
@@ -283,13 +541,36 @@ public class HostConnectionPool {
   }
 
   public HankBulkResponse getBulk(int domainId, List<ByteBuffer> keys, int maxNumTries) {
+    return getBulk(domainId, keys, maxNumTries, null);
+  }
+
+  // Initially skip the given host, if any (likely because a query to it just failed)
+  public HankBulkResponse getBulk(int domainId, List<ByteBuffer> keys, int maxNumTries, Host hostToSkip) {
+    return getBulk(domainId, null, keys, maxNumTries, hostToSkip);
+  }
+
+  // Key i is looked up in domain i
+  public HankBulkResponse getMultiBulk(List<Integer> domainIds, List<ByteBuffer> keys, int maxNumTries, Host hostToSkip) {
+    return getBulk(-1, domainIds, keys, maxNumTries, hostToSkip);
+  }
+
+  private HankBulkResponse getBulk(int domainId,
+                                   List<Integer> domainIds,
+                                   List<ByteBuffer> keys,
+                                   int maxNumTries,
+                                   Host hostToSkip) {
     HostConnectionAndHostIndex connectionAndHostIndex = null;
+    int hostToSkipIndex = hostToSkip == null ? -1 : getHostIndex(hostToSkip);
     int numTries = 0;
     while (true) {
       // Either get a connection to an arbitrary host, or get a connection skipping the
       // previous host used (since it failed)
       if (connectionAndHostIndex == null) {
-        connectionAndHostIndex = getConnectionToUse();
+        if (hostToSkipIndex < 0) {
+          connectionAndHostIndex = getConnectionToUse();
+        } else {
+          connectionAndHostIndex = getNextConnectionToUse(hostToSkipIndex);
+        }
       } else {
         connectionAndHostIndex = getNextConnectionToUse(connectionAndHostIndex.hostIndex);
       }
@@ -300,7 +581,11 @@ public class HostConnectionPool {
       } else {
         // Perform query
         try {
-          return connectionAndHostIndex.hostConnection.getBulk(domainId, keys);
+          if (domainIds == null) {
+            return connectionAndHostIndex.hostConnection.getBulk(domainId, keys);
+          } else {
+            return connectionAndHostIndex.hostConnection.getMultiBulk(domainIds, keys);
+          }
         } catch (IOException e) {
           // In case of error, keep count of the number of times we retry
           ++numTries;
@@ -321,6 +606,52 @@ public class HostConnectionPool {
     }
   }
 
+  private class HostReplicaStatistics implements ReplicaSelectionPolicy.ReplicaStatistics {
+
+    @Override
+    public int getNumHosts() {
+      return hostToConnections.size();
+    }
+
+    @Override
+    public boolean isServing(int hostIndex) {
+      return hostToConnections.get(hostIndex).get(0).hostConnection.isServing();
+    }
+
+    @Override
+    public int getNumOutstandingRequests(int hostIndex) {
+      int result = 0;
+      for (HostConnectionAndHostIndex connectionAndHostIndex : hostToConnections.get(hostIndex)) {
+        result += connectionAndHostIndex.hostConnection.getNumOutstandingRequests();
+      }
+      return result;
+    }
+
+    @Override
+    public double getLatencyEwmaMs(int hostIndex) {
+      return latencyTracker.getHostLatencyEwmaMs(hostIndex);
+    }
+  }
+
+  // Return the average latency of queries to each host, for hosts that have been queried. Latencies are only
+  // measured when gets are hedged or when the replica selection policy uses them.
+  public Map<Host, Double> getHostLatencyEwmasMs() {
+    Map<Host, Double> result = new HashMap<Host, Double>();
+    for (List<HostConnectionAndHostIndex> connectionAndHostList : hostToConnections) {
+      HostConnectionAndHostIndex connectionAndHostIndex = connectionAndHostList.get(0);
+      double latencyEwmaMs = latencyTracker.getHostLatencyEwmaMs(connectionAndHostIndex.hostIndex);
+      if (latencyEwmaMs >= 0) {
+        result.put(connectionAndHostIndex.hostConnection.getHost(), latencyEwmaMs);
+      }
+    }
+    return result;
+  }
+
+  // Return the number of hedged requests sent since the last call
+  public long getAndClearNumHedgedRequests() {
+    return numHedgedRequests.getAndSet(0);
+  }
+
   public static Integer getHostListShuffleSeed(Integer domainId, Integer partitionId) {
     return (domainId + 1) * (partitionId + 1);
   }
@@ -0,0 +1,142 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.liveramp.hank.client;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recent query latencies of a HostConnectionPool: an exponentially weighted moving average per host, and a
+ * given percentile of the latest samples across all hosts. The percentile is only recomputed periodically.
+ * <p/>
+ * Samples are recorded on the query path, so no lock is taken: moving averages are updated with compare and
+ * set, and the percentile is recomputed by a single recording thread at a time while others move on.
+ * <p/>
+ * A host is only measured when it is queried, so a host that looked slow could otherwise be avoided forever.
+ * The moving average of a host that has not been measured recently decays toward the mean of the other hosts,
+ * and its next sample mostly replaces it.
+ */
+class LatencyTracker {
+
+  private static final double EWMA_ALPHA = 0.1;
+  private static final int NUM_SAMPLES = 256;
+  private static final int NUM_SAMPLES_PER_PERCENTILE_UPDATE = 32;
+  // Time after which half of the weight of a host's moving average has decayed
+  private static final long EWMA_HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final double percentile;
+  // Raw bits of each host's moving average, negative until the host has been measured
+  private final AtomicLongArray hostLatencyEwmaMsBits;
+  private final AtomicLongArray hostLastSampleNanos;
+  private final AtomicLongArray samplesNanos = new AtomicLongArray(NUM_SAMPLES);
+  private final AtomicLong numSamples = new AtomicLong(0);
+  // Set while a thread recomputes the percentile, which owns sortedSamplesNanos until then
+  private final AtomicBoolean updatingPercentile = new AtomicBoolean(false);
+  private final long[] sortedSamplesNanos = new long[NUM_SAMPLES];
+  // Negative until enough samples have been recorded
+  private volatile long percentileLatencyNanos = -1;
+
+  LatencyTracker(int numHosts, double percentile) {
+    this.percentile = Math.max(0, Math.min(100, percentile));
+    this.hostLatencyEwmaMsBits = new AtomicLongArray(numHosts);
+    this.hostLastSampleNanos = new AtomicLongArray(numHosts);
+    for (int i = 0; i < numHosts; ++i) {
+      hostLatencyEwmaMsBits.set(i, Double.doubleToRawLongBits(-1));
+    }
+  }
+
+  void record(int hostIndex, long latencyNanos) {
+    record(hostIndex, latencyNanos, System.nanoTime());
+  }
+
+  void record(int hostIndex, long latencyNanos, long nowNanos) {
+    double latencyMs = latencyNanos / 1000000d;
+    double weight = getDecayWeight(hostLastSampleNanos.getAndSet(hostIndex, nowNanos), nowNanos);
+    while (true) {
+      long ewmaMsBits = hostLatencyEwmaMsBits.get(hostIndex);
+      double ewmaMs = Double.longBitsToDouble(ewmaMsBits);
+      double newEwmaMs;
+      if (ewmaMs < 0) {
+        newEwmaMs = latencyMs;
+      } else {
+        // A stale average weighs less against the new sample
+        ewmaMs = weight * ewmaMs + (1 - weight) * latencyMs;
+        newEwmaMs = ewmaMs + EWMA_ALPHA * (latencyMs - ewmaMs);
+      }
+      if (hostLatencyEwmaMsBits.compareAndSet(hostIndex, ewmaMsBits, Double.doubleToRawLongBits(newEwmaMs))) {
+        break;
+      }
+    }
+    long numRecordedSamples = numSamples.incrementAndGet();
+    samplesNanos.lazySet((int)((numRecordedSamples - 1) % NUM_SAMPLES), latencyNanos);
+    if (numRecordedSamples >= NUM_SAMPLES && numRecordedSamples % NUM_SAMPLES_PER_PERCENTILE_UPDATE == 0
+        && updatingPercentile.compareAndSet(false, true)) {
+      try {
+        for (int i = 0; i < NUM_SAMPLES; ++i) {
+          sortedSamplesNanos[i] = samplesNanos.get(i);
+        }
+        Arrays.sort(sortedSamplesNanos);
+        int index = (int)Math.ceil(percentile / 100d * NUM_SAMPLES) - 1;
+        percentileLatencyNanos = sortedSamplesNanos[Math.max(0, Math.min(NUM_SAMPLES - 1, index))];
+      } finally {
+        updatingPercentile.set(false);
+      }
+    }
+  }
+
+  // Return a negative value if not enough samples have been recorded yet
+  long getPercentileLatencyNanos() {
+    return percentileLatencyNanos;
+  }
+
+  // Return a negative value if no sample has been recorded for that host
+  double getHostLatencyEwmaMs(int hostIndex) {
+    return getHostLatencyEwmaMs(hostIndex, System.nanoTime());
+  }
+
+  double getHostLatencyEwmaMs(int hostIndex, long nowNanos) {
+    double ewmaMs = Double.longBitsToDouble(hostLatencyEwmaMsBits.get(hostIndex));
+    if (ewmaMs < 0) {
+      return ewmaMs;
+    }
+    // Decay toward the mean of the other hosts that have been measured
+    double totalOtherEwmaMs = 0;
+    int numOtherHosts = 0;
+    for (int i = 0; i < hostLatencyEwmaMsBits.length(); ++i) {
+      double otherEwmaMs = Double.longBitsToDouble(hostLatencyEwmaMsBits.get(i));
+      if (i != hostIndex && otherEwmaMs >= 0) {
+        totalOtherEwmaMs += otherEwmaMs;
+        ++numOtherHosts;
+      }
+    }
+    if (numOtherHosts == 0) {
+      return ewmaMs;
+    }
+    double weight = getDecayWeight(hostLastSampleNanos.get(hostIndex), nowNanos);
+    return weight * ewmaMs + (1 - weight) * (totalOtherEwmaMs / numOtherHosts);
+  }
+
+  private static double getDecayWeight(long lastSampleNanos, long nowNanos) {
+    long ageNanos = nowNanos - lastSampleNanos;
+    if (ageNanos <= 0) {
+      return 1;
+    }
+    return Math.pow(0.5, (double)ageNanos / EWMA_HALF_LIFE_NANOS);
+  }
+}
@@ -41,6 +41,18 @@ public class MockHankSmartClient implements HankSmartClientIface {
     return HankBulkResponse.responses(responses);
   }
 
+  @Override
+  public HankBulkResponse getMultiBulk(List<String> domainNames, List<ByteBuffer> keys) {
+    if (domainNames.size() != keys.size()) {
+      return HankBulkResponse.xception(HankException.internal_error("Number of domains and keys do not match"));
+    }
+    List<HankResponse> responses = new ArrayList<HankResponse>(keys.size());
+    for (int i = 0; i < keys.size(); ++i) {
+      responses.add(get(domainNames.get(i), keys.get(i)));
+    }
+    return HankBulkResponse.responses(responses);
+  }
+
   private class GetTaskRunnable implements GetTaskRunnableIface {
 
     private final String domain;
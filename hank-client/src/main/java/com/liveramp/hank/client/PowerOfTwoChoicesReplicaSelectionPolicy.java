@@ -0,0 +1,126 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.client;
+
+import java.util.Random;
+
+/**
+ * Pick two serving hosts at random and try the one with the lowest cost first. The cost is either the number of
+ * outstanding requests, or the number of outstanding requests weighted by the average latency of the host.
+ * <p/>
+ * Key affine gets keep using the default host, to benefit from its cache, unless its average latency is
+ * measurably higher than that of the fastest serving host. Latencies of hosts that are not queried decay toward
+ * those of the other hosts, so that a host that was briefly slow is eventually tried again.
+ */
+public class PowerOfTwoChoicesReplicaSelectionPolicy implements ReplicaSelectionPolicy {
+
+  public static enum Cost {
+    OUTSTANDING_REQUESTS,
+    LATENCY_WEIGHTED_OUTSTANDING_REQUESTS
+  }
+
+  // A host is measurably slower when its average latency is above this ratio of the fastest host's
+  private static final double DEFAULT_SLOW_HOST_LATENCY_RATIO = 2.0;
+
+  private final Cost cost;
+  private final double slowHostLatencyRatio;
+  // Per thread, so that concurrent gets do not contend on a shared seed
+  private final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+    @Override
+    protected Random initialValue() {
+      return new Random();
+    }
+  };
+
+  public PowerOfTwoChoicesReplicaSelectionPolicy() {
+    this(Cost.LATENCY_WEIGHTED_OUTSTANDING_REQUESTS);
+  }
+
+  public PowerOfTwoChoicesReplicaSelectionPolicy(Cost cost) {
+    this(cost, DEFAULT_SLOW_HOST_LATENCY_RATIO);
+  }
+
+  public PowerOfTwoChoicesReplicaSelectionPolicy(Cost cost, double slowHostLatencyRatio) {
+    this.cost = cost;
+    this.slowHostLatencyRatio = slowHostLatencyRatio;
+  }
+
+  @Override
+  public int getHostIndexToTry(ReplicaStatistics replicas, int defaultHostIndex, boolean keyAffine) {
+    int numHosts = replicas.getNumHosts();
+    if (numHosts < 2) {
+      return defaultHostIndex;
+    }
+    if (keyAffine && !isSlowerThanFastestHost(replicas, defaultHostIndex)) {
+      return defaultHostIndex;
+    }
+    // Pick two distinct hosts at random
+    Random random = this.random.get();
+    int first = random.nextInt(numHosts);
+    int second = random.nextInt(numHosts - 1);
+    if (second >= first) {
+      ++second;
+    }
+    boolean firstServing = replicas.isServing(first);
+    boolean secondServing = replicas.isServing(second);
+    if (!firstServing && !secondServing) {
+      return defaultHostIndex;
+    } else if (!firstServing) {
+      return second;
+    } else if (!secondServing) {
+      return first;
+    }
+    return getCost(replicas, second) < getCost(replicas, first) ? second : first;
+  }
+
+  // Key affine gets compare latencies whatever the cost
+  @Override
+  public boolean usesLatencies() {
+    return true;
+  }
+
+  private double getCost(ReplicaStatistics replicas, int hostIndex) {
+    int numOutstandingRequests = replicas.getNumOutstandingRequests(hostIndex);
+    switch (cost) {
+      case LATENCY_WEIGHTED_OUTSTANDING_REQUESTS:
+        double latencyEwmaMs = replicas.getLatencyEwmaMs(hostIndex);
+        // Hosts without measurements are tried, so that they get measured
+        if (latencyEwmaMs < 0) {
+          return 0;
+        }
+        return (numOutstandingRequests + 1) * latencyEwmaMs;
+      default:
+        return numOutstandingRequests;
+    }
+  }
+
+  private boolean isSlowerThanFastestHost(ReplicaStatistics replicas, int hostIndex) {
+    double latencyEwmaMs = replicas.getLatencyEwmaMs(hostIndex);
+    if (latencyEwmaMs < 0) {
+      return false;
+    }
+    double fastestLatencyEwmaMs = -1;
+    for (int i = 0; i < replicas.getNumHosts(); ++i) {
+      double otherLatencyEwmaMs = replicas.getLatencyEwmaMs(i);
+      if (i != hostIndex && otherLatencyEwmaMs >= 0 && replicas.isServing(i)
+          && (fastestLatencyEwmaMs < 0 || otherLatencyEwmaMs < fastestLatencyEwmaMs)) {
+        fastestLatencyEwmaMs = otherLatencyEwmaMs;
+      }
+    }
+    return fastestLatencyEwmaMs >= 0 && latencyEwmaMs > slowHostLatencyRatio * fastestLatencyEwmaMs;
+  }
+}
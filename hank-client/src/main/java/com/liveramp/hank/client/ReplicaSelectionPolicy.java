@@ -0,0 +1,47 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.client;
+
+/**
+ * Chooses which replica (host) of a partition a HostConnectionPool tries first. If the host is not available,
+ * or when retrying after a failure, the pool moves on to the next hosts in order.
+ */
+public interface ReplicaSelectionPolicy {
+
+  /**
+   * Current state of the hosts of a HostConnectionPool, indexed from 0 to getNumHosts() - 1.
+   */
+  public interface ReplicaStatistics {
+
+    public int getNumHosts();
+
+    public boolean isServing(int hostIndex);
+
+    // Queries currently performed by or waiting for connections to that host, across all partitions
+    public int getNumOutstandingRequests(int hostIndex);
+
+    // Moving average of query latency to that host, or a negative value if unknown
+    public double getLatencyEwmaMs(int hostIndex);
+  }
+
+  // The default host is the next host in round robin order or, for key affine gets, the host chosen from the key's
+  // hash (so that the key is likely to be in that host's cache).
+  public int getHostIndexToTry(ReplicaStatistics replicas, int defaultHostIndex, boolean keyAffine);
+
+  // Whether the policy reads latencies. They are only measured when needed, since every query records them.
+  public boolean usesLatencies();
+}
@@ -0,0 +1,144 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.client;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.liveramp.hank.coordinator.Domain;
+import com.liveramp.hank.coordinator.HostAddress;
+import com.liveramp.hank.coordinator.PartitionServerAddress;
+import com.liveramp.hank.partitioner.HashPartitioner;
+import com.liveramp.hank.partitioner.Partitioner;
+
+/**
+ * Immutable snapshot of the smart client's connection cache. It is rebuilt on every cache update and published
+ * as a whole, so that gets can route keys without locking and with array lookups only.
+ */
+class RoutingTable {
+
+  static final RoutingTable EMPTY = new RoutingTable(
+      Collections.<HostAddress, HostConnectionPool>emptyMap(),
+      Collections.<Integer, Domain>emptyMap(),
+      Collections.<Integer, Map<Integer, HostConnectionPool>>emptyMap());
+
+  private final Map<HostAddress, HostConnectionPool> partitionServerAddressToConnectionPool;
+  // Same connection pools as partitionServerAddressToConnectionPool, used to send bulk requests to a given host
+  private final Map<PartitionServerAddress, HostConnectionPool> serverAddressToConnectionPool;
+  private final Map<String, Domain> domainNameToDomain;
+  // Indexed by domain id, null for domains that are not served
+  private final DomainRoutes[] domainIdToRoutes;
+
+  RoutingTable(Map<HostAddress, HostConnectionPool> partitionServerAddressToConnectionPool,
+               Map<Integer, Domain> domainIdToDomain,
+               Map<Integer, Map<Integer, HostConnectionPool>> domainToPartitionToConnectionPool) {
+    this.partitionServerAddressToConnectionPool = partitionServerAddressToConnectionPool;
+    this.serverAddressToConnectionPool = new HashMap<PartitionServerAddress, HostConnectionPool>();
+    for (Map.Entry<HostAddress, HostConnectionPool> entry : partitionServerAddressToConnectionPool.entrySet()) {
+      serverAddressToConnectionPool.put(entry.getKey().getPartitionServerAddress(), entry.getValue());
+    }
+    this.domainNameToDomain = new HashMap<String, Domain>();
+    int maxDomainId = -1;
+    for (Domain domain : domainIdToDomain.values()) {
+      domainNameToDomain.put(domain.getName(), domain);
+      maxDomainId = Math.max(maxDomainId, domain.getId());
+    }
+    this.domainIdToRoutes = new DomainRoutes[maxDomainId + 1];
+    for (Map.Entry<Integer, Map<Integer, HostConnectionPool>> entry : domainToPartitionToConnectionPool.entrySet()) {
+      Domain domain = domainIdToDomain.get(entry.getKey());
+      domainIdToRoutes[domain.getId()] = new DomainRoutes(domain, entry.getValue());
+    }
+  }
+
+  Map<HostAddress, HostConnectionPool> getPartitionServerAddressToConnectionPool() {
+    return partitionServerAddressToConnectionPool;
+  }
+
+  HostConnectionPool getConnectionPool(PartitionServerAddress address) {
+    return serverAddressToConnectionPool.get(address);
+  }
+
+  // Return null if the domain is not served by any host
+  Domain getDomain(String domainName) {
+    return domainNameToDomain.get(domainName);
+  }
+
+  // Return null if the domain is not served by any host
+  DomainRoutes getDomainRoutes(int domainId) {
+    if (domainId < 0 || domainId >= domainIdToRoutes.length) {
+      return null;
+    }
+    return domainIdToRoutes[domainId];
+  }
+
+  DomainRoutes[] getAllDomainRoutes() {
+    return domainIdToRoutes;
+  }
+
+  static class DomainRoutes {
+
+    private final Partitioner partitioner;
+    // Null when the partitioner does not expose the hash it partitions with
+    private final HashPartitioner hashPartitioner;
+    private final int numPartitions;
+    // Indexed by partition number, null for partitions that are not served
+    private final HostConnectionPool[] partitionToConnectionPool;
+
+    private DomainRoutes(Domain domain, Map<Integer, HostConnectionPool> partitionToConnectionPool) {
+      this.partitioner = domain.getPartitioner();
+      this.hashPartitioner = partitioner instanceof HashPartitioner ? (HashPartitioner)partitioner : null;
+      this.numPartitions = domain.getNumParts();
+      this.partitionToConnectionPool = new HostConnectionPool[numPartitions];
+      for (Map.Entry<Integer, HostConnectionPool> entry : partitionToConnectionPool.entrySet()) {
+        if (entry.getKey() >= 0 && entry.getKey() < numPartitions) {
+          this.partitionToConnectionPool[entry.getKey()] = entry.getValue();
+        }
+      }
+    }
+
+    // Hash of the key that both its partition and its host affinity are derived from
+    int hash(ByteBuffer key) {
+      if (hashPartitioner != null) {
+        return hashPartitioner.hash(key);
+      } else {
+        return partitioner.partition(key, Integer.MAX_VALUE);
+      }
+    }
+
+    int getPartition(ByteBuffer key, int hash) {
+      if (hashPartitioner != null) {
+        return hash % numPartitions;
+      } else {
+        return partitioner.partition(key, numPartitions);
+      }
+    }
+
+    // Return null if the partition is not served by any host
+    HostConnectionPool getConnectionPool(int partition) {
+      if (partition < 0 || partition >= partitionToConnectionPool.length) {
+        return null;
+      }
+      return partitionToConnectionPool[partition];
+    }
+
+    HostConnectionPool[] getAllConnectionPools() {
+      return partitionToConnectionPool;
+    }
+  }
+}
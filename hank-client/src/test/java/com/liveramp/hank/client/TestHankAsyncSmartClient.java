@@ -0,0 +1,355 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.server.THsHaServer;
+import org.apache.thrift.server.TServer;
+import org.apache.thrift.transport.TNonblockingServerSocket;
+import org.apache.thrift.transport.TNonblockingServerTransport;
+import org.junit.Test;
+
+import com.liveramp.hank.coordinator.Coordinator;
+import com.liveramp.hank.coordinator.Domain;
+import com.liveramp.hank.coordinator.Host;
+import com.liveramp.hank.coordinator.HostDomain;
+import com.liveramp.hank.coordinator.HostDomainPartition;
+import com.liveramp.hank.coordinator.HostState;
+import com.liveramp.hank.coordinator.PartitionServerAddress;
+import com.liveramp.hank.coordinator.Ring;
+import com.liveramp.hank.coordinator.RingGroup;
+import com.liveramp.hank.coordinator.mock.MockCoordinator;
+import com.liveramp.hank.coordinator.mock.MockDomain;
+import com.liveramp.hank.coordinator.mock.MockDomainGroup;
+import com.liveramp.hank.generated.HankBulkResponse;
+import com.liveramp.hank.generated.HankException;
+import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.generated.HankScanResponse;
+import com.liveramp.hank.generated.PartitionServer;
+import com.liveramp.hank.test.BaseTestCase;
+import com.liveramp.hank.test.coordinator.MockHost;
+import com.liveramp.hank.test.coordinator.MockHostDomain;
+import com.liveramp.hank.test.coordinator.MockHostDomainPartition;
+import com.liveramp.hank.test.coordinator.MockRing;
+import com.liveramp.hank.test.coordinator.MockRingGroup;
+import com.liveramp.hank.test.partitioner.MapPartitioner;
+import com.liveramp.hank.util.Condition;
+import com.liveramp.hank.util.WaitUntil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestHankAsyncSmartClient extends BaseTestCase {
+
+  private static final ByteBuffer KEY_1 = ByteBuffer.wrap(new byte[]{1});
+  private static final ByteBuffer VALUE_1 = ByteBuffer.wrap(new byte[]{1});
+  private static final ByteBuffer KEY_2 = ByteBuffer.wrap(new byte[]{2});
+  private static final ByteBuffer VALUE_2 = ByteBuffer.wrap(new byte[]{2});
+  private static final ByteBuffer KEY_NOT_FOUND = ByteBuffer.wrap(new byte[]{9, 9, 9});
+
+  private static class MockPartitionServerHandler implements PartitionServer.Iface {
+
+    private final HankResponse response;
+    private volatile boolean failing = false;
+    // When set, gets block until the latch is released
+    private volatile CountDownLatch hangingLatch = null;
+
+    private MockPartitionServerHandler(ByteBuffer result) {
+      this.response = HankResponse.value(result);
+    }
+
+    @Override
+    public HankResponse get(int domainId, ByteBuffer key) throws TException {
+      if (failing) {
+        throw new RuntimeException("In failing mode.");
+      }
+      CountDownLatch latch = hangingLatch;
+      if (latch != null) {
+        try {
+          latch.await();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      if (key.equals(KEY_NOT_FOUND)) {
+        return HankResponse.not_found(true);
+      } else {
+        return response;
+      }
+    }
+
+    @Override
+    public HankBulkResponse getBulk(int domainId, List<ByteBuffer> keys) throws TException {
+      List<HankResponse> responses = new ArrayList<HankResponse>();
+      for (ByteBuffer key : keys) {
+        responses.add(get(domainId, key));
+      }
+      return HankBulkResponse.responses(responses);
+    }
+
+    @Override
+    public HankBulkResponse getMultiBulk(List<Integer> domainIds, List<ByteBuffer> keys) throws TException {
+      List<HankResponse> responses = new ArrayList<HankResponse>();
+      for (int i = 0; i < keys.size(); ++i) {
+        responses.add(get(domainIds.get(i), keys.get(i)));
+      }
+      return HankBulkResponse.responses(responses);
+    }
+
+    @Override
+    public HankScanResponse scan(int domainId, int partitionNumber, ByteBuffer cursor, int maxNumRecords) throws TException {
+      return null;
+    }
+  }
+
+  @Test
+  public void testIt() throws Exception {
+    int server1Port = 12355;
+    int server2Port = 12356;
+
+    final MockPartitionServerHandler iface1 = new MockPartitionServerHandler(VALUE_1);
+    TNonblockingServerTransport transport1 = new TNonblockingServerSocket(server1Port);
+    final TServer server1 = createPartitionServer(transport1, iface1);
+    Thread thread1 = startServer(server1);
+
+    final MockPartitionServerHandler iface2 = new MockPartitionServerHandler(VALUE_2);
+    TNonblockingServerTransport transport2 = new TNonblockingServerSocket(server2Port);
+    final TServer server2 = createPartitionServer(transport2, iface2);
+    Thread thread2 = startServer(server2);
+
+    final MockDomain domain = new MockDomain("existent_domain", 0, 2,
+        new MapPartitioner(KEY_1, 0, KEY_2, 1, KEY_NOT_FOUND, 0), null, null, null);
+    final Host host1 = getHost(domain, new PartitionServerAddress("localhost", server1Port), 0);
+    final Host host2 = getHost(domain, new PartitionServerAddress("localhost", server2Port), 1);
+
+    final Set<Host> mockRingHosts = new HashSet<Host>(Arrays.asList(host1, host2));
+    final MockRing mockRing = new MockRing(null, null, 1) {
+      @Override
+      public Set<Host> getHosts() {
+        return mockRingHosts;
+      }
+    };
+    final MockRingGroup mockRingGroup = new MockRingGroup(new MockDomainGroup("myDomainGroup"), "myRingGroup", null) {
+      @Override
+      public Set<Ring> getRings() {
+        return Collections.singleton((Ring)mockRing);
+      }
+    };
+    Coordinator mockCoord = new MockCoordinator() {
+      @Override
+      public RingGroup getRingGroup(String ringGroupName) {
+        return mockRingGroup;
+      }
+
+      @Override
+      public Domain getDomain(String domainName) {
+        return domainName.equals("existent_domain") ? domain : null;
+      }
+    };
+
+    WaitUntil.orDie(new Condition() {
+      @Override
+      public boolean test() {
+        return server1.isServing() && server2.isServing();
+      }
+    });
+
+    HankAsyncSmartClient client = new HankAsyncSmartClient(mockCoord, "myRingGroup",
+        new HankSmartClientOptions().setNumConnectionsPerHost(2).setQueryTimeoutMs(1000).setQueryMaxNumTries(2));
+    try {
+      // Test invalid get
+      assertEquals(HankResponse.xception(HankException.no_such_domain(true)),
+          client.get("nonexistent_domain", KEY_1).get());
+
+      // Test get
+      assertEquals(HankResponse.value(VALUE_1), client.get("existent_domain", KEY_1).get());
+      assertEquals(HankResponse.value(VALUE_2), client.get("existent_domain", KEY_2).get());
+      assertEquals(HankResponse.not_found(true), client.get("existent_domain", KEY_NOT_FOUND).get());
+
+      // Test get with callback
+      final AtomicReference<HankResponse> callbackResponse = new AtomicReference<HankResponse>();
+      final CountDownLatch callbackLatch = new CountDownLatch(1);
+      client.get("existent_domain", KEY_2, new GetCallback() {
+        @Override
+        public void onComplete(HankResponse response) {
+          callbackResponse.set(response);
+          callbackLatch.countDown();
+        }
+      });
+      assertTrue(callbackLatch.await(10, TimeUnit.SECONDS));
+      assertEquals(HankResponse.value(VALUE_2), callbackResponse.get());
+
+      // Test many outstanding gets over few connections
+      List<HankFuture<HankResponse>> futures = new ArrayList<HankFuture<HankResponse>>();
+      for (int i = 0; i < 1000; ++i) {
+        futures.add(client.get("existent_domain", i % 2 == 0 ? KEY_1 : KEY_2));
+      }
+      for (int i = 0; i < futures.size(); ++i) {
+        assertEquals(HankResponse.value(i % 2 == 0 ? VALUE_1 : VALUE_2), futures.get(i).get(10, TimeUnit.SECONDS));
+      }
+
+      // Test getBulk preserves the order of keys
+      assertEquals(HankBulkResponse.responses(Arrays.asList(
+              HankResponse.value(VALUE_2),
+              HankResponse.value(VALUE_1),
+              HankResponse.not_found(true))),
+          client.getBulk("existent_domain", Arrays.asList(KEY_2, KEY_1, KEY_NOT_FOUND)).get(10, TimeUnit.SECONDS));
+
+      // Host is not available
+      host1.setState(HostState.UPDATING);
+      assertEquals(HankResponse.xception(HankException.no_connection_available(true)),
+          client.get("existent_domain", KEY_1).get());
+      host1.setState(HostState.SERVING);
+
+      // Simulate a server that fails to perform gets
+      iface1.failing = true;
+      assertTrue(client.get("existent_domain", KEY_1).get(10, TimeUnit.SECONDS).get_xception().get_failed_retries() > 0);
+      HankBulkResponse bulkResponse = client.getBulk("existent_domain", Arrays.asList(KEY_1, KEY_2)).get(10, TimeUnit.SECONDS);
+      assertTrue(bulkResponse.get_responses().get(0).is_set_xception());
+      assertEquals(HankResponse.value(VALUE_2), bulkResponse.get_responses().get(1));
+
+      // Connections are replaced after failures
+      iface1.failing = false;
+      assertEquals(HankResponse.value(VALUE_1), client.get("existent_domain", KEY_1).get(10, TimeUnit.SECONDS));
+    } finally {
+      client.stop();
+      server1.stop();
+      server2.stop();
+      thread1.join();
+      thread2.join();
+      transport1.close();
+      transport2.close();
+    }
+  }
+
+  @Test
+  public void testStopFailsPendingQueries() throws Exception {
+    int serverPort = 12357;
+
+    final MockPartitionServerHandler iface = new MockPartitionServerHandler(VALUE_1);
+    TNonblockingServerTransport transport = new TNonblockingServerSocket(serverPort);
+    final TServer server = createPartitionServer(transport, iface);
+    Thread thread = startServer(server);
+
+    final MockDomain domain = new MockDomain("existent_domain", 0, 1,
+        new MapPartitioner(KEY_1, 0), null, null, null);
+    final Host host = getHost(domain, new PartitionServerAddress("localhost", serverPort), 0);
+
+    final MockRing mockRing = new MockRing(null, null, 1) {
+      @Override
+      public Set<Host> getHosts() {
+        return Collections.singleton(host);
+      }
+    };
+    final MockRingGroup mockRingGroup = new MockRingGroup(new MockDomainGroup("myDomainGroup"), "myRingGroup", null) {
+      @Override
+      public Set<Ring> getRings() {
+        return Collections.singleton((Ring)mockRing);
+      }
+    };
+    Coordinator mockCoord = new MockCoordinator() {
+      @Override
+      public RingGroup getRingGroup(String ringGroupName) {
+        return mockRingGroup;
+      }
+
+      @Override
+      public Domain getDomain(String domainName) {
+        return domainName.equals("existent_domain") ? domain : null;
+      }
+    };
+
+    WaitUntil.orDie(new Condition() {
+      @Override
+      public boolean test() {
+        return server.isServing();
+      }
+    });
+
+    HankAsyncSmartClient client = new HankAsyncSmartClient(mockCoord, "myRingGroup",
+        new HankSmartClientOptions().setNumConnectionsPerHost(2).setQueryTimeoutMs(0).setBulkQueryTimeoutMs(0));
+    CountDownLatch hangingLatch = new CountDownLatch(1);
+    try {
+      assertEquals(HankResponse.value(VALUE_1), client.get("existent_domain", KEY_1).get(10, TimeUnit.SECONDS));
+
+      // Queries in flight when the client is stopped are failed
+      iface.hangingLatch = hangingLatch;
+      HankFuture<HankResponse> pendingGet = client.get("existent_domain", KEY_1);
+      HankFuture<HankBulkResponse> pendingGetBulk = client.getBulk("existent_domain", Arrays.asList(KEY_1));
+      assertTrue(!pendingGet.isDone());
+      assertTrue(!pendingGetBulk.isDone());
+      client.stop();
+      assertTrue(pendingGet.get(10, TimeUnit.SECONDS).get_xception().is_set_internal_error());
+      assertTrue(pendingGetBulk.get(10, TimeUnit.SECONDS).get_xception().is_set_internal_error());
+
+      // Queries issued after the client is stopped fail immediately
+      assertTrue(client.get("existent_domain", KEY_1).get(10, TimeUnit.SECONDS).get_xception().is_set_internal_error());
+    } finally {
+      hangingLatch.countDown();
+      server.stop();
+      thread.join();
+      transport.close();
+    }
+  }
+
+  private Thread startServer(final TServer server) {
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        server.serve();
+      }
+    }, "mock partition server thread");
+    thread.start();
+    return thread;
+  }
+
+  private TServer createPartitionServer(TNonblockingServerTransport transport, PartitionServer.Iface iface) {
+    THsHaServer.Args args = new THsHaServer.Args(transport);
+    args.processor(new PartitionServer.Processor(iface));
+    args.protocolFactory(new TCompactProtocol.Factory());
+    return new THsHaServer(args);
+  }
+
+  private Host getHost(final Domain domain, PartitionServerAddress address, final int partNum) throws IOException {
+    MockHost host = new MockHost(address) {
+      @Override
+      public Set<HostDomain> getAssignedDomains() throws IOException {
+        return Collections.singleton((HostDomain)new MockHostDomain(domain) {
+          @Override
+          public Set<HostDomainPartition> getPartitions() {
+            return Collections.singleton((HostDomainPartition)new MockHostDomainPartition(partNum, 1));
+          }
+        });
+      }
+    };
+    host.setState(HostState.SERVING);
+    return host;
+  }
+}
@@ -31,6 +31,7 @@ import com.liveramp.hank.coordinator.mock.MockDomainGroup;
 import com.liveramp.hank.generated.HankBulkResponse;
 import com.liveramp.hank.generated.HankException;
 import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.generated.HankScanResponse;
 import com.liveramp.hank.generated.PartitionServer;
 import com.liveramp.hank.test.BaseTestCase;
 import com.liveramp.hank.test.coordinator.MockHost;
@@ -84,9 +85,9 @@ public class TestHankSmartClient extends BaseTestCase {
 
   private static class MockPartitionServerHandler implements PartitionServer.Iface {
     private final HankResponse response;
-    private final HankBulkResponse bulkResponse;
     private Mode mode = Mode.NORMAL;
     private int numRequests = 0;
+    private int numBulkRequests = 0;
 
     private static enum Mode {
       NORMAL,
@@ -97,9 +98,6 @@ public class TestHankSmartClient extends BaseTestCase {
 
     public MockPartitionServerHandler(ByteBuffer result) {
       this.response = HankResponse.value(result);
-      List<HankResponse> responses = new ArrayList<HankResponse>();
-      responses.add(HankResponse.value(result));
-      this.bulkResponse = HankBulkResponse.responses(responses);
     }
 
     @Override
@@ -116,14 +114,38 @@ public class TestHankSmartClient extends BaseTestCase {
     @Override
     public HankBulkResponse getBulk(int domainId, List<ByteBuffer> keys) throws TException {
       applyMode();
-      numRequests += keys.size();
-      return bulkResponse;
+      ++numBulkRequests;
+      List<HankResponse> responses = new ArrayList<HankResponse>();
+      for (ByteBuffer key : keys) {
+        responses.add(get(domainId, key));
+      }
+      return HankBulkResponse.responses(responses);
+    }
+
+    @Override
+    public HankBulkResponse getMultiBulk(List<Integer> domainIds, List<ByteBuffer> keys) throws TException {
+      applyMode();
+      ++numBulkRequests;
+      List<HankResponse> responses = new ArrayList<HankResponse>();
+      for (int i = 0; i < keys.size(); ++i) {
+        responses.add(get(domainIds.get(i), keys.get(i)));
+      }
+      return HankBulkResponse.responses(responses);
+    }
+
+    @Override
+    public HankScanResponse scan(int domainId, int partitionNumber, ByteBuffer cursor, int maxNumRecords) throws TException {
+      return null;
     }
 
     public int getNumRequests() {
       return numRequests;
     }
 
+    public int getNumBulkRequests() {
+      return numBulkRequests;
+    }
+
     public void clearNumRequests() {
       numRequests = 0;
     }
@@ -278,6 +300,37 @@ public class TestHankSmartClient extends BaseTestCase {
       bulkRequest1.add(KEY_2);
       assertEquals(bulkResponse1, client.getBulk("existent_domain", bulkRequest1));
 
+      // Test getBulk sends one request per host and preserves the order of keys
+      iface1.clearNumRequests();
+      HankBulkResponse bulkResponse2 = HankBulkResponse.responses(Arrays.asList(
+          HankResponse.value(VALUE_1),
+          HankResponse.value(VALUE_2),
+          HankResponse.not_found(true),
+          HankResponse.value(VALUE_1)));
+      int numBulkRequests1 = iface1.getNumBulkRequests();
+      assertEquals(bulkResponse2,
+          client.getBulk("existent_domain", Arrays.asList(KEY_1, KEY_2, KEY_NOT_FOUND, KEY_1)));
+      assertEquals(3, iface1.getNumRequests());
+      assertEquals(numBulkRequests1 + 1, iface1.getNumBulkRequests());
+
+      // Test concurrent gets are batched into bulk requests
+      final HankSmartClient batchingClient = new HankSmartClient(mockCoord, "myRingGroup",
+          new HankSmartClientOptions()
+              .setQueryTimeoutMs(1000)
+              .setGetBatchingMaxDelayMicros(1000000)
+              .setGetBatchingMaxNumKeys(4));
+      int numBulkRequests2 = iface1.getNumBulkRequests();
+      List<FutureGet> futureGets = new ArrayList<FutureGet>();
+      for (int i = 0; i < 4; ++i) {
+        futureGets.add(batchingClient.concurrentGet("existent_domain", i % 2 == 0 ? KEY_1 : KEY_NOT_FOUND));
+      }
+      for (int i = 0; i < 4; ++i) {
+        assertEquals(i % 2 == 0 ? HankResponse.value(VALUE_1) : HankResponse.not_found(true),
+            futureGets.get(i).getResponse());
+      }
+      assertEquals(numBulkRequests2 + 1, iface1.getNumBulkRequests());
+      batchingClient.stop();
+
       // Test get with null key
       try {
         client.get("existent_domain", null);
@@ -326,6 +379,19 @@ public class TestHankSmartClient extends BaseTestCase {
       });
       assertEquals(HankResponse.value(VALUE_3), client.get("new_domain", KEY_3));
 
+      // Test getMultiBulk across domains preserves the order of keys
+      assertEquals(HankBulkResponse.responses(Arrays.asList(
+              HankResponse.value(VALUE_1),
+              HankResponse.value(VALUE_3),
+              HankResponse.not_found(true),
+              HankResponse.value(VALUE_2))),
+          client.getMultiBulk(Arrays.asList("existent_domain", "new_domain", "existent_domain", "existent_domain"),
+              Arrays.asList(KEY_1, KEY_3, KEY_NOT_FOUND, KEY_2)));
+
+      // Test invalid getMultiBulk
+      assertEquals(HankBulkResponse.xception(HankException.no_such_domain(true)),
+          client.getMultiBulk(Arrays.asList("existent_domain", "nonexistent_domain"), Arrays.asList(KEY_1, KEY_2)));
+
       // TODO: Test not querying deletable partitions
 
       // Simulate servers that fail to perform gets
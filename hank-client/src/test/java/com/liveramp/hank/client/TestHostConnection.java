@@ -38,6 +38,7 @@ import com.liveramp.hank.coordinator.HostState;
 import com.liveramp.hank.coordinator.PartitionServerAddress;
 import com.liveramp.hank.generated.HankBulkResponse;
 import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.generated.HankScanResponse;
 import com.liveramp.hank.partition_server.IfaceWithShutdown;
 import com.liveramp.hank.test.BaseTestCase;
 import com.liveramp.hank.test.coordinator.MockHost;
@@ -75,6 +76,16 @@ public class TestHostConnection extends BaseTestCase {
     public HankBulkResponse getBulk(int domain_id, List<ByteBuffer> keys) throws TException {
       return RESPONSE_BULK_1;
     }
+
+    @Override
+    public HankBulkResponse getMultiBulk(List<Integer> domain_ids, List<ByteBuffer> keys) throws TException {
+      return RESPONSE_BULK_1;
+    }
+
+    @Override
+    public HankScanResponse scan(int domain_id, int partition_number, ByteBuffer cursor, int max_num_records) throws TException {
+      return null;
+    }
   };
 
   private Thread mockPartitionServerThread;
@@ -167,6 +178,16 @@ public class TestHostConnection extends BaseTestCase {
         }
         return null;
       }
+
+      @Override
+      public HankBulkResponse getMultiBulk(List<Integer> domain_ids, List<ByteBuffer> keys) throws TException {
+        return getBulk(0, keys);
+      }
+
+      @Override
+      public HankScanResponse scan(int domain_id, int partition_number, ByteBuffer cursor, int max_num_records) throws TException {
+        return null;
+      }
     };
 
     // Start server
@@ -24,6 +24,7 @@ import com.liveramp.hank.coordinator.mock.MockDomain;
 import com.liveramp.hank.generated.HankBulkResponse;
 import com.liveramp.hank.generated.HankException;
 import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.generated.HankScanResponse;
 import com.liveramp.hank.partition_server.IfaceWithShutdown;
 import com.liveramp.hank.test.BaseTestCase;
 import com.liveramp.hank.test.coordinator.MockHost;
@@ -41,7 +42,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
@@ -96,6 +100,16 @@ public class TestHostConnectionPool extends BaseTestCase {
     public HankBulkResponse getBulk(int domain_id, List<ByteBuffer> keys) throws TException {
       return null;
     }
+
+    @Override
+    public HankBulkResponse getMultiBulk(List<Integer> domain_ids, List<ByteBuffer> keys) throws TException {
+      return null;
+    }
+
+    @Override
+    public HankScanResponse scan(int domain_id, int partition_number, ByteBuffer cursor, int max_num_records) throws TException {
+      return null;
+    }
   }
 
   private static class Response1Iface extends MockIface {
@@ -183,6 +197,7 @@ public class TestHostConnectionPool extends BaseTestCase {
     assertEquals("Gets should be distributed accross hosts", 5, iface1.numGets);
     assertEquals("Gets should be distributed accross hosts", 5, iface2.numGets);
     assertEquals("All keys should have been found", 10, numHits);
+    assertTrue("Latencies should not be measured without hedging", hostConnectionPool.getHostLatencyEwmasMs().isEmpty());
 
     iface1.clearCounts();
     iface2.clearCounts();
@@ -448,6 +463,44 @@ public class TestHostConnectionPool extends BaseTestCase {
     }
   }
 
+  @Test
+  public void testHedgedGetsWithoutAvailableThread() throws IOException, TException, InterruptedException {
+
+    MockIface iface1 = new Response1Iface();
+    MockIface iface2 = new Response1Iface();
+
+    startMockPartitionServerThread1(iface1, 1);
+    startMockPartitionServerThread2(iface2, 1);
+
+    Map<Host, List<HostConnection>> hostToConnectionsMap = new HashMap<Host, List<HostConnection>>();
+    hostToConnectionsMap.put(mockHost1, Collections.singletonList(new HostConnection(mockHost1, 0, 0, 0, 0)));
+    hostToConnectionsMap.put(mockHost2, Collections.singletonList(new HostConnection(mockHost2, 0, 0, 0, 0)));
+
+    // An executor whose threads are all busy
+    final AtomicInteger numRejectedTasks = new AtomicInteger(0);
+    Executor busyExecutor = new Executor() {
+      @Override
+      public void execute(Runnable runnable) {
+        numRejectedTasks.incrementAndGet();
+        throw new RejectedExecutionException();
+      }
+    };
+    HostConnectionPool hostConnectionPool = new HostConnectionPool(hostToConnectionsMap, null, busyExecutor, 50, 1, null);
+
+    mockHost1.setState(HostState.SERVING);
+    mockHost2.setState(HostState.SERVING);
+
+    // Gets are hedged once enough latencies have been recorded. They are then performed without hedging.
+    int numGets = 512;
+    for (int i = 0; i < numGets; ++i) {
+      assertEquals(RESPONSE_1, hostConnectionPool.get(mockDomain, KEY_1, 1, null));
+    }
+    assertTrue(numRejectedTasks.get() > 0);
+    assertEquals(0, hostConnectionPool.getAndClearNumHedgedRequests());
+    assertEquals(numGets, iface1.numGets + iface2.numGets);
+    assertEquals(2, hostConnectionPool.getHostLatencyEwmasMs().size());
+  }
+
   private void startMockPartitionServerThread1(IfaceWithShutdown handler, int numWorkerThreads)
       throws InterruptedException {
     mockPartitionServer1 = new TestHostConnection.MockPartitionServer(handler, numWorkerThreads,
@@ -0,0 +1,100 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.client;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestLatencyTracker extends BaseTestCase {
+
+  @Test
+  public void testIt() {
+    LatencyTracker latencyTracker = new LatencyTracker(2, 90);
+
+    assertTrue(latencyTracker.getHostLatencyEwmaMs(0) < 0);
+    assertTrue(latencyTracker.getPercentileLatencyNanos() < 0);
+
+    // Host 0 answers in 1ms to 100ms, host 1 is not used
+    for (int i = 0; i < 256; ++i) {
+      latencyTracker.record(0, ((i % 100) + 1) * 1000000L);
+    }
+    assertTrue(latencyTracker.getHostLatencyEwmaMs(0) > 0);
+    assertTrue(latencyTracker.getHostLatencyEwmaMs(1) < 0);
+    assertTrue(latencyTracker.getPercentileLatencyNanos() >= 80 * 1000000L);
+    assertTrue(latencyTracker.getPercentileLatencyNanos() <= 100 * 1000000L);
+
+    // Moving average follows recent latencies
+    for (int i = 0; i < 256; ++i) {
+      latencyTracker.record(1, 5000000L);
+    }
+    assertEquals(5.0, latencyTracker.getHostLatencyEwmaMs(1), 0.001);
+    assertEquals(5000000L, latencyTracker.getPercentileLatencyNanos());
+  }
+
+  @Test
+  public void testDecay() {
+    LatencyTracker latencyTracker = new LatencyTracker(2, 50);
+    long nowNanos = 0;
+
+    // Host 0 was slow during a blip, then is not queried anymore
+    latencyTracker.record(0, 100000000L, nowNanos);
+    latencyTracker.record(1, 10000000L, nowNanos);
+    assertEquals(100.0, latencyTracker.getHostLatencyEwmaMs(0, nowNanos), 0.001);
+
+    // Its average decays toward the other host's
+    nowNanos += TimeUnit.SECONDS.toNanos(10);
+    latencyTracker.record(1, 10000000L, nowNanos);
+    assertEquals(55.0, latencyTracker.getHostLatencyEwmaMs(0, nowNanos), 0.001);
+    nowNanos += TimeUnit.SECONDS.toNanos(60);
+    assertTrue(latencyTracker.getHostLatencyEwmaMs(0, nowNanos) < 12.0);
+
+    // Its next sample mostly replaces the stale average
+    latencyTracker.record(0, 10000000L, nowNanos);
+    assertTrue(latencyTracker.getHostLatencyEwmaMs(0, nowNanos) < 12.0);
+  }
+
+  @Test
+  public void testConcurrentRecords() throws InterruptedException {
+    final LatencyTracker latencyTracker = new LatencyTracker(2, 50);
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; ++i) {
+      final int hostIndex = i % 2;
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 10000; ++j) {
+            latencyTracker.record(hostIndex, (hostIndex + 1) * 1000000L);
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(1.0, latencyTracker.getHostLatencyEwmaMs(0), 0.001);
+    assertEquals(2.0, latencyTracker.getHostLatencyEwmaMs(1), 0.001);
+    assertTrue(latencyTracker.getPercentileLatencyNanos() >= 1000000L);
+    assertTrue(latencyTracker.getPercentileLatencyNanos() <= 2000000L);
+  }
+}
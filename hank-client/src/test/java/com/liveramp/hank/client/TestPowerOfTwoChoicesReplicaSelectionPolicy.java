@@ -0,0 +1,109 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.client;
+
+import org.junit.Test;
+
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestPowerOfTwoChoicesReplicaSelectionPolicy extends BaseTestCase {
+
+  private static class MockReplicaStatistics implements ReplicaSelectionPolicy.ReplicaStatistics {
+
+    private final boolean[] serving;
+    private final int[] numOutstandingRequests;
+    private final double[] latencyEwmaMs;
+
+    private MockReplicaStatistics(boolean[] serving, int[] numOutstandingRequests, double[] latencyEwmaMs) {
+      this.serving = serving;
+      this.numOutstandingRequests = numOutstandingRequests;
+      this.latencyEwmaMs = latencyEwmaMs;
+    }
+
+    @Override
+    public int getNumHosts() {
+      return serving.length;
+    }
+
+    @Override
+    public boolean isServing(int hostIndex) {
+      return serving[hostIndex];
+    }
+
+    @Override
+    public int getNumOutstandingRequests(int hostIndex) {
+      return numOutstandingRequests[hostIndex];
+    }
+
+    @Override
+    public double getLatencyEwmaMs(int hostIndex) {
+      return latencyEwmaMs[hostIndex];
+    }
+  }
+
+  @Test
+  public void testOutstandingRequests() {
+    ReplicaSelectionPolicy policy = new PowerOfTwoChoicesReplicaSelectionPolicy(
+        PowerOfTwoChoicesReplicaSelectionPolicy.Cost.OUTSTANDING_REQUESTS);
+    MockReplicaStatistics replicas = new MockReplicaStatistics(
+        new boolean[]{true, true},
+        new int[]{5, 0},
+        new double[]{1, 1});
+    // With two hosts, the least loaded one is always chosen
+    for (int i = 0; i < 100; ++i) {
+      assertEquals(1, policy.getHostIndexToTry(replicas, 0, false));
+    }
+    // Hosts that are not serving are not chosen
+    replicas.serving[1] = false;
+    for (int i = 0; i < 100; ++i) {
+      assertEquals(0, policy.getHostIndexToTry(replicas, 1, false));
+    }
+  }
+
+  @Test
+  public void testLatencyWeightedOutstandingRequests() {
+    ReplicaSelectionPolicy policy = new PowerOfTwoChoicesReplicaSelectionPolicy(
+        PowerOfTwoChoicesReplicaSelectionPolicy.Cost.LATENCY_WEIGHTED_OUTSTANDING_REQUESTS);
+    MockReplicaStatistics replicas = new MockReplicaStatistics(
+        new boolean[]{true, true},
+        new int[]{1, 2},
+        new double[]{10, 1});
+    for (int i = 0; i < 100; ++i) {
+      assertEquals(1, policy.getHostIndexToTry(replicas, 0, false));
+    }
+  }
+
+  @Test
+  public void testKeyAffinity() {
+    ReplicaSelectionPolicy policy = new PowerOfTwoChoicesReplicaSelectionPolicy();
+    MockReplicaStatistics replicas = new MockReplicaStatistics(
+        new boolean[]{true, true},
+        new int[]{3, 0},
+        new double[]{1.5, 1});
+    // The key's host is kept when it is not measurably slower
+    for (int i = 0; i < 100; ++i) {
+      assertEquals(0, policy.getHostIndexToTry(replicas, 0, true));
+    }
+    // Otherwise, another host is chosen
+    replicas.latencyEwmaMs[0] = 10;
+    for (int i = 0; i < 100; ++i) {
+      assertEquals(1, policy.getHostIndexToTry(replicas, 0, true));
+    }
+  }
+}
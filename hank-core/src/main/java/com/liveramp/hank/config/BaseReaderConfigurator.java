@@ -18,6 +18,8 @@ package com.liveramp.hank.config;
 
 import java.util.Set;
 
+import com.liveramp.hank.storage.SharedReaderCache;
+
 public class BaseReaderConfigurator implements ReaderConfigurator {
 
   private final DataDirectoriesConfigurator dataDirectoriesConfigurator;
@@ -25,17 +27,57 @@ public class BaseReaderConfigurator implements ReaderConfigurator {
   private final long cacheNumItemsCapacity;
   private final int bufferReuseMaxSize;
   private final int numTotalPartitions;
+  private final boolean memoryMapEnabled;
+  private final boolean memoryMapPrefetchEnabled;
+  private final SharedReaderCache sharedReaderCache;
 
   public BaseReaderConfigurator(DataDirectoriesConfigurator dataDirectoriesConfigurator,
                                 long cacheNumBytesCapacity,
                                 long cacheNumItemsCapacity,
                                 int bufferReuseMaxSize,
                                 int numTotalPartitions) {
+    this(dataDirectoriesConfigurator,
+        cacheNumBytesCapacity,
+        cacheNumItemsCapacity,
+        bufferReuseMaxSize,
+        numTotalPartitions,
+        false,
+        false);
+  }
+
+  public BaseReaderConfigurator(DataDirectoriesConfigurator dataDirectoriesConfigurator,
+                                long cacheNumBytesCapacity,
+                                long cacheNumItemsCapacity,
+                                int bufferReuseMaxSize,
+                                int numTotalPartitions,
+                                boolean memoryMapEnabled,
+                                boolean memoryMapPrefetchEnabled) {
+    this(dataDirectoriesConfigurator,
+        cacheNumBytesCapacity,
+        cacheNumItemsCapacity,
+        bufferReuseMaxSize,
+        numTotalPartitions,
+        memoryMapEnabled,
+        memoryMapPrefetchEnabled,
+        null);
+  }
+
+  public BaseReaderConfigurator(DataDirectoriesConfigurator dataDirectoriesConfigurator,
+                                long cacheNumBytesCapacity,
+                                long cacheNumItemsCapacity,
+                                int bufferReuseMaxSize,
+                                int numTotalPartitions,
+                                boolean memoryMapEnabled,
+                                boolean memoryMapPrefetchEnabled,
+                                SharedReaderCache sharedReaderCache) {
     this.dataDirectoriesConfigurator = dataDirectoriesConfigurator;
     this.cacheNumBytesCapacity = cacheNumBytesCapacity;
     this.cacheNumItemsCapacity = cacheNumItemsCapacity;
     this.bufferReuseMaxSize = bufferReuseMaxSize;
     this.numTotalPartitions = numTotalPartitions;
+    this.memoryMapEnabled = memoryMapEnabled;
+    this.memoryMapPrefetchEnabled = memoryMapPrefetchEnabled;
+    this.sharedReaderCache = sharedReaderCache;
   }
 
   @Override
@@ -59,6 +101,21 @@ public class BaseReaderConfigurator implements ReaderConfigurator {
     return bufferReuseMaxSize;
   }
 
+  @Override
+  public boolean getMemoryMapEnabled() {
+    return memoryMapEnabled;
+  }
+
+  @Override
+  public boolean getMemoryMapPrefetchEnabled() {
+    return memoryMapPrefetchEnabled;
+  }
+
+  @Override
+  public SharedReaderCache getSharedReaderCache() {
+    return sharedReaderCache;
+  }
+
   @Override
   public Set<String> getDataDirectories() {
     return dataDirectoriesConfigurator.getDataDirectories();
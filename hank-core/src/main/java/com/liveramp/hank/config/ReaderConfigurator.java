@@ -16,6 +16,8 @@
 
 package com.liveramp.hank.config;
 
+import com.liveramp.hank.storage.SharedReaderCache;
+
 public interface ReaderConfigurator extends DataDirectoriesConfigurator {
 
   public long getCacheNumBytesCapacity();
@@ -23,4 +25,13 @@ public interface ReaderConfigurator extends DataDirectoriesConfigurator {
   public long getCacheNumItemsCapacity();
 
   public int getBufferReuseMaxSize();
+
+  // Serve reads from memory mapped files instead of positional reads
+  public boolean getMemoryMapEnabled();
+
+  // Load memory mapped files into the page cache when Readers are opened
+  public boolean getMemoryMapPrefetchEnabled();
+
+  // Cache shared by all Readers of the host, or null if each Reader should use its own share of the capacity
+  public SharedReaderCache getSharedReaderCache();
 }
@@ -119,6 +119,14 @@ public abstract class YamlConfigurator implements Serializable {
     }
   }
 
+  protected Map<String, Object> getOptionalSection(String... optionPath) {
+    try {
+      return getRequiredSection(optionPath);
+    } catch (InvalidConfigurationException e) {
+      return null;
+    }
+  }
+
   protected String getRequiredString(String... optionPath) throws InvalidConfigurationException {
     Object option = getRequiredOption(optionPath);
     if (option != null && !(option instanceof String)) {
@@ -195,6 +203,30 @@ public abstract class YamlConfigurator implements Serializable {
     }
   }
 
+  protected Boolean getRequiredBoolean(String... optionPath) throws InvalidConfigurationException {
+    Object option = getRequiredOption(optionPath);
+    if (option != null && !(option instanceof Boolean)) {
+      throw new InvalidConfigurationException("Option '" + Arrays.toString(optionPath) + "' must be of type Boolean in configuration '" + contentSource + "'");
+    }
+    return (Boolean)option;
+  }
+
+  protected Boolean getBoolean(String... optionPath) {
+    try {
+      return getRequiredBoolean(optionPath);
+    } catch (InvalidConfigurationException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  protected Boolean getOptionalBoolean(String... optionPath) {
+    try {
+      return getRequiredBoolean(optionPath);
+    } catch (InvalidConfigurationException e) {
+      return null;
+    }
+  }
+
   protected List<String> getRequiredStringList(String... optionPath) throws InvalidConfigurationException {
     Object option = getRequiredOption(optionPath);
     if (option != null && !(option instanceof List)) {
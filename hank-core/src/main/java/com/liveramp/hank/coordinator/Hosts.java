@@ -39,6 +39,8 @@ public final class Hosts {
   private static final String UPDATE_ETA_STATISTIC_KEY = "update_eta";
   private static final String FILESYSTEM_STATISTICS_KEY = "filesystem_statistics";
   private static final String RUNTIME_STATISTICS_KEY = "runtime_statistics";
+  private static final String ONLINE_UPDATE_ENABLED_STATISTIC_KEY = "online_update_enabled";
+  private static final String READER_LOAD_PROGRESS_STATISTIC_KEY = "reader_load_progress";
 
   private Hosts() {
   }
@@ -238,6 +240,38 @@ public final class Hosts {
     host.setEphemeralStatistic(Hosts.UPDATE_ETA_STATISTIC_KEY, Long.toString(updateETA));
   }
 
+  // Advertise whether the partition server of this host can be updated while it is serving
+  public static void setOnlineUpdateEnabled(Host host, boolean onlineUpdateEnabled) throws IOException {
+    host.setEphemeralStatistic(ONLINE_UPDATE_ENABLED_STATISTIC_KEY, Boolean.toString(onlineUpdateEnabled));
+  }
+
+  public static boolean isOnlineUpdateEnabled(Host host) throws IOException {
+    return Boolean.parseBoolean(host.getStatistic(ONLINE_UPDATE_ENABLED_STATISTIC_KEY));
+  }
+
+  public static void setReaderLoadProgress(Host host, int numLoadedReaders, int numTotalReaders) throws IOException {
+    host.setEphemeralStatistic(READER_LOAD_PROGRESS_STATISTIC_KEY, numLoadedReaders + " " + numTotalReaders);
+  }
+
+  // Fraction of the Readers of the partition server of this host that have been loaded, or -1 if unknown
+  public static double computeReaderLoadProgress(Host host) {
+    try {
+      String progressString = host.getStatistic(READER_LOAD_PROGRESS_STATISTIC_KEY);
+      if (progressString == null) {
+        return -1;
+      }
+      String[] tokens = progressString.split(" ");
+      int numLoadedReaders = Integer.parseInt(tokens[0]);
+      int numTotalReaders = Integer.parseInt(tokens[1]);
+      if (numTotalReaders == 0) {
+        return 1;
+      }
+      return (double)numLoadedReaders / (double)numTotalReaders;
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
   public static long computeUpdateETA(Host host) {
     try {
       if (host.getState() != HostState.UPDATING) {
@@ -19,6 +19,7 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
   private static final org.apache.thrift.protocol.TField NO_CONNECTION_AVAILABLE_FIELD_DESC = new org.apache.thrift.protocol.TField("no_connection_available", org.apache.thrift.protocol.TType.BOOL, (short)4);
   private static final org.apache.thrift.protocol.TField FAILED_RETRIES_FIELD_DESC = new org.apache.thrift.protocol.TField("failed_retries", org.apache.thrift.protocol.TType.I32, (short)5);
   private static final org.apache.thrift.protocol.TField INTERNAL_ERROR_FIELD_DESC = new org.apache.thrift.protocol.TField("internal_error", org.apache.thrift.protocol.TType.STRING, (short)6);
+  private static final org.apache.thrift.protocol.TField OVERLOADED_FIELD_DESC = new org.apache.thrift.protocol.TField("overloaded", org.apache.thrift.protocol.TType.BOOL, (short)7);
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   public enum _Fields implements org.apache.thrift.TFieldIdEnum {
@@ -45,7 +46,11 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
     /**
      * There was some internal error in the server. This is pretty bad.
      */
-    INTERNAL_ERROR((short)6, "internal_error");
+    INTERNAL_ERROR((short)6, "internal_error"),
+    /**
+     * The partition server is overloaded and rejected the request
+     */
+    OVERLOADED((short)7, "overloaded");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -72,6 +77,8 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
           return FAILED_RETRIES;
         case 6: // INTERNAL_ERROR
           return INTERNAL_ERROR;
+        case 7: // OVERLOADED
+          return OVERLOADED;
         default:
           return null;
       }
@@ -126,6 +133,8 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I32)));
     tmpMap.put(_Fields.INTERNAL_ERROR, new org.apache.thrift.meta_data.FieldMetaData("internal_error", org.apache.thrift.TFieldRequirementType.DEFAULT,
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
+    tmpMap.put(_Fields.OVERLOADED, new org.apache.thrift.meta_data.FieldMetaData("overloaded", org.apache.thrift.TFieldRequirementType.DEFAULT,
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(HankException.class, metaDataMap);
   }
@@ -181,6 +190,12 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
     return x;
   }
 
+  public static HankException overloaded(boolean value) {
+    HankException x = new HankException();
+    x.set_overloaded(value);
+    return x;
+  }
+
 
   @Override
   protected void checkType(_Fields setField, Object value) throws ClassCastException {
@@ -215,6 +230,11 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
           break;
         }
         throw new ClassCastException("Was expecting value of type String for field 'internal_error', but got " + value.getClass().getSimpleName());
+      case OVERLOADED:
+        if (value instanceof Boolean) {
+          break;
+        }
+        throw new ClassCastException("Was expecting value of type Boolean for field 'overloaded', but got " + value.getClass().getSimpleName());
       default:
         throw new IllegalArgumentException("Unknown field id " + setField);
     }
@@ -279,6 +299,15 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
             return null;
           }
+        case OVERLOADED:
+          if (field.type == OVERLOADED_FIELD_DESC.type) {
+            Boolean overloaded;
+            overloaded = iprot.readBool();
+            return overloaded;
+          } else {
+            org.apache.thrift.protocol.TProtocolUtil.skip(iprot, field.type);
+            return null;
+          }
         default:
           throw new IllegalStateException("setField wasn't null, but didn't match any of the case statements!");
       }
@@ -314,6 +343,10 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
         String internal_error = (String)value_;
         oprot.writeString(internal_error);
         return;
+      case OVERLOADED:
+        Boolean overloaded = (Boolean)value_;
+        oprot.writeBool(overloaded);
+        return;
       default:
         throw new IllegalStateException("Cannot write union with unknown field " + setField_);
     }
@@ -348,6 +381,10 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
           String internal_error;
           internal_error = iprot.readString();
           return internal_error;
+        case OVERLOADED:
+          Boolean overloaded;
+          overloaded = iprot.readBool();
+          return overloaded;
         default:
           throw new IllegalStateException("setField wasn't null, but didn't match any of the case statements!");
       }
@@ -383,6 +420,10 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
         String internal_error = (String)value_;
         oprot.writeString(internal_error);
         return;
+      case OVERLOADED:
+        Boolean overloaded = (Boolean)value_;
+        oprot.writeBool(overloaded);
+        return;
       default:
         throw new IllegalStateException("Cannot write union with unknown field " + setField_);
     }
@@ -403,6 +444,8 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
         return FAILED_RETRIES_FIELD_DESC;
       case INTERNAL_ERROR:
         return INTERNAL_ERROR_FIELD_DESC;
+      case OVERLOADED:
+        return OVERLOADED_FIELD_DESC;
       default:
         throw new IllegalArgumentException("Unknown field id " + setField);
     }
@@ -538,6 +581,25 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
     value_ = value;
   }
 
+  /**
+   * The partition server is overloaded and rejected the request
+   */
+  public boolean get_overloaded() {
+    if (getSetField() == _Fields.OVERLOADED) {
+      return (Boolean)getFieldValue();
+    } else {
+      throw new RuntimeException("Cannot get field 'overloaded' because union is currently set to " + getFieldDesc(getSetField()).name);
+    }
+  }
+
+  /**
+   * The partition server is overloaded and rejected the request
+   */
+  public void set_overloaded(boolean value) {
+    setField_ = _Fields.OVERLOADED;
+    value_ = value;
+  }
+
   public boolean is_set_wrong_host() {
     return setField_ == _Fields.WRONG_HOST;
   }
@@ -568,6 +630,11 @@ public class HankException extends org.apache.thrift.TUnion<HankException, HankE
   }
 
 
+  public boolean is_set_overloaded() {
+    return setField_ == _Fields.OVERLOADED;
+  }
+
+
   public boolean equals(Object other) {
     if (other instanceof HankException) {
       return equals((HankException)other);
@@ -39,6 +39,10 @@ public class PartitionServer {
 
     public HankBulkResponse getBulk(int domain_id, List<ByteBuffer> keys) throws org.apache.thrift.TException;
 
+    public HankBulkResponse getMultiBulk(List<Integer> domain_ids, List<ByteBuffer> keys) throws org.apache.thrift.TException;
+
+    public HankScanResponse scan(int domain_id, int partition_number, ByteBuffer cursor, int max_num_records) throws org.apache.thrift.TException;
+
   }
 
   public interface AsyncIface {
@@ -47,6 +51,10 @@ public class PartitionServer {
 
     public void getBulk(int domain_id, List<ByteBuffer> keys, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.getBulk_call> resultHandler) throws org.apache.thrift.TException;
 
+    public void getMultiBulk(List<Integer> domain_ids, List<ByteBuffer> keys, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.getMultiBulk_call> resultHandler) throws org.apache.thrift.TException;
+
+    public void scan(int domain_id, int partition_number, ByteBuffer cursor, int max_num_records, org.apache.thrift.async.AsyncMethodCallback<AsyncClient.scan_call> resultHandler) throws org.apache.thrift.TException;
+
   }
 
   public static class Client extends org.apache.thrift.TServiceClient implements Iface {
@@ -117,6 +125,56 @@ public class PartitionServer {
       throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "getBulk failed: unknown result");
     }
 
+    public HankBulkResponse getMultiBulk(List<Integer> domain_ids, List<ByteBuffer> keys) throws org.apache.thrift.TException
+    {
+      send_getMultiBulk(domain_ids, keys);
+      return recv_getMultiBulk();
+    }
+
+    public void send_getMultiBulk(List<Integer> domain_ids, List<ByteBuffer> keys) throws org.apache.thrift.TException
+    {
+      getMultiBulk_args args = new getMultiBulk_args();
+      args.set_domain_ids(domain_ids);
+      args.set_keys(keys);
+      sendBase("getMultiBulk", args);
+    }
+
+    public HankBulkResponse recv_getMultiBulk() throws org.apache.thrift.TException
+    {
+      getMultiBulk_result result = new getMultiBulk_result();
+      receiveBase(result, "getMultiBulk");
+      if (result.is_set_success()) {
+        return result.success;
+      }
+      throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "getMultiBulk failed: unknown result");
+    }
+
+    public HankScanResponse scan(int domain_id, int partition_number, ByteBuffer cursor, int max_num_records) throws org.apache.thrift.TException
+    {
+      send_scan(domain_id, partition_number, cursor, max_num_records);
+      return recv_scan();
+    }
+
+    public void send_scan(int domain_id, int partition_number, ByteBuffer cursor, int max_num_records) throws org.apache.thrift.TException
+    {
+      scan_args args = new scan_args();
+      args.set_domain_id(domain_id);
+      args.set_partition_number(partition_number);
+      args.set_cursor(cursor);
+      args.set_max_num_records(max_num_records);
+      sendBase("scan", args);
+    }
+
+    public HankScanResponse recv_scan() throws org.apache.thrift.TException
+    {
+      scan_result result = new scan_result();
+      receiveBase(result, "scan");
+      if (result.is_set_success()) {
+        return result.success;
+      }
+      throw new org.apache.thrift.TApplicationException(org.apache.thrift.TApplicationException.MISSING_RESULT, "scan failed: unknown result");
+    }
+
   }
   public static class AsyncClient extends org.apache.thrift.async.TAsyncClient implements AsyncIface {
     public static class Factory implements org.apache.thrift.async.TAsyncClientFactory<AsyncClient> {
@@ -205,6 +263,82 @@ public class PartitionServer {
       }
     }
 
+    public void getMultiBulk(List<Integer> domain_ids, List<ByteBuffer> keys, org.apache.thrift.async.AsyncMethodCallback<getMultiBulk_call> resultHandler) throws org.apache.thrift.TException {
+      checkReady();
+      getMultiBulk_call method_call = new getMultiBulk_call(domain_ids, keys, resultHandler, this, ___protocolFactory, ___transport);
+      this.___currentMethod = method_call;
+      ___manager.call(method_call);
+    }
+
+    public static class getMultiBulk_call extends org.apache.thrift.async.TAsyncMethodCall {
+      private List<Integer> domain_ids;
+      private List<ByteBuffer> keys;
+      public getMultiBulk_call(List<Integer> domain_ids, List<ByteBuffer> keys, org.apache.thrift.async.AsyncMethodCallback<getMultiBulk_call> resultHandler, org.apache.thrift.async.TAsyncClient client, org.apache.thrift.protocol.TProtocolFactory protocolFactory, org.apache.thrift.transport.TNonblockingTransport transport) throws org.apache.thrift.TException {
+        super(client, protocolFactory, transport, resultHandler, false);
+        this.domain_ids = domain_ids;
+        this.keys = keys;
+      }
+
+      public void write_args(org.apache.thrift.protocol.TProtocol prot) throws org.apache.thrift.TException {
+        prot.writeMessageBegin(new org.apache.thrift.protocol.TMessage("getMultiBulk", org.apache.thrift.protocol.TMessageType.CALL, 0));
+        getMultiBulk_args args = new getMultiBulk_args();
+        args.set_domain_ids(domain_ids);
+        args.set_keys(keys);
+        args.write(prot);
+        prot.writeMessageEnd();
+      }
+
+      public HankBulkResponse getResult() throws org.apache.thrift.TException {
+        if (getState() != org.apache.thrift.async.TAsyncMethodCall.State.RESPONSE_READ) {
+          throw new IllegalStateException("Method call not finished!");
+        }
+        org.apache.thrift.transport.TMemoryInputTransport memoryTransport = new org.apache.thrift.transport.TMemoryInputTransport(getFrameBuffer().array());
+        org.apache.thrift.protocol.TProtocol prot = client.getProtocolFactory().getProtocol(memoryTransport);
+        return (new Client(prot)).recv_getMultiBulk();
+      }
+    }
+
+    public void scan(int domain_id, int partition_number, ByteBuffer cursor, int max_num_records, org.apache.thrift.async.AsyncMethodCallback<scan_call> resultHandler) throws org.apache.thrift.TException {
+      checkReady();
+      scan_call method_call = new scan_call(domain_id, partition_number, cursor, max_num_records, resultHandler, this, ___protocolFactory, ___transport);
+      this.___currentMethod = method_call;
+      ___manager.call(method_call);
+    }
+
+    public static class scan_call extends org.apache.thrift.async.TAsyncMethodCall {
+      private int domain_id;
+      private int partition_number;
+      private ByteBuffer cursor;
+      private int max_num_records;
+      public scan_call(int domain_id, int partition_number, ByteBuffer cursor, int max_num_records, org.apache.thrift.async.AsyncMethodCallback<scan_call> resultHandler, org.apache.thrift.async.TAsyncClient client, org.apache.thrift.protocol.TProtocolFactory protocolFactory, org.apache.thrift.transport.TNonblockingTransport transport) throws org.apache.thrift.TException {
+        super(client, protocolFactory, transport, resultHandler, false);
+        this.domain_id = domain_id;
+        this.partition_number = partition_number;
+        this.cursor = cursor;
+        this.max_num_records = max_num_records;
+      }
+
+      public void write_args(org.apache.thrift.protocol.TProtocol prot) throws org.apache.thrift.TException {
+        prot.writeMessageBegin(new org.apache.thrift.protocol.TMessage("scan", org.apache.thrift.protocol.TMessageType.CALL, 0));
+        scan_args args = new scan_args();
+        args.set_domain_id(domain_id);
+        args.set_partition_number(partition_number);
+        args.set_cursor(cursor);
+        args.set_max_num_records(max_num_records);
+        args.write(prot);
+        prot.writeMessageEnd();
+      }
+
+      public HankScanResponse getResult() throws org.apache.thrift.TException {
+        if (getState() != org.apache.thrift.async.TAsyncMethodCall.State.RESPONSE_READ) {
+          throw new IllegalStateException("Method call not finished!");
+        }
+        org.apache.thrift.transport.TMemoryInputTransport memoryTransport = new org.apache.thrift.transport.TMemoryInputTransport(getFrameBuffer().array());
+        org.apache.thrift.protocol.TProtocol prot = client.getProtocolFactory().getProtocol(memoryTransport);
+        return (new Client(prot)).recv_scan();
+      }
+    }
+
   }
 
   public static class Processor<I extends Iface> extends org.apache.thrift.TBaseProcessor<I> implements org.apache.thrift.TProcessor {
@@ -220,6 +354,8 @@ public class PartitionServer {
     private static <I extends Iface> Map<String,  org.apache.thrift.ProcessFunction<I, ? extends  org.apache.thrift.TBase>> getProcessMap(Map<String,  org.apache.thrift.ProcessFunction<I, ? extends  org.apache.thrift.TBase>> processMap) {
       processMap.put("get", new get());
       processMap.put("getBulk", new getBulk());
+      processMap.put("getMultiBulk", new getMultiBulk());
+      processMap.put("scan", new scan());
       return processMap;
     }
 
@@ -263,6 +399,46 @@ public class PartitionServer {
       }
     }
 
+    public static class getMultiBulk<I extends Iface> extends org.apache.thrift.ProcessFunction<I, getMultiBulk_args> {
+      public getMultiBulk() {
+        super("getMultiBulk");
+      }
+
+      public getMultiBulk_args getEmptyArgsInstance() {
+        return new getMultiBulk_args();
+      }
+
+      protected boolean isOneway() {
+        return false;
+      }
+
+      public getMultiBulk_result getResult(I iface, getMultiBulk_args args) throws org.apache.thrift.TException {
+        getMultiBulk_result result = new getMultiBulk_result();
+        result.success = iface.getMultiBulk(args.domain_ids, args.keys);
+        return result;
+      }
+    }
+
+    public static class scan<I extends Iface> extends org.apache.thrift.ProcessFunction<I, scan_args> {
+      public scan() {
+        super("scan");
+      }
+
+      public scan_args getEmptyArgsInstance() {
+        return new scan_args();
+      }
+
+      protected boolean isOneway() {
+        return false;
+      }
+
+      public scan_result getResult(I iface, scan_args args) throws org.apache.thrift.TException {
+        scan_result result = new scan_result();
+        result.success = iface.scan(args.domain_id, args.partition_number, args.cursor, args.max_num_records);
+        return result;
+      }
+    }
+
   }
 
   public static class get_args implements org.apache.thrift.TBase<get_args, get_args._Fields>, java.io.Serializable, Cloneable   {
@@ -1984,4 +2160,1975 @@ public class PartitionServer {
 
   }
 
+  public static class getMultiBulk_args implements org.apache.thrift.TBase<getMultiBulk_args, getMultiBulk_args._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("getMultiBulk_args");
+
+    private static final org.apache.thrift.protocol.TField DOMAIN_IDS_FIELD_DESC = new org.apache.thrift.protocol.TField("domain_ids", org.apache.thrift.protocol.TType.LIST, (short)1);
+    private static final org.apache.thrift.protocol.TField KEYS_FIELD_DESC = new org.apache.thrift.protocol.TField("keys", org.apache.thrift.protocol.TType.LIST, (short)2);
+
+    private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
+    static {
+      schemes.put(StandardScheme.class, new getMultiBulk_argsStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new getMultiBulk_argsTupleSchemeFactory());
+    }
+
+    public List<Integer> domain_ids; // required
+    public List<ByteBuffer> keys; // required
+
+    /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
+    public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+      DOMAIN_IDS((short)1, "domain_ids"),
+      KEYS((short)2, "keys");
+
+      private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+      static {
+        for (_Fields field : EnumSet.allOf(_Fields.class)) {
+          byName.put(field.getFieldName(), field);
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, or null if its not found.
+       */
+      public static _Fields findByThriftId(int fieldId) {
+        switch(fieldId) {
+          case 1: // DOMAIN_IDS
+            return DOMAIN_IDS;
+          case 2: // KEYS
+            return KEYS;
+          default:
+            return null;
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, throwing an exception
+       * if it is not found.
+       */
+      public static _Fields findByThriftIdOrThrow(int fieldId) {
+        _Fields fields = findByThriftId(fieldId);
+        if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+        return fields;
+      }
+
+      /**
+       * Find the _Fields constant that matches name, or null if its not found.
+       */
+      public static _Fields findByName(String name) {
+        return byName.get(name);
+      }
+
+      private final short _thriftId;
+      private final String _fieldName;
+
+      _Fields(short thriftId, String fieldName) {
+        _thriftId = thriftId;
+        _fieldName = fieldName;
+      }
+
+      public short getThriftFieldId() {
+        return _thriftId;
+      }
+
+      public String getFieldName() {
+        return _fieldName;
+      }
+    }
+
+    // isset id assignments
+    public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+    static {
+      Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+      tmpMap.put(_Fields.DOMAIN_IDS, new org.apache.thrift.meta_data.FieldMetaData("domain_ids", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST, 
+              new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I32))));
+      tmpMap.put(_Fields.KEYS, new org.apache.thrift.meta_data.FieldMetaData("keys", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.ListMetaData(org.apache.thrift.protocol.TType.LIST, 
+              new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING              , true))));
+      metaDataMap = Collections.unmodifiableMap(tmpMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(getMultiBulk_args.class, metaDataMap);
+    }
+
+    public getMultiBulk_args() {
+    }
+
+    public getMultiBulk_args(
+      List<Integer> domain_ids,
+      List<ByteBuffer> keys)
+    {
+      this();
+      this.domain_ids = domain_ids;
+      this.keys = keys;
+    }
+
+    /**
+     * Performs a deep copy on <i>other</i>.
+     */
+    public getMultiBulk_args(getMultiBulk_args other) {
+      if (other.is_set_domain_ids()) {
+        List<Integer> __this__domain_ids = new ArrayList<Integer>();
+        for (Integer other_element : other.domain_ids) {
+          __this__domain_ids.add(other_element);
+        }
+        this.domain_ids = __this__domain_ids;
+      }
+      if (other.is_set_keys()) {
+        List<ByteBuffer> __this__keys = new ArrayList<ByteBuffer>();
+        for (ByteBuffer other_element : other.keys) {
+          ByteBuffer temp_binary_element = org.apache.thrift.TBaseHelper.copyBinary(other_element);
+;
+          __this__keys.add(temp_binary_element);
+        }
+        this.keys = __this__keys;
+      }
+    }
+
+    public getMultiBulk_args deepCopy() {
+      return new getMultiBulk_args(this);
+    }
+
+    @Override
+    public void clear() {
+      this.domain_ids = null;
+      this.keys = null;
+    }
+
+    public int get_domain_ids_size() {
+      return (this.domain_ids == null) ? 0 : this.domain_ids.size();
+    }
+
+    public java.util.Iterator<Integer> get_domain_ids_iterator() {
+      return (this.domain_ids == null) ? null : this.domain_ids.iterator();
+    }
+
+    public void add_to_domain_ids(int elem) {
+      if (this.domain_ids == null) {
+        this.domain_ids = new ArrayList<Integer>();
+      }
+      this.domain_ids.add(elem);
+    }
+
+    public List<Integer> get_domain_ids() {
+      return this.domain_ids;
+    }
+
+    public getMultiBulk_args set_domain_ids(List<Integer> domain_ids) {
+      this.domain_ids = domain_ids;
+      return this;
+    }
+
+    public void unset_domain_ids() {
+      this.domain_ids = null;
+    }
+
+    /** Returns true if field domain_ids is set (has been assigned a value) and false otherwise */
+    public boolean is_set_domain_ids() {
+      return this.domain_ids != null;
+    }
+
+    public void set_domain_ids_isSet(boolean value) {
+      if (!value) {
+        this.domain_ids = null;
+      }
+    }
+
+    public int get_keys_size() {
+      return (this.keys == null) ? 0 : this.keys.size();
+    }
+
+    public java.util.Iterator<ByteBuffer> get_keys_iterator() {
+      return (this.keys == null) ? null : this.keys.iterator();
+    }
+
+    public void add_to_keys(ByteBuffer elem) {
+      if (this.keys == null) {
+        this.keys = new ArrayList<ByteBuffer>();
+      }
+      this.keys.add(elem);
+    }
+
+    public List<ByteBuffer> get_keys() {
+      return this.keys;
+    }
+
+    public getMultiBulk_args set_keys(List<ByteBuffer> keys) {
+      this.keys = keys;
+      return this;
+    }
+
+    public void unset_keys() {
+      this.keys = null;
+    }
+
+    /** Returns true if field keys is set (has been assigned a value) and false otherwise */
+    public boolean is_set_keys() {
+      return this.keys != null;
+    }
+
+    public void set_keys_isSet(boolean value) {
+      if (!value) {
+        this.keys = null;
+      }
+    }
+
+    public void setFieldValue(_Fields field, Object value) {
+      switch (field) {
+      case DOMAIN_IDS:
+        if (value == null) {
+          unset_domain_ids();
+        } else {
+          set_domain_ids((List<Integer>)value);
+        }
+        break;
+
+      case KEYS:
+        if (value == null) {
+          unset_keys();
+        } else {
+          set_keys((List<ByteBuffer>)value);
+        }
+        break;
+
+      }
+    }
+
+    public Object getFieldValue(_Fields field) {
+      switch (field) {
+      case DOMAIN_IDS:
+        return get_domain_ids();
+
+      case KEYS:
+        return get_keys();
+
+      }
+      throw new IllegalStateException();
+    }
+
+    /** Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise */
+    public boolean isSet(_Fields field) {
+      if (field == null) {
+        throw new IllegalArgumentException();
+      }
+
+      switch (field) {
+      case DOMAIN_IDS:
+        return is_set_domain_ids();
+      case KEYS:
+        return is_set_keys();
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (that == null)
+        return false;
+      if (that instanceof getMultiBulk_args)
+        return this.equals((getMultiBulk_args)that);
+      return false;
+    }
+
+    public boolean equals(getMultiBulk_args that) {
+      if (that == null)
+        return false;
+
+      boolean this_present_domain_ids = true && this.is_set_domain_ids();
+      boolean that_present_domain_ids = true && that.is_set_domain_ids();
+      if (this_present_domain_ids || that_present_domain_ids) {
+        if (!(this_present_domain_ids && that_present_domain_ids))
+          return false;
+        if (!this.domain_ids.equals(that.domain_ids))
+          return false;
+      }
+
+      boolean this_present_keys = true && this.is_set_keys();
+      boolean that_present_keys = true && that.is_set_keys();
+      if (this_present_keys || that_present_keys) {
+        if (!(this_present_keys && that_present_keys))
+          return false;
+        if (!this.keys.equals(that.keys))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      HashCodeBuilder builder = new HashCodeBuilder();
+
+      boolean present_domain_ids = true && (is_set_domain_ids());
+      builder.append(present_domain_ids);
+      if (present_domain_ids)
+        builder.append(domain_ids);
+
+      boolean present_keys = true && (is_set_keys());
+      builder.append(present_keys);
+      if (present_keys)
+        builder.append(keys);
+
+      return builder.toHashCode();
+    }
+
+    public int compareTo(getMultiBulk_args other) {
+      if (!getClass().equals(other.getClass())) {
+        return getClass().getName().compareTo(other.getClass().getName());
+      }
+
+      int lastComparison = 0;
+      getMultiBulk_args typedOther = (getMultiBulk_args)other;
+
+      lastComparison = Boolean.valueOf(is_set_domain_ids()).compareTo(typedOther.is_set_domain_ids());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (is_set_domain_ids()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.domain_ids, typedOther.domain_ids);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      lastComparison = Boolean.valueOf(is_set_keys()).compareTo(typedOther.is_set_keys());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (is_set_keys()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.keys, typedOther.keys);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      return 0;
+    }
+
+    public _Fields fieldForId(int fieldId) {
+      return _Fields.findByThriftId(fieldId);
+    }
+
+    public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+      schemes.get(iprot.getScheme()).getScheme().read(iprot, this);
+    }
+
+    public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+      schemes.get(oprot.getScheme()).getScheme().write(oprot, this);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("getMultiBulk_args(");
+      boolean first = true;
+
+      sb.append("domain_ids:");
+      if (this.domain_ids == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.domain_ids);
+      }
+      first = false;
+      if (!first) sb.append(", ");
+      sb.append("keys:");
+      if (this.keys == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.keys);
+      }
+      first = false;
+      sb.append(")");
+      return sb.toString();
+    }
+
+    public void validate() throws org.apache.thrift.TException {
+      // check for required fields
+      // check for sub-struct validity
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+      try {
+        write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+      try {
+        read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private static class getMultiBulk_argsStandardSchemeFactory implements SchemeFactory {
+      public getMultiBulk_argsStandardScheme getScheme() {
+        return new getMultiBulk_argsStandardScheme();
+      }
+    }
+
+    private static class getMultiBulk_argsStandardScheme extends StandardScheme<getMultiBulk_args> {
+
+      public void read(org.apache.thrift.protocol.TProtocol iprot, getMultiBulk_args struct) throws org.apache.thrift.TException {
+        org.apache.thrift.protocol.TField schemeField;
+        iprot.readStructBegin();
+        while (true)
+        {
+          schemeField = iprot.readFieldBegin();
+          if (schemeField.type == org.apache.thrift.protocol.TType.STOP) { 
+            break;
+          }
+          switch (schemeField.id) {
+            case 1: // DOMAIN_IDS
+              if (schemeField.type == org.apache.thrift.protocol.TType.LIST) {
+                {
+                  org.apache.thrift.protocol.TList _list66 = iprot.readListBegin();
+                  struct.domain_ids = new ArrayList<Integer>(_list66.size);
+                  for (int _i67 = 0; _i67 < _list66.size; ++_i67)
+                  {
+                    int _elem68; // optional
+                    _elem68 = iprot.readI32();
+                    struct.domain_ids.add(_elem68);
+                  }
+                  iprot.readListEnd();
+                }
+                struct.set_domain_ids_isSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            case 2: // KEYS
+              if (schemeField.type == org.apache.thrift.protocol.TType.LIST) {
+                {
+                  org.apache.thrift.protocol.TList _list69 = iprot.readListBegin();
+                  struct.keys = new ArrayList<ByteBuffer>(_list69.size);
+                  for (int _i70 = 0; _i70 < _list69.size; ++_i70)
+                  {
+                    ByteBuffer _elem71; // optional
+                    _elem71 = iprot.readBinary();
+                    struct.keys.add(_elem71);
+                  }
+                  iprot.readListEnd();
+                }
+                struct.set_keys_isSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            default:
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+          }
+          iprot.readFieldEnd();
+        }
+        iprot.readStructEnd();
+
+        // check for required fields of primitive type, which can't be checked in the validate method
+        struct.validate();
+      }
+
+      public void write(org.apache.thrift.protocol.TProtocol oprot, getMultiBulk_args struct) throws org.apache.thrift.TException {
+        struct.validate();
+
+        oprot.writeStructBegin(STRUCT_DESC);
+        if (struct.domain_ids != null) {
+          oprot.writeFieldBegin(DOMAIN_IDS_FIELD_DESC);
+          {
+            oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.I32, struct.domain_ids.size()));
+            for (int _iter72 : struct.domain_ids)
+            {
+              oprot.writeI32(_iter72);
+            }
+            oprot.writeListEnd();
+          }
+          oprot.writeFieldEnd();
+        }
+        if (struct.keys != null) {
+          oprot.writeFieldBegin(KEYS_FIELD_DESC);
+          {
+            oprot.writeListBegin(new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, struct.keys.size()));
+            for (ByteBuffer _iter73 : struct.keys)
+            {
+              oprot.writeBinary(_iter73);
+            }
+            oprot.writeListEnd();
+          }
+          oprot.writeFieldEnd();
+        }
+        oprot.writeFieldStop();
+        oprot.writeStructEnd();
+      }
+
+    }
+
+    private static class getMultiBulk_argsTupleSchemeFactory implements SchemeFactory {
+      public getMultiBulk_argsTupleScheme getScheme() {
+        return new getMultiBulk_argsTupleScheme();
+      }
+    }
+
+    private static class getMultiBulk_argsTupleScheme extends TupleScheme<getMultiBulk_args> {
+
+      @Override
+      public void write(org.apache.thrift.protocol.TProtocol prot, getMultiBulk_args struct) throws org.apache.thrift.TException {
+        TTupleProtocol oprot = (TTupleProtocol) prot;
+        BitSet optionals = new BitSet();
+        if (struct.is_set_domain_ids()) {
+          optionals.set(0);
+        }
+        if (struct.is_set_keys()) {
+          optionals.set(1);
+        }
+        oprot.writeBitSet(optionals, 2);
+        if (struct.is_set_domain_ids()) {
+          {
+            oprot.writeI32(struct.domain_ids.size());
+            for (int _iter74 : struct.domain_ids)
+            {
+              oprot.writeI32(_iter74);
+            }
+          }
+        }
+        if (struct.is_set_keys()) {
+          {
+            oprot.writeI32(struct.keys.size());
+            for (ByteBuffer _iter75 : struct.keys)
+            {
+              oprot.writeBinary(_iter75);
+            }
+          }
+        }
+      }
+
+      @Override
+      public void read(org.apache.thrift.protocol.TProtocol prot, getMultiBulk_args struct) throws org.apache.thrift.TException {
+        TTupleProtocol iprot = (TTupleProtocol) prot;
+        BitSet incoming = iprot.readBitSet(2);
+        if (incoming.get(0)) {
+          {
+            org.apache.thrift.protocol.TList _list76 = new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.I32, iprot.readI32());
+            struct.domain_ids = new ArrayList<Integer>(_list76.size);
+            for (int _i77 = 0; _i77 < _list76.size; ++_i77)
+            {
+              int _elem78; // optional
+              _elem78 = iprot.readI32();
+              struct.domain_ids.add(_elem78);
+            }
+          }
+          struct.set_domain_ids_isSet(true);
+        }
+        if (incoming.get(1)) {
+          {
+            org.apache.thrift.protocol.TList _list79 = new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRING, iprot.readI32());
+            struct.keys = new ArrayList<ByteBuffer>(_list79.size);
+            for (int _i80 = 0; _i80 < _list79.size; ++_i80)
+            {
+              ByteBuffer _elem81; // optional
+              _elem81 = iprot.readBinary();
+              struct.keys.add(_elem81);
+            }
+          }
+          struct.set_keys_isSet(true);
+        }
+      }
+    }
+
+  }
+
+  public static class getMultiBulk_result implements org.apache.thrift.TBase<getMultiBulk_result, getMultiBulk_result._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("getMultiBulk_result");
+
+    private static final org.apache.thrift.protocol.TField SUCCESS_FIELD_DESC = new org.apache.thrift.protocol.TField("success", org.apache.thrift.protocol.TType.STRUCT, (short)0);
+
+    private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
+    static {
+      schemes.put(StandardScheme.class, new getMultiBulk_resultStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new getMultiBulk_resultTupleSchemeFactory());
+    }
+
+    public HankBulkResponse success; // required
+
+    /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
+    public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+      SUCCESS((short)0, "success");
+
+      private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+      static {
+        for (_Fields field : EnumSet.allOf(_Fields.class)) {
+          byName.put(field.getFieldName(), field);
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, or null if its not found.
+       */
+      public static _Fields findByThriftId(int fieldId) {
+        switch(fieldId) {
+          case 0: // SUCCESS
+            return SUCCESS;
+          default:
+            return null;
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, throwing an exception
+       * if it is not found.
+       */
+      public static _Fields findByThriftIdOrThrow(int fieldId) {
+        _Fields fields = findByThriftId(fieldId);
+        if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+        return fields;
+      }
+
+      /**
+       * Find the _Fields constant that matches name, or null if its not found.
+       */
+      public static _Fields findByName(String name) {
+        return byName.get(name);
+      }
+
+      private final short _thriftId;
+      private final String _fieldName;
+
+      _Fields(short thriftId, String fieldName) {
+        _thriftId = thriftId;
+        _fieldName = fieldName;
+      }
+
+      public short getThriftFieldId() {
+        return _thriftId;
+      }
+
+      public String getFieldName() {
+        return _fieldName;
+      }
+    }
+
+    // isset id assignments
+    public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+    static {
+      Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+      tmpMap.put(_Fields.SUCCESS, new org.apache.thrift.meta_data.FieldMetaData("success", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, HankBulkResponse.class)));
+      metaDataMap = Collections.unmodifiableMap(tmpMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(getMultiBulk_result.class, metaDataMap);
+    }
+
+    public getMultiBulk_result() {
+    }
+
+    public getMultiBulk_result(
+      HankBulkResponse success)
+    {
+      this();
+      this.success = success;
+    }
+
+    /**
+     * Performs a deep copy on <i>other</i>.
+     */
+    public getMultiBulk_result(getMultiBulk_result other) {
+      if (other.is_set_success()) {
+        this.success = new HankBulkResponse(other.success);
+      }
+    }
+
+    public getMultiBulk_result deepCopy() {
+      return new getMultiBulk_result(this);
+    }
+
+    @Override
+    public void clear() {
+      this.success = null;
+    }
+
+    public HankBulkResponse get_success() {
+      return this.success;
+    }
+
+    public getMultiBulk_result set_success(HankBulkResponse success) {
+      this.success = success;
+      return this;
+    }
+
+    public void unset_success() {
+      this.success = null;
+    }
+
+    /** Returns true if field success is set (has been assigned a value) and false otherwise */
+    public boolean is_set_success() {
+      return this.success != null;
+    }
+
+    public void set_success_isSet(boolean value) {
+      if (!value) {
+        this.success = null;
+      }
+    }
+
+    public void setFieldValue(_Fields field, Object value) {
+      switch (field) {
+      case SUCCESS:
+        if (value == null) {
+          unset_success();
+        } else {
+          set_success((HankBulkResponse)value);
+        }
+        break;
+
+      }
+    }
+
+    public Object getFieldValue(_Fields field) {
+      switch (field) {
+      case SUCCESS:
+        return get_success();
+
+      }
+      throw new IllegalStateException();
+    }
+
+    /** Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise */
+    public boolean isSet(_Fields field) {
+      if (field == null) {
+        throw new IllegalArgumentException();
+      }
+
+      switch (field) {
+      case SUCCESS:
+        return is_set_success();
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (that == null)
+        return false;
+      if (that instanceof getMultiBulk_result)
+        return this.equals((getMultiBulk_result)that);
+      return false;
+    }
+
+    public boolean equals(getMultiBulk_result that) {
+      if (that == null)
+        return false;
+
+      boolean this_present_success = true && this.is_set_success();
+      boolean that_present_success = true && that.is_set_success();
+      if (this_present_success || that_present_success) {
+        if (!(this_present_success && that_present_success))
+          return false;
+        if (!this.success.equals(that.success))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      HashCodeBuilder builder = new HashCodeBuilder();
+
+      boolean present_success = true && (is_set_success());
+      builder.append(present_success);
+      if (present_success)
+        builder.append(success);
+
+      return builder.toHashCode();
+    }
+
+    public int compareTo(getMultiBulk_result other) {
+      if (!getClass().equals(other.getClass())) {
+        return getClass().getName().compareTo(other.getClass().getName());
+      }
+
+      int lastComparison = 0;
+      getMultiBulk_result typedOther = (getMultiBulk_result)other;
+
+      lastComparison = Boolean.valueOf(is_set_success()).compareTo(typedOther.is_set_success());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (is_set_success()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.success, typedOther.success);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      return 0;
+    }
+
+    public _Fields fieldForId(int fieldId) {
+      return _Fields.findByThriftId(fieldId);
+    }
+
+    public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+      schemes.get(iprot.getScheme()).getScheme().read(iprot, this);
+    }
+
+    public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+      schemes.get(oprot.getScheme()).getScheme().write(oprot, this);
+      }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("getMultiBulk_result(");
+      boolean first = true;
+
+      sb.append("success:");
+      if (this.success == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.success);
+      }
+      first = false;
+      sb.append(")");
+      return sb.toString();
+    }
+
+    public void validate() throws org.apache.thrift.TException {
+      // check for required fields
+      // check for sub-struct validity
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+      try {
+        write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+      try {
+        read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private static class getMultiBulk_resultStandardSchemeFactory implements SchemeFactory {
+      public getMultiBulk_resultStandardScheme getScheme() {
+        return new getMultiBulk_resultStandardScheme();
+      }
+    }
+
+    private static class getMultiBulk_resultStandardScheme extends StandardScheme<getMultiBulk_result> {
+
+      public void read(org.apache.thrift.protocol.TProtocol iprot, getMultiBulk_result struct) throws org.apache.thrift.TException {
+        org.apache.thrift.protocol.TField schemeField;
+        iprot.readStructBegin();
+        while (true)
+        {
+          schemeField = iprot.readFieldBegin();
+          if (schemeField.type == org.apache.thrift.protocol.TType.STOP) { 
+            break;
+          }
+          switch (schemeField.id) {
+            case 0: // SUCCESS
+              if (schemeField.type == org.apache.thrift.protocol.TType.STRUCT) {
+                struct.success = new HankBulkResponse();
+                struct.success.read(iprot);
+                struct.set_success_isSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            default:
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+          }
+          iprot.readFieldEnd();
+        }
+        iprot.readStructEnd();
+
+        // check for required fields of primitive type, which can't be checked in the validate method
+        struct.validate();
+      }
+
+      public void write(org.apache.thrift.protocol.TProtocol oprot, getMultiBulk_result struct) throws org.apache.thrift.TException {
+        struct.validate();
+
+        oprot.writeStructBegin(STRUCT_DESC);
+        if (struct.success != null) {
+          oprot.writeFieldBegin(SUCCESS_FIELD_DESC);
+          struct.success.write(oprot);
+          oprot.writeFieldEnd();
+        }
+        oprot.writeFieldStop();
+        oprot.writeStructEnd();
+      }
+
+    }
+
+    private static class getMultiBulk_resultTupleSchemeFactory implements SchemeFactory {
+      public getMultiBulk_resultTupleScheme getScheme() {
+        return new getMultiBulk_resultTupleScheme();
+      }
+    }
+
+    private static class getMultiBulk_resultTupleScheme extends TupleScheme<getMultiBulk_result> {
+
+      @Override
+      public void write(org.apache.thrift.protocol.TProtocol prot, getMultiBulk_result struct) throws org.apache.thrift.TException {
+        TTupleProtocol oprot = (TTupleProtocol) prot;
+        BitSet optionals = new BitSet();
+        if (struct.is_set_success()) {
+          optionals.set(0);
+        }
+        oprot.writeBitSet(optionals, 1);
+        if (struct.is_set_success()) {
+          struct.success.write(oprot);
+        }
+      }
+
+      @Override
+      public void read(org.apache.thrift.protocol.TProtocol prot, getMultiBulk_result struct) throws org.apache.thrift.TException {
+        TTupleProtocol iprot = (TTupleProtocol) prot;
+        BitSet incoming = iprot.readBitSet(1);
+        if (incoming.get(0)) {
+          struct.success = new HankBulkResponse();
+          struct.success.read(iprot);
+          struct.set_success_isSet(true);
+        }
+      }
+    }
+
+  }
+
+  public static class scan_args implements org.apache.thrift.TBase<scan_args, scan_args._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("scan_args");
+
+    private static final org.apache.thrift.protocol.TField DOMAIN_ID_FIELD_DESC = new org.apache.thrift.protocol.TField("domain_id", org.apache.thrift.protocol.TType.I32, (short)1);
+    private static final org.apache.thrift.protocol.TField PARTITION_NUMBER_FIELD_DESC = new org.apache.thrift.protocol.TField("partition_number", org.apache.thrift.protocol.TType.I32, (short)2);
+    private static final org.apache.thrift.protocol.TField CURSOR_FIELD_DESC = new org.apache.thrift.protocol.TField("cursor", org.apache.thrift.protocol.TType.STRING, (short)3);
+    private static final org.apache.thrift.protocol.TField MAX_NUM_RECORDS_FIELD_DESC = new org.apache.thrift.protocol.TField("max_num_records", org.apache.thrift.protocol.TType.I32, (short)4);
+
+    private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
+    static {
+      schemes.put(StandardScheme.class, new scan_argsStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new scan_argsTupleSchemeFactory());
+    }
+
+    public int domain_id; // required
+    public int partition_number; // required
+    public ByteBuffer cursor; // required
+    public int max_num_records; // required
+
+    /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
+    public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+      DOMAIN_ID((short)1, "domain_id"),
+      PARTITION_NUMBER((short)2, "partition_number"),
+      CURSOR((short)3, "cursor"),
+      MAX_NUM_RECORDS((short)4, "max_num_records");
+
+      private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+      static {
+        for (_Fields field : EnumSet.allOf(_Fields.class)) {
+          byName.put(field.getFieldName(), field);
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, or null if its not found.
+       */
+      public static _Fields findByThriftId(int fieldId) {
+        switch(fieldId) {
+          case 1: // DOMAIN_ID
+            return DOMAIN_ID;
+          case 2: // PARTITION_NUMBER
+            return PARTITION_NUMBER;
+          case 3: // CURSOR
+            return CURSOR;
+          case 4: // MAX_NUM_RECORDS
+            return MAX_NUM_RECORDS;
+          default:
+            return null;
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, throwing an exception
+       * if it is not found.
+       */
+      public static _Fields findByThriftIdOrThrow(int fieldId) {
+        _Fields fields = findByThriftId(fieldId);
+        if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+        return fields;
+      }
+
+      /**
+       * Find the _Fields constant that matches name, or null if its not found.
+       */
+      public static _Fields findByName(String name) {
+        return byName.get(name);
+      }
+
+      private final short _thriftId;
+      private final String _fieldName;
+
+      _Fields(short thriftId, String fieldName) {
+        _thriftId = thriftId;
+        _fieldName = fieldName;
+      }
+
+      public short getThriftFieldId() {
+        return _thriftId;
+      }
+
+      public String getFieldName() {
+        return _fieldName;
+      }
+    }
+
+    // isset id assignments
+    private static final int __DOMAIN_ID_ISSET_ID = 0;
+    private static final int __PARTITION_NUMBER_ISSET_ID = 1;
+    private static final int __MAX_NUM_RECORDS_ISSET_ID = 2;
+    private byte __isset_bitfield = 0;
+    public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+    static {
+      Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+      tmpMap.put(_Fields.DOMAIN_ID, new org.apache.thrift.meta_data.FieldMetaData("domain_id", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I32)));
+      tmpMap.put(_Fields.PARTITION_NUMBER, new org.apache.thrift.meta_data.FieldMetaData("partition_number", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I32)));
+      tmpMap.put(_Fields.CURSOR, new org.apache.thrift.meta_data.FieldMetaData("cursor", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING          , true)));
+      tmpMap.put(_Fields.MAX_NUM_RECORDS, new org.apache.thrift.meta_data.FieldMetaData("max_num_records", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I32)));
+      metaDataMap = Collections.unmodifiableMap(tmpMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(scan_args.class, metaDataMap);
+    }
+
+    public scan_args() {
+    }
+
+    public scan_args(
+      int domain_id,
+      int partition_number,
+      ByteBuffer cursor,
+      int max_num_records)
+    {
+      this();
+      this.domain_id = domain_id;
+      set_domain_id_isSet(true);
+      this.partition_number = partition_number;
+      set_partition_number_isSet(true);
+      this.cursor = cursor;
+      this.max_num_records = max_num_records;
+      set_max_num_records_isSet(true);
+    }
+
+    /**
+     * Performs a deep copy on <i>other</i>.
+     */
+    public scan_args(scan_args other) {
+      __isset_bitfield = other.__isset_bitfield;
+      this.domain_id = other.domain_id;
+      this.partition_number = other.partition_number;
+      if (other.is_set_cursor()) {
+        this.cursor = org.apache.thrift.TBaseHelper.copyBinary(other.cursor);
+;
+      }
+      this.max_num_records = other.max_num_records;
+    }
+
+    public scan_args deepCopy() {
+      return new scan_args(this);
+    }
+
+    @Override
+    public void clear() {
+      set_domain_id_isSet(false);
+      this.domain_id = 0;
+      set_partition_number_isSet(false);
+      this.partition_number = 0;
+      this.cursor = null;
+      set_max_num_records_isSet(false);
+      this.max_num_records = 0;
+    }
+
+    public int get_domain_id() {
+      return this.domain_id;
+    }
+
+    public scan_args set_domain_id(int domain_id) {
+      this.domain_id = domain_id;
+      set_domain_id_isSet(true);
+      return this;
+    }
+
+    public void unset_domain_id() {
+      __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __DOMAIN_ID_ISSET_ID);
+    }
+
+    /** Returns true if field domain_id is set (has been assigned a value) and false otherwise */
+    public boolean is_set_domain_id() {
+      return EncodingUtils.testBit(__isset_bitfield, __DOMAIN_ID_ISSET_ID);
+    }
+
+    public void set_domain_id_isSet(boolean value) {
+      __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __DOMAIN_ID_ISSET_ID, value);
+    }
+
+    public int get_partition_number() {
+      return this.partition_number;
+    }
+
+    public scan_args set_partition_number(int partition_number) {
+      this.partition_number = partition_number;
+      set_partition_number_isSet(true);
+      return this;
+    }
+
+    public void unset_partition_number() {
+      __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __PARTITION_NUMBER_ISSET_ID);
+    }
+
+    /** Returns true if field partition_number is set (has been assigned a value) and false otherwise */
+    public boolean is_set_partition_number() {
+      return EncodingUtils.testBit(__isset_bitfield, __PARTITION_NUMBER_ISSET_ID);
+    }
+
+    public void set_partition_number_isSet(boolean value) {
+      __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __PARTITION_NUMBER_ISSET_ID, value);
+    }
+
+    public byte[] get_cursor() {
+      set_cursor(org.apache.thrift.TBaseHelper.rightSize(cursor));
+      return cursor == null ? null : cursor.array();
+    }
+
+    public ByteBuffer buffer_for_cursor() {
+      return cursor;
+    }
+
+    public scan_args set_cursor(byte[] cursor) {
+      set_cursor(cursor == null ? (ByteBuffer)null : ByteBuffer.wrap(cursor));
+      return this;
+    }
+
+    public scan_args set_cursor(ByteBuffer cursor) {
+      this.cursor = cursor;
+      return this;
+    }
+
+    public void unset_cursor() {
+      this.cursor = null;
+    }
+
+    /** Returns true if field cursor is set (has been assigned a value) and false otherwise */
+    public boolean is_set_cursor() {
+      return this.cursor != null;
+    }
+
+    public void set_cursor_isSet(boolean value) {
+      if (!value) {
+        this.cursor = null;
+      }
+    }
+
+    public int get_max_num_records() {
+      return this.max_num_records;
+    }
+
+    public scan_args set_max_num_records(int max_num_records) {
+      this.max_num_records = max_num_records;
+      set_max_num_records_isSet(true);
+      return this;
+    }
+
+    public void unset_max_num_records() {
+      __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __MAX_NUM_RECORDS_ISSET_ID);
+    }
+
+    /** Returns true if field max_num_records is set (has been assigned a value) and false otherwise */
+    public boolean is_set_max_num_records() {
+      return EncodingUtils.testBit(__isset_bitfield, __MAX_NUM_RECORDS_ISSET_ID);
+    }
+
+    public void set_max_num_records_isSet(boolean value) {
+      __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __MAX_NUM_RECORDS_ISSET_ID, value);
+    }
+
+    public void setFieldValue(_Fields field, Object value) {
+      switch (field) {
+      case DOMAIN_ID:
+        if (value == null) {
+          unset_domain_id();
+        } else {
+          set_domain_id((Integer)value);
+        }
+        break;
+
+      case PARTITION_NUMBER:
+        if (value == null) {
+          unset_partition_number();
+        } else {
+          set_partition_number((Integer)value);
+        }
+        break;
+
+      case CURSOR:
+        if (value == null) {
+          unset_cursor();
+        } else {
+          set_cursor((ByteBuffer)value);
+        }
+        break;
+
+      case MAX_NUM_RECORDS:
+        if (value == null) {
+          unset_max_num_records();
+        } else {
+          set_max_num_records((Integer)value);
+        }
+        break;
+
+      }
+    }
+
+    public Object getFieldValue(_Fields field) {
+      switch (field) {
+      case DOMAIN_ID:
+        return Integer.valueOf(get_domain_id());
+
+      case PARTITION_NUMBER:
+        return Integer.valueOf(get_partition_number());
+
+      case CURSOR:
+        return get_cursor();
+
+      case MAX_NUM_RECORDS:
+        return Integer.valueOf(get_max_num_records());
+
+      }
+      throw new IllegalStateException();
+    }
+
+    /** Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise */
+    public boolean isSet(_Fields field) {
+      if (field == null) {
+        throw new IllegalArgumentException();
+      }
+
+      switch (field) {
+      case DOMAIN_ID:
+        return is_set_domain_id();
+      case PARTITION_NUMBER:
+        return is_set_partition_number();
+      case CURSOR:
+        return is_set_cursor();
+      case MAX_NUM_RECORDS:
+        return is_set_max_num_records();
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (that == null)
+        return false;
+      if (that instanceof scan_args)
+        return this.equals((scan_args)that);
+      return false;
+    }
+
+    public boolean equals(scan_args that) {
+      if (that == null)
+        return false;
+
+      boolean this_present_domain_id = true;
+      boolean that_present_domain_id = true;
+      if (this_present_domain_id || that_present_domain_id) {
+        if (!(this_present_domain_id && that_present_domain_id))
+          return false;
+        if (this.domain_id != that.domain_id)
+          return false;
+      }
+
+      boolean this_present_partition_number = true;
+      boolean that_present_partition_number = true;
+      if (this_present_partition_number || that_present_partition_number) {
+        if (!(this_present_partition_number && that_present_partition_number))
+          return false;
+        if (this.partition_number != that.partition_number)
+          return false;
+      }
+
+      boolean this_present_cursor = true && this.is_set_cursor();
+      boolean that_present_cursor = true && that.is_set_cursor();
+      if (this_present_cursor || that_present_cursor) {
+        if (!(this_present_cursor && that_present_cursor))
+          return false;
+        if (!this.cursor.equals(that.cursor))
+          return false;
+      }
+
+      boolean this_present_max_num_records = true;
+      boolean that_present_max_num_records = true;
+      if (this_present_max_num_records || that_present_max_num_records) {
+        if (!(this_present_max_num_records && that_present_max_num_records))
+          return false;
+        if (this.max_num_records != that.max_num_records)
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      HashCodeBuilder builder = new HashCodeBuilder();
+
+      boolean present_domain_id = true;
+      builder.append(present_domain_id);
+      if (present_domain_id)
+        builder.append(domain_id);
+
+      boolean present_partition_number = true;
+      builder.append(present_partition_number);
+      if (present_partition_number)
+        builder.append(partition_number);
+
+      boolean present_cursor = true && (is_set_cursor());
+      builder.append(present_cursor);
+      if (present_cursor)
+        builder.append(cursor);
+
+      boolean present_max_num_records = true;
+      builder.append(present_max_num_records);
+      if (present_max_num_records)
+        builder.append(max_num_records);
+
+      return builder.toHashCode();
+    }
+
+    public int compareTo(scan_args other) {
+      if (!getClass().equals(other.getClass())) {
+        return getClass().getName().compareTo(other.getClass().getName());
+      }
+
+      int lastComparison = 0;
+      scan_args typedOther = (scan_args)other;
+
+      lastComparison = Boolean.valueOf(is_set_domain_id()).compareTo(typedOther.is_set_domain_id());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (is_set_domain_id()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.domain_id, typedOther.domain_id);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      lastComparison = Boolean.valueOf(is_set_partition_number()).compareTo(typedOther.is_set_partition_number());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (is_set_partition_number()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.partition_number, typedOther.partition_number);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      lastComparison = Boolean.valueOf(is_set_cursor()).compareTo(typedOther.is_set_cursor());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (is_set_cursor()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.cursor, typedOther.cursor);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      lastComparison = Boolean.valueOf(is_set_max_num_records()).compareTo(typedOther.is_set_max_num_records());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (is_set_max_num_records()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.max_num_records, typedOther.max_num_records);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      return 0;
+    }
+
+    public _Fields fieldForId(int fieldId) {
+      return _Fields.findByThriftId(fieldId);
+    }
+
+    public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+      schemes.get(iprot.getScheme()).getScheme().read(iprot, this);
+    }
+
+    public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+      schemes.get(oprot.getScheme()).getScheme().write(oprot, this);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("scan_args(");
+      boolean first = true;
+
+      sb.append("domain_id:");
+      sb.append(this.domain_id);
+      first = false;
+      if (!first) sb.append(", ");
+      sb.append("partition_number:");
+      sb.append(this.partition_number);
+      first = false;
+      if (!first) sb.append(", ");
+      sb.append("cursor:");
+      if (this.cursor == null) {
+        sb.append("null");
+      } else {
+        org.apache.thrift.TBaseHelper.toString(this.cursor, sb);
+      }
+      first = false;
+      if (!first) sb.append(", ");
+      sb.append("max_num_records:");
+      sb.append(this.max_num_records);
+      first = false;
+      sb.append(")");
+      return sb.toString();
+    }
+
+    public void validate() throws org.apache.thrift.TException {
+      // check for required fields
+      // check for sub-struct validity
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+      try {
+        write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+      try {
+        // it doesn't seem like you should have to do this, but java serialization is wacky, and doesn't call the default constructor.
+        __isset_bitfield = 0;
+        read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private static class scan_argsStandardSchemeFactory implements SchemeFactory {
+      public scan_argsStandardScheme getScheme() {
+        return new scan_argsStandardScheme();
+      }
+    }
+
+    private static class scan_argsStandardScheme extends StandardScheme<scan_args> {
+
+      public void read(org.apache.thrift.protocol.TProtocol iprot, scan_args struct) throws org.apache.thrift.TException {
+        org.apache.thrift.protocol.TField schemeField;
+        iprot.readStructBegin();
+        while (true)
+        {
+          schemeField = iprot.readFieldBegin();
+          if (schemeField.type == org.apache.thrift.protocol.TType.STOP) { 
+            break;
+          }
+          switch (schemeField.id) {
+            case 1: // DOMAIN_ID
+              if (schemeField.type == org.apache.thrift.protocol.TType.I32) {
+                struct.domain_id = iprot.readI32();
+                struct.set_domain_id_isSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            case 2: // PARTITION_NUMBER
+              if (schemeField.type == org.apache.thrift.protocol.TType.I32) {
+                struct.partition_number = iprot.readI32();
+                struct.set_partition_number_isSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            case 3: // CURSOR
+              if (schemeField.type == org.apache.thrift.protocol.TType.STRING) {
+                struct.cursor = iprot.readBinary();
+                struct.set_cursor_isSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            case 4: // MAX_NUM_RECORDS
+              if (schemeField.type == org.apache.thrift.protocol.TType.I32) {
+                struct.max_num_records = iprot.readI32();
+                struct.set_max_num_records_isSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            default:
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+          }
+          iprot.readFieldEnd();
+        }
+        iprot.readStructEnd();
+
+        // check for required fields of primitive type, which can't be checked in the validate method
+        struct.validate();
+      }
+
+      public void write(org.apache.thrift.protocol.TProtocol oprot, scan_args struct) throws org.apache.thrift.TException {
+        struct.validate();
+
+        oprot.writeStructBegin(STRUCT_DESC);
+        oprot.writeFieldBegin(DOMAIN_ID_FIELD_DESC);
+        oprot.writeI32(struct.domain_id);
+        oprot.writeFieldEnd();
+        oprot.writeFieldBegin(PARTITION_NUMBER_FIELD_DESC);
+        oprot.writeI32(struct.partition_number);
+        oprot.writeFieldEnd();
+        if (struct.cursor != null) {
+          oprot.writeFieldBegin(CURSOR_FIELD_DESC);
+          oprot.writeBinary(struct.cursor);
+          oprot.writeFieldEnd();
+        }
+        oprot.writeFieldBegin(MAX_NUM_RECORDS_FIELD_DESC);
+        oprot.writeI32(struct.max_num_records);
+        oprot.writeFieldEnd();
+        oprot.writeFieldStop();
+        oprot.writeStructEnd();
+      }
+
+    }
+
+    private static class scan_argsTupleSchemeFactory implements SchemeFactory {
+      public scan_argsTupleScheme getScheme() {
+        return new scan_argsTupleScheme();
+      }
+    }
+
+    private static class scan_argsTupleScheme extends TupleScheme<scan_args> {
+
+      @Override
+      public void write(org.apache.thrift.protocol.TProtocol prot, scan_args struct) throws org.apache.thrift.TException {
+        TTupleProtocol oprot = (TTupleProtocol) prot;
+        BitSet optionals = new BitSet();
+        if (struct.is_set_domain_id()) {
+          optionals.set(0);
+        }
+        if (struct.is_set_partition_number()) {
+          optionals.set(1);
+        }
+        if (struct.is_set_cursor()) {
+          optionals.set(2);
+        }
+        if (struct.is_set_max_num_records()) {
+          optionals.set(3);
+        }
+        oprot.writeBitSet(optionals, 4);
+        if (struct.is_set_domain_id()) {
+          oprot.writeI32(struct.domain_id);
+        }
+        if (struct.is_set_partition_number()) {
+          oprot.writeI32(struct.partition_number);
+        }
+        if (struct.is_set_cursor()) {
+          oprot.writeBinary(struct.cursor);
+        }
+        if (struct.is_set_max_num_records()) {
+          oprot.writeI32(struct.max_num_records);
+        }
+      }
+
+      @Override
+      public void read(org.apache.thrift.protocol.TProtocol prot, scan_args struct) throws org.apache.thrift.TException {
+        TTupleProtocol iprot = (TTupleProtocol) prot;
+        BitSet incoming = iprot.readBitSet(4);
+        if (incoming.get(0)) {
+          struct.domain_id = iprot.readI32();
+          struct.set_domain_id_isSet(true);
+        }
+        if (incoming.get(1)) {
+          struct.partition_number = iprot.readI32();
+          struct.set_partition_number_isSet(true);
+        }
+        if (incoming.get(2)) {
+          struct.cursor = iprot.readBinary();
+          struct.set_cursor_isSet(true);
+        }
+        if (incoming.get(3)) {
+          struct.max_num_records = iprot.readI32();
+          struct.set_max_num_records_isSet(true);
+        }
+      }
+    }
+
+  }
+
+  public static class scan_result implements org.apache.thrift.TBase<scan_result, scan_result._Fields>, java.io.Serializable, Cloneable   {
+    private static final org.apache.thrift.protocol.TStruct STRUCT_DESC = new org.apache.thrift.protocol.TStruct("scan_result");
+
+    private static final org.apache.thrift.protocol.TField SUCCESS_FIELD_DESC = new org.apache.thrift.protocol.TField("success", org.apache.thrift.protocol.TType.STRUCT, (short)0);
+
+    private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
+    static {
+      schemes.put(StandardScheme.class, new scan_resultStandardSchemeFactory());
+      schemes.put(TupleScheme.class, new scan_resultTupleSchemeFactory());
+    }
+
+    public HankScanResponse success; // required
+
+    /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
+    public enum _Fields implements org.apache.thrift.TFieldIdEnum {
+      SUCCESS((short)0, "success");
+
+      private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
+
+      static {
+        for (_Fields field : EnumSet.allOf(_Fields.class)) {
+          byName.put(field.getFieldName(), field);
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, or null if its not found.
+       */
+      public static _Fields findByThriftId(int fieldId) {
+        switch(fieldId) {
+          case 0: // SUCCESS
+            return SUCCESS;
+          default:
+            return null;
+        }
+      }
+
+      /**
+       * Find the _Fields constant that matches fieldId, throwing an exception
+       * if it is not found.
+       */
+      public static _Fields findByThriftIdOrThrow(int fieldId) {
+        _Fields fields = findByThriftId(fieldId);
+        if (fields == null) throw new IllegalArgumentException("Field " + fieldId + " doesn't exist!");
+        return fields;
+      }
+
+      /**
+       * Find the _Fields constant that matches name, or null if its not found.
+       */
+      public static _Fields findByName(String name) {
+        return byName.get(name);
+      }
+
+      private final short _thriftId;
+      private final String _fieldName;
+
+      _Fields(short thriftId, String fieldName) {
+        _thriftId = thriftId;
+        _fieldName = fieldName;
+      }
+
+      public short getThriftFieldId() {
+        return _thriftId;
+      }
+
+      public String getFieldName() {
+        return _fieldName;
+      }
+    }
+
+    // isset id assignments
+    public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
+    static {
+      Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
+      tmpMap.put(_Fields.SUCCESS, new org.apache.thrift.meta_data.FieldMetaData("success", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+          new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, HankScanResponse.class)));
+      metaDataMap = Collections.unmodifiableMap(tmpMap);
+      org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(scan_result.class, metaDataMap);
+    }
+
+    public scan_result() {
+    }
+
+    public scan_result(
+      HankScanResponse success)
+    {
+      this();
+      this.success = success;
+    }
+
+    /**
+     * Performs a deep copy on <i>other</i>.
+     */
+    public scan_result(scan_result other) {
+      if (other.is_set_success()) {
+        this.success = new HankScanResponse(other.success);
+      }
+    }
+
+    public scan_result deepCopy() {
+      return new scan_result(this);
+    }
+
+    @Override
+    public void clear() {
+      this.success = null;
+    }
+
+    public HankScanResponse get_success() {
+      return this.success;
+    }
+
+    public scan_result set_success(HankScanResponse success) {
+      this.success = success;
+      return this;
+    }
+
+    public void unset_success() {
+      this.success = null;
+    }
+
+    /** Returns true if field success is set (has been assigned a value) and false otherwise */
+    public boolean is_set_success() {
+      return this.success != null;
+    }
+
+    public void set_success_isSet(boolean value) {
+      if (!value) {
+        this.success = null;
+      }
+    }
+
+    public void setFieldValue(_Fields field, Object value) {
+      switch (field) {
+      case SUCCESS:
+        if (value == null) {
+          unset_success();
+        } else {
+          set_success((HankScanResponse)value);
+        }
+        break;
+
+      }
+    }
+
+    public Object getFieldValue(_Fields field) {
+      switch (field) {
+      case SUCCESS:
+        return get_success();
+
+      }
+      throw new IllegalStateException();
+    }
+
+    /** Returns true if field corresponding to fieldID is set (has been assigned a value) and false otherwise */
+    public boolean isSet(_Fields field) {
+      if (field == null) {
+        throw new IllegalArgumentException();
+      }
+
+      switch (field) {
+      case SUCCESS:
+        return is_set_success();
+      }
+      throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      if (that == null)
+        return false;
+      if (that instanceof scan_result)
+        return this.equals((scan_result)that);
+      return false;
+    }
+
+    public boolean equals(scan_result that) {
+      if (that == null)
+        return false;
+
+      boolean this_present_success = true && this.is_set_success();
+      boolean that_present_success = true && that.is_set_success();
+      if (this_present_success || that_present_success) {
+        if (!(this_present_success && that_present_success))
+          return false;
+        if (!this.success.equals(that.success))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      HashCodeBuilder builder = new HashCodeBuilder();
+
+      boolean present_success = true && (is_set_success());
+      builder.append(present_success);
+      if (present_success)
+        builder.append(success);
+
+      return builder.toHashCode();
+    }
+
+    public int compareTo(scan_result other) {
+      if (!getClass().equals(other.getClass())) {
+        return getClass().getName().compareTo(other.getClass().getName());
+      }
+
+      int lastComparison = 0;
+      scan_result typedOther = (scan_result)other;
+
+      lastComparison = Boolean.valueOf(is_set_success()).compareTo(typedOther.is_set_success());
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+      if (is_set_success()) {
+        lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.success, typedOther.success);
+        if (lastComparison != 0) {
+          return lastComparison;
+        }
+      }
+      return 0;
+    }
+
+    public _Fields fieldForId(int fieldId) {
+      return _Fields.findByThriftId(fieldId);
+    }
+
+    public void read(org.apache.thrift.protocol.TProtocol iprot) throws org.apache.thrift.TException {
+      schemes.get(iprot.getScheme()).getScheme().read(iprot, this);
+    }
+
+    public void write(org.apache.thrift.protocol.TProtocol oprot) throws org.apache.thrift.TException {
+      schemes.get(oprot.getScheme()).getScheme().write(oprot, this);
+      }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("scan_result(");
+      boolean first = true;
+
+      sb.append("success:");
+      if (this.success == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.success);
+      }
+      first = false;
+      sb.append(")");
+      return sb.toString();
+    }
+
+    public void validate() throws org.apache.thrift.TException {
+      // check for required fields
+      // check for sub-struct validity
+    }
+
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+      try {
+        write(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(out)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+      try {
+        read(new org.apache.thrift.protocol.TCompactProtocol(new org.apache.thrift.transport.TIOStreamTransport(in)));
+      } catch (org.apache.thrift.TException te) {
+        throw new java.io.IOException(te);
+      }
+    }
+
+    private static class scan_resultStandardSchemeFactory implements SchemeFactory {
+      public scan_resultStandardScheme getScheme() {
+        return new scan_resultStandardScheme();
+      }
+    }
+
+    private static class scan_resultStandardScheme extends StandardScheme<scan_result> {
+
+      public void read(org.apache.thrift.protocol.TProtocol iprot, scan_result struct) throws org.apache.thrift.TException {
+        org.apache.thrift.protocol.TField schemeField;
+        iprot.readStructBegin();
+        while (true)
+        {
+          schemeField = iprot.readFieldBegin();
+          if (schemeField.type == org.apache.thrift.protocol.TType.STOP) { 
+            break;
+          }
+          switch (schemeField.id) {
+            case 0: // SUCCESS
+              if (schemeField.type == org.apache.thrift.protocol.TType.STRUCT) {
+                struct.success = new HankScanResponse();
+                struct.success.read(iprot);
+                struct.set_success_isSet(true);
+              } else { 
+                org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+              }
+              break;
+            default:
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+          }
+          iprot.readFieldEnd();
+        }
+        iprot.readStructEnd();
+
+        // check for required fields of primitive type, which can't be checked in the validate method
+        struct.validate();
+      }
+
+      public void write(org.apache.thrift.protocol.TProtocol oprot, scan_result struct) throws org.apache.thrift.TException {
+        struct.validate();
+
+        oprot.writeStructBegin(STRUCT_DESC);
+        if (struct.success != null) {
+          oprot.writeFieldBegin(SUCCESS_FIELD_DESC);
+          struct.success.write(oprot);
+          oprot.writeFieldEnd();
+        }
+        oprot.writeFieldStop();
+        oprot.writeStructEnd();
+      }
+
+    }
+
+    private static class scan_resultTupleSchemeFactory implements SchemeFactory {
+      public scan_resultTupleScheme getScheme() {
+        return new scan_resultTupleScheme();
+      }
+    }
+
+    private static class scan_resultTupleScheme extends TupleScheme<scan_result> {
+
+      @Override
+      public void write(org.apache.thrift.protocol.TProtocol prot, scan_result struct) throws org.apache.thrift.TException {
+        TTupleProtocol oprot = (TTupleProtocol) prot;
+        BitSet optionals = new BitSet();
+        if (struct.is_set_success()) {
+          optionals.set(0);
+        }
+        oprot.writeBitSet(optionals, 1);
+        if (struct.is_set_success()) {
+          struct.success.write(oprot);
+        }
+      }
+
+      @Override
+      public void read(org.apache.thrift.protocol.TProtocol prot, scan_result struct) throws org.apache.thrift.TException {
+        TTupleProtocol iprot = (TTupleProtocol) prot;
+        BitSet incoming = iprot.readBitSet(1);
+        if (incoming.get(0)) {
+          struct.success = new HankScanResponse();
+          struct.success.read(iprot);
+          struct.set_success_isSet(true);
+        }
+      }
+    }
+
+  }
+
 }
@@ -17,13 +17,18 @@
 package com.liveramp.hank.partition_server;
 
 import java.text.DecimalFormat;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.Random;
 
+import com.liveramp.hank.util.LatencyHistogram;
+
+/**
+ * Minimum, maximum, count and total of a population of values, and a histogram of the values to compute
+ * percentiles. Values are kept in the histogram with a resolution of 0.001 (a microsecond for values in ms),
+ * so that aggregators of many hosts can be combined exactly.
+ */
 public class DoublePopulationStatisticsAggregator {
 
-  private static int POPULATION_RANDOM_SAMPLE_MAX_SIZE = 100;
+  private static final double HISTOGRAM_UNITS_PER_VALUE = 1000d;
 
   private static DecimalFormat format3 = new DecimalFormat("#.###");
   private static DecimalFormat format1 = new DecimalFormat("#.#");
@@ -33,8 +38,7 @@ public class DoublePopulationStatisticsAggregator {
   private double maximum;
   private long numValues;
   private double total;
-  private final ReservoirSample reservoirSample = new ReservoirSample(POPULATION_RANDOM_SAMPLE_MAX_SIZE);
-  private final Random random = new Random();
+  private LatencyHistogram histogram;
 
   public DoublePopulationStatisticsAggregator() {
     clear();
@@ -44,12 +48,33 @@ public class DoublePopulationStatisticsAggregator {
                                               double maximum,
                                               long numValues,
                                               double total,
-                                              double[] randomSample) {
+                                              LatencyHistogram histogram) {
     this.minimum = minimum;
     this.maximum = maximum;
     this.numValues = numValues;
     this.total = total;
-    this.reservoirSample.sample(randomSample, random);
+    this.histogram = histogram;
+  }
+
+  // Percentiles are computed from the given sample of values
+  public DoublePopulationStatisticsAggregator(double minimum,
+                                              double maximum,
+                                              long numValues,
+                                              double total,
+                                              double[] sample) {
+    this(minimum, maximum, numValues, total, new LatencyHistogram());
+    for (double value : sample) {
+      histogram.record(toHistogramUnits(value));
+    }
+  }
+
+  // Values of the given histogram of latencies are converted to ms
+  public DoublePopulationStatisticsAggregator(LatencyHistogram histogramMicros) {
+    this(histogramMicros.getMinimumMicros() < 0 ? Double.MAX_VALUE : histogramMicros.getMinimumMicros() / HISTOGRAM_UNITS_PER_VALUE,
+        histogramMicros.getMaximumMicros() < 0 ? Double.MIN_VALUE : histogramMicros.getMaximumMicros() / HISTOGRAM_UNITS_PER_VALUE,
+        histogramMicros.getNumValues(),
+        histogramMicros.getTotalMicros() / HISTOGRAM_UNITS_PER_VALUE,
+        histogramMicros);
   }
 
   public void clear() {
@@ -57,7 +82,19 @@ public class DoublePopulationStatisticsAggregator {
     maximum = Double.MIN_VALUE;
     numValues = 0;
     total = 0.0;
-    reservoirSample.clear();
+    histogram = new LatencyHistogram();
+  }
+
+  public void aggregate(double value) {
+    if (value > this.maximum) {
+      this.maximum = value;
+    }
+    if (value < this.minimum) {
+      this.minimum = value;
+    }
+    ++this.numValues;
+    this.total += value;
+    this.histogram.record(toHistogramUnits(value));
   }
 
   public void aggregate(double minimum, double maximum, long numValues, double total, double[] values) {
@@ -69,12 +106,13 @@ public class DoublePopulationStatisticsAggregator {
     }
     this.numValues += numValues;
     this.total += total;
-    this.reservoirSample.sample(values, random);
+    for (double value : values) {
+      this.histogram.record(toHistogramUnits(value));
+    }
   }
 
   public static DoublePopulationStatisticsAggregator
   combine(Collection<DoublePopulationStatisticsAggregator> aggregators) {
-    Random random = new Random();
     DoublePopulationStatisticsAggregator result = new DoublePopulationStatisticsAggregator();
     for (DoublePopulationStatisticsAggregator aggregator : aggregators) {
       if (aggregator.maximum > result.maximum) {
@@ -85,19 +123,7 @@ public class DoublePopulationStatisticsAggregator {
       }
       result.numValues += aggregator.numValues;
       result.total += aggregator.total;
-    }
-    // Now we can create a stream of values based on a
-    // random sample of the aggregators reservoirs but
-    // with the number of values in their streams a weight
-    // and reservoir sample that. This assumes that all given reservoirs
-    // have the same size.
-    for (DoublePopulationStatisticsAggregator aggregator : aggregators) {
-      double ratio = (double) aggregator.numValues / (double) result.numValues;
-      for (double value : aggregator.reservoirSample.getReservoir()) {
-        if ((Math.abs(random.nextDouble()) / Double.MAX_VALUE) < ratio) {
-          result.reservoirSample.sample(value, random);
-        }
-      }
+      result.histogram.add(aggregator.histogram);
     }
     return result;
   }
@@ -116,6 +142,10 @@ public class DoublePopulationStatisticsAggregator {
     return minimum;
   }
 
+  public long getNumValues() {
+    return numValues;
+  }
+
   public double getMean() {
     if (numValues != 0) {
       return total / numValues;
@@ -124,16 +154,15 @@ public class DoublePopulationStatisticsAggregator {
     }
   }
 
+  // Return 0 if there is no value
+  public double getPercentile(double percentile) {
+    return histogram.getValueAtPercentileMicros(percentile) / HISTOGRAM_UNITS_PER_VALUE;
+  }
+
   public double[] computeDeciles() {
     double[] result = new double[9];
-    Arrays.fill(result, 0.0);
-    if (reservoirSample.getSize() > 0) {
-      // Sort valid reservoir values first
-      Arrays.sort(reservoirSample.getReservoir(), 0, reservoirSample.getSize());
-      // Compute deciles
-      for (int i = 0; i < 9; ++i) {
-        result[i] = getSortedPopulationDecile(reservoirSample.getReservoir(), i + 1, reservoirSample.getSize());
-      }
+    for (int i = 0; i < 9; ++i) {
+      result[i] = getPercentile((i + 1) * 10);
     }
     return result;
   }
@@ -147,13 +176,21 @@ public class DoublePopulationStatisticsAggregator {
     result.append(populationStatistics.numValues);
     result.append(' ');
     result.append(populationStatistics.total);
-    for (int i = 0; i < populationStatistics.reservoirSample.getSize(); ++i) {
-      result.append(' ');
-      result.append(populationStatistics.reservoirSample.getReservoir()[i]);
-    }
+    result.append(' ');
+    result.append(LatencyHistogram.toString(populationStatistics.histogram));
     return result.toString();
   }
 
+  // Parse the given tokens of the representation returned by toString()
+  public static DoublePopulationStatisticsAggregator parse(String[] tokens, int offset) {
+    return new DoublePopulationStatisticsAggregator(
+        Double.parseDouble(tokens[offset]),
+        Double.parseDouble(tokens[offset + 1]),
+        Long.parseLong(tokens[offset + 2]),
+        Double.parseDouble(tokens[offset + 3]),
+        LatencyHistogram.parse(tokens[offset + 4]));
+  }
+
   public static String formatDouble(double value) {
     if (value < 1) {
       return format3.format(value);
@@ -165,67 +202,18 @@ public class DoublePopulationStatisticsAggregator {
   }
 
   public String format() {
-    double[] deciles = computeDeciles();
     StringBuilder result = new StringBuilder();
-    // Compute median
-    double median = numValues == 0 ? 0 : deciles[4];
-    // Compute 90% percentile
-    double ninetiethPercentile = numValues == 0 ? 0 : deciles[8];
     result.append(formatDouble(getMean()));
     result.append(" / ");
-    result.append(formatDouble(median));
+    result.append(formatDouble(getPercentile(50)));
     result.append(" / ");
-    result.append(formatDouble(ninetiethPercentile));
+    result.append(formatDouble(getPercentile(90)));
     result.append(" ms");
     return result.toString();
   }
 
-  public class ReservoirSample {
-
-    private final double[] reservoir;
-    private int size;
-    private int count;
-
-    public ReservoirSample(int reservoirMaxSize) {
-      reservoir = new double[reservoirMaxSize];
-      clear();
-    }
-
-    public void sample(double[] values, Random random) {
-      for (double value : values) {
-        sample(value, random);
-      }
-    }
-
-    public void sample(double value, Random random) {
-      if (count < reservoir.length) {
-        reservoir[size++] = value;
-      } else {
-        if (random.nextInt(count) < reservoir.length) {
-          reservoir[random.nextInt(reservoir.length)] = value;
-        }
-      }
-      ++count;
-    }
-
-    public void sample(ReservoirSample other, Random random) {
-      for (int i = 0; i < other.getSize(); ++i) {
-        sample(other.getReservoir()[i], random);
-      }
-    }
-
-    public double[] getReservoir() {
-      return reservoir;
-    }
-
-    public int getSize() {
-      return size;
-    }
-
-    public void clear() {
-      size = 0;
-      count = 0;
-    }
+  private static long toHistogramUnits(double value) {
+    return Math.round(value * HISTOGRAM_UNITS_PER_VALUE);
   }
 
   public static double getSortedPopulationDecile(double[] population, int decile, int endIndex) {
@@ -26,6 +26,8 @@ public class PartitionAccessorRuntimeStatistics {
   protected final double responseDataThroughput;
   protected final long numL1CacheHits;
   protected final long numL2CacheHits;
+  protected final long numCoalescedHits;
+  // Null when the Reader has no statistics to report yet
   protected final CacheStatistics cacheStatistics;
 
   public PartitionAccessorRuntimeStatistics(long numRequests,
@@ -35,12 +37,24 @@ public class PartitionAccessorRuntimeStatistics {
                                             long numL1CacheHits,
                                             long numL2CacheHits,
                                             CacheStatistics cacheStatistics) {
+    this(numRequests, numHits, throughput, responseDataThroughput, numL1CacheHits, numL2CacheHits, 0, cacheStatistics);
+  }
+
+  public PartitionAccessorRuntimeStatistics(long numRequests,
+                                            long numHits,
+                                            double throughput,
+                                            double responseDataThroughput,
+                                            long numL1CacheHits,
+                                            long numL2CacheHits,
+                                            long numCoalescedHits,
+                                            CacheStatistics cacheStatistics) {
     this.numRequests = numRequests;
     this.numHits = numHits;
     this.throughput = throughput;
     this.responseDataThroughput = responseDataThroughput;
     this.numL1CacheHits = numL1CacheHits;
     this.numL2CacheHits = numL2CacheHits;
+    this.numCoalescedHits = numCoalescedHits;
     this.cacheStatistics = cacheStatistics;
   }
 }
@@ -28,12 +28,20 @@ public class RuntimeStatisticsAggregator {
 
   private static Logger LOG = Logger.getLogger(RuntimeStatisticsAggregator.class);
 
+  // Leading token of the representation returned by toString(). Representations without it have the layout
+  // written by servers that predate it, which is still parsed during rolling upgrades.
+  private static final String FORMAT_VERSION = "v2";
+  private static final int LEGACY_NUM_TOKENS_BEFORE_SAMPLE = 14;
+
   private double throughputTotal;
   private double responseDataThroughputTotal;
   private long numRequestsTotal;
   private long numHitsTotal;
   private long numL1CacheHitsTotal;
   private long numL2CacheHitsTotal;
+  private long numCoalescedHitsTotal;
+  private long numQueuedKeysTotal;
+  private long numRejectedKeysTotal;
   private DoublePopulationStatisticsAggregator getRequestsPopulationStatistics;
   private CacheStatistics cacheStatisticsTotal;
 
@@ -44,8 +52,11 @@ public class RuntimeStatisticsAggregator {
     numHitsTotal = 0;
     numL1CacheHitsTotal = 0;
     numL2CacheHitsTotal = 0;
+    numCoalescedHitsTotal = 0;
+    numQueuedKeysTotal = 0;
+    numRejectedKeysTotal = 0;
     getRequestsPopulationStatistics = new DoublePopulationStatisticsAggregator();
-    cacheStatisticsTotal = new CacheStatistics(0, 0, 0, 0);
+    cacheStatisticsTotal = new CacheStatistics(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
   }
 
   public RuntimeStatisticsAggregator(double throughputTotal,
@@ -56,12 +67,43 @@ public class RuntimeStatisticsAggregator {
                                      long numL2CacheHitsTotal,
                                      DoublePopulationStatisticsAggregator getRequestsPopulationStatistics,
                                      CacheStatistics cacheStatisticsTotal) {
+    this(throughputTotal, responseDataThroughputTotal, numRequestsTotal, numHitsTotal, numL1CacheHitsTotal,
+        numL2CacheHitsTotal, 0, getRequestsPopulationStatistics, cacheStatisticsTotal);
+  }
+
+  public RuntimeStatisticsAggregator(double throughputTotal,
+                                     double responseDataThroughputTotal,
+                                     long numRequestsTotal,
+                                     long numHitsTotal,
+                                     long numL1CacheHitsTotal,
+                                     long numL2CacheHitsTotal,
+                                     long numCoalescedHitsTotal,
+                                     DoublePopulationStatisticsAggregator getRequestsPopulationStatistics,
+                                     CacheStatistics cacheStatisticsTotal) {
+    this(throughputTotal, responseDataThroughputTotal, numRequestsTotal, numHitsTotal, numL1CacheHitsTotal,
+        numL2CacheHitsTotal, numCoalescedHitsTotal, 0, 0, getRequestsPopulationStatistics, cacheStatisticsTotal);
+  }
+
+  public RuntimeStatisticsAggregator(double throughputTotal,
+                                     double responseDataThroughputTotal,
+                                     long numRequestsTotal,
+                                     long numHitsTotal,
+                                     long numL1CacheHitsTotal,
+                                     long numL2CacheHitsTotal,
+                                     long numCoalescedHitsTotal,
+                                     long numQueuedKeysTotal,
+                                     long numRejectedKeysTotal,
+                                     DoublePopulationStatisticsAggregator getRequestsPopulationStatistics,
+                                     CacheStatistics cacheStatisticsTotal) {
     this.throughputTotal = throughputTotal;
     this.responseDataThroughputTotal = responseDataThroughputTotal;
     this.numRequestsTotal = numRequestsTotal;
     this.numHitsTotal = numHitsTotal;
     this.numL1CacheHitsTotal = numL1CacheHitsTotal;
     this.numL2CacheHitsTotal = numL2CacheHitsTotal;
+    this.numCoalescedHitsTotal = numCoalescedHitsTotal;
+    this.numQueuedKeysTotal = numQueuedKeysTotal;
+    this.numRejectedKeysTotal = numRejectedKeysTotal;
     this.getRequestsPopulationStatistics = getRequestsPopulationStatistics;
     this.cacheStatisticsTotal = cacheStatisticsTotal;
   }
@@ -73,7 +115,11 @@ public class RuntimeStatisticsAggregator {
     numHitsTotal += runtimeStatistics.numHits;
     numL1CacheHitsTotal += runtimeStatistics.numL1CacheHits;
     numL2CacheHitsTotal += runtimeStatistics.numL2CacheHits;
-    cacheStatisticsTotal.add(runtimeStatistics.cacheStatistics);
+    numCoalescedHitsTotal += runtimeStatistics.numCoalescedHits;
+    // Readers that are not open yet have no cache statistics
+    if (runtimeStatistics.cacheStatistics != null) {
+      cacheStatisticsTotal.add(runtimeStatistics.cacheStatistics);
+    }
   }
 
   public static RuntimeStatisticsAggregator combine(Collection<RuntimeStatisticsAggregator> runtimeStatisticsAggregators) {
@@ -87,6 +133,9 @@ public class RuntimeStatisticsAggregator {
       result.numHitsTotal += runtimeStatisticsAggregator.numHitsTotal;
       result.numL1CacheHitsTotal += runtimeStatisticsAggregator.numL1CacheHitsTotal;
       result.numL2CacheHitsTotal += runtimeStatisticsAggregator.numL2CacheHitsTotal;
+      result.numCoalescedHitsTotal += runtimeStatisticsAggregator.numCoalescedHitsTotal;
+      result.numQueuedKeysTotal += runtimeStatisticsAggregator.numQueuedKeysTotal;
+      result.numRejectedKeysTotal += runtimeStatisticsAggregator.numRejectedKeysTotal;
       doublePopulationStatisticsAggregators.add(runtimeStatisticsAggregator.getRequestsPopulationStatistics);
       result.cacheStatisticsTotal.add(runtimeStatisticsAggregator.cacheStatisticsTotal);
     }
@@ -98,6 +147,12 @@ public class RuntimeStatisticsAggregator {
     this.getRequestsPopulationStatistics = populationStatistics;
   }
 
+  // Number of keys of GET BULK requests waiting to be executed, and number of keys of rejected requests
+  public void setQueueStatistics(long numQueuedKeys, long numRejectedKeys) {
+    this.numQueuedKeysTotal = numQueuedKeys;
+    this.numRejectedKeysTotal = numRejectedKeys;
+  }
+
   public double getThroughput() {
     return throughputTotal;
   }
@@ -130,6 +185,28 @@ public class RuntimeStatisticsAggregator {
     }
   }
 
+  // Share of requests that were served by waiting on an identical in-flight request
+  public double getCoalescedHitRate() {
+    if (numRequestsTotal == 0) {
+      return 0;
+    } else {
+      return (double)numCoalescedHitsTotal / (double)numRequestsTotal;
+    }
+  }
+
+  public long getNumQueuedKeys() {
+    return numQueuedKeysTotal;
+  }
+
+  // Share of keys that were rejected because the server was overloaded
+  public double getRejectionRate() {
+    if (numRequestsTotal + numRejectedKeysTotal == 0) {
+      return 0;
+    } else {
+      return (double)numRejectedKeysTotal / (double)(numRequestsTotal + numRejectedKeysTotal);
+    }
+  }
+
   public DoublePopulationStatisticsAggregator getGetRequestsPopulationStatistics() {
     return getRequestsPopulationStatistics;
   }
@@ -139,16 +216,27 @@ public class RuntimeStatisticsAggregator {
   }
 
   public static String toString(RuntimeStatisticsAggregator runtimeStatisticsAggregator) {
-    return runtimeStatisticsAggregator.throughputTotal
+    return FORMAT_VERSION
+        + " " + runtimeStatisticsAggregator.throughputTotal
         + " " + runtimeStatisticsAggregator.responseDataThroughputTotal
         + " " + runtimeStatisticsAggregator.numRequestsTotal
         + " " + runtimeStatisticsAggregator.numHitsTotal
         + " " + runtimeStatisticsAggregator.numL1CacheHitsTotal
         + " " + runtimeStatisticsAggregator.numL2CacheHitsTotal
+        + " " + runtimeStatisticsAggregator.numCoalescedHitsTotal
+        + " " + runtimeStatisticsAggregator.numQueuedKeysTotal
+        + " " + runtimeStatisticsAggregator.numRejectedKeysTotal
         + " " + runtimeStatisticsAggregator.cacheStatisticsTotal.getNumItems()
         + " " + runtimeStatisticsAggregator.cacheStatisticsTotal.getMaxNumItems()
         + " " + runtimeStatisticsAggregator.cacheStatisticsTotal.getNumManagedBytes()
         + " " + runtimeStatisticsAggregator.cacheStatisticsTotal.getMaxNumManagedBytes()
+        + " " + runtimeStatisticsAggregator.cacheStatisticsTotal.getBloomFilterNumBytes()
+        + " " + runtimeStatisticsAggregator.cacheStatisticsTotal.getBloomFilterNumNegatives()
+        + " " + runtimeStatisticsAggregator.cacheStatisticsTotal.getBloomFilterNumFalsePositives()
+        + " " + runtimeStatisticsAggregator.cacheStatisticsTotal.getNumAdmissionRejects()
+        + " " + runtimeStatisticsAggregator.cacheStatisticsTotal.getBlockCacheNumHits()
+        + " " + runtimeStatisticsAggregator.cacheStatisticsTotal.getBlockCacheNumMisses()
+        + " " + runtimeStatisticsAggregator.cacheStatisticsTotal.getBlockCacheNumBytesSaved()
         + " " + DoublePopulationStatisticsAggregator.toString(
         runtimeStatisticsAggregator.getRequestsPopulationStatistics);
   }
@@ -157,44 +245,93 @@ public class RuntimeStatisticsAggregator {
     String[] tokens = str.split(" ");
 
     try {
-
-      double throughputTotal = Double.parseDouble(tokens[0]);
-      double responseDataThroughputTotal = Double.parseDouble(tokens[1]);
-      long numRequestsTotal = Long.parseLong(tokens[2]);
-      long numHitsTotal = Long.parseLong(tokens[3]);
-      long numL1CacheHitsTotal = Long.parseLong(tokens[4]);
-      long numL2CacheHitsTotal = Long.parseLong(tokens[5]);
-
-      CacheStatistics cacheStatisticsTotal = new CacheStatistics(
-          Long.parseLong(tokens[6]),
-          Long.parseLong(tokens[7]),
-          Long.parseLong(tokens[8]),
-          Long.parseLong(tokens[9]));
-
-      int numRandomSample = tokens.length - 14;
-      double[] randomSample = new double[numRandomSample];
-      for (int i = 0; i < numRandomSample; ++i) {
-        randomSample[i] = Double.parseDouble(tokens[14 + i]);
+      if (tokens[0].equals(FORMAT_VERSION)) {
+        return parse(tokens, 1);
+      } else {
+        return parseLegacy(tokens);
       }
-      DoublePopulationStatisticsAggregator getRequestsPopulationStatistics = new DoublePopulationStatisticsAggregator(
-          Double.parseDouble(tokens[10]),
-          Double.parseDouble(tokens[11]),
-          Long.parseLong(tokens[12]),
-          Double.parseDouble(tokens[13]),
-          randomSample);
-
-      return new RuntimeStatisticsAggregator(
-          throughputTotal,
-          responseDataThroughputTotal,
-          numRequestsTotal,
-          numHitsTotal,
-          numL1CacheHitsTotal,
-          numL2CacheHitsTotal,
-          getRequestsPopulationStatistics,
-          cacheStatisticsTotal);
     } catch (Exception e) {
       LOG.error("Failed to parse runtime statistics aggregator with string: " + str, e);
       return new RuntimeStatisticsAggregator();
     }
   }
+
+  private static RuntimeStatisticsAggregator parse(String[] tokens, int offset) {
+    double throughputTotal = Double.parseDouble(tokens[offset]);
+    double responseDataThroughputTotal = Double.parseDouble(tokens[offset + 1]);
+    long numRequestsTotal = Long.parseLong(tokens[offset + 2]);
+    long numHitsTotal = Long.parseLong(tokens[offset + 3]);
+    long numL1CacheHitsTotal = Long.parseLong(tokens[offset + 4]);
+    long numL2CacheHitsTotal = Long.parseLong(tokens[offset + 5]);
+    long numCoalescedHitsTotal = Long.parseLong(tokens[offset + 6]);
+    long numQueuedKeysTotal = Long.parseLong(tokens[offset + 7]);
+    long numRejectedKeysTotal = Long.parseLong(tokens[offset + 8]);
+
+    CacheStatistics cacheStatisticsTotal = new CacheStatistics(
+        Long.parseLong(tokens[offset + 9]),
+        Long.parseLong(tokens[offset + 10]),
+        Long.parseLong(tokens[offset + 11]),
+        Long.parseLong(tokens[offset + 12]),
+        Long.parseLong(tokens[offset + 13]),
+        Long.parseLong(tokens[offset + 14]),
+        Long.parseLong(tokens[offset + 15]),
+        Long.parseLong(tokens[offset + 16]),
+        Long.parseLong(tokens[offset + 17]),
+        Long.parseLong(tokens[offset + 18]),
+        Long.parseLong(tokens[offset + 19]));
+
+    DoublePopulationStatisticsAggregator getRequestsPopulationStatistics =
+        DoublePopulationStatisticsAggregator.parse(tokens, offset + 20);
+
+    return new RuntimeStatisticsAggregator(
+        throughputTotal,
+        responseDataThroughputTotal,
+        numRequestsTotal,
+        numHitsTotal,
+        numL1CacheHitsTotal,
+        numL2CacheHitsTotal,
+        numCoalescedHitsTotal,
+        numQueuedKeysTotal,
+        numRejectedKeysTotal,
+        getRequestsPopulationStatistics,
+        cacheStatisticsTotal);
+  }
+
+  // Counters that did not exist yet are zero, and percentiles are computed from the random sample of latencies
+  private static RuntimeStatisticsAggregator parseLegacy(String[] tokens) {
+    double throughputTotal = Double.parseDouble(tokens[0]);
+    double responseDataThroughputTotal = Double.parseDouble(tokens[1]);
+    long numRequestsTotal = Long.parseLong(tokens[2]);
+    long numHitsTotal = Long.parseLong(tokens[3]);
+    long numL1CacheHitsTotal = Long.parseLong(tokens[4]);
+    long numL2CacheHitsTotal = Long.parseLong(tokens[5]);
+
+    CacheStatistics cacheStatisticsTotal = new CacheStatistics(
+        Long.parseLong(tokens[6]),
+        Long.parseLong(tokens[7]),
+        Long.parseLong(tokens[8]),
+        Long.parseLong(tokens[9]));
+
+    int numRandomSample = tokens.length - LEGACY_NUM_TOKENS_BEFORE_SAMPLE;
+    double[] randomSample = new double[numRandomSample];
+    for (int i = 0; i < numRandomSample; ++i) {
+      randomSample[i] = Double.parseDouble(tokens[LEGACY_NUM_TOKENS_BEFORE_SAMPLE + i]);
+    }
+    DoublePopulationStatisticsAggregator getRequestsPopulationStatistics = new DoublePopulationStatisticsAggregator(
+        Double.parseDouble(tokens[10]),
+        Double.parseDouble(tokens[11]),
+        Long.parseLong(tokens[12]),
+        Double.parseDouble(tokens[13]),
+        randomSample);
+
+    return new RuntimeStatisticsAggregator(
+        throughputTotal,
+        responseDataThroughputTotal,
+        numRequestsTotal,
+        numHitsTotal,
+        numL1CacheHitsTotal,
+        numL2CacheHitsTotal,
+        getRequestsPopulationStatistics,
+        cacheStatisticsTotal);
+  }
 }
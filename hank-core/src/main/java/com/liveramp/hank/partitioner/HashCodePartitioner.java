@@ -18,12 +18,17 @@ package com.liveramp.hank.partitioner;
 
 import java.nio.ByteBuffer;
 
-public class HashCodePartitioner implements Partitioner {
+public class HashCodePartitioner implements HashPartitioner {
 
   @Override
   public int partition(ByteBuffer key, int numPartitions) {
+    return hash(key) % numPartitions;
+  }
+
+  @Override
+  public int hash(ByteBuffer key) {
     int hashCode = 31 + (key != null ? bytesHashCode(key.array(), key.arrayOffset() + key.position(), key.remaining()) : 0);
-    return (hashCode & Integer.MAX_VALUE) % numPartitions;
+    return hashCode & Integer.MAX_VALUE;
   }
 
   private int bytesHashCode(byte[] bytes, int offset, int length) {
@@ -0,0 +1,32 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.partitioner;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Partitioner that derives partition numbers from a hash of the key, so that callers that also need a hash of
+ * the key can compute both with a single pass over it.
+ */
+public interface HashPartitioner extends Partitioner {
+  /**
+   * Must be deterministic, and such that partition(key, numPartitions) == hash(key) % numPartitions
+   * @param key
+   * @return
+   */
+  public int hash(ByteBuffer key);
+}
@@ -0,0 +1,31 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Reader that can look up several keys at once. Lookups are performed in the order of the data they need
+ * rather than in the order of the keys, so that bulk lookups are closer to sequential IO.
+ */
+public interface BulkReader extends Reader {
+
+  // Look up each key into the result with the same index. Results should not share their buffers.
+  public void getBulk(List<ByteBuffer> keys, ReaderResult[] results) throws IOException;
+}
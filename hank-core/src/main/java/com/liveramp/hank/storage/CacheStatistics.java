@@ -22,12 +22,66 @@ public class CacheStatistics {
   private long maxNumItems;
   private long numManagedBytes;
   private long maxNumManagedBytes;
+  // Bloom filters
+  private long bloomFilterNumBytes;
+  private long bloomFilterNumNegatives;
+  private long bloomFilterNumFalsePositives;
+  // Admission policy
+  private long numAdmissionRejects;
+  // Decompressed block caches
+  private long blockCacheNumHits;
+  private long blockCacheNumMisses;
+  private long blockCacheNumBytesSaved;
 
   public CacheStatistics(long numItems, long maxNumItems, long numManagedBytes, long maxNumManagedBytes) {
+    this(numItems, maxNumItems, numManagedBytes, maxNumManagedBytes, 0, 0, 0);
+  }
+
+  public CacheStatistics(long numItems,
+                         long maxNumItems,
+                         long numManagedBytes,
+                         long maxNumManagedBytes,
+                         long bloomFilterNumBytes,
+                         long bloomFilterNumNegatives,
+                         long bloomFilterNumFalsePositives) {
+    this(numItems, maxNumItems, numManagedBytes, maxNumManagedBytes,
+        bloomFilterNumBytes, bloomFilterNumNegatives, bloomFilterNumFalsePositives, 0);
+  }
+
+  public CacheStatistics(long numItems,
+                         long maxNumItems,
+                         long numManagedBytes,
+                         long maxNumManagedBytes,
+                         long bloomFilterNumBytes,
+                         long bloomFilterNumNegatives,
+                         long bloomFilterNumFalsePositives,
+                         long numAdmissionRejects) {
+    this(numItems, maxNumItems, numManagedBytes, maxNumManagedBytes,
+        bloomFilterNumBytes, bloomFilterNumNegatives, bloomFilterNumFalsePositives, numAdmissionRejects, 0, 0, 0);
+  }
+
+  public CacheStatistics(long numItems,
+                         long maxNumItems,
+                         long numManagedBytes,
+                         long maxNumManagedBytes,
+                         long bloomFilterNumBytes,
+                         long bloomFilterNumNegatives,
+                         long bloomFilterNumFalsePositives,
+                         long numAdmissionRejects,
+                         long blockCacheNumHits,
+                         long blockCacheNumMisses,
+                         long blockCacheNumBytesSaved) {
     this.numItems = numItems;
     this.maxNumItems = maxNumItems;
     this.numManagedBytes = numManagedBytes;
     this.maxNumManagedBytes = maxNumManagedBytes;
+    this.bloomFilterNumBytes = bloomFilterNumBytes;
+    this.bloomFilterNumNegatives = bloomFilterNumNegatives;
+    this.bloomFilterNumFalsePositives = bloomFilterNumFalsePositives;
+    this.numAdmissionRejects = numAdmissionRejects;
+    this.blockCacheNumHits = blockCacheNumHits;
+    this.blockCacheNumMisses = blockCacheNumMisses;
+    this.blockCacheNumBytesSaved = blockCacheNumBytesSaved;
   }
 
   public long getNumItems() {
@@ -46,11 +100,68 @@ public class CacheStatistics {
     return maxNumManagedBytes;
   }
 
+  public long getBloomFilterNumBytes() {
+    return bloomFilterNumBytes;
+  }
+
+  // Number of lookups that were answered by the bloom filter alone
+  public long getBloomFilterNumNegatives() {
+    return bloomFilterNumNegatives;
+  }
+
+  // Number of lookups that passed the bloom filter but were not found
+  public long getBloomFilterNumFalsePositives() {
+    return bloomFilterNumFalsePositives;
+  }
+
+  public double getBloomFilterFalsePositiveRate() {
+    long numAbsentKeys = bloomFilterNumNegatives + bloomFilterNumFalsePositives;
+    if (numAbsentKeys == 0) {
+      return 0;
+    } else {
+      return (double)bloomFilterNumFalsePositives / (double)numAbsentKeys;
+    }
+  }
+
+  // Number of values that the admission policy kept out of the main cache
+  public long getNumAdmissionRejects() {
+    return numAdmissionRejects;
+  }
+
+  public long getBlockCacheNumHits() {
+    return blockCacheNumHits;
+  }
+
+  public long getBlockCacheNumMisses() {
+    return blockCacheNumMisses;
+  }
+
+  // Number of decompressed bytes that did not have to be decompressed again
+  public long getBlockCacheNumBytesSaved() {
+    return blockCacheNumBytesSaved;
+  }
+
+  public double getBlockCacheHitRate() {
+    long numRequests = blockCacheNumHits + blockCacheNumMisses;
+    if (numRequests == 0) {
+      return 0;
+    } else {
+      return (double)blockCacheNumHits / (double)numRequests;
+    }
+  }
+
   public void add(CacheStatistics cacheStatistics) {
     this.numItems += cacheStatistics.numItems;
     this.maxNumItems += cacheStatistics.maxNumItems;
     this.numManagedBytes += cacheStatistics.numManagedBytes;
     this.maxNumManagedBytes += cacheStatistics.maxNumManagedBytes;
+    this.bloomFilterNumBytes += cacheStatistics.bloomFilterNumBytes;
+    this.bloomFilterNumNegatives += cacheStatistics.bloomFilterNumNegatives;
+    this.bloomFilterNumFalsePositives += cacheStatistics.bloomFilterNumFalsePositives;
+    this.numAdmissionRejects += cacheStatistics.numAdmissionRejects;
+    this.blockCacheNumHits += cacheStatistics.blockCacheNumHits;
+    this.blockCacheNumMisses += cacheStatistics.blockCacheNumMisses;
+    this.blockCacheNumBytesSaved += cacheStatistics.blockCacheNumBytesSaved;
     if (this.maxNumItems < 0) {
       this.maxNumItems = -1;
     }
@@ -0,0 +1,98 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.liveramp.commons.util.ByteBufferMemoryUsageEstimator;
+import com.liveramp.commons.util.BytesUtils;
+import com.liveramp.commons.util.MemoryUsageEstimator;
+import com.liveramp.hank.util.ConcurrentMemoryBoundCache;
+
+/**
+ * A bounded cache of decompressed blocks, keyed by the offset of the compressed block in its file.
+ * <p/>
+ * A cache is owned by a single Reader and shared by all threads reading from it. Cached blocks are never
+ * modified, and each get returns a new view of the block, so that threads can position themselves in the
+ * same block independently.
+ */
+public class DecompressedBlockCache {
+
+  private final ConcurrentMemoryBoundCache<Long, ByteBuffer> cache;
+  private final AtomicLong numHits = new AtomicLong(0);
+  private final AtomicLong numMisses = new AtomicLong(0);
+  private final AtomicLong numBytesSaved = new AtomicLong(0);
+
+  public DecompressedBlockCache(long numBytesCapacity, int numItemsCapacity) {
+    cache = new ConcurrentMemoryBoundCache<Long, ByteBuffer>(
+        numBytesCapacity > 0 || numItemsCapacity > 0,
+        numBytesCapacity,
+        numItemsCapacity,
+        new OffsetMemoryUsageEstimator(),
+        new ByteBufferMemoryUsageEstimator());
+  }
+
+  // Return the decompressed block at the given offset, positioned at its beginning, or null
+  public ByteBuffer get(long blockOffset) {
+    ByteBuffer block = cache.get(blockOffset);
+    if (block == null) {
+      numMisses.incrementAndGet();
+      return null;
+    }
+    numHits.incrementAndGet();
+    numBytesSaved.addAndGet(block.capacity());
+    return block.duplicate();
+  }
+
+  // The remaining bytes of the given decompressed block are copied
+  public void put(long blockOffset, ByteBuffer decompressedBlock) {
+    cache.put(blockOffset, BytesUtils.byteBufferDeepCopy(decompressedBlock));
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  public long getNumManagedBytes() {
+    return cache.getNumManagedBytes();
+  }
+
+  public long getNumHits() {
+    return numHits.get();
+  }
+
+  public long getNumMisses() {
+    return numMisses.get();
+  }
+
+  // Number of decompressed bytes that were served from the cache instead of being decompressed again
+  public long getNumBytesSaved() {
+    return numBytesSaved.get();
+  }
+
+  private static class OffsetMemoryUsageEstimator implements MemoryUsageEstimator<Long> {
+
+    // Boxed long
+    private static final long OFFSET_NUM_BYTES = 16;
+
+    @Override
+    public long estimateMemorySize(Long item) {
+      return OFFSET_NUM_BYTES;
+    }
+  }
+}
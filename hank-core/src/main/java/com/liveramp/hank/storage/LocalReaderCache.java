@@ -0,0 +1,82 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage;
+
+import java.nio.ByteBuffer;
+
+import com.liveramp.commons.util.ByteBufferMemoryUsageEstimator;
+import com.liveramp.hank.util.ConcurrentMemoryBoundCache;
+
+// A cache owned by a single Reader, with its own capacity
+public class LocalReaderCache implements ReaderCache {
+
+  private final ConcurrentMemoryBoundCache<ByteBuffer, ByteBuffer> cache;
+
+  public LocalReaderCache(long numBytesCapacity, int numItemsCapacity) {
+    cache = new ConcurrentMemoryBoundCache<ByteBuffer, ByteBuffer>(
+        numBytesCapacity > 0 || numItemsCapacity > 0,
+        numBytesCapacity,
+        numItemsCapacity,
+        new ByteBufferMemoryUsageEstimator(),
+        new ByteBufferMemoryUsageEstimator());
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return cache.isEnabled();
+  }
+
+  @Override
+  public ByteBuffer get(ByteBuffer key) {
+    return cache.get(key);
+  }
+
+  @Override
+  public void put(ByteBuffer key, ByteBuffer value) {
+    cache.put(key, value);
+  }
+
+  @Override
+  public void remove(ByteBuffer key, ByteBuffer value) {
+    cache.remove(key, value);
+  }
+
+  @Override
+  public int size() {
+    return cache.size();
+  }
+
+  @Override
+  public long getMaxNumItems() {
+    return cache.getMaxNumItems();
+  }
+
+  @Override
+  public long getNumManagedBytes() {
+    return cache.getNumManagedBytes();
+  }
+
+  @Override
+  public long getMaxNumManagedBytes() {
+    return cache.getMaxNumManagedBytes();
+  }
+
+  @Override
+  public long getNumAdmissionRejects() {
+    return 0;
+  }
+}
@@ -0,0 +1,43 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage;
+
+import java.nio.ByteBuffer;
+
+// Cache used by a single Reader. Keys and values put in the cache should not be modified afterwards.
+public interface ReaderCache {
+
+  public boolean isEnabled();
+
+  public ByteBuffer get(ByteBuffer key);
+
+  public void put(ByteBuffer key, ByteBuffer value);
+
+  // Remove the given key only if it is currently mapped to the given value instance
+  public void remove(ByteBuffer key, ByteBuffer value);
+
+  public int size();
+
+  public long getMaxNumItems();
+
+  public long getNumManagedBytes();
+
+  public long getMaxNumManagedBytes();
+
+  // Number of entries that were not admitted to the cache by its admission policy
+  public long getNumAdmissionRejects();
+}
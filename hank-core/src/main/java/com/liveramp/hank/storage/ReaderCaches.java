@@ -0,0 +1,87 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage;
+
+import com.liveramp.hank.config.ReaderConfigurator;
+import com.liveramp.hank.coordinator.Domain;
+
+public final class ReaderCaches {
+
+  // Share of a partition's cache capacity used by the TinyLFU admission window
+  private static final int TINY_LFU_WINDOW_CAPACITY_DIVISOR = 100;
+  // Used to size the frequency sketch when the cache is only bounded in bytes
+  private static final int TINY_LFU_ESTIMATED_ENTRY_NUM_BYTES = 128;
+
+  private ReaderCaches() {
+  }
+
+  public static ReaderCache getReaderCache(ReaderConfigurator configurator, Domain domain, int partitionNumber) {
+    return getReaderCache(configurator, domain, partitionNumber, false);
+  }
+
+  // Use the shared cache when there is one, otherwise a cache with this partition's share of the capacity.
+  // Optionally put a TinyLFU admission policy in front of it.
+  public static ReaderCache getReaderCache(ReaderConfigurator configurator,
+                                           Domain domain,
+                                           int partitionNumber,
+                                           boolean tinyLfuCacheAdmission) {
+    SharedReaderCache sharedReaderCache = configurator.getSharedReaderCache();
+    long numBytesCapacity;
+    long numItemsCapacity;
+    ReaderCache mainCache;
+    if (sharedReaderCache != null) {
+      mainCache = sharedReaderCache.getReaderCache(domain, partitionNumber);
+      numBytesCapacity = mainCache.getMaxNumManagedBytes();
+      numItemsCapacity = mainCache.getMaxNumItems();
+    } else {
+      numBytesCapacity = configurator.getCacheNumBytesCapacity();
+      numItemsCapacity = configurator.getCacheNumItemsCapacity();
+      if (!tinyLfuCacheAdmission || !isBounded(numBytesCapacity, numItemsCapacity)) {
+        return new LocalReaderCache(numBytesCapacity, (int)numItemsCapacity);
+      }
+      // The window takes its capacity from the main cache
+      mainCache = new LocalReaderCache(getTinyLfuMainCapacity(numBytesCapacity),
+          (int)getTinyLfuMainCapacity(numItemsCapacity));
+    }
+    if (!tinyLfuCacheAdmission || !isBounded(numBytesCapacity, numItemsCapacity)) {
+      return mainCache;
+    }
+    ReaderCache windowCache = new LocalReaderCache(getTinyLfuWindowCapacity(numBytesCapacity),
+        (int)getTinyLfuWindowCapacity(numItemsCapacity));
+    long expectedNumItems = numItemsCapacity > 0 ? numItemsCapacity : numBytesCapacity / TINY_LFU_ESTIMATED_ENTRY_NUM_BYTES;
+    return new TinyLfuReaderCache(windowCache, mainCache, expectedNumItems);
+  }
+
+  private static boolean isBounded(long numBytesCapacity, long numItemsCapacity) {
+    return numBytesCapacity > 0 || numItemsCapacity > 0;
+  }
+
+  // Zero (unbounded) only when the capacity itself is unbounded
+  private static long getTinyLfuWindowCapacity(long capacity) {
+    if (capacity <= 0) {
+      return 0;
+    }
+    return Math.max(1, capacity / TINY_LFU_WINDOW_CAPACITY_DIVISOR);
+  }
+
+  private static long getTinyLfuMainCapacity(long capacity) {
+    if (capacity <= 0) {
+      return 0;
+    }
+    return Math.max(1, capacity - getTinyLfuWindowCapacity(capacity));
+  }
+}
@@ -21,9 +21,14 @@ import java.nio.ByteBuffer;
 
 public class ReaderResult {
 
+  // Smaller values are copied rather than borrowed, since the copy costs less than allocating a view
+  private static final int MIN_BORROWED_VALUE_NUM_BYTES = 256;
+
   private boolean isFound = false;
 
   private ByteBuffer buffer;
+  // When set, the value is read from this view of the Reader's source bytes rather than from the result's own buffer
+  private ByteBuffer borrowedValue;
   private boolean l1CacheHit = false;
   private boolean l2CacheHit = false;
 
@@ -36,6 +41,7 @@ public class ReaderResult {
 
   public void clear() {
     isFound = false;
+    borrowedValue = null;
     l1CacheHit = false;
     l2CacheHit = false;
     if (buffer != null) {
@@ -55,14 +61,17 @@ public class ReaderResult {
     isFound = true;
   }
 
+  // Callers are about to write into the result's own buffer, so it stops returning a borrowed value
   public void requiresBufferSize(int size) {
+    borrowedValue = null;
     if (buffer == null || buffer.capacity() < size) {
       buffer = ByteBuffer.wrap(new byte[size]);
     }
   }
 
+  // Return the borrowed value if there is one, otherwise the result's own buffer
   public ByteBuffer getBuffer() {
-    return buffer;
+    return borrowedValue != null ? borrowedValue : buffer;
   }
 
   public boolean getL1CacheHit() {
@@ -88,6 +97,30 @@ public class ReaderResult {
     buffer.flip();
   }
 
+  // Use the remaining bytes of the given value without copying them, unless they are few. The value can be a
+  // direct buffer, such as a region of a memory mapped file, and its bytes must never be modified afterwards,
+  // since responses keep referencing them until they are serialized.
+  public void borrowValue(ByteBuffer value) {
+    if (value.remaining() < MIN_BORROWED_VALUE_NUM_BYTES) {
+      deepCopyIntoResultBuffer(value);
+    } else {
+      borrowedValue = value.slice();
+    }
+  }
+
+  public boolean isValueBorrowed() {
+    return borrowedValue != null;
+  }
+
+  // Copy the remaining bytes of a value into a new heap buffer. Unlike BytesUtils.byteBufferDeepCopy(), the value can
+  // be a direct buffer, as borrowed values might be.
+  public static ByteBuffer deepCopy(ByteBuffer value) {
+    ByteBuffer copy = ByteBuffer.allocate(value.remaining());
+    copy.put(value.duplicate());
+    copy.flip();
+    return copy;
+  }
+
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder("ReaderResult [found=");
@@ -0,0 +1,86 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A chunk of the records of a partition, in key hash order, filled by a ScanReader.
+ */
+public class ScanPage {
+
+  private final int maxNumRecords;
+  private final List<ByteBuffer> keyHashes;
+  private final List<ByteBuffer> values;
+  private long numBytes = 0;
+  private boolean complete = false;
+
+  public ScanPage(int maxNumRecords) {
+    if (maxNumRecords <= 0) {
+      throw new IllegalArgumentException("Scan page must hold at least one record");
+    }
+    this.maxNumRecords = maxNumRecords;
+    this.keyHashes = new ArrayList<ByteBuffer>();
+    this.values = new ArrayList<ByteBuffer>();
+  }
+
+  public void add(ByteBuffer keyHash, ByteBuffer value) {
+    keyHashes.add(keyHash);
+    values.add(value);
+    numBytes += keyHash.remaining() + value.remaining();
+  }
+
+  public boolean isFull() {
+    return keyHashes.size() >= maxNumRecords;
+  }
+
+  public int getMaxNumRecords() {
+    return maxNumRecords;
+  }
+
+  public int getNumRecords() {
+    return keyHashes.size();
+  }
+
+  public List<ByteBuffer> getKeyHashes() {
+    return keyHashes;
+  }
+
+  public List<ByteBuffer> getValues() {
+    return values;
+  }
+
+  // Number of bytes of the key hashes and values
+  public long getNumBytes() {
+    return numBytes;
+  }
+
+  // Key hash of the last record, from which the next page should start
+  public ByteBuffer getLastKeyHash() {
+    return keyHashes.isEmpty() ? null : keyHashes.get(keyHashes.size() - 1);
+  }
+
+  public boolean isComplete() {
+    return complete;
+  }
+
+  public void setComplete(boolean complete) {
+    this.complete = complete;
+  }
+}
@@ -0,0 +1,350 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.liveramp.commons.util.ByteBufferMemoryUsageEstimator;
+import com.liveramp.hank.coordinator.Domain;
+import com.liveramp.hank.util.ConcurrentMemoryBoundCache;
+
+/**
+ * A cache budget shared by all Readers of a partition server, instead of an even split per partition.
+ * <p/>
+ * Each Reader gets its own ReaderCache view. Since a Reader serves a single version of a domain partition,
+ * entries are effectively keyed by (domain, partition, version, key). Entries of all views compete for the
+ * same capacity and are evicted in LRU order. Keys are spread over segments with their own lock, and each
+ * segment gets an even share of the capacity.
+ * <p/>
+ * Domains can optionally reserve a minimum number of bytes. Entries of a domain that is at or below its
+ * reservation are skipped during eviction, as long as other candidates can be found among the least recently
+ * used entries.
+ */
+public class SharedReaderCache {
+
+  // Number of least recently used entries examined to find one that is not protected by a reservation
+  private static final int MAX_NUM_EVICTION_CANDIDATES = 64;
+  private static final ByteBufferMemoryUsageEstimator ESTIMATOR = new ByteBufferMemoryUsageEstimator();
+
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final long numBytesCapacity;
+  private final long numItemsCapacity;
+  private final int numTotalPartitions;
+  private final Map<String, Long> domainReservedNumBytes;
+  private final ConcurrentMap<String, DomainOccupancy> domainOccupancies = new ConcurrentHashMap<String, DomainOccupancy>();
+
+  public SharedReaderCache(long numBytesCapacity,
+                           long numItemsCapacity,
+                           int numTotalPartitions) {
+    this(numBytesCapacity, numItemsCapacity, numTotalPartitions, Collections.<String, Long>emptyMap());
+  }
+
+  public SharedReaderCache(long numBytesCapacity,
+                           long numItemsCapacity,
+                           int numTotalPartitions,
+                           Map<String, Long> domainReservedNumBytes) {
+    if (numBytesCapacity <= 0 && numItemsCapacity <= 0) {
+      throw new IllegalArgumentException("Shared reader cache must be bounded");
+    }
+    int numSegments = ConcurrentMemoryBoundCache.getNumSegments(
+        ConcurrentMemoryBoundCache.DEFAULT_CONCURRENCY_LEVEL, (int)Math.min(numItemsCapacity, Integer.MAX_VALUE));
+    this.segments = new Segment[numSegments];
+    for (int i = 0; i < numSegments; ++i) {
+      segments[i] = new Segment(
+          ConcurrentMemoryBoundCache.getSegmentCapacity(numBytesCapacity, numSegments, i),
+          ConcurrentMemoryBoundCache.getSegmentCapacity(numItemsCapacity, numSegments, i));
+    }
+    this.segmentMask = numSegments - 1;
+    this.numBytesCapacity = numBytesCapacity;
+    this.numItemsCapacity = numItemsCapacity;
+    this.numTotalPartitions = Math.max(1, numTotalPartitions);
+    this.domainReservedNumBytes = domainReservedNumBytes;
+  }
+
+  // Return a new cache view for a Reader
+  public ReaderCache getReaderCache(Domain domain, int partitionNumber) {
+    String domainName = domain == null ? null : domain.getName();
+    return new PartitionCache(getDomainOccupancy(domainName), partitionNumber);
+  }
+
+  public int size() {
+    int result = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        result += segment.size();
+      }
+    }
+    return result;
+  }
+
+  public long getNumManagedBytes() {
+    long result = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        result += segment.numBytes;
+      }
+    }
+    return result;
+  }
+
+  public long getMaxNumItems() {
+    return numItemsCapacity;
+  }
+
+  public long getMaxNumManagedBytes() {
+    return numBytesCapacity;
+  }
+
+  // Number of bytes currently used by the given domain, across all of its Readers
+  public long getDomainNumManagedBytes(String domainName) {
+    DomainOccupancy occupancy = domainOccupancies.get(domainName == null ? "" : domainName);
+    return occupancy == null ? 0 : occupancy.numBytes.get();
+  }
+
+  private DomainOccupancy getDomainOccupancy(String domainName) {
+    String name = domainName == null ? "" : domainName;
+    DomainOccupancy result = domainOccupancies.get(name);
+    if (result == null) {
+      Long reservedNumBytes = domainReservedNumBytes.get(name);
+      DomainOccupancy newOccupancy = new DomainOccupancy(reservedNumBytes == null ? 0 : reservedNumBytes);
+      result = domainOccupancies.putIfAbsent(name, newOccupancy);
+      if (result == null) {
+        result = newOccupancy;
+      }
+    }
+    return result;
+  }
+
+  private Segment getSegment(Key key) {
+    int hash = key.hash;
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    return segments[hash & segmentMask];
+  }
+
+  // Must be called with the segment lock held
+  private void evict(Segment segment) {
+    while (segment.isOverCapacity()) {
+      Iterator<Map.Entry<Key, Entry>> iterator = segment.entrySet().iterator();
+      Map.Entry<Key, Entry> victim = null;
+      for (int i = 0; i < MAX_NUM_EVICTION_CANDIDATES && iterator.hasNext(); ++i) {
+        Map.Entry<Key, Entry> candidate = iterator.next();
+        if (!candidate.getKey().owner.domainOccupancy.isReserved(candidate.getValue().numBytes)) {
+          victim = candidate;
+          break;
+        }
+      }
+      // All candidates are reserved, fall back to the least recently used entry
+      if (victim == null) {
+        iterator = segment.entrySet().iterator();
+        victim = iterator.next();
+      }
+      iterator.remove();
+      segment.numBytes -= victim.getValue().numBytes;
+      victim.getKey().owner.release(victim.getValue().numBytes);
+    }
+  }
+
+  private class PartitionCache implements ReaderCache {
+
+    private final DomainOccupancy domainOccupancy;
+    private final int partitionNumber;
+    private final AtomicLong numItems = new AtomicLong();
+    private final AtomicLong numBytes = new AtomicLong();
+
+    private PartitionCache(DomainOccupancy domainOccupancy, int partitionNumber) {
+      this.domainOccupancy = domainOccupancy;
+      this.partitionNumber = partitionNumber;
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return true;
+    }
+
+    @Override
+    public ByteBuffer get(ByteBuffer key) {
+      Key cacheKey = new Key(this, key);
+      Segment segment = getSegment(cacheKey);
+      Entry entry;
+      synchronized (segment) {
+        entry = segment.get(cacheKey);
+      }
+      return entry == null ? null : entry.value;
+    }
+
+    @Override
+    public void put(ByteBuffer key, ByteBuffer value) {
+      if (value == null) {
+        throw new IllegalArgumentException("Value to put in cache should not be null.");
+      }
+      Key cacheKey = new Key(this, key);
+      Entry entry = new Entry(value, ESTIMATOR.estimateMemorySize(key) + ESTIMATOR.estimateMemorySize(value));
+      Segment segment = getSegment(cacheKey);
+      synchronized (segment) {
+        Entry previous = segment.put(cacheKey, entry);
+        if (previous != null) {
+          segment.numBytes -= previous.numBytes;
+          release(previous.numBytes);
+        }
+        segment.numBytes += entry.numBytes;
+        acquire(entry.numBytes);
+        evict(segment);
+      }
+    }
+
+    @Override
+    public void remove(ByteBuffer key, ByteBuffer value) {
+      Key cacheKey = new Key(this, key);
+      Segment segment = getSegment(cacheKey);
+      synchronized (segment) {
+        Entry entry = segment.get(cacheKey);
+        if (entry != null && entry.value == value) {
+          segment.remove(cacheKey);
+          segment.numBytes -= entry.numBytes;
+          release(entry.numBytes);
+        }
+      }
+    }
+
+    @Override
+    public int size() {
+      return (int)numItems.get();
+    }
+
+    // The share of the shared capacity that an even split would give to this partition
+    @Override
+    public long getMaxNumItems() {
+      return numItemsCapacity / numTotalPartitions;
+    }
+
+    @Override
+    public long getNumManagedBytes() {
+      return numBytes.get();
+    }
+
+    @Override
+    public long getMaxNumManagedBytes() {
+      return numBytesCapacity / numTotalPartitions;
+    }
+
+    @Override
+    public long getNumAdmissionRejects() {
+      return 0;
+    }
+
+    private void acquire(long entryNumBytes) {
+      numItems.incrementAndGet();
+      numBytes.addAndGet(entryNumBytes);
+      domainOccupancy.numBytes.addAndGet(entryNumBytes);
+    }
+
+    private void release(long entryNumBytes) {
+      numItems.decrementAndGet();
+      numBytes.addAndGet(-entryNumBytes);
+      domainOccupancy.numBytes.addAndGet(-entryNumBytes);
+    }
+
+    @Override
+    public String toString() {
+      return "SharedReaderCache.PartitionCache [partitionNumber=" + partitionNumber
+          + ", numItems=" + numItems.get()
+          + ", numBytes=" + numBytes.get() + "]";
+    }
+  }
+
+  private static class Key {
+
+    private final PartitionCache owner;
+    private final ByteBuffer key;
+    private final int hash;
+
+    private Key(PartitionCache owner, ByteBuffer key) {
+      this.owner = owner;
+      this.key = key;
+      this.hash = 31 * System.identityHashCode(owner) + key.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key)obj;
+      return owner == other.owner && key.equals(other.key);
+    }
+  }
+
+  private static class Entry {
+
+    private final ByteBuffer value;
+    private final long numBytes;
+
+    private Entry(ByteBuffer value, long numBytes) {
+      this.value = value;
+      this.numBytes = numBytes;
+    }
+  }
+
+  private static class DomainOccupancy {
+
+    private final long reservedNumBytes;
+    private final AtomicLong numBytes = new AtomicLong();
+
+    private DomainOccupancy(long reservedNumBytes) {
+      this.reservedNumBytes = reservedNumBytes;
+    }
+
+    // Return true if evicting an entry of the given size would bring the domain below its reservation
+    private boolean isReserved(long entryNumBytes) {
+      return reservedNumBytes > 0 && numBytes.get() - entryNumBytes < reservedNumBytes;
+    }
+  }
+
+  // An access ordered map, only accessed with its lock held
+  private static class Segment extends LinkedHashMap<Key, Entry> {
+
+    private final long maxNumBytes;
+    private final long maxNumItems;
+    private long numBytes = 0;
+
+    private Segment(long maxNumBytes, long maxNumItems) {
+      super(16, 0.75f, true);
+      this.maxNumBytes = maxNumBytes;
+      this.maxNumItems = maxNumItems;
+    }
+
+    private boolean isOverCapacity() {
+      return !isEmpty()
+          && ((maxNumBytes > 0 && numBytes > maxNumBytes) || (maxNumItems > 0 && size() > maxNumItems));
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.liveramp.commons.util.BytesUtils;
+import com.liveramp.hank.util.FrequencySketch;
+
+/**
+ * A ReaderCache that only admits keys which have been requested several times recently, in the spirit of
+ * W-TinyLFU.
+ * <p/>
+ * Access frequencies are estimated with a FrequencySketch. New keys go to a small window cache and are
+ * only admitted to the main cache once their estimated frequency reaches a threshold, either when they are
+ * put or when they are read again from the window. Keys that are seen only once, such as the ones of a
+ * large bulk scan, cannot evict popular keys from the main cache.
+ */
+public class TinyLfuReaderCache implements ReaderCache {
+
+  // Minimum estimated frequency for a key to be admitted to the main cache
+  static final int ADMISSION_FREQUENCY = 2;
+
+  private final ReaderCache window;
+  private final ReaderCache main;
+  private final FrequencySketch sketch;
+  private final AtomicLong numAdmissionRejects = new AtomicLong(0);
+
+  public TinyLfuReaderCache(ReaderCache window, ReaderCache main, long expectedNumItems) {
+    this.window = window;
+    this.main = main;
+    this.sketch = new FrequencySketch(expectedNumItems);
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return main.isEnabled();
+  }
+
+  @Override
+  public ByteBuffer get(ByteBuffer key) {
+    int hashCode = key.hashCode();
+    sketch.increment(hashCode);
+    ByteBuffer value = main.get(key);
+    if (value == null) {
+      value = window.get(key);
+      // Promote keys that have become popular while in the window, and drop them from the window so that
+      // they are not cached twice. Cached values are never modified, but the given key might be.
+      if (value != null && sketch.frequency(hashCode) >= ADMISSION_FREQUENCY) {
+        main.put(BytesUtils.byteBufferDeepCopy(key), value);
+        window.remove(key, value);
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public void put(ByteBuffer key, ByteBuffer value) {
+    if (sketch.frequency(key.hashCode()) >= ADMISSION_FREQUENCY) {
+      main.put(key, value);
+    } else {
+      window.put(key, value);
+      numAdmissionRejects.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void remove(ByteBuffer key, ByteBuffer value) {
+    window.remove(key, value);
+    main.remove(key, value);
+  }
+
+  @Override
+  public int size() {
+    return window.size() + main.size();
+  }
+
+  @Override
+  public long getMaxNumItems() {
+    return window.getMaxNumItems() + main.getMaxNumItems();
+  }
+
+  @Override
+  public long getNumManagedBytes() {
+    return window.getNumManagedBytes() + main.getNumManagedBytes();
+  }
+
+  @Override
+  public long getMaxNumManagedBytes() {
+    return window.getMaxNumManagedBytes() + main.getMaxNumManagedBytes();
+  }
+
+  @Override
+  public long getNumAdmissionRejects() {
+    return numAdmissionRejects.get();
+  }
+}
@@ -38,11 +38,13 @@ import com.liveramp.hank.coordinator.DomainVersion;
 import com.liveramp.hank.hasher.Hasher;
 import com.liveramp.hank.hasher.IdentityHasher;
 import com.liveramp.hank.storage.Compactor;
+import com.liveramp.hank.storage.DecompressedBlockCache;
 import com.liveramp.hank.storage.Deleter;
 import com.liveramp.hank.storage.PartitionRemoteFileOps;
 import com.liveramp.hank.storage.PartitionRemoteFileOpsFactory;
 import com.liveramp.hank.storage.PartitionUpdater;
 import com.liveramp.hank.storage.Reader;
+import com.liveramp.hank.storage.ReaderCaches;
 import com.liveramp.hank.storage.RemoteDomainCleaner;
 import com.liveramp.hank.storage.RemoteDomainVersionDeleter;
 import com.liveramp.hank.storage.StorageEngine;
@@ -72,6 +74,9 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
     public static final String HASHER_KEY = "hasher";
     public static final String COMPRESSION_CODEC = "compression_codec";
     public static final String NUM_REMOTE_LEAF_VERSIONS_TO_KEEP = "num_remote_leaf_versions_to_keep";
+    public static final String BLOOM_FILTER_BITS_PER_KEY = "bloom_filter_bits_per_key";
+    public static final String TINY_LFU_CACHE_ADMISSION = "tiny_lfu_cache_admission";
+    public static final String BLOCK_CACHE_NUM_BYTES_CAPACITY = "block_cache_num_bytes_capacity";
 
     private static final Set<String> REQUIRED_KEYS =
         new HashSet<String>(Arrays.asList(REMOTE_DOMAIN_ROOT_KEY,
@@ -116,6 +121,25 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
       // Num remote bases to keep
       Integer numRemoteLeafVersionsToKeep = (Integer)options.get(NUM_REMOTE_LEAF_VERSIONS_TO_KEEP);
 
+      // Bloom filter
+      Integer bloomFilterBitsPerKey = (Integer)options.get(BLOOM_FILTER_BITS_PER_KEY);
+      if (bloomFilterBitsPerKey == null) {
+        bloomFilterBitsPerKey = 0;
+      }
+
+      // Cache admission policy
+      Boolean tinyLfuCacheAdmission = (Boolean)options.get(TINY_LFU_CACHE_ADMISSION);
+      if (tinyLfuCacheAdmission == null) {
+        tinyLfuCacheAdmission = false;
+      }
+
+      // Decompressed block cache, per partition
+      long blockCacheNumBytesCapacity = 0;
+      Object blockCacheNumBytesCapacityOption = options.get(BLOCK_CACHE_NUM_BYTES_CAPACITY);
+      if (blockCacheNumBytesCapacityOption != null) {
+        blockCacheNumBytesCapacity = ((Number)blockCacheNumBytesCapacityOption).longValue();
+      }
+
       return new Cueball((Integer)options.get(KEY_HASH_SIZE_KEY),
           hasher,
           (Integer)options.get(VALUE_SIZE_KEY),
@@ -124,7 +148,10 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
           fileOpsFactory,
           compressionCodecClass,
           domain,
-          numRemoteLeafVersionsToKeep);
+          numRemoteLeafVersionsToKeep,
+          bloomFilterBitsPerKey,
+          tinyLfuCacheAdmission,
+          blockCacheNumBytesCapacity);
     }
 
     @Override
@@ -148,6 +175,9 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
   private final PartitionRemoteFileOpsFactory partitionRemoteFileOpsFactory;
   private final ByteBuffer keyHashBuffer;
   private final int numRemoteLeafVersionsToKeep;
+  private final int bloomFilterBitsPerKey;
+  private final boolean tinyLfuCacheAdmission;
+  private final long blockCacheNumBytesCapacity;
 
   private final Class<? extends CueballCompressionCodec> compressionCodecClass;
 
@@ -160,6 +190,51 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
                  Class<? extends CueballCompressionCodec> compressionCodecClass,
                  Domain domain,
                  int numRemoteLeafVersionsToKeep) {
+    this(keyHashSize, hasher, valueSize, hashIndexBits, remoteDomainRoot, partitionRemoteFileOpsFactory,
+        compressionCodecClass, domain, numRemoteLeafVersionsToKeep, 0);
+  }
+
+  public Cueball(int keyHashSize,
+                 Hasher hasher,
+                 int valueSize,
+                 int hashIndexBits,
+                 String remoteDomainRoot,
+                 PartitionRemoteFileOpsFactory partitionRemoteFileOpsFactory,
+                 Class<? extends CueballCompressionCodec> compressionCodecClass,
+                 Domain domain,
+                 int numRemoteLeafVersionsToKeep,
+                 int bloomFilterBitsPerKey) {
+    this(keyHashSize, hasher, valueSize, hashIndexBits, remoteDomainRoot, partitionRemoteFileOpsFactory,
+        compressionCodecClass, domain, numRemoteLeafVersionsToKeep, bloomFilterBitsPerKey, false);
+  }
+
+  public Cueball(int keyHashSize,
+                 Hasher hasher,
+                 int valueSize,
+                 int hashIndexBits,
+                 String remoteDomainRoot,
+                 PartitionRemoteFileOpsFactory partitionRemoteFileOpsFactory,
+                 Class<? extends CueballCompressionCodec> compressionCodecClass,
+                 Domain domain,
+                 int numRemoteLeafVersionsToKeep,
+                 int bloomFilterBitsPerKey,
+                 boolean tinyLfuCacheAdmission) {
+    this(keyHashSize, hasher, valueSize, hashIndexBits, remoteDomainRoot, partitionRemoteFileOpsFactory,
+        compressionCodecClass, domain, numRemoteLeafVersionsToKeep, bloomFilterBitsPerKey, tinyLfuCacheAdmission, 0);
+  }
+
+  public Cueball(int keyHashSize,
+                 Hasher hasher,
+                 int valueSize,
+                 int hashIndexBits,
+                 String remoteDomainRoot,
+                 PartitionRemoteFileOpsFactory partitionRemoteFileOpsFactory,
+                 Class<? extends CueballCompressionCodec> compressionCodecClass,
+                 Domain domain,
+                 int numRemoteLeafVersionsToKeep,
+                 int bloomFilterBitsPerKey,
+                 boolean tinyLfuCacheAdmission,
+                 long blockCacheNumBytesCapacity) {
     this.keyHashSize = keyHashSize;
     this.hasher = hasher;
     this.valueSize = valueSize;
@@ -170,6 +245,9 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
     this.compressionCodecClass = compressionCodecClass;
     this.domain = domain;
     this.numRemoteLeafVersionsToKeep = numRemoteLeafVersionsToKeep;
+    this.bloomFilterBitsPerKey = bloomFilterBitsPerKey;
+    this.tinyLfuCacheAdmission = tinyLfuCacheAdmission;
+    this.blockCacheNumBytesCapacity = blockCacheNumBytesCapacity;
     // Sanity check
     if (hashIndexBits > 32) {
       throw new RuntimeException("hashIndexBits is much too large (" + hashIndexBits + ")");
@@ -185,8 +263,10 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
         valueSize,
         hashIndexBits,
         getCompressionCodec(),
-        configurator.getCacheNumBytesCapacity(),
-        (int)configurator.getCacheNumItemsCapacity());
+        ReaderCaches.getReaderCache(configurator, domain, partitionNumber, tinyLfuCacheAdmission),
+        configurator.getMemoryMapEnabled(),
+        configurator.getMemoryMapPrefetchEnabled(),
+        blockCacheNumBytesCapacity > 0 ? new DecompressedBlockCache(blockCacheNumBytesCapacity, 0) : null);
   }
 
   private CueballCompressionCodec getCompressionCodec() throws IOException {
@@ -204,10 +284,22 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
     IncrementalDomainVersionProperties domainVersionProperties = getDomainVersionProperties(domainVersion);
     return new CueballWriter(partitionRemoteFileOps.getOutputStream(getName(domainVersion.getVersionNumber(),
         domainVersionProperties.isBase())),
-        keyHashSize, hasher, valueSize, getCompressionCodec(), hashIndexBits
+        keyHashSize, hasher, valueSize, getCompressionCodec(), hashIndexBits,
+        getBloomFilterWriter(domainVersion, partitionRemoteFileOps)
     );
   }
 
+  // Only bases get a bloom filter. Return null when bloom filters are disabled or for deltas.
+  private CueballBloomFilterWriter getBloomFilterWriter(DomainVersion domainVersion,
+                                                        PartitionRemoteFileOps partitionRemoteFileOps) throws IOException {
+    if (bloomFilterBitsPerKey <= 0 || !getDomainVersionProperties(domainVersion).isBase()) {
+      return null;
+    }
+    return new CueballBloomFilterWriter(partitionRemoteFileOps.getOutputStream(
+        CueballBloomFilter.getName(domainVersion.getVersionNumber(), true)),
+        hashIndexBits, bloomFilterBitsPerKey);
+  }
+
   private IncrementalDomainVersionProperties getDomainVersionProperties(DomainVersion domainVersion) throws IOException {
     IncrementalDomainVersionProperties result;
     try {
@@ -231,7 +323,7 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
     String localDir = getTargetDirectory(configurator, partitionNumber);
     return new CueballPartitionUpdater(domain,
         getPartitionRemoteFileOps(partitionNumber),
-        new CueballMerger(),
+        new CueballMerger(bloomFilterBitsPerKey),
         keyHashSize,
         valueSize,
         hashIndexBits,
@@ -257,7 +349,8 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
         new IdentityHasher(),
         valueSize,
         getCompressionCodec(),
-        hashIndexBits
+        hashIndexBits,
+        getBloomFilterWriter(domainVersion, partitionRemoteFileOps)
     );
   }
 
@@ -366,6 +459,7 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
   public Set<String> getFiles(DataDirectoriesConfigurator configurator, int domainVersionNumber, int partitionNumber) throws IOException {
     Set<String> result = new HashSet<String>();
     result.add(getTargetDirectory(configurator, partitionNumber) + "/" + getName(domainVersionNumber, true));
+    result.add(getTargetDirectory(configurator, partitionNumber) + "/" + CueballBloomFilter.getName(domainVersionNumber, true));
     return result;
   }
 
@@ -380,6 +474,9 @@ public class Cueball extends IncrementalStorageEngine implements StorageEngine {
         + ", remoteDomainRoot=" + remoteDomainRoot
         + ", valueSize=" + valueSize
         + ", numRemoteLeafVersionsToKeep=" + numRemoteLeafVersionsToKeep
+        + ", bloomFilterBitsPerKey=" + bloomFilterBitsPerKey
+        + ", tinyLfuCacheAdmission=" + tinyLfuCacheAdmission
+        + ", blockCacheNumBytesCapacity=" + blockCacheNumBytesCapacity
         + "]";
   }
 }
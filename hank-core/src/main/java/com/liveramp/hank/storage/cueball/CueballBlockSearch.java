@@ -0,0 +1,158 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage.cueball;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Lookups of a key hash in a sequence of uncompressed Cueball records. Records are fixed-size
+ * (key hash followed by value) and sorted by key hash. All methods only use absolute gets, so
+ * they can be used on buffers shared between threads.
+ * <p/>
+ * Methods return the offset of the value associated with the given key hash, or -1 if it is not
+ * found between off and limit.
+ */
+public final class CueballBlockSearch {
+
+  // Number of interpolation probes before falling back to a binary search
+  private static final int MAX_INTERPOLATION_PROBES = 4;
+  // Below this number of records, interpolation does not save enough probes to pay for itself
+  private static final int MIN_INTERPOLATION_RECORDS = 64;
+
+  private CueballBlockSearch() {
+  }
+
+  public static int linearSearch(ByteBuffer block, int off, int limit, byte[] keyHash, int keyHashSize, int fullRecordSize) {
+    final long keyPrefix = getPrefix(keyHash, keyHashSize);
+    for (; off + fullRecordSize <= limit; off += fullRecordSize) {
+      int comparison = compareKeyHash(block, off, keyHash, keyHashSize, keyPrefix);
+      // found match
+      if (comparison == 0) {
+        return off + keyHashSize;
+      }
+      // passed the spot where our key could have been found, so not going to
+      // find it
+      if (comparison > 0) {
+        break;
+      }
+    }
+    // looked everywhere, didn't find it!
+    return -1;
+  }
+
+  public static int binarySearch(ByteBuffer block, int off, int limit, byte[] keyHash, int keyHashSize, int fullRecordSize) {
+    final long keyPrefix = getPrefix(keyHash, keyHashSize);
+    int lo = 0;
+    int hi = (limit - off) / fullRecordSize - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int recordOffset = off + mid * fullRecordSize;
+      int comparison = compareKeyHash(block, recordOffset, keyHash, keyHashSize, keyPrefix);
+      if (comparison == 0) {
+        return recordOffset + keyHashSize;
+      } else if (comparison < 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    return -1;
+  }
+
+  // Key hashes are uniformly distributed, so the position of a key hash between two records can be estimated
+  // from its leading bytes. After a few probes, fall back to a binary search to bound the worst case.
+  public static int interpolationSearch(ByteBuffer block, int off, int limit, byte[] keyHash, int keyHashSize, int fullRecordSize) {
+    int lo = 0;
+    int hi = (limit - off) / fullRecordSize - 1;
+    if (hi < MIN_INTERPOLATION_RECORDS) {
+      return binarySearch(block, off, limit, keyHash, keyHashSize, fullRecordSize);
+    }
+    final long keyPrefix = getPrefix(keyHash, keyHashSize);
+    // Prefixes are compared as unsigned values, shift them to interpolate with signed arithmetic
+    final long keyValue = keyPrefix >>> 1;
+    long loValue = getPrefix(block, off, keyHashSize) >>> 1;
+    long hiValue = getPrefix(block, off + hi * fullRecordSize, keyHashSize) >>> 1;
+    int numProbes = 0;
+    while (lo <= hi) {
+      // Leading bytes are ordered like the key hashes themselves. If the key hash is outside of the
+      // [lo, hi] range, it can not be in the block.
+      if (keyValue < loValue || keyValue > hiValue) {
+        return -1;
+      }
+      int mid;
+      if (numProbes++ < MAX_INTERPOLATION_PROBES && hi - lo >= MIN_INTERPOLATION_RECORDS && hiValue > loValue) {
+        mid = lo + (int)(((double)(keyValue - loValue) / (double)(hiValue - loValue)) * (hi - lo));
+      } else {
+        mid = (lo + hi) >>> 1;
+      }
+      int recordOffset = off + mid * fullRecordSize;
+      int comparison = compareKeyHash(block, recordOffset, keyHash, keyHashSize, keyPrefix);
+      if (comparison == 0) {
+        return recordOffset + keyHashSize;
+      } else if (comparison < 0) {
+        lo = mid + 1;
+        if (lo <= hi) {
+          loValue = getPrefix(block, off + lo * fullRecordSize, keyHashSize) >>> 1;
+        }
+      } else {
+        hi = mid - 1;
+        if (lo <= hi) {
+          hiValue = getPrefix(block, off + hi * fullRecordSize, keyHashSize) >>> 1;
+        }
+      }
+    }
+    return -1;
+  }
+
+  // Compare the first 8 bytes at once, and the remaining bytes one by one
+  private static int compareKeyHash(ByteBuffer block, int off, byte[] keyHash, int keyHashSize, long keyPrefix) {
+    long prefix = getPrefix(block, off, keyHashSize);
+    if (prefix != keyPrefix) {
+      // unsigned comparison
+      return (prefix + Long.MIN_VALUE) < (keyPrefix + Long.MIN_VALUE) ? -1 : 1;
+    }
+    for (int i = 8; i < keyHashSize; ++i) {
+      int a = block.get(off + i) & 0xff;
+      int b = keyHash[i] & 0xff;
+      if (a != b) {
+        return a < b ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  // First 8 bytes of a key hash, big endian, padded with zeros
+  private static long getPrefix(ByteBuffer block, int off, int keyHashSize) {
+    if (keyHashSize >= 8 && block.order() == ByteOrder.BIG_ENDIAN) {
+      return block.getLong(off);
+    }
+    long result = 0;
+    for (int i = 0; i < 8; ++i) {
+      result = (result << 8) | (i < keyHashSize ? (block.get(off + i) & 0xff) : 0);
+    }
+    return result;
+  }
+
+  private static long getPrefix(byte[] keyHash, int keyHashSize) {
+    long result = 0;
+    for (int i = 0; i < 8; ++i) {
+      result = (result << 8) | (i < keyHashSize ? (keyHash[i] & 0xff) : 0);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,191 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage.cueball;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Blocked Bloom filter over the key hashes of a Cueball file, stored in a sidecar file next to it.
+ * <p/>
+ * The filter is split into one segment per hash index block, sized after the number of keys in
+ * that block, so that it can be written while streaming the Cueball file. Segments are themselves
+ * split into sub-blocks of (at most) 512 bits, so that a lookup only touches one cache line.
+ * <p/>
+ * File format: all segments as little endian longs, followed by the number of longs of each
+ * segment (4 bytes each, 2^hashIndexBits of them), the number of bits per key (4 bytes) and the
+ * number of probes (4 bytes).
+ */
+public class CueballBloomFilter {
+
+  public static final String EXTENSION = ".bloom";
+
+  private static final int MAX_SUB_BLOCK_NUM_LONGS = 8;
+  private static final int MAX_NUM_PROBES = 16;
+
+  private final long[] bits;
+  // Segment i is bits[segmentStarts[i], segmentStarts[i + 1])
+  private final int[] segmentStarts;
+  private final int bitsPerKey;
+  private final int numProbes;
+
+  public CueballBloomFilter(String path, int hashIndexBits) throws IOException {
+    FileInputStream inputStream = new FileInputStream(path);
+    try {
+      FileChannel channel = inputStream.getChannel();
+      int numSegments = 1 << hashIndexBits;
+      long footerLength = 4L * numSegments + 4 + 4;
+      if (channel.size() < footerLength) {
+        throw new IOException("Bloom filter file " + path + " is too small (" + channel.size()
+            + " bytes) for " + hashIndexBits + " hash index bits");
+      }
+      ByteBuffer footer = ByteBuffer.allocate((int)footerLength).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, footer, channel.size() - footerLength);
+      segmentStarts = new int[numSegments + 1];
+      long numLongs = 0;
+      for (int i = 0; i < numSegments; ++i) {
+        segmentStarts[i] = (int)numLongs;
+        numLongs += footer.getInt(4 * i);
+      }
+      segmentStarts[numSegments] = (int)numLongs;
+      bitsPerKey = footer.getInt(4 * numSegments);
+      numProbes = footer.getInt(4 * numSegments + 4);
+      if (numLongs * 8 + footerLength != channel.size()) {
+        throw new IOException("Bloom filter file " + path + " is corrupted. Expected " + (numLongs * 8 + footerLength)
+            + " bytes but size is " + channel.size());
+      }
+      ByteBuffer data = ByteBuffer.allocate((int)(numLongs * 8)).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(channel, data, 0);
+      bits = new long[(int)numLongs];
+      data.asLongBuffer().get(bits);
+    } finally {
+      inputStream.close();
+    }
+  }
+
+  // Return false if the given key hash is definitely not in the Cueball file
+  public boolean mayContain(int hashPrefix, byte[] keyHash, int keyHashSize) {
+    int segmentStart = segmentStarts[hashPrefix];
+    int segmentNumLongs = segmentStarts[hashPrefix + 1] - segmentStart;
+    if (segmentNumLongs == 0) {
+      return false;
+    }
+    return mayContain(bits, segmentStart, segmentNumLongs, numProbes, hash(keyHash, 0, keyHashSize));
+  }
+
+  public int getBitsPerKey() {
+    return bitsPerKey;
+  }
+
+  // Memory used by the filter
+  public long getNumBytes() {
+    return 8L * bits.length + 4L * segmentStarts.length;
+  }
+
+  public static String getPath(String cueballFilePath) {
+    return cueballFilePath + EXTENSION;
+  }
+
+  public static String getName(int versionNumber, boolean base) {
+    return Cueball.getName(versionNumber, base) + EXTENSION;
+  }
+
+  public static boolean exists(String cueballFilePath) {
+    return new File(getPath(cueballFilePath)).exists();
+  }
+
+  // Optimal number of probes is bitsPerKey * ln(2)
+  static int getNumProbes(int bitsPerKey) {
+    return Math.max(1, Math.min(MAX_NUM_PROBES, (int)Math.round(bitsPerKey * Math.log(2))));
+  }
+
+  // Segments smaller than a sub-block are rounded up to a power of two number of longs,
+  // larger ones to a whole number of sub-blocks.
+  static int getSegmentNumLongs(int numKeys, int bitsPerKey) {
+    if (numKeys == 0) {
+      return 0;
+    }
+    long numLongs = ((long)numKeys * bitsPerKey + 63) / 64;
+    if (numLongs <= MAX_SUB_BLOCK_NUM_LONGS) {
+      return Integer.highestOneBit((int)(numLongs * 2 - 1));
+    } else {
+      return (int)((numLongs + MAX_SUB_BLOCK_NUM_LONGS - 1) / MAX_SUB_BLOCK_NUM_LONGS * MAX_SUB_BLOCK_NUM_LONGS);
+    }
+  }
+
+  static void add(long[] bits, int segmentStart, int segmentNumLongs, int numProbes, long hash) {
+    int subBlockNumLongs = Math.min(segmentNumLongs, MAX_SUB_BLOCK_NUM_LONGS);
+    int subBlockStart = segmentStart + getSubBlock(segmentNumLongs / subBlockNumLongs, hash) * subBlockNumLongs;
+    int mask = subBlockNumLongs * 64 - 1;
+    int h1 = (int)hash;
+    int h2 = (int)(hash >>> 32) | 1;
+    for (int i = 0; i < numProbes; ++i) {
+      int bit = (h1 + i * h2) & mask;
+      bits[subBlockStart + (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  static boolean mayContain(long[] bits, int segmentStart, int segmentNumLongs, int numProbes, long hash) {
+    int subBlockNumLongs = Math.min(segmentNumLongs, MAX_SUB_BLOCK_NUM_LONGS);
+    int subBlockStart = segmentStart + getSubBlock(segmentNumLongs / subBlockNumLongs, hash) * subBlockNumLongs;
+    int mask = subBlockNumLongs * 64 - 1;
+    int h1 = (int)hash;
+    int h2 = (int)(hash >>> 32) | 1;
+    for (int i = 0; i < numProbes; ++i) {
+      int bit = (h1 + i * h2) & mask;
+      if ((bits[subBlockStart + (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Key hashes of a segment share the same prefix, so all bytes are mixed together
+  static long hash(byte[] keyHash, int off, int keyHashSize) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < keyHashSize; ++i) {
+      h = (h ^ (keyHash[off + i] & 0xff)) * 0x100000001b3L;
+    }
+    // Finalization step of MurmurHash3
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  // Use bits that are not used to select bits inside the sub-block
+  private static int getSubBlock(int numSubBlocks, long hash) {
+    return (int)(((hash >>> 40) * numSubBlocks) >>> 24);
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int numBytesRead = channel.read(buffer, position);
+      if (numBytesRead < 0) {
+        throw new IOException("Unexpected end of bloom filter file");
+      }
+      position += numBytesRead;
+    }
+    buffer.flip();
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage.cueball;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.liveramp.hank.util.EncodingHelper;
+import com.liveramp.hank.util.IOStreamUtils;
+
+/**
+ * Writes the Bloom filter sidecar of a Cueball file, one hash index block at a time.
+ * See CueballBloomFilter for the file format.
+ */
+public class CueballBloomFilterWriter {
+
+  private final OutputStream stream;
+  private final int bitsPerKey;
+  private final int numProbes;
+  private final int[] segmentNumLongs;
+  private final byte[] longBuffer = new byte[8];
+  private long[] segment = new long[0];
+  private int lastHashPrefix = -1;
+
+  public CueballBloomFilterWriter(OutputStream outputStream, int hashIndexBits, int bitsPerKey) {
+    if (bitsPerKey <= 0) {
+      throw new IllegalArgumentException("Number of bits per key must be positive: " + bitsPerKey);
+    }
+    this.stream = new BufferedOutputStream(outputStream, IOStreamUtils.DEFAULT_BUFFER_SIZE);
+    this.bitsPerKey = bitsPerKey;
+    this.numProbes = CueballBloomFilter.getNumProbes(bitsPerKey);
+    this.segmentNumLongs = new int[1 << hashIndexBits];
+  }
+
+  // Add all key hashes of an uncompressed block. Blocks must be written in increasing hash prefix order.
+  public void writeBlock(int hashPrefix,
+                         byte[] records,
+                         int numRecords,
+                         int keyHashSize,
+                         int fullRecordSize) throws IOException {
+    if (hashPrefix <= lastHashPrefix) {
+      throw new IOException("Bloom filter blocks must be written in increasing hash prefix order. Block "
+          + hashPrefix + " was written after block " + lastHashPrefix);
+    }
+    lastHashPrefix = hashPrefix;
+    int numLongs = CueballBloomFilter.getSegmentNumLongs(numRecords, bitsPerKey);
+    if (segment.length < numLongs) {
+      segment = new long[numLongs];
+    } else {
+      Arrays.fill(segment, 0, numLongs, 0L);
+    }
+    for (int i = 0; i < numRecords; ++i) {
+      CueballBloomFilter.add(segment, 0, numLongs, numProbes,
+          CueballBloomFilter.hash(records, i * fullRecordSize, keyHashSize));
+    }
+    for (int i = 0; i < numLongs; ++i) {
+      EncodingHelper.encodeLittleEndianFixedWidthLong(segment[i], longBuffer);
+      stream.write(longBuffer);
+    }
+    segmentNumLongs[hashPrefix] = numLongs;
+  }
+
+  public void close() throws IOException {
+    byte[] footer = new byte[4 * segmentNumLongs.length + 4 + 4];
+    for (int i = 0; i < segmentNumLongs.length; ++i) {
+      EncodingHelper.encodeLittleEndianFixedWidthLong(segmentNumLongs[i], footer, 4 * i, 4);
+    }
+    EncodingHelper.encodeLittleEndianFixedWidthLong(bitsPerKey, footer, footer.length - 8, 4);
+    EncodingHelper.encodeLittleEndianFixedWidthLong(numProbes, footer, footer.length - 4, 4);
+    stream.write(footer);
+    stream.flush();
+    stream.close();
+  }
+}
@@ -25,6 +25,17 @@ import java.util.List;
 
 public final class CueballMerger implements ICueballMerger {
 
+  // A bloom filter is written next to the new base when positive
+  private final int bloomFilterBitsPerKey;
+
+  public CueballMerger() {
+    this(0);
+  }
+
+  public CueballMerger(int bloomFilterBitsPerKey) {
+    this.bloomFilterBitsPerKey = bloomFilterBitsPerKey;
+  }
+
   @Override
   public void merge(final CueballFilePath base,
                     final List<CueballFilePath> deltas,
@@ -46,9 +57,16 @@ public final class CueballMerger implements ICueballMerger {
     // Output stream for the new base to be written. intentionally unbuffered, the writer below will do that on its own.
     OutputStream newCueballBaseOutputStream = new FileOutputStream(newBasePath);
 
+    // Rebuild the bloom filter from the merged key hashes
+    CueballBloomFilterWriter bloomFilterWriter = null;
+    if (bloomFilterBitsPerKey > 0) {
+      bloomFilterWriter = new CueballBloomFilterWriter(new FileOutputStream(CueballBloomFilter.getPath(newBasePath)),
+          hashIndexBits, bloomFilterBitsPerKey);
+    }
+
     // Note that we intentionally omit the hasher here, since it will *not* be used
-    CueballWriter newCueballBaseWriter =
-        new CueballWriter(newCueballBaseOutputStream, keyHashSize, null, valueSize, compressionCodec, hashIndexBits);
+    CueballWriter newCueballBaseWriter = new CueballWriter(newCueballBaseOutputStream, keyHashSize, null, valueSize,
+        compressionCodec, hashIndexBits, bloomFilterWriter);
 
     while (true) {
       KeyHashAndValueAndStreamIndex keyValuePair = cueballStreamBufferMergeSort.nextKeyHashAndValueAndStreamIndex();
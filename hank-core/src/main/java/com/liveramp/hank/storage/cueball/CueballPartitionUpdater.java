@@ -21,6 +21,7 @@ import com.liveramp.hank.coordinator.Domain;
 import com.liveramp.hank.coordinator.DomainVersion;
 import com.liveramp.hank.partition_server.PartitionUpdateTaskStatistics;
 import com.liveramp.hank.storage.PartitionRemoteFileOps;
+import com.liveramp.hank.storage.incremental.IncrementalDomainVersionProperties;
 import com.liveramp.hank.storage.incremental.IncrementalPartitionUpdater;
 import com.liveramp.hank.storage.incremental.IncrementalUpdatePlan;
 import com.liveramp.hank.util.HankTimer;
@@ -107,6 +108,20 @@ public class CueballPartitionUpdater extends IncrementalPartitionUpdater {
     String fileToFetch = Cueball.getName(domainVersion);
     LOG.info("Fetching from " + partitionRemoteFileOps + " file " + fileToFetch + " to " + fetchRoot);
     partitionRemoteFileOps.copyToLocalRoot(fileToFetch, fetchRoot);
+    fetchBloomFilter(partitionRemoteFileOps, domainVersion, fetchRoot);
+  }
+
+  // Bases may come with a bloom filter sidecar, deltas' filters are not needed since merging rebuilds it
+  public static void fetchBloomFilter(PartitionRemoteFileOps partitionRemoteFileOps,
+                                      DomainVersion domainVersion,
+                                      String fetchRoot) throws IOException {
+    if (IncrementalDomainVersionProperties.isBase(domainVersion)) {
+      String bloomFilterToFetch = CueballBloomFilter.getName(domainVersion.getVersionNumber(), true);
+      if (partitionRemoteFileOps.exists(bloomFilterToFetch)) {
+        LOG.info("Fetching from " + partitionRemoteFileOps + " file " + bloomFilterToFetch + " to " + fetchRoot);
+        partitionRemoteFileOps.copyToLocalRoot(bloomFilterToFetch, fetchRoot);
+      }
+    }
   }
 
   @Override
@@ -171,6 +186,14 @@ public class CueballPartitionUpdater extends IncrementalPartitionUpdater {
       if (!new File(base.getPath()).renameTo(new File(newBasePath))) {
         throw new IOException("Failed to rename Cueball base: " + base.getPath() + " to: " + newBasePath);
       }
+      // Move the bloom filter along with the base, if there is one
+      if (CueballBloomFilter.exists(base.getPath())) {
+        String bloomFilterPath = CueballBloomFilter.getPath(base.getPath());
+        String newBloomFilterPath = CueballBloomFilter.getPath(newBasePath);
+        if (!new File(bloomFilterPath).renameTo(new File(newBloomFilterPath))) {
+          throw new IOException("Failed to rename Cueball bloom filter: " + bloomFilterPath + " to: " + newBloomFilterPath);
+        }
+      }
     } else {
       cueballMerger.merge(base,
           deltas,
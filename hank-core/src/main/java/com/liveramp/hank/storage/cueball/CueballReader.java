@@ -19,25 +19,38 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.SortedSet;
+import java.util.concurrent.atomic.AtomicLong;
 
-import com.liveramp.commons.util.ByteBufferMemoryUsageEstimator;
 import com.liveramp.commons.util.BytesUtils;
 import com.liveramp.hank.compression.cueball.CueballCompressionCodec;
+import com.liveramp.hank.compression.cueball.NoCueballCompressionCodec;
 import com.liveramp.hank.hasher.Hasher;
+import com.liveramp.hank.storage.BulkReader;
 import com.liveramp.hank.storage.CacheStatistics;
+import com.liveramp.hank.storage.DecompressedBlockCache;
+import com.liveramp.hank.storage.LocalReaderCache;
 import com.liveramp.hank.storage.Reader;
+import com.liveramp.hank.storage.ReaderCache;
 import com.liveramp.hank.storage.ReaderResult;
-import com.liveramp.hank.util.SynchronizedMemoryBoundCache;
+import com.liveramp.hank.storage.ScanPage;
+import com.liveramp.hank.storage.ScanReader;
+import com.liveramp.hank.util.MemoryMappedFile;
 
-public class CueballReader implements Reader {
+public class CueballReader implements BulkReader, ScanReader {
 
   private static final KeyHashBufferThreadLocal keyHashBufferThreadLocal = new KeyHashBufferThreadLocal();
   private static final ByteBuffer NOT_FOUND_MARKER = ByteBuffer.wrap(new byte[]{});
 
   private final Hasher hasher;
   private final int valueSize;
-  private final long[] hashIndex;
+  private final HashIndex hashIndex;
+  private final String basePath;
+  private final Footer footer;
   private final FileChannel channel;
   private final int keyHashSize;
   private final int fullRecordSize;
@@ -46,7 +59,16 @@ public class CueballReader implements Reader {
   private int maxCompressedBufferSize;
   private final HashPrefixCalculator prefixer;
   private final int versionNumber;
-  private SynchronizedMemoryBoundCache<ByteBuffer, ByteBuffer> cache;
+  private ReaderCache cache;
+  private final long dataLength;
+  // Only set when reading through a memory mapping
+  private final MemoryMappedFile mappedFile;
+  // Only set when the base comes with a bloom filter
+  private final CueballBloomFilter bloomFilter;
+  private final AtomicLong bloomFilterNumNegatives = new AtomicLong();
+  private final AtomicLong bloomFilterNumFalsePositives = new AtomicLong();
+  // Only set when decompressed blocks are cached
+  private final DecompressedBlockCache blockCache;
 
   public CueballReader(String partitionRoot,
                        int keyHashSize,
@@ -56,6 +78,47 @@ public class CueballReader implements Reader {
                        CueballCompressionCodec compressionCodec,
                        long cacheNumBytesCapacity,
                        int cacheNumItemsCapacity) throws IOException {
+    this(partitionRoot, keyHashSize, hasher, valueSize, hashIndexBits, compressionCodec,
+        cacheNumBytesCapacity, cacheNumItemsCapacity, false, false);
+  }
+
+  public CueballReader(String partitionRoot,
+                       int keyHashSize,
+                       Hasher hasher,
+                       int valueSize,
+                       int hashIndexBits,
+                       CueballCompressionCodec compressionCodec,
+                       long cacheNumBytesCapacity,
+                       int cacheNumItemsCapacity,
+                       boolean memoryMapEnabled,
+                       boolean memoryMapPrefetchEnabled) throws IOException {
+    this(partitionRoot, keyHashSize, hasher, valueSize, hashIndexBits, compressionCodec,
+        new LocalReaderCache(cacheNumBytesCapacity, cacheNumItemsCapacity), memoryMapEnabled, memoryMapPrefetchEnabled);
+  }
+
+  public CueballReader(String partitionRoot,
+                       int keyHashSize,
+                       Hasher hasher,
+                       int valueSize,
+                       int hashIndexBits,
+                       CueballCompressionCodec compressionCodec,
+                       ReaderCache cache,
+                       boolean memoryMapEnabled,
+                       boolean memoryMapPrefetchEnabled) throws IOException {
+    this(partitionRoot, keyHashSize, hasher, valueSize, hashIndexBits, compressionCodec,
+        cache, memoryMapEnabled, memoryMapPrefetchEnabled, null);
+  }
+
+  public CueballReader(String partitionRoot,
+                       int keyHashSize,
+                       Hasher hasher,
+                       int valueSize,
+                       int hashIndexBits,
+                       CueballCompressionCodec compressionCodec,
+                       ReaderCache cache,
+                       boolean memoryMapEnabled,
+                       boolean memoryMapPrefetchEnabled,
+                       DecompressedBlockCache blockCache) throws IOException {
     SortedSet<CueballFilePath> bases = Cueball.getBases(partitionRoot);
     if (bases == null || bases.size() == 0) {
       throw new IOException("Could not detect any Cueball base in " + partitionRoot);
@@ -69,73 +132,318 @@ public class CueballReader implements Reader {
     this.prefixer = new HashPrefixCalculator(hashIndexBits);
     this.versionNumber = latestBase.getVersion();
 
-    channel = new FileInputStream(latestBase.getPath()).getChannel();
-    Footer footer = new Footer(channel, hashIndexBits);
+    basePath = latestBase.getPath();
+    channel = new FileInputStream(basePath).getChannel();
+    footer = new Footer(channel, hashIndexBits);
     hashIndex = footer.getHashIndex();
     maxUncompressedBufferSize = footer.getMaxUncompressedBufferSize();
     maxCompressedBufferSize = footer.getMaxCompressedBufferSize();
-    cache = new SynchronizedMemoryBoundCache<ByteBuffer, ByteBuffer>(
-        cacheNumBytesCapacity > 0 || cacheNumItemsCapacity > 0,
-        cacheNumBytesCapacity,
-        cacheNumItemsCapacity,
-        new ByteBufferMemoryUsageEstimator(),
-        new ByteBufferMemoryUsageEstimator());
+    dataLength = footer.getDataLength();
+    if (memoryMapEnabled) {
+      // Only the data section is mapped, the footer has already been loaded
+      mappedFile = new MemoryMappedFile(channel, dataLength, maxCompressedBufferSize, memoryMapPrefetchEnabled);
+    } else {
+      mappedFile = null;
+    }
+    if (CueballBloomFilter.exists(latestBase.getPath())) {
+      bloomFilter = new CueballBloomFilter(CueballBloomFilter.getPath(latestBase.getPath()), hashIndexBits);
+    } else {
+      bloomFilter = null;
+    }
+    this.cache = cache;
+    this.blockCache = blockCache;
   }
 
   @Override
   public void get(ByteBuffer key, ReaderResult result) throws IOException {
     // Note: keyHash buffer might be larger than keyHashSize
-    byte[] keyHash = computeKeyHash(key);
-    ByteBuffer keyHashByteBuffer = ByteBuffer.wrap(keyHash);
+    ByteBuffer keyHashByteBuffer = computeKeyHash(key);
+    byte[] keyHash = keyHashByteBuffer.array();
 
     int hashPrefix = prefixer.getHashPrefix(keyHash, 0);
-    long baseOffset = hashIndex[hashPrefix];
+    long baseOffset = hashIndex.get(hashPrefix);
 
     // by default, we didn't find what we were looking for
     result.notFound();
 
     // baseOffset of -1 means that our hashPrefix doesn't map to any blocks
     if (baseOffset >= 0) {
-      // Attempt to load value from the cache
-      if (loadValueFromCache(keyHashByteBuffer, result)) {
+      // The bloom filter is cheaper than both the cache and the data file
+      if (bloomFilter != null && !bloomFilter.mayContain(hashPrefix, keyHash, keyHashSize)) {
+        bloomFilterNumNegatives.incrementAndGet();
         return;
       }
-      // We will read the compressed buffer and decompress it in the same buffer.
-      result.requiresBufferSize(maxCompressedBufferSize + maxUncompressedBufferSize);
-      // set up to read a chunk from the datafile
-      ByteBuffer buffer = result.getBuffer();
+      // Attempt to load value from the cache
+      if (!loadValueFromCache(keyHashByteBuffer, result)) {
+        if (mappedFile != null) {
+          readFromMappedFile(baseOffset, keyHash, keyHashByteBuffer, result);
+        } else {
+          readFromChannel(baseOffset, keyHash, keyHashByteBuffer, result);
+        }
+      }
+      if (bloomFilter != null && !result.isFound()) {
+        bloomFilterNumFalsePositives.incrementAndGet();
+      }
+    }
+  }
+
+  // Keys are looked up block by block, in file order, and each block is read and decompressed once
+  @Override
+  public void getBulk(List<ByteBuffer> keys, ReaderResult[] results) throws IOException {
+    // Resolve keys that do not require reading a block, and collect the others
+    List<BlockLookup> lookups = new ArrayList<BlockLookup>(keys.size());
+    for (int i = 0; i < keys.size(); ++i) {
+      ReaderResult result = results[i];
+      result.notFound();
+      byte[] keyHash = new byte[keyHashSize];
+      hasher.hash(keys.get(i), keyHashSize, keyHash);
+      int hashPrefix = prefixer.getHashPrefix(keyHash, 0);
+      long baseOffset = hashIndex.get(hashPrefix);
+      if (baseOffset < 0) {
+        continue;
+      }
+      if (bloomFilter != null && !bloomFilter.mayContain(hashPrefix, keyHash, keyHashSize)) {
+        bloomFilterNumNegatives.incrementAndGet();
+        continue;
+      }
+      if (loadValueFromCache(ByteBuffer.wrap(keyHash), result)) {
+        if (bloomFilter != null && !result.isFound()) {
+          bloomFilterNumFalsePositives.incrementAndGet();
+        }
+        continue;
+      }
+      lookups.add(new BlockLookup(i, baseOffset, keyHash));
+    }
+    Collections.sort(lookups);
+
+    ReaderResult blockResult = new ReaderResult();
+    int groupStart = 0;
+    while (groupStart < lookups.size()) {
+      long baseOffset = lookups.get(groupStart).baseOffset;
+      ByteBuffer block = readBlock(baseOffset, blockResult);
+      int groupEnd = groupStart;
+      while (groupEnd < lookups.size() && lookups.get(groupEnd).baseOffset == baseOffset) {
+        BlockLookup lookup = lookups.get(groupEnd);
+        ReaderResult result = results[lookup.keyIndex];
+        readFromBlock(block, lookup.keyHash, result);
+        if (bloomFilter != null && !result.isFound()) {
+          bloomFilterNumFalsePositives.incrementAndGet();
+        }
+        ++groupEnd;
+      }
+      groupStart = groupEnd;
+    }
+  }
+
+  // Blocks are streamed sequentially from the base, starting with the block of the given key hash. Scans do not
+  // go through the caches, so that they do not evict entries used by gets.
+  @Override
+  public void scan(ByteBuffer afterKeyHash, ScanPage page) throws IOException {
+    byte[] after = null;
+    int firstHashIndexIdx = 0;
+    if (afterKeyHash != null) {
+      if (afterKeyHash.remaining() != keyHashSize) {
+        throw new IOException("Invalid scan key hash size: " + afterKeyHash.remaining() + ", expected: " + keyHashSize);
+      }
+      after = BytesUtils.byteBufferDeepCopy(afterKeyHash).array();
+      firstHashIndexIdx = prefixer.getHashPrefix(after, 0);
+    }
+    CueballStreamBuffer streamBuffer =
+        new CueballStreamBuffer(basePath, 0, keyHashSize, valueSize, footer, compressionCodec, firstHashIndexIdx);
+    try {
+      while (!page.isFull() && streamBuffer.anyRemaining()) {
+        byte[] buffer = streamBuffer.getBuffer();
+        int offset = streamBuffer.getCurrentOffset();
+        if (after == null || BytesUtils.compareBytesUnsigned(buffer, offset, after, 0, keyHashSize) > 0) {
+          page.add(ByteBuffer.wrap(Arrays.copyOfRange(buffer, offset, offset + keyHashSize)),
+              ByteBuffer.wrap(Arrays.copyOfRange(buffer, offset + keyHashSize, offset + fullRecordSize)));
+        }
+        streamBuffer.consume();
+      }
+      page.setComplete(!streamBuffer.anyRemaining());
+    } finally {
+      streamBuffer.close();
+    }
+  }
+
+  // Return the decompressed block at the given offset, between its position and limit. The block might be backed by
+  // the given result's buffer.
+  private ByteBuffer readBlock(long baseOffset, ReaderResult blockResult) throws IOException {
+    int blockLength = (int)Math.min(maxCompressedBufferSize, dataLength - baseOffset);
+    if (mappedFile != null && compressionCodec instanceof NoCueballCompressionCodec) {
+      ByteBuffer block = mappedFile.getSegment(baseOffset).duplicate();
+      int blockStart = mappedFile.getOffsetInSegment(baseOffset);
+      block.limit(blockStart + blockLength);
+      block.position(blockStart);
+      return block;
+    }
+    ByteBuffer block = blockCache == null ? null : blockCache.get(baseOffset);
+    if (block != null) {
+      return block;
+    }
+    blockResult.requiresBufferSize(maxCompressedBufferSize + maxUncompressedBufferSize);
+    ByteBuffer buffer = blockResult.getBuffer();
+    int compressedLength;
+    if (mappedFile != null) {
+      mappedFile.read(baseOffset, buffer.array(), 0, blockLength);
+      compressedLength = blockLength;
+    } else {
       buffer.rewind();
-      buffer.limit(maxCompressedBufferSize);
-      int bytesRead = channel.read(buffer, baseOffset);
-
-      // decompress from the beginning of the buffer into the unoccupied end of
-      // the buffer
-      final int uncompressedStart = bytesRead;
-      int decompressedLength = compressionCodec.decompress(buffer.array(),
-          0,
-          bytesRead, buffer.array(),
-          uncompressedStart);
-
-      // scan the chunk we read to find a matching key, if there is one,
-      // returning the recordfile offset
-      int bufferOffset = getValueOffset(buffer.array(),
-          uncompressedStart,
-          uncompressedStart + decompressedLength,
-          keyHash);
-
-      // -1 means that we didn't find the key
-      if (bufferOffset > -1) {
+      buffer.limit(blockLength);
+      compressedLength = channel.read(buffer, baseOffset);
+    }
+    int decompressedLength = compressionCodec.decompress(buffer.array(),
+        0,
+        compressedLength, buffer.array(),
+        compressedLength);
+    block = buffer.duplicate();
+    block.limit(compressedLength + decompressedLength);
+    block.position(compressedLength);
+    if (blockCache != null) {
+      blockCache.put(baseOffset, block);
+    }
+    return block;
+  }
+
+  // Copy the value of the given key, if it is in the block, into the result
+  private void readFromBlock(ByteBuffer block, byte[] keyHash, ReaderResult result) {
+    ByteBuffer keyHashByteBuffer = ByteBuffer.wrap(keyHash);
+    int valueOffset = getValueOffset(block, block.position(), block.limit(), keyHash);
+    if (valueOffset > -1) {
+      result.requiresBufferSize(valueSize);
+      ByteBuffer buffer = result.getBuffer();
+      buffer.clear();
+      for (int i = 0; i < valueSize; ++i) {
+        buffer.put(i, block.get(valueOffset + i));
+      }
+      buffer.limit(valueSize);
+      result.found();
+      addValueToCache(keyHashByteBuffer, buffer);
+    } else {
+      result.notFound();
+      addNotFoundToCache(keyHashByteBuffer);
+    }
+  }
+
+  private void readFromChannel(long baseOffset,
+                               byte[] keyHash,
+                               ByteBuffer keyHashByteBuffer,
+                               ReaderResult result) throws IOException {
+    if (readFromBlockCache(baseOffset, keyHash, keyHashByteBuffer, result)) {
+      return;
+    }
+    // We will read the compressed buffer and decompress it in the same buffer.
+    result.requiresBufferSize(maxCompressedBufferSize + maxUncompressedBufferSize);
+    // set up to read a chunk from the datafile
+    ByteBuffer buffer = result.getBuffer();
+    buffer.rewind();
+    buffer.limit((int)Math.min(maxCompressedBufferSize, dataLength - baseOffset));
+    int bytesRead = channel.read(buffer, baseOffset);
+    readFromCompressedBlock(baseOffset, bytesRead, keyHash, keyHashByteBuffer, result);
+  }
+
+  private void readFromMappedFile(long baseOffset,
+                                  byte[] keyHash,
+                                  ByteBuffer keyHashByteBuffer,
+                                  ReaderResult result) throws IOException {
+    int blockLength = (int)Math.min(maxCompressedBufferSize, dataLength - baseOffset);
+    if (compressionCodec instanceof NoCueballCompressionCodec) {
+      // Uncompressed blocks are scanned in place, only the value gets copied
+      ByteBuffer segment = mappedFile.getSegment(baseOffset);
+      int blockStart = mappedFile.getOffsetInSegment(baseOffset);
+      int valueOffset = getValueOffset(segment, blockStart, blockStart + blockLength, keyHash);
+      if (valueOffset > -1) {
+        result.requiresBufferSize(valueSize);
+        ByteBuffer buffer = result.getBuffer();
+        buffer.clear();
+        for (int i = 0; i < valueSize; ++i) {
+          buffer.put(i, segment.get(valueOffset + i));
+        }
+        buffer.limit(valueSize);
         result.found();
-        buffer.limit(bufferOffset + valueSize);
-        buffer.position(bufferOffset);
         addValueToCache(keyHashByteBuffer, buffer);
       } else {
-        // key not found
         addNotFoundToCache(keyHashByteBuffer);
       }
+    } else if (!readFromBlockCache(baseOffset, keyHash, keyHashByteBuffer, result)) {
+      // Compressed blocks are copied from the mapping (no system call) and decompressed in the same buffer
+      result.requiresBufferSize(maxCompressedBufferSize + maxUncompressedBufferSize);
+      mappedFile.read(baseOffset, result.getBuffer().array(), 0, blockLength);
+      readFromCompressedBlock(baseOffset, blockLength, keyHash, keyHashByteBuffer, result);
     }
   }
 
+  // The compressed block is expected at the beginning of the result buffer
+  private void readFromCompressedBlock(long baseOffset,
+                                       int compressedLength,
+                                       byte[] keyHash,
+                                       ByteBuffer keyHashByteBuffer,
+                                       ReaderResult result) {
+    ByteBuffer buffer = result.getBuffer();
+
+    // decompress from the beginning of the buffer into the unoccupied end of
+    // the buffer
+    final int uncompressedStart = compressedLength;
+    int decompressedLength = compressionCodec.decompress(buffer.array(),
+        0,
+        compressedLength, buffer.array(),
+        uncompressedStart);
+    // the decompressed records are past the limit left by the read
+    buffer.clear();
+
+    if (blockCache != null) {
+      ByteBuffer decompressedBlock = buffer.duplicate();
+      decompressedBlock.limit(uncompressedStart + decompressedLength);
+      decompressedBlock.position(uncompressedStart);
+      blockCache.put(baseOffset, decompressedBlock);
+    }
+
+    // scan the chunk we read to find a matching key, if there is one,
+    // returning the recordfile offset
+    int bufferOffset = getValueOffset(buffer,
+        uncompressedStart,
+        uncompressedStart + decompressedLength,
+        keyHash);
+
+    // -1 means that we didn't find the key
+    if (bufferOffset > -1) {
+      result.found();
+      buffer.limit(bufferOffset + valueSize);
+      buffer.position(bufferOffset);
+      addValueToCache(keyHashByteBuffer, buffer);
+    } else {
+      // key not found
+      addNotFoundToCache(keyHashByteBuffer);
+    }
+  }
+
+  // Return true if the block was found in the block cache, and the key looked up in it
+  private boolean readFromBlockCache(long baseOffset,
+                                     byte[] keyHash,
+                                     ByteBuffer keyHashByteBuffer,
+                                     ReaderResult result) {
+    if (blockCache == null) {
+      return false;
+    }
+    ByteBuffer block = blockCache.get(baseOffset);
+    if (block == null) {
+      return false;
+    }
+    int valueOffset = getValueOffset(block, 0, block.limit(), keyHash);
+    if (valueOffset > -1) {
+      result.requiresBufferSize(valueSize);
+      ByteBuffer buffer = result.getBuffer();
+      buffer.clear();
+      buffer.put(block.array(), block.arrayOffset() + valueOffset, valueSize);
+      buffer.flip();
+      result.found();
+      addValueToCache(keyHashByteBuffer, buffer);
+    } else {
+      addNotFoundToCache(keyHashByteBuffer);
+    }
+    return true;
+  }
+
   public Integer getVersionNumber() {
     return versionNumber;
   }
@@ -146,67 +454,95 @@ public class CueballReader implements Reader {
         cache.size(),
         cache.getMaxNumItems(),
         cache.getNumManagedBytes(),
-        cache.getMaxNumManagedBytes());
+        cache.getMaxNumManagedBytes(),
+        bloomFilter == null ? 0 : bloomFilter.getNumBytes(),
+        bloomFilterNumNegatives.get(),
+        bloomFilterNumFalsePositives.get(),
+        cache.getNumAdmissionRejects(),
+        blockCache == null ? 0 : blockCache.getNumHits(),
+        blockCache == null ? 0 : blockCache.getNumMisses(),
+        blockCache == null ? 0 : blockCache.getNumBytesSaved());
   }
 
   @Override
   public void close() throws IOException {
+    if (mappedFile != null) {
+      mappedFile.close();
+    }
     channel.close();
     cache = null;
   }
 
-  private int getValueOffset(byte[] keyfileBufferChunk, int off, int limit, byte[] key) {
-    for (; off < limit; off += fullRecordSize) {
-      int comparison = BytesUtils.compareBytesUnsigned(keyfileBufferChunk, off,
-          key, 0, keyHashSize);
-      // found match
-      if (comparison == 0) {
-        return off + keyHashSize;
-      }
+  // Records in a block are fixed-size and sorted by key hash
+  private int getValueOffset(ByteBuffer keyfileBufferChunk, int off, int limit, byte[] key) {
+    return CueballBlockSearch.interpolationSearch(keyfileBufferChunk, off, limit, key, keyHashSize, fullRecordSize);
+  }
+
+  // A key that has to be looked up in the block at the given offset. Ordered by offset, then by key hash
+  // since records are sorted by key hash within a block.
+  private static class BlockLookup implements Comparable<BlockLookup> {
 
-      // passed the spot where our key could have been found, so not going to
-      // find it
-      if (comparison == 1) {
-        break;
+    private final int keyIndex;
+    private final long baseOffset;
+    private final byte[] keyHash;
+
+    private BlockLookup(int keyIndex, long baseOffset, byte[] keyHash) {
+      this.keyIndex = keyIndex;
+      this.baseOffset = baseOffset;
+      this.keyHash = keyHash;
+    }
+
+    @Override
+    public int compareTo(BlockLookup other) {
+      if (baseOffset != other.baseOffset) {
+        return baseOffset < other.baseOffset ? -1 : 1;
       }
+      return BytesUtils.compareBytesUnsigned(keyHash, 0, other.keyHash, 0, keyHash.length);
     }
-    // looked everywhere, didn't find it!
-    return -1;
   }
 
-  private static class KeyHashBufferThreadLocal extends ThreadLocal<byte[]> {
+  // Wraps the thread local key hash buffer, so that neither needs to be allocated for each get
+  private static class KeyHashBufferThreadLocal extends ThreadLocal<ByteBuffer> {
 
     private static int KEY_HASH_BUFFER_INITIAL_SIZE = 8;
 
     @Override
-    protected byte[] initialValue() {
-      return new byte[KEY_HASH_BUFFER_INITIAL_SIZE];
+    protected ByteBuffer initialValue() {
+      return ByteBuffer.wrap(new byte[KEY_HASH_BUFFER_INITIAL_SIZE]);
     }
 
-    protected byte[] getAndRequireBufferSize(int size) {
-      byte[] buffer = this.get();
-      if (buffer.length < size) {
-        buffer = new byte[size];
+    // The returned buffer is positioned at 0 and limited to the given size
+    protected ByteBuffer getAndRequireBufferSize(int size) {
+      ByteBuffer buffer = this.get();
+      if (buffer.capacity() < size) {
+        buffer = ByteBuffer.wrap(new byte[size]);
         this.set(buffer);
       }
+      buffer.clear();
+      buffer.limit(size);
       return buffer;
     }
   }
 
-  // Note: result buffer might be larger than keyHashSize
-  private byte[] computeKeyHash(ByteBuffer key) {
+  // Note: the backing array of the result might be larger than keyHashSize
+  private ByteBuffer computeKeyHash(ByteBuffer key) {
     // Reuse a thread local buffer, but first make sure it is at least of the required size
-    byte[] keyHash = keyHashBufferThreadLocal.getAndRequireBufferSize(keyHashSize);
-    hasher.hash(key, keyHashSize, keyHash);
+    ByteBuffer keyHash = keyHashBufferThreadLocal.getAndRequireBufferSize(keyHashSize);
+    hasher.hash(key, keyHashSize, keyHash.array());
     return keyHash;
   }
 
+  // Do not copy anything when the cache is disabled
   private void addValueToCache(ByteBuffer keyHash, ByteBuffer value) {
-    cache.put(BytesUtils.byteBufferDeepCopy(keyHash), BytesUtils.byteBufferDeepCopy(value));
+    if (cache.isEnabled()) {
+      cache.put(BytesUtils.byteBufferDeepCopy(keyHash), BytesUtils.byteBufferDeepCopy(value));
+    }
   }
 
   private void addNotFoundToCache(ByteBuffer keyHash) {
-    cache.put(BytesUtils.byteBufferDeepCopy(keyHash), NOT_FOUND_MARKER);
+    if (cache.isEnabled()) {
+      cache.put(BytesUtils.byteBufferDeepCopy(keyHash), NOT_FOUND_MARKER);
+    }
   }
 
   // Return true if managed to read the corresponding value from the cache and into result
@@ -37,11 +37,11 @@ public final class CueballStreamBuffer {
   private boolean complete;
   private final InputStream stream;
 
-  private final long[] hashIndex;
+  private final HashIndex hashIndex;
   private final byte[] uncompressedBuffer;
   private final byte[] compressedBuffer;
 
-  private int currentHashIndexIdx = -1;
+  private int currentHashIndexIdx;
   private final CueballCompressionCodec compressionCodec;
   private final long dataLength;
 
@@ -52,19 +52,62 @@ public final class CueballStreamBuffer {
                              int hashIndexBits,
                              CueballCompressionCodec compressionCodec)
       throws IOException {
+    this(new FileInputStream(filePath), relativeIndex, keyHashSize, valueSize, hashIndexBits, compressionCodec);
+  }
+
+  // Start streaming at the given hash index position, using a footer that has already been loaded
+  CueballStreamBuffer(String filePath,
+                      int relativeIndex,
+                      int keyHashSize,
+                      int valueSize,
+                      Footer footer,
+                      CueballCompressionCodec compressionCodec,
+                      int firstHashIndexIdx)
+      throws IOException {
+    this(new FileInputStream(filePath), relativeIndex, keyHashSize, valueSize, footer, compressionCodec,
+        firstHashIndexIdx);
+  }
+
+  private CueballStreamBuffer(FileInputStream fileInputStream,
+                              int relativeIndex,
+                              int keyHashSize,
+                              int valueSize,
+                              int hashIndexBits,
+                              CueballCompressionCodec compressionCodec)
+      throws IOException {
+    this(fileInputStream, relativeIndex, keyHashSize, valueSize,
+        new Footer(fileInputStream.getChannel(), hashIndexBits), compressionCodec, 0);
+  }
+
+  private CueballStreamBuffer(FileInputStream fileInputStream,
+                              int relativeIndex,
+                              int keyHashSize,
+                              int valueSize,
+                              Footer footer,
+                              CueballCompressionCodec compressionCodec,
+                              int firstHashIndexIdx)
+      throws IOException {
     this.relativeIndex = relativeIndex;
     this.compressionCodec = compressionCodec;
-    FileInputStream fileInputStream = new FileInputStream(filePath);
-    this.stream = new BufferedInputStream(fileInputStream, IOStreamUtils.DEFAULT_BUFFER_SIZE);
 
     this.keyHashSize = keyHashSize;
     this.fullRecordSize = valueSize + keyHashSize;
 
-    Footer footer = new Footer(fileInputStream.getChannel(), hashIndexBits);
     dataLength = footer.getDataLength();
     hashIndex = footer.getHashIndex();
     uncompressedBuffer = new byte[footer.getMaxUncompressedBufferSize()];
     compressedBuffer = new byte[footer.getMaxCompressedBufferSize()];
+
+    // position the stream at the first non-empty block to read
+    currentHashIndexIdx = firstHashIndexIdx - 1;
+    int hashIndexIdx = firstHashIndexIdx;
+    while (hashIndexIdx < hashIndex.size() && hashIndex.get(hashIndexIdx) == -1) {
+      hashIndexIdx++;
+    }
+    if (hashIndexIdx < hashIndex.size()) {
+      fileInputStream.getChannel().position(hashIndex.get(hashIndexIdx));
+    }
+    this.stream = new BufferedInputStream(fileInputStream, IOStreamUtils.DEFAULT_BUFFER_SIZE);
   }
 
   public boolean anyRemaining() throws IOException {
@@ -79,14 +122,14 @@ public final class CueballStreamBuffer {
 
     // advance to the next non-empty block
     currentHashIndexIdx++;
-    while (currentHashIndexIdx < hashIndex.length) {
-      if (hashIndex[currentHashIndexIdx] != -1) {
+    while (currentHashIndexIdx < hashIndex.size()) {
+      if (hashIndex.get(currentHashIndexIdx) != -1) {
         break;
       }
       currentHashIndexIdx++;
     }
 
-    if (currentHashIndexIdx >= hashIndex.length) {
+    if (currentHashIndexIdx >= hashIndex.size()) {
       // there are no more blocks. we're all done
       complete = true;
       return false;
@@ -95,7 +138,7 @@ public final class CueballStreamBuffer {
     // there's at least one block left.
 
     long upperOffset;
-    if (currentHashIndexIdx == hashIndex.length - 1) {
+    if (currentHashIndexIdx == hashIndex.size() - 1) {
       // actually, there's *exactly* one block left. we need to compare the
       // current offset to the data length to determine the compressed block
       // size.
@@ -104,25 +147,25 @@ public final class CueballStreamBuffer {
       // so this isn't the last block in the index, but it might still be the
       // last block in the file.
       int nextHashIndexIdx = currentHashIndexIdx + 1;
-      while (nextHashIndexIdx < hashIndex.length) {
-        if (hashIndex[nextHashIndexIdx] != -1) {
+      while (nextHashIndexIdx < hashIndex.size()) {
+        if (hashIndex.get(nextHashIndexIdx) != -1) {
           break;
         }
         nextHashIndexIdx++;
       }
       // need to examine the "next" we got back...
-      if (nextHashIndexIdx == hashIndex.length) {
+      if (nextHashIndexIdx == hashIndex.size()) {
         // turns out that it was the last block in the file, so we should
         // compare against the end of the data length.
         upperOffset = dataLength;
       } else {
         // sweet, there's another block there somewhere. use that offset as the
         // one to determine our compressed block length.
-        upperOffset = hashIndex[nextHashIndexIdx];
+        upperOffset = hashIndex.get(nextHashIndexIdx);
       }
     }
 
-    final int blockLength = (int) (upperOffset - hashIndex[currentHashIndexIdx]);
+    final int blockLength = (int) (upperOffset - hashIndex.get(currentHashIndexIdx));
     // read the compressed block from disk into the compressed buffer
     final int compressedBytesRead = stream.read(compressedBuffer, 0, blockLength);
     // decompress the compressed block into the uncompressed buffer
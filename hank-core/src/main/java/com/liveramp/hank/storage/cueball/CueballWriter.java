@@ -39,6 +39,8 @@ public class CueballWriter implements Writer {
   private final Hasher hasher;
   private final int valueSize;
   private final CueballCompressionCodec compressionCodec;
+  // Optional
+  private final CueballBloomFilterWriter bloomFilterWriter;
 
   private final byte[] uncompressedBuffer;
   private final byte[] compressedBuffer;
@@ -64,12 +66,23 @@ public class CueballWriter implements Writer {
                        int valueSize,
                        CueballCompressionCodec compressionCodec,
                        int hashIndexBits) {
+    this(outputStream, keyHashSize, hasher, valueSize, compressionCodec, hashIndexBits, null);
+  }
+
+  public CueballWriter(OutputStream outputStream,
+                       int keyHashSize,
+                       Hasher hasher,
+                       int valueSize,
+                       CueballCompressionCodec compressionCodec,
+                       int hashIndexBits,
+                       CueballBloomFilterWriter bloomFilterWriter) {
     // Buffer output
     this.stream = new BufferedOutputStream(outputStream, IOStreamUtils.DEFAULT_BUFFER_SIZE);
     this.keyHashSize = keyHashSize;
     this.hasher = hasher;
     this.valueSize = valueSize;
     this.compressionCodec = compressionCodec;
+    this.bloomFilterWriter = bloomFilterWriter;
 
     uncompressedBuffer = new byte[(keyHashSize + valueSize)
         * DEFAULT_NUMBER_OF_ENTRIES];
@@ -180,6 +193,10 @@ public class CueballWriter implements Writer {
   }
 
   private void clearUncompressed() throws IOException {
+    // add the block's key hashes to the bloom filter
+    if (bloomFilterWriter != null && numEntriesInBlock > 0) {
+      bloomFilterWriter.writeBlock(lastHashPrefix, uncompressedBuffer, numEntriesInBlock, keyHashSize, keyHashSize + valueSize);
+    }
     // compress the block
     int compressedSize = compressionCodec.compress(uncompressedBuffer, 0, uncompressedOffset, compressedBuffer, 0);
     // write the compressed block to the data stream
@@ -224,6 +241,10 @@ public class CueballWriter implements Writer {
     // flush everything and close
     stream.flush();
     stream.close();
+
+    if (bloomFilterWriter != null) {
+      bloomFilterWriter.close();
+    }
   }
 
   @Override
@@ -7,7 +7,7 @@ import java.nio.channels.FileChannel;
 import com.liveramp.hank.util.EncodingHelper;
 
 final class Footer {
-  private final long[] hashIndex;
+  private final HashIndex hashIndex;
   private final int maxUncompressedBufferSize;
   private final int maxCompressedBufferSize;
   private final long fileSize;
@@ -25,17 +25,22 @@ final class Footer {
       throw new IOException("Tried to read " + getFooterLength() + " bytes of footer, but only got " + read + " bytes!");
     }
 
-    hashIndex = new long[hashIndexSize];
-    for (int i = 0; i < getHashIndex().length; i++) {
+    long previousOffset = -1;
+    int previousIndex = -1;
+    for (int i = 0; i < hashIndexSize; i++) {
       final long offset = EncodingHelper.decodeLittleEndianFixedWidthLong(footer, i * 8, 8);
       if (offset < -1) {
         throw new IOException(String.format("Read an unexpectedly negative block offset (%d) at block position %d!", offset, i));
       }
-      if (offset != -1 && i > 0 && hashIndex[i-1] != -1 && hashIndex[i-1] >= offset) {
-        throw new IOException(String.format("Discovered an offset inversion! block %d offset: %d, block %d offset: %d", i-1, hashIndex[i-1], i, offset));
+      if (offset != -1) {
+        if (previousIndex == i - 1 && previousOffset >= offset) {
+          throw new IOException(String.format("Discovered an offset inversion! block %d offset: %d, block %d offset: %d", i-1, previousOffset, i, offset));
+        }
+        previousOffset = offset;
+        previousIndex = i;
       }
-      getHashIndex()[i] = offset;
     }
+    hashIndex = new HashIndex(footer, hashIndexSize);
 
     maxUncompressedBufferSize = (int) EncodingHelper.decodeLittleEndianFixedWidthLong(footer, footer.length - 8, 4);
     if (maxUncompressedBufferSize < 0) {
@@ -47,7 +52,7 @@ final class Footer {
     }
   }
 
-  public long[] getHashIndex() {
+  public HashIndex getHashIndex() {
     return hashIndex;
   }
 
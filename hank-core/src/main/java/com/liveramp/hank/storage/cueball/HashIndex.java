@@ -0,0 +1,142 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage.cueball;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+import com.liveramp.hank.util.EncodingHelper;
+
+/**
+ * Block offsets of a Cueball file, indexed by hash prefix, stored off-heap so that the heap
+ * footprint of a reader does not depend on the number of hash index bits.
+ * <p/>
+ * Entries are grouped in chunks. Each chunk stores its first block offset as a long, and each
+ * entry as a 32-bit offset relative to it. When a chunk spans more than 4GB, all offsets are
+ * stored as longs instead. Empty blocks have an offset of -1.
+ * <p/>
+ * Buffers are only accessed with absolute gets and can be shared between threads.
+ */
+final class HashIndex {
+
+  private static final int CHUNK_SIZE_BITS = 8;
+  // Relative offsets are unsigned, the largest one marks empty blocks
+  private static final int EMPTY_RELATIVE_OFFSET = -1;
+  private static final long MAX_RELATIVE_OFFSET = 0xffffffffL - 1;
+
+  private final int size;
+  // Compact encoding
+  private final LongBuffer chunkBaseOffsets;
+  private final IntBuffer relativeOffsets;
+  // Fallback encoding
+  private final LongBuffer offsets;
+
+  // Decode size little endian 8-byte offsets from the given array. Offsets should have been validated.
+  HashIndex(byte[] encodedOffsets, int size) {
+    this.size = size;
+    int numChunks = ((size - 1) >>> CHUNK_SIZE_BITS) + 1;
+    long[] chunkBases = new long[numChunks];
+    boolean fitsRelativeOffsets = true;
+    int chunk = -1;
+    for (int i = 0; i < size; ++i) {
+      if ((i >>> CHUNK_SIZE_BITS) != chunk) {
+        chunk = i >>> CHUNK_SIZE_BITS;
+        chunkBases[chunk] = -1;
+      }
+      long offset = getEncodedOffset(encodedOffsets, i);
+      if (offset != -1) {
+        if (chunkBases[chunk] == -1) {
+          chunkBases[chunk] = offset;
+        } else if (offset - chunkBases[chunk] > MAX_RELATIVE_OFFSET) {
+          fitsRelativeOffsets = false;
+        }
+      }
+    }
+
+    if (fitsRelativeOffsets) {
+      chunkBaseOffsets = allocateDirect(8L * numChunks).asLongBuffer();
+      chunkBaseOffsets.put(chunkBases);
+      relativeOffsets = allocateDirect(4L * size).asIntBuffer();
+      for (int i = 0; i < size; ++i) {
+        long offset = getEncodedOffset(encodedOffsets, i);
+        if (offset == -1) {
+          relativeOffsets.put(i, EMPTY_RELATIVE_OFFSET);
+        } else {
+          relativeOffsets.put(i, (int)(offset - chunkBases[i >>> CHUNK_SIZE_BITS]));
+        }
+      }
+      offsets = null;
+    } else {
+      chunkBaseOffsets = null;
+      relativeOffsets = null;
+      offsets = allocateDirect(8L * size).asLongBuffer();
+      for (int i = 0; i < size; ++i) {
+        offsets.put(i, getEncodedOffset(encodedOffsets, i));
+      }
+    }
+  }
+
+  // Return the offset of the block corresponding to the given hash prefix, or -1 if it is empty
+  long get(int hashPrefix) {
+    if (relativeOffsets != null) {
+      int relativeOffset = relativeOffsets.get(hashPrefix);
+      if (relativeOffset == EMPTY_RELATIVE_OFFSET) {
+        return -1;
+      }
+      return chunkBaseOffsets.get(hashPrefix >>> CHUNK_SIZE_BITS) + (relativeOffset & 0xffffffffL);
+    } else {
+      return offsets.get(hashPrefix);
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isCompact() {
+    return relativeOffsets != null;
+  }
+
+  long getNumOffHeapBytes() {
+    if (relativeOffsets != null) {
+      return 8L * chunkBaseOffsets.capacity() + 4L * relativeOffsets.capacity();
+    } else {
+      return 8L * offsets.capacity();
+    }
+  }
+
+  long[] toArray() {
+    long[] result = new long[size];
+    for (int i = 0; i < size; ++i) {
+      result[i] = get(i);
+    }
+    return result;
+  }
+
+  private static long getEncodedOffset(byte[] encodedOffsets, int i) {
+    return EncodingHelper.decodeLittleEndianFixedWidthLong(encodedOffsets, i * 8, 8);
+  }
+
+  private static ByteBuffer allocateDirect(long numBytes) {
+    if (numBytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Hash index is too large: " + numBytes + " bytes");
+    }
+    return ByteBuffer.allocateDirect((int)numBytes).order(ByteOrder.nativeOrder());
+  }
+}
@@ -22,6 +22,7 @@ import com.liveramp.hank.partition_server.PartitionUpdateTaskStatistics;
 import com.liveramp.hank.storage.PartitionRemoteFileOps;
 import com.liveramp.hank.storage.cueball.Cueball;
 import com.liveramp.hank.storage.cueball.CueballFilePath;
+import com.liveramp.hank.storage.cueball.CueballPartitionUpdater;
 import com.liveramp.hank.storage.cueball.ValueTransformer;
 import com.liveramp.hank.storage.incremental.IncrementalPartitionUpdater;
 import com.liveramp.hank.storage.incremental.IncrementalUpdatePlan;
@@ -137,6 +138,7 @@ public abstract class AbstractCurlyPartitionUpdater extends IncrementalPartition
     String cueballFileToFetch = Cueball.getName(version);
     LOG.info("Fetching from " + partitionRemoteFileOps + " for file " + cueballFileToFetch + " to " + fetchRoot);
     partitionRemoteFileOps.copyToLocalRoot(cueballFileToFetch, fetchRoot);
+    CueballPartitionUpdater.fetchBloomFilter(partitionRemoteFileOps, version, fetchRoot);
   }
 
   private void fetchCurlyVersion(DomainVersion version, String fetchRoot) throws IOException {
@@ -38,11 +38,13 @@ import com.liveramp.hank.coordinator.Domain;
 import com.liveramp.hank.coordinator.DomainVersion;
 import com.liveramp.hank.hasher.Hasher;
 import com.liveramp.hank.storage.Compactor;
+import com.liveramp.hank.storage.DecompressedBlockCache;
 import com.liveramp.hank.storage.Deleter;
 import com.liveramp.hank.storage.PartitionRemoteFileOps;
 import com.liveramp.hank.storage.PartitionRemoteFileOpsFactory;
 import com.liveramp.hank.storage.PartitionUpdater;
 import com.liveramp.hank.storage.Reader;
+import com.liveramp.hank.storage.ReaderCaches;
 import com.liveramp.hank.storage.RemoteDomainCleaner;
 import com.liveramp.hank.storage.RemoteDomainVersionDeleter;
 import com.liveramp.hank.storage.StorageEngine;
@@ -81,6 +83,9 @@ public class Curly extends IncrementalStorageEngine implements StorageEngine {
     private static final String BLOCK_COMPRESSION_CODEC = "block_compression_codec";
     private static final String COMPRESSED_BLOCK_SIZE_THRESHOLD = "compressed_block_size_threshold";
     private static final String OFFSET_IN_BLOCK_NUM_BYTES = "offset_in_block_num_bytes";
+    public static final String BLOOM_FILTER_BITS_PER_KEY = "bloom_filter_bits_per_key";
+    public static final String TINY_LFU_CACHE_ADMISSION = "tiny_lfu_cache_admission";
+    public static final String BLOCK_CACHE_NUM_BYTES_CAPACITY = "block_cache_num_bytes_capacity";
 
     private static final Set<String> REQUIRED_KEYS = new HashSet<String>(Arrays.asList(REMOTE_DOMAIN_ROOT_KEY,
         RECORD_FILE_READ_BUFFER_BYTES_KEY, HASH_INDEX_BITS_KEY, MAX_ALLOWED_PART_SIZE_KEY, KEY_HASH_SIZE_KEY,
@@ -138,6 +143,25 @@ public class Curly extends IncrementalStorageEngine implements StorageEngine {
         offsetInBlockNumBytes = -1;
       }
 
+      // Bloom filter on the key file
+      Integer bloomFilterBitsPerKey = (Integer)options.get(BLOOM_FILTER_BITS_PER_KEY);
+      if (bloomFilterBitsPerKey == null) {
+        bloomFilterBitsPerKey = 0;
+      }
+
+      // Cache admission policy, for both the key file and record caches
+      Boolean tinyLfuCacheAdmission = (Boolean)options.get(TINY_LFU_CACHE_ADMISSION);
+      if (tinyLfuCacheAdmission == null) {
+        tinyLfuCacheAdmission = false;
+      }
+
+      // Decompressed block caches, for both the key file and record file, per partition
+      long blockCacheNumBytesCapacity = 0;
+      Object blockCacheNumBytesCapacityOption = options.get(BLOCK_CACHE_NUM_BYTES_CAPACITY);
+      if (blockCacheNumBytesCapacityOption != null) {
+        blockCacheNumBytesCapacity = ((Number)blockCacheNumBytesCapacityOption).longValue();
+      }
+
       return new Curly((Integer)options.get(KEY_HASH_SIZE_KEY),
           hasher,
           maxAllowedPartSize,
@@ -151,7 +175,10 @@ public class Curly extends IncrementalStorageEngine implements StorageEngine {
           valueFoldingCacheCapacity,
           blockCompressionCodec,
           compressedBlockSizeThreshold,
-          offsetInBlockNumBytes);
+          offsetInBlockNumBytes,
+          bloomFilterBitsPerKey,
+          tinyLfuCacheAdmission,
+          blockCacheNumBytesCapacity);
     }
 
     @Override
@@ -182,6 +209,9 @@ public class Curly extends IncrementalStorageEngine implements StorageEngine {
   private final int compressedBlockSizeThreshold;
   private final int offsetInBlockNumBytes;
   private final int cueballValueNumBytes;
+  private final int bloomFilterBitsPerKey;
+  private final boolean tinyLfuCacheAdmission;
+  private final long blockCacheNumBytesCapacity;
 
   public Curly(int keyHashSize,
                Hasher hasher,
@@ -197,6 +227,71 @@ public class Curly extends IncrementalStorageEngine implements StorageEngine {
                CompressionCodec blockCompressionCodec,
                int compressedBlockSizeThreshold,
                int offsetInBlockNumBytes) {
+    this(keyHashSize, hasher, maxAllowedPartSize, hashIndexBits, recordFileReadBufferBytes, remoteDomainRoot,
+        partitionRemoteFileOpsFactory, keyFileCompressionCodecClass, domain, numRemoteLeafVersionsToKeep,
+        valueFoldingCacheCapacity, blockCompressionCodec, compressedBlockSizeThreshold, offsetInBlockNumBytes, 0);
+  }
+
+  public Curly(int keyHashSize,
+               Hasher hasher,
+               long maxAllowedPartSize,
+               int hashIndexBits,
+               int recordFileReadBufferBytes,
+               String remoteDomainRoot,
+               PartitionRemoteFileOpsFactory partitionRemoteFileOpsFactory,
+               Class<? extends CueballCompressionCodec> keyFileCompressionCodecClass,
+               Domain domain,
+               int numRemoteLeafVersionsToKeep,
+               int valueFoldingCacheCapacity,
+               CompressionCodec blockCompressionCodec,
+               int compressedBlockSizeThreshold,
+               int offsetInBlockNumBytes,
+               int bloomFilterBitsPerKey) {
+    this(keyHashSize, hasher, maxAllowedPartSize, hashIndexBits, recordFileReadBufferBytes, remoteDomainRoot,
+        partitionRemoteFileOpsFactory, keyFileCompressionCodecClass, domain, numRemoteLeafVersionsToKeep,
+        valueFoldingCacheCapacity, blockCompressionCodec, compressedBlockSizeThreshold, offsetInBlockNumBytes,
+        bloomFilterBitsPerKey, false);
+  }
+
+  public Curly(int keyHashSize,
+               Hasher hasher,
+               long maxAllowedPartSize,
+               int hashIndexBits,
+               int recordFileReadBufferBytes,
+               String remoteDomainRoot,
+               PartitionRemoteFileOpsFactory partitionRemoteFileOpsFactory,
+               Class<? extends CueballCompressionCodec> keyFileCompressionCodecClass,
+               Domain domain,
+               int numRemoteLeafVersionsToKeep,
+               int valueFoldingCacheCapacity,
+               CompressionCodec blockCompressionCodec,
+               int compressedBlockSizeThreshold,
+               int offsetInBlockNumBytes,
+               int bloomFilterBitsPerKey,
+               boolean tinyLfuCacheAdmission) {
+    this(keyHashSize, hasher, maxAllowedPartSize, hashIndexBits, recordFileReadBufferBytes, remoteDomainRoot,
+        partitionRemoteFileOpsFactory, keyFileCompressionCodecClass, domain, numRemoteLeafVersionsToKeep,
+        valueFoldingCacheCapacity, blockCompressionCodec, compressedBlockSizeThreshold, offsetInBlockNumBytes,
+        bloomFilterBitsPerKey, tinyLfuCacheAdmission, 0);
+  }
+
+  public Curly(int keyHashSize,
+               Hasher hasher,
+               long maxAllowedPartSize,
+               int hashIndexBits,
+               int recordFileReadBufferBytes,
+               String remoteDomainRoot,
+               PartitionRemoteFileOpsFactory partitionRemoteFileOpsFactory,
+               Class<? extends CueballCompressionCodec> keyFileCompressionCodecClass,
+               Domain domain,
+               int numRemoteLeafVersionsToKeep,
+               int valueFoldingCacheCapacity,
+               CompressionCodec blockCompressionCodec,
+               int compressedBlockSizeThreshold,
+               int offsetInBlockNumBytes,
+               int bloomFilterBitsPerKey,
+               boolean tinyLfuCacheAdmission,
+               long blockCacheNumBytesCapacity) {
     this.keyHashSize = keyHashSize;
     this.hashIndexBits = hashIndexBits;
     this.recordFileReadBufferBytes = recordFileReadBufferBytes;
@@ -209,6 +304,9 @@ public class Curly extends IncrementalStorageEngine implements StorageEngine {
     this.blockCompressionCodec = blockCompressionCodec;
     this.compressedBlockSizeThreshold = compressedBlockSizeThreshold;
     this.offsetInBlockNumBytes = offsetInBlockNumBytes;
+    this.bloomFilterBitsPerKey = bloomFilterBitsPerKey;
+    this.tinyLfuCacheAdmission = tinyLfuCacheAdmission;
+    this.blockCacheNumBytesCapacity = blockCacheNumBytesCapacity;
 
     this.offsetNumBytes = (int)(Math.ceil(Math.ceil(Math.log(maxAllowedPartSize) / Math.log(2)) / 8.0));
 
@@ -228,7 +326,10 @@ public class Curly extends IncrementalStorageEngine implements StorageEngine {
         partitionRemoteFileOpsFactory,
         keyFileCompressionCodecClass,
         domain,
-        numRemoteLeafVersionsToKeep);
+        numRemoteLeafVersionsToKeep,
+        bloomFilterBitsPerKey,
+        tinyLfuCacheAdmission,
+        blockCacheNumBytesCapacity);
   }
 
   @Override
@@ -240,18 +341,23 @@ public class Curly extends IncrementalStorageEngine implements StorageEngine {
         configurator.getCacheNumBytesCapacity(),
         configurator.getCacheNumItemsCapacity(),
         configurator.getBufferReuseMaxSize(),
-        2);
+        2,
+        configurator.getMemoryMapEnabled(),
+        configurator.getMemoryMapPrefetchEnabled(),
+        configurator.getSharedReaderCache());
 
     return new CurlyReader(CurlyReader.getLatestBase(getTargetDirectory(configurator, partitionNumber)),
         recordFileReadBufferBytes,
         cueballStorageEngine.getReader(subConfigurator, partitionNumber),
-        subConfigurator.getCacheNumBytesCapacity(),
-        (int)subConfigurator.getCacheNumItemsCapacity(),
+        ReaderCaches.getReaderCache(subConfigurator, domain, partitionNumber, tinyLfuCacheAdmission),
         blockCompressionCodec,
         offsetNumBytes,
         offsetInBlockNumBytes,
-        false,
-        subConfigurator.getBufferReuseMaxSize());
+        blockCompressionCodec != null && blockCacheNumBytesCapacity > 0
+            ? new DecompressedBlockCache(blockCacheNumBytesCapacity, 0) : null,
+        subConfigurator.getBufferReuseMaxSize(),
+        subConfigurator.getMemoryMapEnabled(),
+        subConfigurator.getMemoryMapPrefetchEnabled());
   }
 
   @Override
@@ -349,7 +455,7 @@ public class Curly extends IncrementalStorageEngine implements StorageEngine {
     return new CurlyFastPartitionUpdater(domain,
         getPartitionRemoteFileOps(partNum),
         new CurlyMerger(),
-        new CueballMerger(),
+        new CueballMerger(bloomFilterBitsPerKey),
         keyHashSize,
         offsetNumBytes,
         offsetInBlockNumBytes,
@@ -473,6 +579,7 @@ public class Curly extends IncrementalStorageEngine implements StorageEngine {
         + ", blockCompressionCodec=" + blockCompressionCodec
         + ", compressedBlockSizeThreshold=" + compressedBlockSizeThreshold
         + ", offsetInBlockNumBytes=" + offsetInBlockNumBytes
+        + ", blockCacheNumBytesCapacity=" + blockCacheNumBytesCapacity
         + "]";
   }
 }
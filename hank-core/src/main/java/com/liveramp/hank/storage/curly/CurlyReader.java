@@ -20,37 +20,46 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 
-import com.liveramp.commons.util.ByteBufferMemoryUsageEstimator;
 import com.liveramp.commons.util.BytesUtils;
 import com.liveramp.hank.compression.CompressionCodec;
 import com.liveramp.hank.compression.Decompressor;
+import com.liveramp.hank.storage.BulkReader;
 import com.liveramp.hank.storage.CacheStatistics;
+import com.liveramp.hank.storage.DecompressedBlockCache;
+import com.liveramp.hank.storage.LocalReaderCache;
 import com.liveramp.hank.storage.Reader;
+import com.liveramp.hank.storage.ReaderCache;
 import com.liveramp.hank.storage.ReaderResult;
+import com.liveramp.hank.storage.ScanPage;
+import com.liveramp.hank.storage.ScanReader;
 import com.liveramp.hank.util.EncodingHelper;
-import com.liveramp.hank.util.SynchronizedMemoryBoundCache;
+import com.liveramp.hank.util.MemoryMappedFile;
 import com.liveramp.hank.util.UnsafeByteArrayOutputStream;
 
-public class CurlyReader implements Reader, ICurlyReader {
+public class CurlyReader implements BulkReader, ScanReader, ICurlyReader {
 
   private final Reader keyFileReader;
   private final int readBufferSize;
   private final FileChannel recordFile;
   private final int versionNumber;
   private final int bufferReuseMaxSize;
-  private SynchronizedMemoryBoundCache<ByteBuffer, ByteBuffer> cache;
+  private ReaderCache cache;
   private final CompressionCodec blockCompressionCodec;
   private final int offsetNumBytes;
   private final int offsetInBlockNumBytes;
 
-  // Last decompressed block cache
-  private final boolean cacheLastDecompressedBlock;
-  private ByteBuffer lastDecompressedBlock;
-  private long lastDecompressedBlockOffset = -1;
+  // Only set when decompressed blocks are cached
+  private final DecompressedBlockCache blockCache;
+  // Only set when memory mapping is enabled and records are not block compressed. Values are then borrowed from the
+  // mapping rather than read into the result.
+  private final MemoryMappedFile mappedRecordFile;
 
   private static class Local {
 
@@ -117,6 +126,49 @@ public class CurlyReader implements Reader, ICurlyReader {
                      int offsetInBlockNumBytes,
                      boolean cacheLastDecompressedBlock,
                      int bufferReuseMaxSize) throws IOException {
+    this(curlyFile, recordFileReadBufferBytes, keyFileReader,
+        new LocalReaderCache(cacheNumBytesCapacity, cacheNumItemsCapacity),
+        blockCompressionCodec, offsetNumBytes, offsetInBlockNumBytes, cacheLastDecompressedBlock, bufferReuseMaxSize);
+  }
+
+  public CurlyReader(CurlyFilePath curlyFile,
+                     int recordFileReadBufferBytes,
+                     Reader keyFileReader,
+                     ReaderCache cache,
+                     CompressionCodec blockCompressionCodec,
+                     int offsetNumBytes,
+                     int offsetInBlockNumBytes,
+                     boolean cacheLastDecompressedBlock,
+                     int bufferReuseMaxSize) throws IOException {
+    this(curlyFile, recordFileReadBufferBytes, keyFileReader, cache,
+        blockCompressionCodec, offsetNumBytes, offsetInBlockNumBytes,
+        cacheLastDecompressedBlock ? new DecompressedBlockCache(0, 1) : null, bufferReuseMaxSize);
+  }
+
+  public CurlyReader(CurlyFilePath curlyFile,
+                     int recordFileReadBufferBytes,
+                     Reader keyFileReader,
+                     ReaderCache cache,
+                     CompressionCodec blockCompressionCodec,
+                     int offsetNumBytes,
+                     int offsetInBlockNumBytes,
+                     DecompressedBlockCache blockCache,
+                     int bufferReuseMaxSize) throws IOException {
+    this(curlyFile, recordFileReadBufferBytes, keyFileReader, cache,
+        blockCompressionCodec, offsetNumBytes, offsetInBlockNumBytes, blockCache, bufferReuseMaxSize, false, false);
+  }
+
+  public CurlyReader(CurlyFilePath curlyFile,
+                     int recordFileReadBufferBytes,
+                     Reader keyFileReader,
+                     ReaderCache cache,
+                     CompressionCodec blockCompressionCodec,
+                     int offsetNumBytes,
+                     int offsetInBlockNumBytes,
+                     DecompressedBlockCache blockCache,
+                     int bufferReuseMaxSize,
+                     boolean memoryMapEnabled,
+                     boolean memoryMapPrefetchEnabled) throws IOException {
     this.recordFile = new FileInputStream(curlyFile.getPath()).getChannel();
     this.keyFileReader = keyFileReader;
     this.readBufferSize = recordFileReadBufferBytes;
@@ -124,13 +176,8 @@ public class CurlyReader implements Reader, ICurlyReader {
     this.blockCompressionCodec = blockCompressionCodec;
     this.offsetNumBytes = offsetNumBytes;
     this.offsetInBlockNumBytes = offsetInBlockNumBytes;
-    this.cacheLastDecompressedBlock = cacheLastDecompressedBlock;
-    this.cache = new SynchronizedMemoryBoundCache<ByteBuffer, ByteBuffer>(
-        cacheNumBytesCapacity > 0 || cacheNumItemsCapacity > 0,
-        cacheNumBytesCapacity,
-        cacheNumItemsCapacity,
-        new ByteBufferMemoryUsageEstimator(),
-        new ByteBufferMemoryUsageEstimator());
+    this.blockCache = blockCache;
+    this.cache = cache;
     // Check that key file is at the same version
     if (keyFileReader != null &&
         keyFileReader.getVersionNumber() != null &&
@@ -138,10 +185,16 @@ public class CurlyReader implements Reader, ICurlyReader {
       throw new IOException("Curly Reader version (" + versionNumber
           + ") does not match the provided key file Reader version (" + keyFileReader.getVersionNumber() + ")");
     }
-    if (cacheLastDecompressedBlock) {
-      lastDecompressedBlock = ByteBuffer.allocate(1);
-    }
     this.bufferReuseMaxSize = bufferReuseMaxSize;
+    // Compressed blocks have to be decompressed from the heap anyway, so their record files are not mapped
+    if (memoryMapEnabled && blockCompressionCodec == null) {
+      // Segments overlap by at least a record size, so that a record that starts in a segment can usually be
+      // borrowed from it
+      mappedRecordFile = new MemoryMappedFile(recordFile, recordFile.size(),
+          Math.max(recordFileReadBufferBytes, EncodingHelper.MAX_VARINT_SIZE), memoryMapPrefetchEnabled);
+    } else {
+      mappedRecordFile = null;
+    }
   }
 
   @Override
@@ -156,8 +209,10 @@ public class CurlyReader implements Reader, ICurlyReader {
     if (blockCompressionCodec == null) {
       // When not using block compression, location just contains an offset. Decode it.
       long recordFileOffset = EncodingHelper.decodeLittleEndianFixedWidthLong(location);
-      // Directly read record into result
-      readRecordAtOffset(recordFileOffset, result);
+      // Directly read record into result, unless it can be borrowed from the mapped record file
+      if (mappedRecordFile == null || !readRecordFromMappedFile(recordFileOffset, result)) {
+        readRecordAtOffset(recordFileOffset, result);
+      }
     } else {
       // When using block compression, location contains the block's offset and an offset in the block. Decode them.
       long recordFileBlockOffset = EncodingHelper.decodeLittleEndianFixedWidthLong(location.array(),
@@ -165,36 +220,21 @@ public class CurlyReader implements Reader, ICurlyReader {
       long offsetInBlock = EncodingHelper.decodeLittleEndianFixedWidthLong(location.array(),
           location.arrayOffset() + location.position() + offsetNumBytes, offsetInBlockNumBytes);
 
-      ByteBuffer decompressedBlockByteBuffer;
-      if (cacheLastDecompressedBlock && lastDecompressedBlockOffset == recordFileBlockOffset) {
-        // This block has been decompressed just before, reuse it
-        decompressedBlockByteBuffer = lastDecompressedBlock;
-      } else {
+      // Neighbouring records share their block, it might have been decompressed already
+      ByteBuffer decompressedBlockByteBuffer = blockCache == null ? null : blockCache.get(recordFileBlockOffset);
+      boolean isBlockCached = decompressedBlockByteBuffer != null;
+      if (!isBlockCached) {
         // Read in the compressed block into the result
         readRecordAtOffset(recordFileBlockOffset, result);
         // Decompress block
         decompressedBlockByteBuffer = decompressBlock(result.getBuffer());
         // Cache the decompressed block if requested
-        if (cacheLastDecompressedBlock) {
-          lastDecompressedBlockOffset = recordFileBlockOffset;
-          lastDecompressedBlock = BytesUtils.byteBufferDeepCopy(decompressedBlockByteBuffer, lastDecompressedBlock);
+        if (blockCache != null) {
+          blockCache.put(recordFileBlockOffset, decompressedBlockByteBuffer);
         }
       }
 
-      // Position ourselves at the beginning of the actual value
-      decompressedBlockByteBuffer.position((int)offsetInBlock);
-      // Determine result value size
-      int valueSize = EncodingHelper.decodeLittleEndianVarInt(decompressedBlockByteBuffer);
-
-      // Copy decompressed result into final result buffer
-      result.requiresBufferSize(valueSize);
-      result.getBuffer().clear();
-      // We can exactly wrap our value
-      result.getBuffer().put(
-          decompressedBlockByteBuffer.array(),
-          decompressedBlockByteBuffer.arrayOffset() + decompressedBlockByteBuffer.position(),
-          valueSize);
-      result.getBuffer().flip();
+      readValueFromBlock(decompressedBlockByteBuffer, offsetInBlock, result, isBlockCached);
       // Drop decompression buffer if needed, it's not used anymore
       dropDecompressionBuffer();
     }
@@ -202,6 +242,35 @@ public class CurlyReader implements Reader, ICurlyReader {
     addValueToCache(locationDeepCopy, result.getBuffer());
   }
 
+  // Copy the value at the given offset of a decompressed block into the result. Values of cached blocks, which are
+  // never modified, are borrowed instead.
+  private void readValueFromBlock(ByteBuffer decompressedBlockByteBuffer,
+                                  long offsetInBlock,
+                                  ReaderResult result,
+                                  boolean isBlockCached) {
+    // Position ourselves at the beginning of the actual value
+    decompressedBlockByteBuffer.position((int)offsetInBlock);
+    // Determine result value size
+    int valueSize = EncodingHelper.decodeLittleEndianVarInt(decompressedBlockByteBuffer);
+
+    if (isBlockCached) {
+      ByteBuffer value = decompressedBlockByteBuffer.duplicate();
+      value.limit(value.position() + valueSize);
+      result.borrowValue(value);
+      return;
+    }
+
+    // Copy decompressed result into final result buffer
+    result.requiresBufferSize(valueSize);
+    result.getBuffer().clear();
+    // We can exactly wrap our value
+    result.getBuffer().put(
+        decompressedBlockByteBuffer.array(),
+        decompressedBlockByteBuffer.arrayOffset() + decompressedBlockByteBuffer.position(),
+        valueSize);
+    result.getBuffer().flip();
+  }
+
   private ByteBuffer decompressBlock(ByteBuffer block) throws IOException {
     Local local = threadLocal.get();
     local.clear();
@@ -221,6 +290,20 @@ public class CurlyReader implements Reader, ICurlyReader {
     }
   }
 
+  // Borrow the value of the record at the given offset from the mapped record file. Return false if the record is not
+  // entirely contained in a single segment.
+  private boolean readRecordFromMappedFile(long recordFileOffset, ReaderResult result) throws IOException {
+    ByteBuffer record = mappedRecordFile.getSegment(recordFileOffset).duplicate();
+    record.position(mappedRecordFile.getOffsetInSegment(recordFileOffset));
+    int recordSize = EncodingHelper.decodeLittleEndianVarInt(record);
+    if (record.remaining() < recordSize) {
+      return false;
+    }
+    record.limit(record.position() + recordSize);
+    result.borrowValue(record);
+    return true;
+  }
+
   // Note: the buffer in result must be at least readBufferSize long
   private void readRecordAtOffset(long recordFileOffset, ReaderResult result) throws IOException {
     // Let's reset the buffer so we can do our read.
@@ -292,6 +375,114 @@ public class CurlyReader implements Reader, ICurlyReader {
     }
   }
 
+  // Locations are looked up in the key file first. Records are then read in ascending file offset order, and
+  // each compressed block is decompressed once for all the records it contains.
+  @Override
+  public void getBulk(List<ByteBuffer> keys, ReaderResult[] results) throws IOException {
+    if (keyFileReader instanceof BulkReader) {
+      ((BulkReader)keyFileReader).getBulk(keys, results);
+    } else {
+      for (int i = 0; i < keys.size(); ++i) {
+        keyFileReader.get(keys.get(i), results[i]);
+      }
+    }
+
+    // Resolve cached records, and collect the others
+    List<RecordLookup> lookups = new ArrayList<RecordLookup>(keys.size());
+    for (int i = 0; i < keys.size(); ++i) {
+      ReaderResult result = results[i];
+      if (!result.isFound() || loadValueFromCache(result.getBuffer(), result)) {
+        continue;
+      }
+      ByteBuffer location = BytesUtils.byteBufferDeepCopy(result.getBuffer());
+      if (blockCompressionCodec == null) {
+        lookups.add(new RecordLookup(i, EncodingHelper.decodeLittleEndianFixedWidthLong(location), 0, location));
+      } else {
+        lookups.add(new RecordLookup(i,
+            EncodingHelper.decodeLittleEndianFixedWidthLong(location.array(), location.arrayOffset(), offsetNumBytes),
+            EncodingHelper.decodeLittleEndianFixedWidthLong(location.array(), location.arrayOffset() + offsetNumBytes,
+                offsetInBlockNumBytes),
+            location));
+      }
+    }
+    Collections.sort(lookups);
+
+    // Records are read into a buffer of at least readBufferSize bytes, and then copied into their result
+    ReaderResult recordResult = new ReaderResult(readBufferSize);
+    ByteBuffer decompressedBlockByteBuffer = null;
+    long decompressedBlockOffset = -1;
+    boolean isBlockCached = false;
+    for (RecordLookup lookup : lookups) {
+      ReaderResult result = results[lookup.keyIndex];
+      if (blockCompressionCodec == null) {
+        if (mappedRecordFile == null || !readRecordFromMappedFile(lookup.fileOffset, result)) {
+          readRecordAtOffset(lookup.fileOffset, recordResult);
+          result.deepCopyIntoResultBuffer(recordResult.getBuffer());
+        }
+      } else {
+        if (decompressedBlockByteBuffer == null || decompressedBlockOffset != lookup.fileOffset) {
+          decompressedBlockByteBuffer = blockCache == null ? null : blockCache.get(lookup.fileOffset);
+          isBlockCached = decompressedBlockByteBuffer != null;
+          if (!isBlockCached) {
+            readRecordAtOffset(lookup.fileOffset, recordResult);
+            decompressedBlockByteBuffer = decompressBlock(recordResult.getBuffer());
+            if (blockCache != null) {
+              blockCache.put(lookup.fileOffset, decompressedBlockByteBuffer);
+            }
+          }
+          decompressedBlockOffset = lookup.fileOffset;
+        }
+        readValueFromBlock(decompressedBlockByteBuffer, lookup.offsetInBlock, result, isBlockCached);
+      }
+      result.found();
+      if (cache.isEnabled()) {
+        addValueToCache(lookup.location, result.getBuffer());
+      }
+    }
+    if (blockCompressionCodec != null) {
+      dropDecompressionBuffer();
+    }
+  }
+
+  // Locations are scanned from the key file, then records are read without going through the caches, so that
+  // scans do not evict entries used by gets.
+  @Override
+  public void scan(ByteBuffer afterKeyHash, ScanPage page) throws IOException {
+    if (!(keyFileReader instanceof ScanReader)) {
+      throw new IOException("Key file Reader does not support scans: " + keyFileReader);
+    }
+    ScanPage locations = new ScanPage(page.getMaxNumRecords());
+    ((ScanReader)keyFileReader).scan(afterKeyHash, locations);
+
+    ReaderResult recordResult = new ReaderResult(readBufferSize);
+    ReaderResult valueResult = new ReaderResult();
+    ByteBuffer decompressedBlockByteBuffer = null;
+    long decompressedBlockOffset = -1;
+    for (int i = 0; i < locations.getNumRecords(); ++i) {
+      ByteBuffer location = locations.getValues().get(i);
+      if (blockCompressionCodec == null) {
+        readRecordAtOffset(EncodingHelper.decodeLittleEndianFixedWidthLong(location), recordResult);
+        page.add(locations.getKeyHashes().get(i), BytesUtils.byteBufferDeepCopy(recordResult.getBuffer()));
+      } else {
+        long blockOffset = EncodingHelper.decodeLittleEndianFixedWidthLong(location.array(),
+            location.arrayOffset() + location.position(), offsetNumBytes);
+        long offsetInBlock = EncodingHelper.decodeLittleEndianFixedWidthLong(location.array(),
+            location.arrayOffset() + location.position() + offsetNumBytes, offsetInBlockNumBytes);
+        if (decompressedBlockByteBuffer == null || decompressedBlockOffset != blockOffset) {
+          readRecordAtOffset(blockOffset, recordResult);
+          decompressedBlockByteBuffer = decompressBlock(recordResult.getBuffer());
+          decompressedBlockOffset = blockOffset;
+        }
+        readValueFromBlock(decompressedBlockByteBuffer, offsetInBlock, valueResult, false);
+        page.add(locations.getKeyHashes().get(i), BytesUtils.byteBufferDeepCopy(valueResult.getBuffer()));
+      }
+    }
+    if (blockCompressionCodec != null) {
+      dropDecompressionBuffer();
+    }
+    page.setComplete(locations.isComplete());
+  }
+
   @Override
   public Integer getVersionNumber() {
     return versionNumber;
@@ -304,19 +495,30 @@ public class CurlyReader implements Reader, ICurlyReader {
         keyReaderCacheStatistics.getNumItems() + cache.size(),
         keyReaderCacheStatistics.getMaxNumItems() + cache.getMaxNumItems(),
         keyReaderCacheStatistics.getNumManagedBytes() + cache.getNumManagedBytes(),
-        keyReaderCacheStatistics.getMaxNumManagedBytes() + cache.getMaxNumManagedBytes());
+        keyReaderCacheStatistics.getMaxNumManagedBytes() + cache.getMaxNumManagedBytes(),
+        keyReaderCacheStatistics.getBloomFilterNumBytes(),
+        keyReaderCacheStatistics.getBloomFilterNumNegatives(),
+        keyReaderCacheStatistics.getBloomFilterNumFalsePositives(),
+        keyReaderCacheStatistics.getNumAdmissionRejects() + cache.getNumAdmissionRejects(),
+        keyReaderCacheStatistics.getBlockCacheNumHits() + (blockCache == null ? 0 : blockCache.getNumHits()),
+        keyReaderCacheStatistics.getBlockCacheNumMisses() + (blockCache == null ? 0 : blockCache.getNumMisses()),
+        keyReaderCacheStatistics.getBlockCacheNumBytesSaved() + (blockCache == null ? 0 : blockCache.getNumBytesSaved()));
   }
 
-  // Note: location should already be a deep copy that won't get modified
+  // Note: location should already be a deep copy that won't get modified. The value might be borrowed from a mapped
+  // record file. Nothing is copied when the cache is disabled.
   private void addValueToCache(ByteBuffer location, ByteBuffer value) {
-    cache.put(location, BytesUtils.byteBufferDeepCopy(value));
+    if (cache.isEnabled()) {
+      cache.put(location, ReaderResult.deepCopy(value));
+    }
   }
 
   // Return true if managed to read the corresponding value from the cache and into result
   private boolean loadValueFromCache(ByteBuffer location, ReaderResult result) {
     ByteBuffer value = cache.get(location);
     if (value != null) {
-      result.deepCopyIntoResultBuffer(value);
+      // Cached values are never modified
+      result.borrowValue(value);
       result.found();
       result.setL2CacheHit(true);
       return true;
@@ -327,6 +529,9 @@ public class CurlyReader implements Reader, ICurlyReader {
 
   @Override
   public void close() throws IOException {
+    if (mappedRecordFile != null) {
+      mappedRecordFile.close();
+    }
     if (recordFile != null) {
       recordFile.close();
     }
@@ -335,4 +540,32 @@ public class CurlyReader implements Reader, ICurlyReader {
     }
     cache = null;
   }
+
+  // A record to read from the record file. Ordered by file offset, then by offset in block.
+  private static class RecordLookup implements Comparable<RecordLookup> {
+
+    private final int keyIndex;
+    // Offset of the record, or of its block when using block compression
+    private final long fileOffset;
+    private final long offsetInBlock;
+    private final ByteBuffer location;
+
+    private RecordLookup(int keyIndex, long fileOffset, long offsetInBlock, ByteBuffer location) {
+      this.keyIndex = keyIndex;
+      this.fileOffset = fileOffset;
+      this.offsetInBlock = offsetInBlock;
+      this.location = location;
+    }
+
+    @Override
+    public int compareTo(RecordLookup other) {
+      if (fileOffset != other.fileOffset) {
+        return fileOffset < other.fileOffset ? -1 : 1;
+      }
+      if (offsetInBlock != other.offsetInBlock) {
+        return offsetInBlock < other.offsetInBlock ? -1 : 1;
+      }
+      return 0;
+    }
+  }
 }
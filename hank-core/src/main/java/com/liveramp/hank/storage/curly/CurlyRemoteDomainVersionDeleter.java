@@ -5,6 +5,7 @@ import com.liveramp.hank.storage.PartitionRemoteFileOps;
 import com.liveramp.hank.storage.PartitionRemoteFileOpsFactory;
 import com.liveramp.hank.storage.RemoteDomainVersionDeleter;
 import com.liveramp.hank.storage.cueball.Cueball;
+import com.liveramp.hank.storage.cueball.CueballBloomFilter;
 
 import java.io.IOException;
 
@@ -28,6 +29,7 @@ public class CurlyRemoteDomainVersionDeleter implements RemoteDomainVersionDelet
       PartitionRemoteFileOps fileOps = fileOpsFactory.getPartitionRemoteFileOps(remoteDomainRoot, partition);
       fileOps.attemptDelete(Cueball.getName(versionNumber, true));
       fileOps.attemptDelete(Cueball.getName(versionNumber, false));
+      fileOps.attemptDelete(CueballBloomFilter.getName(versionNumber, true));
 
       fileOps.attemptDelete(Curly.getName(versionNumber, true));
       fileOps.attemptDelete(Curly.getName(versionNumber, false));
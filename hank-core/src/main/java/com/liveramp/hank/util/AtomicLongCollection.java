@@ -16,51 +16,110 @@
 
 package com.liveramp.hank.util;
 
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed number of counters that can be incremented concurrently without locking.
+ * <p/>
+ * Counters are striped: each thread increments its own copy of the counters, selected by thread id, and reads sum all
+ * copies. Copies are padded so that threads incrementing different stripes do not share cache lines.
+ * <p/>
+ * Reads are not atomic across counters. getAsArrayAndSet() swaps each counter independently, so that no increment is
+ * ever lost or counted twice, but the returned values might not all reflect the same increments.
+ */
 public class AtomicLongCollection {
 
-  private final long[] values;
+  // Number of longs in a cache line
+  private static final int CACHE_LINE_NUM_LONGS = 8;
+  private static final int MAX_NUM_STRIPES = 64;
+  private static final int NUM_STRIPES = getNumStripes();
+
+  private final int size;
+  private final int stripeLength;
+  private final AtomicLongArray values;
 
   public AtomicLongCollection(int size) {
-    values = new long[size];
+    this.size = size;
+    // At least a full cache line between the counters of consecutive stripes
+    this.stripeLength = size + CACHE_LINE_NUM_LONGS;
+    this.values = new AtomicLongArray(NUM_STRIPES * stripeLength);
   }
 
   public AtomicLongCollection(int size, long[] initialValues) {
-    values = new long[size];
+    this(size);
     set(initialValues);
   }
 
-  synchronized public void set(long... newValues) {
-    if (values.length != newValues.length) {
-      throw new RuntimeException("Expecting " + values.length + " values but was supplied " + newValues.length);
-    }
-    for (int i = 0; i < newValues.length; ++i) {
-      values[i] = newValues[i];
+  public void set(long... newValues) {
+    checkLength(newValues, "values");
+    for (int stripe = 0; stripe < NUM_STRIPES; ++stripe) {
+      int offset = stripe * stripeLength;
+      for (int i = 0; i < size; ++i) {
+        values.set(offset + i, stripe == 0 ? newValues[i] : 0);
+      }
     }
   }
 
-  synchronized public void increment(long... increments) {
-    if (values.length != increments.length) {
-      throw new RuntimeException("Expecting " + values.length + " increments but was supplied " + increments.length);
+  public void increment(long... increments) {
+    checkLength(increments, "increments");
+    int offset = getStripe() * stripeLength;
+    for (int i = 0; i < size; ++i) {
+      if (increments[i] != 0) {
+        values.addAndGet(offset + i, increments[i]);
+      }
     }
-    for (int i = 0; i < increments.length; ++i) {
-      values[i] += increments[i];
+  }
+
+  // Increment a single counter, without allocating an array of increments
+  public void add(int index, long increment) {
+    values.addAndGet(getStripe() * stripeLength + index, increment);
+  }
+
+  public long[] getAsArrayAndSet(long... newValues) {
+    checkLength(newValues, "values");
+    long[] result = new long[size];
+    for (int stripe = 0; stripe < NUM_STRIPES; ++stripe) {
+      int offset = stripe * stripeLength;
+      for (int i = 0; i < size; ++i) {
+        result[i] += values.getAndSet(offset + i, stripe == 0 ? newValues[i] : 0);
+      }
     }
+    return result;
   }
 
-  synchronized public long[] getAsArrayAndSet(long... newValues) {
-    long[] result = new long[values.length];
-    System.arraycopy(values, 0, result, 0, values.length);
-    set(newValues);
+  public long[] getAsArray() {
+    long[] result = new long[size];
+    for (int i = 0; i < size; ++i) {
+      result[i] = get(i);
+    }
     return result;
   }
 
-  synchronized public long[] getAsArray() {
-    long[] result = new long[values.length];
-    System.arraycopy(values, 0, result, 0, values.length);
+  public long get(int index) {
+    long result = 0;
+    for (int stripe = 0; stripe < NUM_STRIPES; ++stripe) {
+      result += values.get(stripe * stripeLength + index);
+    }
     return result;
   }
 
-  synchronized public long get(int index) {
-    return values[index];
+  private void checkLength(long[] array, String name) {
+    if (size != array.length) {
+      throw new RuntimeException("Expecting " + size + " " + name + " but was supplied " + array.length);
+    }
+  }
+
+  // Thread ids are assigned sequentially, so that worker threads spread over stripes
+  private static int getStripe() {
+    return (int)Thread.currentThread().getId() & (NUM_STRIPES - 1);
+  }
+
+  // Smallest power of two that is at least the number of processors
+  private static int getNumStripes() {
+    int numStripes = 1;
+    while (numStripes < Runtime.getRuntime().availableProcessors() && numStripes < MAX_NUM_STRIPES) {
+      numStripes <<= 1;
+    }
+    return numStripes;
   }
 }
@@ -0,0 +1,188 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.util;
+
+import com.liveramp.commons.collections.MemoryBoundLruHashMap;
+import com.liveramp.commons.util.MemoryUsageEstimator;
+
+/**
+ * A memory bound LRU cache that can be accessed concurrently.
+ * <p/>
+ * Keys are spread over a number of segments, each one being an independent LRU map with its own lock
+ * and an equal share of the item and byte capacities. Threads accessing different segments do not
+ * contend, and eviction order is LRU within each segment.
+ */
+public class ConcurrentMemoryBoundCache<K, V> {
+
+  public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+  // Segments that are too small would make eviction order too coarse
+  private static final int MIN_NUM_ITEMS_PER_SEGMENT = 16;
+
+  private final MemoryBoundLruHashMap<K, V>[] segments;
+  private final int segmentMask;
+  private final int maxNumItems;
+  private final long maxNumManagedBytes;
+
+  public ConcurrentMemoryBoundCache(boolean isEnabled,
+                                    long numBytesCapacity,
+                                    int numItemsCapacity,
+                                    MemoryUsageEstimator<K> keyEstimator,
+                                    MemoryUsageEstimator<V> valueEstimator) {
+    this(isEnabled, numBytesCapacity, numItemsCapacity, DEFAULT_CONCURRENCY_LEVEL, keyEstimator, valueEstimator);
+  }
+
+  // A disabled cache will not add any synchronization overhead
+  @SuppressWarnings("unchecked")
+  public ConcurrentMemoryBoundCache(boolean isEnabled,
+                                    long numBytesCapacity,
+                                    int numItemsCapacity,
+                                    int concurrencyLevel,
+                                    MemoryUsageEstimator<K> keyEstimator,
+                                    MemoryUsageEstimator<V> valueEstimator) {
+    if (isEnabled) {
+      int numSegments = getNumSegments(concurrencyLevel, numItemsCapacity);
+      segments = new MemoryBoundLruHashMap[numSegments];
+      for (int i = 0; i < numSegments; ++i) {
+        segments[i] = new MemoryBoundLruHashMap<K, V>(
+            (int)getSegmentCapacity(numItemsCapacity, numSegments, i),
+            getSegmentCapacity(numBytesCapacity, numSegments, i),
+            keyEstimator,
+            valueEstimator);
+      }
+      segmentMask = numSegments - 1;
+      maxNumItems = numItemsCapacity;
+      maxNumManagedBytes = numBytesCapacity;
+    } else {
+      segments = null;
+      segmentMask = 0;
+      maxNumItems = 0;
+      maxNumManagedBytes = 0;
+    }
+  }
+
+  public boolean isEnabled() {
+    return segments != null;
+  }
+
+  public V get(K key) {
+    if (!isEnabled()) {
+      return null;
+    } else {
+      MemoryBoundLruHashMap<K, V> segment = getSegment(key);
+      synchronized (segment) {
+        return segment.get(key);
+      }
+    }
+  }
+
+  public void put(K key, V value) {
+    if (isEnabled()) {
+      if (value == null) {
+        throw new IllegalArgumentException("Value to put in cache should not be null.");
+      }
+      MemoryBoundLruHashMap<K, V> segment = getSegment(key);
+      synchronized (segment) {
+        segment.putAndEvict(key, value);
+      }
+    }
+  }
+
+  // Remove the given key only if it is currently mapped to the given value instance
+  public boolean remove(K key, V value) {
+    if (!isEnabled()) {
+      return false;
+    } else {
+      MemoryBoundLruHashMap<K, V> segment = getSegment(key);
+      synchronized (segment) {
+        if (segment.get(key) == value) {
+          segment.remove(key);
+          return true;
+        } else {
+          return false;
+        }
+      }
+    }
+  }
+
+  public int size() {
+    if (!isEnabled()) {
+      return 0;
+    } else {
+      int result = 0;
+      for (MemoryBoundLruHashMap<K, V> segment : segments) {
+        synchronized (segment) {
+          result += segment.size();
+        }
+      }
+      return result;
+    }
+  }
+
+  public int getMaxNumItems() {
+    return maxNumItems;
+  }
+
+  public long getNumManagedBytes() {
+    if (!isEnabled()) {
+      return 0;
+    } else {
+      long result = 0;
+      for (MemoryBoundLruHashMap<K, V> segment : segments) {
+        synchronized (segment) {
+          result += segment.getNumManagedBytes();
+        }
+      }
+      return result;
+    }
+  }
+
+  public long getMaxNumManagedBytes() {
+    return maxNumManagedBytes;
+  }
+
+  public int getNumSegments() {
+    return isEnabled() ? segments.length : 0;
+  }
+
+  private MemoryBoundLruHashMap<K, V> getSegment(K key) {
+    // Spread the hash code so that keys with poor low bits still use all segments
+    int hash = key.hashCode();
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    return segments[hash & segmentMask];
+  }
+
+  // Largest power of two not above the concurrency level that keeps segments large enough
+  public static int getNumSegments(int concurrencyLevel, int numItemsCapacity) {
+    int result = 1;
+    while (result * 2 <= concurrencyLevel
+        && (numItemsCapacity <= 0 || numItemsCapacity / (result * 2) >= MIN_NUM_ITEMS_PER_SEGMENT)) {
+      result *= 2;
+    }
+    return result;
+  }
+
+  // Split a capacity evenly over segments. A capacity of 0 means unbounded.
+  public static long getSegmentCapacity(long capacity, int numSegments, int segment) {
+    if (capacity <= 0) {
+      return 0;
+    }
+    // Never round down to 0, which would make the segment unbounded
+    return Math.max(1, capacity / numSegments + (segment < capacity % numSegments ? 1 : 0));
+  }
+}
@@ -16,50 +16,43 @@
 
 package com.liveramp.hank.util;
 
-import com.liveramp.commons.collections.MemoryBoundLruHashMap;
 import com.liveramp.commons.util.MemoryUsageEstimator;
 
-public class SynchronizedMemoryBoundCacheExpiring<K, V> {
+public class ConcurrentMemoryBoundCacheExpiring<K, V> {
 
-  private final MemoryBoundLruHashMap<K, ValueAndTimestamp<V>> cache;
+  private final ConcurrentMemoryBoundCache<K, ValueAndTimestamp<V>> cache;
   private final long expirationPeriodMs;
 
   // A disabled cache will not add any synchronization overhead
-  public SynchronizedMemoryBoundCacheExpiring(boolean isEnabled,
-                                              long numBytesCapacity,
-                                              int numItemsCapacity,
-                                              long expirationPeriodSeconds,
-                                              MemoryUsageEstimator<K> keyEstimator,
-                                              MemoryUsageEstimator<V> valueEstimator) {
-    if (isEnabled) {
-      cache = new MemoryBoundLruHashMap<K, ValueAndTimestamp<V>>(
-          numItemsCapacity,
-          numBytesCapacity,
-          keyEstimator,
-          new ValueAndTimestampMemoryUsageEstimator<V>(valueEstimator));
-    } else {
-      cache = null;
-    }
+  public ConcurrentMemoryBoundCacheExpiring(boolean isEnabled,
+                                            long numBytesCapacity,
+                                            int numItemsCapacity,
+                                            long expirationPeriodSeconds,
+                                            MemoryUsageEstimator<K> keyEstimator,
+                                            MemoryUsageEstimator<V> valueEstimator) {
+    cache = new ConcurrentMemoryBoundCache<K, ValueAndTimestamp<V>>(
+        isEnabled,
+        numBytesCapacity,
+        numItemsCapacity,
+        keyEstimator,
+        new ValueAndTimestampMemoryUsageEstimator<V>(valueEstimator));
     this.expirationPeriodMs = expirationPeriodSeconds * 1000;
   }
 
   public boolean isEnabled() {
-    return cache != null;
+    return cache.isEnabled();
   }
 
   public V get(K key) {
     if (!isEnabled()) {
       return null;
     } else {
-      ValueAndTimestamp<V> cachedValue;
-      synchronized (cache) {
-        // Attempt to get from cache
-        cachedValue = cache.get(key);
-        // Expire if needed
-        if (cachedValue != null && shouldExpire(cachedValue)) {
-          cache.remove(key);
-          cachedValue = null;
-        }
+      // Attempt to get from cache
+      ValueAndTimestamp<V> cachedValue = cache.get(key);
+      // Expire if needed, unless it has been replaced concurrently
+      if (cachedValue != null && shouldExpire(cachedValue)) {
+        cache.remove(key, cachedValue);
+        cachedValue = null;
       }
       if (cachedValue == null) {
         return null;
@@ -74,30 +67,16 @@ public class SynchronizedMemoryBoundCacheExpiring<K, V> {
       if (value == null) {
         throw new IllegalArgumentException("Value to put in cache should not be null.");
       }
-      synchronized (cache) {
-        cache.putAndEvict(key, new ValueAndTimestamp<V>(value, System.currentTimeMillis()));
-      }
+      cache.put(key, new ValueAndTimestamp<V>(value, System.currentTimeMillis()));
     }
   }
 
   public int size() {
-    if (!isEnabled()) {
-      return 0;
-    } else {
-      synchronized (cache) {
-        return cache.size();
-      }
-    }
+    return cache.size();
   }
 
   public long getNumManagedBytes() {
-    if (!isEnabled()) {
-      return 0;
-    } else {
-      synchronized (cache) {
-        return cache.getNumManagedBytes();
-      }
-    }
+    return cache.getNumManagedBytes();
   }
 
   protected boolean shouldExpire(ValueAndTimestamp<V> valueAndTimestamp) {
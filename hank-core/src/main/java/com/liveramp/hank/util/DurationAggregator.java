@@ -18,56 +18,51 @@ package com.liveramp.hank.util;
 
 import org.apache.log4j.Logger;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class DurationAggregator {
 
   private static Logger LOG = Logger.getLogger(DurationAggregator.class);
 
   private final String name;
-  private List<Long> durationsMs;
+  private final LatencyHistogram durations = new LatencyHistogram();
 
   public DurationAggregator(String name) {
     this.name = name;
-    this.clear();
   }
 
-  public synchronized void add(long duration) {
-    durationsMs.add(duration);
+  public void add(long durationMs) {
+    durations.record(durationMs * 1000);
   }
 
   public void clear() {
-    durationsMs = new ArrayList<Long>();
+    durations.getAndReset();
   }
 
   public String getStats() {
-    long totalDurationMs = getTotalDurationMs();
+    long numDurations = durations.getNumValues();
+    long totalDurationMs = durations.getTotalMicros() / 1000;
     long averageDurationMs = 0;
-    if (durationsMs.size() > 0) {
-      averageDurationMs = totalDurationMs / durationsMs.size();
+    if (numDurations > 0) {
+      averageDurationMs = totalDurationMs / numDurations;
     }
     StringBuilder logStr = new StringBuilder();
     logStr.append("Statistics for: ");
     logStr.append(name);
     logStr.append(", average duration: ");
     logStr.append(FormatUtils.formatSecondsDuration(averageDurationMs / 1000));
+    logStr.append(", median duration: ");
+    logStr.append(FormatUtils.formatSecondsDuration(durations.getValueAtPercentileMicros(50) / 1000000));
+    logStr.append(", 90% duration: ");
+    logStr.append(FormatUtils.formatSecondsDuration(durations.getValueAtPercentileMicros(90) / 1000000));
+    logStr.append(", max duration: ");
+    logStr.append(FormatUtils.formatSecondsDuration(Math.max(0, durations.getMaximumMicros()) / 1000000));
     logStr.append(", total duration: ");
     logStr.append(FormatUtils.formatSecondsDuration(totalDurationMs / 1000));
     logStr.append(", count: ");
-    logStr.append(durationsMs.size());
+    logStr.append(numDurations);
     return logStr.toString();
   }
 
   public void logStats() {
     LOG.info(getStats());
   }
-
-  private long getTotalDurationMs() {
-    long result = 0;
-    for (Long durationMs : durationsMs) {
-      result += durationMs;
-    }
-    return result;
-  }
 }
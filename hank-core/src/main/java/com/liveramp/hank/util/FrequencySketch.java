@@ -0,0 +1,131 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An approximate frequency counter for hash codes, as used by TinyLFU.
+ * <p/>
+ * This is a count-min sketch of depth 4 with 4-bit counters, packed 16 per long. The counters of a given
+ * hash code are all in different longs but use the same group of 4 counters within each long. Frequencies
+ * saturate at 15, and all counters are halved once a number of increments proportional to the expected
+ * number of items has been recorded, so that the sketch follows recent popularity.
+ */
+public class FrequencySketch {
+
+  public static final int MAX_FREQUENCY = 15;
+  // Sketches larger than this would not fit in the processor caches anyway
+  private static final int MAX_TABLE_SIZE = 1 << 22;
+  private static final int MIN_TABLE_SIZE = 16;
+  // Number of increments per expected item after which counters are halved
+  private static final int SAMPLE_SIZE_RATIO = 10;
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long[] SEEDS = new long[]{
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+  private final AtomicLongArray table;
+  private final int tableMask;
+  private final int sampleSize;
+  private final AtomicInteger numIncrements = new AtomicInteger(0);
+
+  public FrequencySketch(long expectedNumItems) {
+    int tableSize = MIN_TABLE_SIZE;
+    while (tableSize < expectedNumItems && tableSize < MAX_TABLE_SIZE) {
+      tableSize <<= 1;
+    }
+    this.table = new AtomicLongArray(tableSize);
+    this.tableMask = tableSize - 1;
+    this.sampleSize = SAMPLE_SIZE_RATIO * tableSize;
+  }
+
+  // Return the estimated number of occurrences of the given hash code, from 0 to MAX_FREQUENCY
+  public int frequency(int hashCode) {
+    int hash = spread(hashCode);
+    int start = (hash & 3) << 2;
+    int result = MAX_FREQUENCY;
+    for (int i = 0; i < 4; ++i) {
+      int index = indexOf(hash, i);
+      int counter = (int)((table.get(index) >>> ((start + i) << 2)) & 0xfL);
+      result = Math.min(result, counter);
+    }
+    return result;
+  }
+
+  // Record one occurrence of the given hash code
+  public void increment(int hashCode) {
+    int hash = spread(hashCode);
+    int start = (hash & 3) << 2;
+    boolean incremented = false;
+    for (int i = 0; i < 4; ++i) {
+      incremented |= incrementCounter(indexOf(hash, i), start + i);
+    }
+    // Only the thread that reaches the sample size performs the reset
+    if (incremented && numIncrements.incrementAndGet() == sampleSize) {
+      reset();
+    }
+  }
+
+  public int getTableSize() {
+    return tableMask + 1;
+  }
+
+  private boolean incrementCounter(int index, int counterIndex) {
+    int offset = counterIndex << 2;
+    long mask = 0xfL << offset;
+    while (true) {
+      long value = table.get(index);
+      if ((value & mask) == mask) {
+        // Saturated
+        return false;
+      }
+      if (table.compareAndSet(index, value, value + (1L << offset))) {
+        return true;
+      }
+    }
+  }
+
+  // Halve all counters
+  private void reset() {
+    for (int i = 0; i < table.length(); ++i) {
+      while (true) {
+        long value = table.get(i);
+        if (table.compareAndSet(i, value, (value >>> 1) & RESET_MASK)) {
+          break;
+        }
+      }
+    }
+    numIncrements.addAndGet(-(sampleSize / 2));
+  }
+
+  private int indexOf(int hash, int depth) {
+    long result = (hash + SEEDS[depth]) * SEEDS[depth];
+    result += result >>> 32;
+    return (int)result & tableMask;
+  }
+
+  private static int spread(int hashCode) {
+    int hash = hashCode;
+    hash ^= hash >>> 16;
+    hash *= 0x85ebca6b;
+    hash ^= hash >>> 13;
+    hash *= 0xc2b2ae35;
+    hash ^= hash >>> 16;
+    return hash;
+  }
+}
@@ -16,28 +16,32 @@
 
 package com.liveramp.hank.util;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import com.liveramp.hank.partition_server.DoublePopulationStatisticsAggregator;
 import org.apache.log4j.Logger;
 
+/**
+ * Aggregates timers in latency histograms without locking. Statistics are logged every statsComputationWindow
+ * timers, and population statistics are accumulated until they are read.
+ */
 public class HankTimerEventAggregator {
 
   private static Logger LOG = Logger.getLogger(HankTimerEventAggregator.class);
 
   private final String name;
-  private double[] durations;
-  private int count;
   private final int statsComputationWindow;
   private final boolean isActive;
 
-  private long statsComputationWindowStart;
-  private long statsComputationWindowEnd;
-  private long statsComputationWindowDuration;
-  private double minDuration;
-  private double maxDuration;
-  private double totalDuration;
-  private long totalUnderlyingCount;
-  private DoublePopulationStatisticsAggregator populationStatistics;
+  private final LatencyHistogram windowHistogram = new LatencyHistogram();
+  // Reused by logStats() to snapshot the window
+  private final LatencyHistogram windowSnapshot = new LatencyHistogram();
+  private final AtomicLong count = new AtomicLong(0);
+  private final AtomicLong totalUnderlyingCount = new AtomicLong(0);
+  private volatile long statsComputationWindowStart = System.nanoTime();
+  private final LatencyHistogram populationHistogram = new LatencyHistogram();
   private DoublePopulationStatisticsAggregator previousPopulationStatistics;
+  private volatile double lastWindowAverageDuration = 0;
 
   /**
    * @param name
@@ -47,11 +51,8 @@ public class HankTimerEventAggregator {
   public HankTimerEventAggregator(String name, int statsComputationWindow) {
     this.name = name;
     this.statsComputationWindow = statsComputationWindow;
-    this.isActive = statsComputationWindow != 0;
-    this.populationStatistics = null;
+    this.isActive = statsComputationWindow > 0;
     this.previousPopulationStatistics = new DoublePopulationStatisticsAggregator();
-    this.durations = new double[statsComputationWindow];
-    clear();
   }
 
   // Return a new HankTimer if active, null otherwise
@@ -67,65 +68,56 @@ public class HankTimerEventAggregator {
   }
 
   // Aggregate the given timer only if the aggregator is active
-  // Will not add synchronization overhead if not active.
   // underlyingCount is used when the timed event represent a number of underlying events
   public void add(HankTimer timer, int underlyingCount) {
     if (!isActive) {
       return;
     }
-    _add(timer.getStartTime(), timer.getDuration(), underlyingCount);
+    addNanos(timer.getDuration(), underlyingCount);
   }
 
-  public synchronized DoublePopulationStatisticsAggregator getAndResetPopulationStatistics() {
-    // If there are new statistics, return them and reset the current statistics
-    if (populationStatistics != null) {
-      previousPopulationStatistics = populationStatistics;
-      populationStatistics = null;
-    }
-    return previousPopulationStatistics;
+  public void addNanos(long durationNanos) {
+    addNanos(durationNanos, 1);
   }
 
-  private synchronized void _add(long startTimeNanos, long durationNanos, int underlyingCount) {
-    ++count;
-    // Determine computation window start and end
-    if (startTimeNanos < statsComputationWindowStart) {
-      statsComputationWindowStart = startTimeNanos;
-    }
-    if ((startTimeNanos + durationNanos) > statsComputationWindowEnd) {
-      statsComputationWindowEnd = startTimeNanos + durationNanos;
-    }
-    // Compute statistics
-    double duration = durationNanos / 1000000d;
-    totalDuration += duration;
-    if (duration < minDuration) {
-      minDuration = duration;
-    }
-    if (duration > maxDuration) {
-      maxDuration = duration;
+  // Same as add(), for callers that time events with System.nanoTime() rather than allocating a HankTimer
+  public void addNanos(long durationNanos, int underlyingCount) {
+    if (!isActive) {
+      return;
     }
-    durations[count - 1] = duration;
-    totalUnderlyingCount += underlyingCount;
-    // Dump stats if needed
-    if (count == statsComputationWindow) {
-      // Determine computation window duration
-      statsComputationWindowDuration = Math.abs(statsComputationWindowEnd - statsComputationWindowStart);
+    windowHistogram.recordNanos(durationNanos);
+    populationHistogram.recordNanos(durationNanos);
+    totalUnderlyingCount.addAndGet(underlyingCount);
+    if (count.incrementAndGet() % statsComputationWindow == 0) {
       logStats();
-      clear();
     }
   }
 
-  private void clear() {
-    // Durations doesn't need to be cleared
-    count = 0;
-    totalDuration = 0;
-    statsComputationWindowStart = Long.MAX_VALUE;
-    statsComputationWindowEnd = Long.MIN_VALUE;
-    minDuration = Double.MAX_VALUE;
-    maxDuration = Double.MIN_VALUE;
-    totalUnderlyingCount = 0;
+  // Return the statistics of timers aggregated since the last call, or the previous statistics if there was none
+  public synchronized DoublePopulationStatisticsAggregator getAndResetPopulationStatistics() {
+    LatencyHistogram histogram = populationHistogram.getAndReset();
+    if (histogram.getNumValues() > 0) {
+      previousPopulationStatistics = new DoublePopulationStatisticsAggregator(histogram);
+    }
+    return previousPopulationStatistics;
+  }
+
+  // Average duration in ms of the timers aggregated in the last complete window, 0 if there was none
+  public double getLastWindowAverageDuration() {
+    return lastWindowAverageDuration;
   }
 
-  private void logStats() {
+  private synchronized void logStats() {
+    LatencyHistogram window = windowHistogram.getAndReset(windowSnapshot);
+    long underlyingCount = totalUnderlyingCount.getAndSet(0);
+    long now = System.nanoTime();
+    long statsComputationWindowDuration = Math.abs(now - statsComputationWindowStart);
+    statsComputationWindowStart = now;
+    long count = window.getNumValues();
+    if (count == 0) {
+      return;
+    }
+    double totalDuration = window.getTotalMicros() / 1000d;
     // Build log string
     StringBuilder logStr = new StringBuilder();
     logStr.append("Statistics for Timer: ");
@@ -133,35 +125,37 @@ public class HankTimerEventAggregator {
     logStr.append(", count: ");
     logStr.append(count);
     logStr.append(", underlying count: ");
-    logStr.append(totalUnderlyingCount);
+    logStr.append(underlyingCount);
     logStr.append(", window duration: ");
     logStr.append(statsComputationWindowDuration / 1000000d);
     logStr.append("ms");
     logStr.append(", min duration: ");
-    logStr.append(minDuration);
+    logStr.append(window.getMinimumMicros() / 1000d);
     logStr.append("ms");
     logStr.append(", avg duration: ");
     logStr.append((totalDuration / (double) count));
     logStr.append("ms");
-    if (totalUnderlyingCount != count) {
+    if (underlyingCount != count) {
       logStr.append(", underlying avg duration: ");
-      logStr.append((totalDuration / (double) totalUnderlyingCount));
+      logStr.append((totalDuration / (double) underlyingCount));
       logStr.append("ms");
     }
+    logStr.append(", 99% duration: ");
+    logStr.append(window.getValueAtPercentileMicros(99) / 1000d);
+    logStr.append("ms");
+    logStr.append(", 99.9% duration: ");
+    logStr.append(window.getValueAtPercentileMicros(99.9) / 1000d);
+    logStr.append("ms");
     logStr.append(", max duration: ");
-    logStr.append(maxDuration);
+    logStr.append(window.getMaximumMicros() / 1000d);
     logStr.append("ms");
     logStr.append(", QPS: ");
     logStr.append(count / (statsComputationWindowDuration / 1000000000d));
-    if (totalUnderlyingCount != count) {
+    if (underlyingCount != count) {
       logStr.append(", Underlying QPS: ");
-      logStr.append(totalUnderlyingCount / (statsComputationWindowDuration / 1000000000d));
+      logStr.append(underlyingCount / (statsComputationWindowDuration / 1000000000d));
     }
     LOG.info(logStr.toString());
-    // Aggregate population statistics
-    if (populationStatistics == null) {
-      populationStatistics = new DoublePopulationStatisticsAggregator();
-    }
-    populationStatistics.aggregate(minDuration, maxDuration, count, totalDuration, durations);
+    lastWindowAverageDuration = totalDuration / (double) count;
   }
 }
@@ -0,0 +1,225 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in microseconds, with log-linear buckets in the style of HdrHistogram.
+ * <p/>
+ * Values below 128 have their own bucket. Above that, each power of two range is split in 64 buckets, so that
+ * percentiles are within 1/64 of the actual values. Values above the maximum trackable value (about 19 hours) are
+ * counted as the maximum. Recording takes constant time and does not allocate, and histograms merge exactly since
+ * they all share the same buckets.
+ * <p/>
+ * Reads are not atomic: a value recorded concurrently might be counted in some of the returned statistics only.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_HALF_COUNT_MAGNITUDE = 6;
+  private static final int SUB_BUCKET_HALF_COUNT = 1 << SUB_BUCKET_HALF_COUNT_MAGNITUDE;
+  private static final long SUB_BUCKET_MASK = (SUB_BUCKET_HALF_COUNT << 1) - 1;
+  private static final long MAX_VALUE = (1L << 36) - 1;
+  private static final int NUM_COUNTS = getCountsIndex(MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(NUM_COUNTS);
+  private final AtomicLong total = new AtomicLong(0);
+  private final AtomicLong minimum = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong maximum = new AtomicLong(-1);
+
+  public void recordNanos(long durationNanos) {
+    record(durationNanos / 1000);
+  }
+
+  public void record(long valueMicros) {
+    long value = Math.max(0, Math.min(MAX_VALUE, valueMicros));
+    counts.incrementAndGet(getCountsIndex(value));
+    total.addAndGet(value);
+    // Only contended when the extremes change
+    long currentMinimum = minimum.get();
+    while (value < currentMinimum && !minimum.compareAndSet(currentMinimum, value)) {
+      currentMinimum = minimum.get();
+    }
+    long currentMaximum = maximum.get();
+    while (value > currentMaximum && !maximum.compareAndSet(currentMaximum, value)) {
+      currentMaximum = maximum.get();
+    }
+  }
+
+  // Add all values of the other histogram to this one
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < NUM_COUNTS; ++i) {
+      long count = other.counts.get(i);
+      if (count != 0) {
+        counts.addAndGet(i, count);
+      }
+    }
+    total.addAndGet(other.total.get());
+    long otherMinimum = other.minimum.get();
+    long currentMinimum = minimum.get();
+    while (otherMinimum < currentMinimum && !minimum.compareAndSet(currentMinimum, otherMinimum)) {
+      currentMinimum = minimum.get();
+    }
+    long otherMaximum = other.maximum.get();
+    long currentMaximum = maximum.get();
+    while (otherMaximum > currentMaximum && !maximum.compareAndSet(currentMaximum, otherMaximum)) {
+      currentMaximum = maximum.get();
+    }
+  }
+
+  // Return the values recorded since the last call, and reset this histogram. No value is lost or returned twice.
+  public LatencyHistogram getAndReset() {
+    return getAndReset(new LatencyHistogram());
+  }
+
+  // Move the recorded values into the given histogram, overwriting its contents, so that it can be reused
+  public LatencyHistogram getAndReset(LatencyHistogram result) {
+    for (int i = 0; i < NUM_COUNTS; ++i) {
+      result.counts.set(i, counts.get(i) == 0 ? 0 : counts.getAndSet(i, 0));
+    }
+    result.total.set(total.getAndSet(0));
+    result.minimum.set(minimum.getAndSet(Long.MAX_VALUE));
+    result.maximum.set(maximum.getAndSet(-1));
+    return result;
+  }
+
+  public long getNumValues() {
+    long result = 0;
+    for (int i = 0; i < NUM_COUNTS; ++i) {
+      result += counts.get(i);
+    }
+    return result;
+  }
+
+  public long getTotalMicros() {
+    return total.get();
+  }
+
+  // Return a negative value if the histogram is empty
+  public long getMinimumMicros() {
+    long result = minimum.get();
+    return result == Long.MAX_VALUE ? -1 : result;
+  }
+
+  // Return a negative value if the histogram is empty
+  public long getMaximumMicros() {
+    return maximum.get();
+  }
+
+  public double getMeanMicros() {
+    long numValues = getNumValues();
+    if (numValues == 0) {
+      return 0;
+    } else {
+      return (double)total.get() / (double)numValues;
+    }
+  }
+
+  // Smallest value such that the given percentage of values are lower or equal, within the bucket precision.
+  // Return 0 if the histogram is empty.
+  public long getValueAtPercentileMicros(double percentile) {
+    long numValues = getNumValues();
+    if (numValues == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long)Math.ceil(Math.max(0, Math.min(100, percentile)) / 100d * numValues));
+    long numValuesSoFar = 0;
+    for (int i = 0; i < NUM_COUNTS; ++i) {
+      numValuesSoFar += counts.get(i);
+      if (numValuesSoFar >= rank) {
+        // Middle of the bucket, within the recorded extremes
+        long value = getLowestValue(i) + (getBucketSize(i) - 1) / 2;
+        long maximumMicros = getMaximumMicros();
+        long minimumMicros = getMinimumMicros();
+        if (maximumMicros >= 0 && value > maximumMicros) {
+          value = maximumMicros;
+        }
+        if (minimumMicros >= 0 && value < minimumMicros) {
+          value = minimumMicros;
+        }
+        return value;
+      }
+    }
+    return getMaximumMicros();
+  }
+
+  /**
+   * Compact representation: total, minimum and maximum, followed by the index and count of each non-empty bucket,
+   * all separated by commas. Contains no spaces.
+   */
+  public static String toString(LatencyHistogram histogram) {
+    StringBuilder result = new StringBuilder();
+    result.append(histogram.total.get());
+    result.append(',');
+    result.append(histogram.getMinimumMicros());
+    result.append(',');
+    result.append(histogram.getMaximumMicros());
+    for (int i = 0; i < NUM_COUNTS; ++i) {
+      long count = histogram.counts.get(i);
+      if (count != 0) {
+        result.append(',');
+        result.append(i);
+        result.append(',');
+        result.append(count);
+      }
+    }
+    return result.toString();
+  }
+
+  public static LatencyHistogram parse(String str) {
+    String[] tokens = str.split(",");
+    if (tokens.length < 3 || tokens.length % 2 != 1) {
+      throw new IllegalArgumentException("Invalid latency histogram: " + str);
+    }
+    LatencyHistogram result = new LatencyHistogram();
+    result.total.set(Long.parseLong(tokens[0]));
+    long minimumMicros = Long.parseLong(tokens[1]);
+    result.minimum.set(minimumMicros < 0 ? Long.MAX_VALUE : minimumMicros);
+    result.maximum.set(Long.parseLong(tokens[2]));
+    for (int i = 3; i < tokens.length; i += 2) {
+      int index = Integer.parseInt(tokens[i]);
+      if (index < 0 || index >= NUM_COUNTS) {
+        throw new IllegalArgumentException("Invalid latency histogram bucket index: " + index);
+      }
+      result.counts.set(index, Long.parseLong(tokens[i + 1]));
+    }
+    return result;
+  }
+
+  // Values below 2 * SUB_BUCKET_HALF_COUNT have their own index. Above that, the index is made of the magnitude of
+  // the value and its most significant bits.
+  static int getCountsIndex(long value) {
+    int bucketIndex = 63 - SUB_BUCKET_HALF_COUNT_MAGNITUDE - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK);
+    int subBucketIndex = (int)(value >>> bucketIndex);
+    return (bucketIndex << SUB_BUCKET_HALF_COUNT_MAGNITUDE) + subBucketIndex;
+  }
+
+  static long getLowestValue(int countsIndex) {
+    int bucketIndex = (countsIndex >> SUB_BUCKET_HALF_COUNT_MAGNITUDE) - 1;
+    if (bucketIndex <= 0) {
+      return countsIndex;
+    }
+    long subBucketIndex = (countsIndex & (SUB_BUCKET_HALF_COUNT - 1)) + SUB_BUCKET_HALF_COUNT;
+    return subBucketIndex << bucketIndex;
+  }
+
+  static long getBucketSize(int countsIndex) {
+    int bucketIndex = (countsIndex >> SUB_BUCKET_HALF_COUNT_MAGNITUDE) - 1;
+    return bucketIndex <= 0 ? 1 : 1L << bucketIndex;
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only memory mapping of the beginning of a file. Since a MappedByteBuffer is int-indexed, the
+ * mapping is split into segments of at most 2GB. Consecutive segments overlap by maxReadSize bytes,
+ * so that any read of up to maxReadSize bytes is contained in a single segment and can be served
+ * in place.
+ * <p/>
+ * Segments are shared between threads, hence they should only be accessed with absolute
+ * get methods, or through a duplicate. Reads that race with or follow close() fail with an IOException.
+ */
+public class MemoryMappedFile {
+
+  public static final long DEFAULT_SEGMENT_SIZE = 1L << 30;
+
+  private final long length;
+  private final long segmentSize;
+  // Null once closed
+  private volatile MappedByteBuffer[] segments;
+
+  public MemoryMappedFile(FileChannel channel,
+                          long length,
+                          int maxReadSize,
+                          boolean prefetch) throws IOException {
+    this(channel, length, maxReadSize, prefetch, DEFAULT_SEGMENT_SIZE);
+  }
+
+  public MemoryMappedFile(FileChannel channel,
+                          long length,
+                          int maxReadSize,
+                          boolean prefetch,
+                          long segmentSize) throws IOException {
+    if (segmentSize <= 0 || segmentSize + maxReadSize > Integer.MAX_VALUE) {
+      throw new IOException("Invalid memory mapped segment size " + segmentSize
+          + " for a max read size of " + maxReadSize);
+    }
+    if (length > channel.size()) {
+      throw new IOException("Can not map " + length + " bytes of a file of size " + channel.size());
+    }
+    this.length = length;
+    this.segmentSize = segmentSize;
+    int numSegments = (int)((length + segmentSize - 1) / segmentSize);
+    MappedByteBuffer[] segments = new MappedByteBuffer[numSegments];
+    for (int i = 0; i < numSegments; ++i) {
+      long segmentStart = i * segmentSize;
+      long segmentLength = Math.min(segmentSize + maxReadSize, length - segmentStart);
+      segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentLength);
+      if (prefetch) {
+        // Fault in all pages now rather than on first access
+        segments[i].load();
+      }
+    }
+    this.segments = segments;
+  }
+
+  // Return the shared segment that contains the given offset. Reads of up to maxReadSize bytes starting at
+  // getOffsetInSegment(offset) are guaranteed to be within that segment (or to reach the end of the mapping).
+  public ByteBuffer getSegment(long offset) throws IOException {
+    return getSegments()[(int)(offset / segmentSize)];
+  }
+
+  public int getOffsetInSegment(long offset) {
+    return (int)(offset % segmentSize);
+  }
+
+  // Copy numBytes bytes starting at the given offset into dst
+  public void read(long offset, byte[] dst, int dstOffset, int numBytes) throws IOException {
+    ByteBuffer view = getSegment(offset).duplicate();
+    view.position(getOffsetInSegment(offset));
+    view.get(dst, dstOffset, numBytes);
+  }
+
+  public long getLength() {
+    return length;
+  }
+
+  public int getNumSegments() throws IOException {
+    return getSegments().length;
+  }
+
+  private MappedByteBuffer[] getSegments() throws IOException {
+    MappedByteBuffer[] result = segments;
+    if (result == null) {
+      throw new IOException("Memory mapped file is closed");
+    }
+    return result;
+  }
+
+  // Mapped regions are released when segments get garbage collected
+  public void close() {
+    segments = null;
+  }
+}
@@ -18,6 +18,9 @@ union HankException {
 
   /** There was some internal error in the server. This is pretty bad. */
   6: string internal_error;
+
+  /** The partition server is overloaded and rejected the request */
+  7: bool overloaded;
 }
 
 union HankResponse {
@@ -39,14 +42,43 @@ union HankBulkResponse {
   2: HankException xception;
 }
 
+struct HankScanPage {
+  /* Key hashes and values of the records of this page, in hash order */
+  1: list<binary> key_hashes;
+  2: list<binary> values;
+
+  /* Where to resume the scan. Not set once the partition has been fully scanned. Pages are empty when the server
+     throttles scans, in which case clients should back off before resuming. */
+  3: binary cursor;
+
+  /* Version of the partition that was scanned */
+  4: i32 version_number;
+}
+
+union HankScanResponse {
+  1: HankScanPage page;
+
+  /* Error states */
+  2: HankException xception;
+}
+
 service PartitionServer {
   HankResponse get(1:i32 domain_id, 2:binary key);
   HankBulkResponse getBulk(1:i32 domain_id, 2:list<binary> keys);
+
+  /** Key i is looked up in domain i. Responses are in the same order as the keys. */
+  HankBulkResponse getMultiBulk(1:list<i32> domain_ids, 2:list<binary> keys);
+
+  /** Return the next page of a partition scan. Start with an empty cursor and resume with the cursor of the previous page. */
+  HankScanResponse scan(1:i32 domain_id, 2:i32 partition_number, 3:binary cursor, 4:i32 max_num_records);
 }
 
 service SmartClient {
   HankResponse get(1:string domain_name, 2:binary key);
   HankBulkResponse getBulk(1:string domain_name, 2:list<binary> keys);
+
+  /** Key i is looked up in domain i. Responses are in the same order as the keys. */
+  HankBulkResponse getMultiBulk(1:list<string> domain_names, 2:list<binary> keys);
 }
 
 struct DomainMetadata {
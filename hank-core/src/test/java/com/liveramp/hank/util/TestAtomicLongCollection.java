@@ -0,0 +1,82 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TestAtomicLongCollection extends BaseTestCase {
+
+  @Test
+  public void testSetAndIncrement() {
+    AtomicLongCollection collection = new AtomicLongCollection(3, new long[]{1, 2, 3});
+    collection.increment(1, 0, 5);
+    assertArrayEquals(new long[]{2, 2, 8}, collection.getAsArray());
+    assertEquals(8, collection.get(2));
+
+    assertArrayEquals(new long[]{2, 2, 8}, collection.getAsArrayAndSet(0, 0, 1));
+    assertArrayEquals(new long[]{0, 0, 1}, collection.getAsArray());
+
+    collection.set(4, 5, 6);
+    assertArrayEquals(new long[]{4, 5, 6}, collection.getAsArray());
+
+    collection.add(1, 3);
+    assertArrayEquals(new long[]{4, 8, 6}, collection.getAsArray());
+  }
+
+  @Test
+  public void testConcurrentIncrements() throws InterruptedException {
+    final AtomicLongCollection collection = new AtomicLongCollection(2);
+    final int numThreads = 8;
+    final int numIncrements = 100000;
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < numThreads; ++i) {
+      threads.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < numIncrements; ++j) {
+            collection.increment(1, 2);
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    // Take snapshots while incrementing, no increment should be lost or counted twice
+    long[] total = new long[2];
+    for (int i = 0; i < 100; ++i) {
+      long[] values = collection.getAsArrayAndSet(0, 0);
+      total[0] += values[0];
+      total[1] += values[1];
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long[] values = collection.getAsArrayAndSet(0, 0);
+    total[0] += values[0];
+    total[1] += values[1];
+    assertArrayEquals(new long[]{numThreads * numIncrements, 2L * numThreads * numIncrements}, total);
+  }
+}
@@ -0,0 +1,138 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.liveramp.commons.util.MemoryUsageEstimator;
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestConcurrentMemoryBoundCache extends BaseTestCase {
+
+  private static final MemoryUsageEstimator<Integer> ESTIMATOR = new MemoryUsageEstimator<Integer>() {
+    @Override
+    public long estimateMemorySize(Integer item) {
+      return 4;
+    }
+  };
+
+  @Test
+  public void testSegments() {
+    assertEquals(1, ConcurrentMemoryBoundCache.getNumSegments(16, 20));
+    assertEquals(4, ConcurrentMemoryBoundCache.getNumSegments(16, 64));
+    assertEquals(16, ConcurrentMemoryBoundCache.getNumSegments(16, 1000000));
+    assertEquals(16, ConcurrentMemoryBoundCache.getNumSegments(16, 0));
+    assertEquals(8, ConcurrentMemoryBoundCache.getNumSegments(10, 0));
+
+    assertEquals(0, ConcurrentMemoryBoundCache.getSegmentCapacity(0, 4, 0));
+    assertEquals(3, ConcurrentMemoryBoundCache.getSegmentCapacity(10, 4, 0));
+    assertEquals(3, ConcurrentMemoryBoundCache.getSegmentCapacity(10, 4, 1));
+    assertEquals(2, ConcurrentMemoryBoundCache.getSegmentCapacity(10, 4, 2));
+    assertEquals(1, ConcurrentMemoryBoundCache.getSegmentCapacity(2, 4, 3));
+  }
+
+  @Test
+  public void testDisabled() {
+    ConcurrentMemoryBoundCache<Integer, Integer> cache =
+        new ConcurrentMemoryBoundCache<Integer, Integer>(false, 100, 10, ESTIMATOR, ESTIMATOR);
+    assertFalse(cache.isEnabled());
+    cache.put(1, 1);
+    assertNull(cache.get(1));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getMaxNumItems());
+    assertEquals(0, cache.getMaxNumManagedBytes());
+  }
+
+  @Test
+  public void testCapacities() {
+    ConcurrentMemoryBoundCache<Integer, Integer> cache =
+        new ConcurrentMemoryBoundCache<Integer, Integer>(true, 0, 256, ESTIMATOR, ESTIMATOR);
+    assertEquals(16, cache.getNumSegments());
+    for (int i = 0; i < 10000; ++i) {
+      cache.put(i, i);
+    }
+    assertEquals(256, cache.size());
+    assertEquals(256 * 8, cache.getNumManagedBytes());
+    // Most recent items are still there
+    assertEquals(Integer.valueOf(9999), cache.get(9999));
+
+    cache = new ConcurrentMemoryBoundCache<Integer, Integer>(true, 1024, 0, ESTIMATOR, ESTIMATOR);
+    for (int i = 0; i < 10000; ++i) {
+      cache.put(i, i);
+    }
+    assertEquals(128, cache.size());
+    assertEquals(1024, cache.getNumManagedBytes());
+  }
+
+  @Test
+  public void testRemove() {
+    ConcurrentMemoryBoundCache<Integer, Integer> cache =
+        new ConcurrentMemoryBoundCache<Integer, Integer>(true, 0, 10, ESTIMATOR, ESTIMATOR);
+    Integer value = new Integer(1000);
+    cache.put(1, value);
+    assertFalse(cache.remove(1, new Integer(1000)));
+    assertTrue(cache.remove(1, value));
+    assertNull(cache.get(1));
+    assertEquals(0, cache.getNumManagedBytes());
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    final ConcurrentMemoryBoundCache<Integer, Integer> cache =
+        new ConcurrentMemoryBoundCache<Integer, Integer>(true, 0, 1000, ESTIMATOR, ESTIMATOR);
+    final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 8; ++t) {
+      final int seed = t;
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < 100000; ++i) {
+              int key = (i * 31 + seed) % 5000;
+              Integer value = cache.get(key);
+              if (value == null) {
+                cache.put(key, key);
+              } else if (value != key) {
+                throw new IllegalStateException("Unexpected value " + value + " for key " + key);
+              }
+            }
+          } catch (Throwable e) {
+            error.set(e);
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertNull(error.get());
+    assertTrue(cache.size() <= 1000);
+    assertEquals(cache.size() * 8, cache.getNumManagedBytes());
+  }
+}
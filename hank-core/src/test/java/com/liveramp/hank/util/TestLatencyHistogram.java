@@ -0,0 +1,116 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.util;
+
+import org.junit.Test;
+
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestLatencyHistogram extends BaseTestCase {
+
+  @Test
+  public void testBuckets() {
+    // Small values are exact
+    for (long value = 0; value < 128; ++value) {
+      assertEquals(value, LatencyHistogram.getLowestValue(LatencyHistogram.getCountsIndex(value)));
+    }
+    // Larger values fall in a bucket of at most 1/64 of their value
+    int previousIndex = LatencyHistogram.getCountsIndex(127);
+    for (long value = 128; value < 1000000; ++value) {
+      int index = LatencyHistogram.getCountsIndex(value);
+      assertTrue(index == previousIndex || index == previousIndex + 1);
+      long lowestValue = LatencyHistogram.getLowestValue(index);
+      assertTrue(lowestValue <= value);
+      assertTrue(value < lowestValue + LatencyHistogram.getBucketSize(index));
+      assertTrue(LatencyHistogram.getBucketSize(index) <= value / 64);
+      previousIndex = index;
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getValueAtPercentileMicros(50));
+    assertEquals(-1, histogram.getMaximumMicros());
+
+    for (int i = 1; i <= 10000; ++i) {
+      histogram.record(i);
+    }
+    assertEquals(10000, histogram.getNumValues());
+    assertEquals(1, histogram.getMinimumMicros());
+    assertEquals(10000, histogram.getMaximumMicros());
+    assertEquals(5000.5, histogram.getMeanMicros(), 0.001);
+    assertEquals(5000, histogram.getValueAtPercentileMicros(50), 5000 / 64);
+    assertEquals(9900, histogram.getValueAtPercentileMicros(99), 9900 / 64);
+    assertEquals(9990, histogram.getValueAtPercentileMicros(99.9), 9990 / 64);
+    assertEquals(10000, histogram.getValueAtPercentileMicros(100));
+    assertEquals(1, histogram.getValueAtPercentileMicros(0));
+
+    histogram.recordNanos(20000000);
+    assertEquals(20000, histogram.getMaximumMicros());
+  }
+
+  @Test
+  public void testAddAndReset() {
+    LatencyHistogram histogram1 = new LatencyHistogram();
+    LatencyHistogram histogram2 = new LatencyHistogram();
+    LatencyHistogram all = new LatencyHistogram();
+    for (int i = 0; i < 1000; ++i) {
+      histogram1.record(i * 3);
+      histogram2.record(i * 7 + 5);
+      all.record(i * 3);
+      all.record(i * 7 + 5);
+    }
+    LatencyHistogram merged = new LatencyHistogram();
+    merged.add(histogram1);
+    merged.add(histogram2);
+    assertEquals(LatencyHistogram.toString(all), LatencyHistogram.toString(merged));
+
+    LatencyHistogram snapshot = merged.getAndReset();
+    assertEquals(LatencyHistogram.toString(all), LatencyHistogram.toString(snapshot));
+    assertEquals(0, merged.getNumValues());
+    assertEquals(-1, merged.getMinimumMicros());
+
+    // Reusing a histogram overwrites its previous values
+    String histogram2Str = LatencyHistogram.toString(histogram2);
+    assertSame(snapshot, histogram2.getAndReset(snapshot));
+    assertEquals(histogram2Str, LatencyHistogram.toString(snapshot));
+    assertEquals(0, histogram2.getNumValues());
+  }
+
+  @Test
+  public void testToStringAndParse() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals("0,-1,-1", LatencyHistogram.toString(histogram));
+    assertEquals(0, LatencyHistogram.parse("0,-1,-1").getNumValues());
+
+    histogram.record(3);
+    histogram.record(3);
+    histogram.record(1000);
+    String str = LatencyHistogram.toString(histogram);
+    LatencyHistogram parsed = LatencyHistogram.parse(str);
+    assertEquals(str, LatencyHistogram.toString(parsed));
+    assertEquals(3, parsed.getNumValues());
+    assertEquals(3, parsed.getMinimumMicros());
+    assertEquals(1000, parsed.getMaximumMicros());
+    assertEquals(3, parsed.getValueAtPercentileMicros(50));
+  }
+}
@@ -0,0 +1,82 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.util;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.junit.Test;
+
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class TestMemoryMappedFile extends BaseTestCase {
+
+  private final String filePath = localTmpDir + "/testfile";
+
+  @Test
+  public void testSegments() throws Exception {
+    byte[] data = new byte[100];
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = (byte)i;
+    }
+    FileOutputStream out = new FileOutputStream(filePath);
+    out.write(data);
+    out.close();
+
+    FileChannel channel = new FileInputStream(filePath).getChannel();
+    // Map the first 90 bytes in segments of 32 bytes, reads are at most 10 bytes
+    MemoryMappedFile mappedFile = new MemoryMappedFile(channel, 90, 10, true, 32);
+    assertEquals(90, mappedFile.getLength());
+    assertEquals(3, mappedFile.getNumSegments());
+
+    // Every read of up to 10 bytes is served by a single segment
+    for (long offset = 0; offset < 80; ++offset) {
+      ByteBuffer segment = mappedFile.getSegment(offset);
+      int offsetInSegment = mappedFile.getOffsetInSegment(offset);
+      for (int i = 0; i < 10; ++i) {
+        assertEquals((byte)(offset + i), segment.get(offsetInSegment + i));
+      }
+    }
+
+    // Reads crossing a segment boundary
+    byte[] dst = new byte[10];
+    mappedFile.read(28, dst, 0, 10);
+    for (int i = 0; i < 10; ++i) {
+      assertEquals((byte)(28 + i), dst[i]);
+    }
+    mappedFile.read(80, dst, 0, 10);
+    for (int i = 0; i < 10; ++i) {
+      assertEquals((byte)(80 + i), dst[i]);
+    }
+
+    // Reads after close fail cleanly
+    mappedFile.close();
+    try {
+      mappedFile.read(0, dst, 0, 10);
+      fail("Should fail");
+    } catch (IOException e) {
+      // Expected
+    }
+    channel.close();
+  }
+}
@@ -16,6 +16,10 @@
 
 package com.liveramp.hank.config;
 
+import java.util.Map;
+
+import com.liveramp.hank.storage.SharedReaderCache;
+
 public interface PartitionServerConfigurator extends CoordinatorConfigurator, ReaderConfigurator {
 
   public int getServicePort();
@@ -26,13 +30,45 @@ public interface PartitionServerConfigurator extends CoordinatorConfigurator, Re
 
   public int getMaxConcurrentUpdatesPerDataDirectory();
 
+  // Update partitions while serving, swapping in new Readers as their partitions are updated
+  public boolean getOnlineUpdateEnabled();
+
+  // During online updates, delay partition updates while the mean GET latency is above this value. 0 to disable.
+  public long getOnlineUpdateMaxGetLatencyMs();
+
   public int getNumConcurrentQueries();
 
   public int getNumConcurrentGetBulkTasks();
 
   public int getGetBulkTaskSize();
 
+  // Maximum number of GET BULK tasks waiting in each lane. Requests that do not fit are rejected. 0 for unbounded.
+  public int getGetBulkTaskQueueSize();
+
+  // GET BULK requests with at least this many keys are executed in a separate batch lane. 0 to disable.
+  public int getBatchGetBulkMinNumKeys();
+
+  public int getNumConcurrentBatchGetBulkTasks();
+
   public int getGetTimerAggregatorWindow();
 
-  public ReaderConfigurator getReaderConfigurator(int numTotalPartitions);
+  // Share the cache capacity between all Readers instead of splitting it evenly
+  public boolean getSharedCacheEnabled();
+
+  // Minimum number of bytes of the shared cache reserved for each domain, by domain name
+  public Map<String, Long> getSharedCacheDomainReservedNumBytes();
+
+  // Let concurrent GETs for the same key share a single read
+  public boolean getGetCoalescingEnabled();
+
+  // Maximum number of bytes per second returned by all partition scans together. 0 to disable.
+  public long getScanMaxBytesPerSecond();
+
+  // Number of Readers loaded concurrently from each data directory at startup
+  public int getNumConcurrentReaderLoadsPerDataDirectory();
+
+  // Start serving before Readers are loaded. Readers are then loaded in the background, or on first access.
+  public boolean getLazyReaderLoadingEnabled();
+
+  public ReaderConfigurator getReaderConfigurator(int numTotalPartitions, SharedReaderCache sharedReaderCache);
 }
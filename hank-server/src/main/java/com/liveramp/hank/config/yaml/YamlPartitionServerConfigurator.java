@@ -17,13 +17,16 @@
 package com.liveramp.hank.config.yaml;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import com.liveramp.hank.config.BaseReaderConfigurator;
 import com.liveramp.hank.config.InvalidConfigurationException;
 import com.liveramp.hank.config.PartitionServerConfigurator;
 import com.liveramp.hank.config.ReaderConfigurator;
+import com.liveramp.hank.storage.SharedReaderCache;
 
 public class YamlPartitionServerConfigurator extends YamlCoordinatorConfigurator implements PartitionServerConfigurator {
 
@@ -36,12 +39,25 @@ public class YamlPartitionServerConfigurator extends YamlCoordinatorConfigurator
   public static final String UPDATE_DAEMON_SECTION_KEY = "update_daemon";
   public static final String NUM_CONCURRENT_UPDATES_KEY = "num_concurrent_updates";
   public static final String MAX_CONCURRENT_UPDATES_PER_DATA_DIRECTORY_KEY = "max_concurrent_updates_per_data_directory";
+  public static final String ONLINE_UPDATE_ENABLED_KEY = "online_update_enabled";
+  public static final String ONLINE_UPDATE_MAX_GET_LATENCY_MS_KEY = "online_update_max_get_latency_ms";
   public static final String NUM_CONCURRENT_GET_BULK_TASKS = "num_concurrent_get_bulk_tasks";
   public static final String GET_BULK_TASK_SIZE = "get_bulk_task_size";
+  public static final String GET_BULK_TASK_QUEUE_SIZE = "get_bulk_task_queue_size";
+  public static final String BATCH_GET_BULK_MIN_NUM_KEYS = "batch_get_bulk_min_num_keys";
+  public static final String NUM_CONCURRENT_BATCH_GET_BULK_TASKS = "num_concurrent_batch_get_bulk_tasks";
   public static final String GET_TIMER_AGGREGATOR_WINDOW_KEY = "get_timer_aggregator_window";
   public static final String BUFFER_REUSE_MAX_SIZE = "buffer_reuse_max_size";
   public static final String CACHE_NUM_BYTES_CAPACITY = "cache_num_bytes_capacity";
   public static final String CACHE_NUM_ITEMS_CAPACITY = "cache_num_items_capacity";
+  public static final String MEMORY_MAP_ENABLED = "memory_map_enabled";
+  public static final String MEMORY_MAP_PREFETCH_ENABLED = "memory_map_prefetch_enabled";
+  public static final String SHARED_CACHE_ENABLED = "shared_cache_enabled";
+  public static final String SHARED_CACHE_DOMAIN_RESERVED_NUM_BYTES = "shared_cache_domain_reserved_num_bytes";
+  public static final String GET_COALESCING_ENABLED = "get_coalescing_enabled";
+  public static final String SCAN_MAX_BYTES_PER_SECOND = "scan_max_bytes_per_second";
+  public static final String NUM_CONCURRENT_READER_LOADS_PER_DATA_DIRECTORY = "num_concurrent_reader_loads_per_data_directory";
+  public static final String LAZY_READER_LOADING_ENABLED = "lazy_reader_loading_enabled";
 
   public YamlPartitionServerConfigurator(String path) throws IOException,
       InvalidConfigurationException {
@@ -112,6 +128,27 @@ public class YamlPartitionServerConfigurator extends YamlCoordinatorConfigurator
     return getInteger(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY, GET_BULK_TASK_SIZE);
   }
 
+  @Override
+  public int getGetBulkTaskQueueSize() {
+    Integer result = getOptionalInteger(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+        GET_BULK_TASK_QUEUE_SIZE);
+    return result == null ? 0 : result;
+  }
+
+  @Override
+  public int getBatchGetBulkMinNumKeys() {
+    Integer result = getOptionalInteger(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+        BATCH_GET_BULK_MIN_NUM_KEYS);
+    return result == null ? 0 : result;
+  }
+
+  @Override
+  public int getNumConcurrentBatchGetBulkTasks() {
+    Integer result = getOptionalInteger(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+        NUM_CONCURRENT_BATCH_GET_BULK_TASKS);
+    return result == null ? 1 : result;
+  }
+
   @Override
   public int getGetTimerAggregatorWindow() {
     return getInteger(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
@@ -125,13 +162,16 @@ public class YamlPartitionServerConfigurator extends YamlCoordinatorConfigurator
   }
 
   @Override
-  public ReaderConfigurator getReaderConfigurator(int numTotalPartitions) {
+  public ReaderConfigurator getReaderConfigurator(int numTotalPartitions, SharedReaderCache sharedReaderCache) {
     return new BaseReaderConfigurator(
         this,
         getCacheNumBytesCapacity(),
         getCacheNumItemsCapacity(),
         getBufferReuseMaxSize(),
-        numTotalPartitions);
+        numTotalPartitions,
+        getMemoryMapEnabled(),
+        getMemoryMapPrefetchEnabled(),
+        sharedReaderCache);
   }
 
   @Override
@@ -144,6 +184,75 @@ public class YamlPartitionServerConfigurator extends YamlCoordinatorConfigurator
     return getLong(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY, CACHE_NUM_ITEMS_CAPACITY);
   }
 
+  @Override
+  public boolean getMemoryMapEnabled() {
+    Boolean result = getOptionalBoolean(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+        MEMORY_MAP_ENABLED);
+    return result != null && result;
+  }
+
+  @Override
+  public boolean getMemoryMapPrefetchEnabled() {
+    Boolean result = getOptionalBoolean(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+        MEMORY_MAP_PREFETCH_ENABLED);
+    return result != null && result;
+  }
+
+  @Override
+  public SharedReaderCache getSharedReaderCache() {
+    // The shared cache is created by the partition server and handed to Readers through getReaderConfigurator
+    return null;
+  }
+
+  @Override
+  public boolean getSharedCacheEnabled() {
+    Boolean result = getOptionalBoolean(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+        SHARED_CACHE_ENABLED);
+    return result != null && result;
+  }
+
+  @Override
+  public Map<String, Long> getSharedCacheDomainReservedNumBytes() {
+    Map<String, Object> section = getOptionalSection(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+        SHARED_CACHE_DOMAIN_RESERVED_NUM_BYTES);
+    Map<String, Long> result = new HashMap<String, Long>();
+    if (section != null) {
+      for (String domainName : section.keySet()) {
+        result.put(domainName, getLong(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+            SHARED_CACHE_DOMAIN_RESERVED_NUM_BYTES, domainName));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean getGetCoalescingEnabled() {
+    Boolean result = getOptionalBoolean(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+        GET_COALESCING_ENABLED);
+    return result != null && result;
+  }
+
+  @Override
+  public long getScanMaxBytesPerSecond() {
+    Long result = getOptionalLong(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+        SCAN_MAX_BYTES_PER_SECOND);
+    return result == null ? 0 : result;
+  }
+
+  @Override
+  public int getNumConcurrentReaderLoadsPerDataDirectory() {
+    Integer result = getOptionalInteger(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+        NUM_CONCURRENT_READER_LOADS_PER_DATA_DIRECTORY);
+    return result == null ? 1 : result;
+  }
+
+  @Override
+  public boolean getLazyReaderLoadingEnabled() {
+    Boolean result = getOptionalBoolean(PARTITION_SERVER_SECTION_KEY, PARTITION_SERVER_DAEMON_SECTION_KEY,
+        LAZY_READER_LOADING_ENABLED);
+    return result != null && result;
+  }
+
   @Override
   public int getNumConcurrentUpdates() {
     return getInteger(PARTITION_SERVER_SECTION_KEY, UPDATE_DAEMON_SECTION_KEY, NUM_CONCURRENT_UPDATES_KEY);
@@ -153,4 +262,16 @@ public class YamlPartitionServerConfigurator extends YamlCoordinatorConfigurator
   public int getMaxConcurrentUpdatesPerDataDirectory() {
     return getInteger(PARTITION_SERVER_SECTION_KEY, UPDATE_DAEMON_SECTION_KEY, MAX_CONCURRENT_UPDATES_PER_DATA_DIRECTORY_KEY);
   }
+
+  @Override
+  public boolean getOnlineUpdateEnabled() {
+    Boolean result = getOptionalBoolean(PARTITION_SERVER_SECTION_KEY, UPDATE_DAEMON_SECTION_KEY, ONLINE_UPDATE_ENABLED_KEY);
+    return result != null && result;
+  }
+
+  @Override
+  public long getOnlineUpdateMaxGetLatencyMs() {
+    Long result = getOptionalLong(PARTITION_SERVER_SECTION_KEY, UPDATE_DAEMON_SECTION_KEY, ONLINE_UPDATE_MAX_GET_LATENCY_MS_KEY);
+    return result == null ? 0 : result;
+  }
 }
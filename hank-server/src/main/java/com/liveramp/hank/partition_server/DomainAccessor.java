@@ -20,55 +20,198 @@ import com.liveramp.commons.util.BytesUtils;
 import com.liveramp.hank.coordinator.HostDomain;
 import com.liveramp.hank.generated.HankException;
 import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.generated.HankScanResponse;
 import com.liveramp.hank.partitioner.Partitioner;
 import com.liveramp.hank.storage.ReaderResult;
-import com.liveramp.hank.util.HankTimer;
 import com.liveramp.hank.util.HankTimerEventAggregator;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Class that manages accessing data on behalf of a particular Domain.
+ * <p/>
+ * Partition accessors can be swapped while serving. Gets acquire the accessor they use, so that a replaced accessor
+ * only closes its Reader once in-flight gets are done with it.
+ * <p/>
+ * Optionally, concurrent gets for the same key are coalesced: the first one performs the read and the others wait
+ * for its response instead of reading the same value again.
  */
 public class DomainAccessor {
 
   private static final HankResponse WRONG_HOST = HankResponse.xception(HankException.wrong_host(true));
+  private static final HankScanResponse WRONG_HOST_SCAN = HankScanResponse.xception(HankException.wrong_host(true));
 
   private static final Logger LOG = Logger.getLogger(DomainAccessor.class);
   private final HostDomain hostDomain;
-  private final PartitionAccessor[] partitionAccessors;
+  private final AtomicReferenceArray<PartitionAccessor> partitionAccessors;
   private final Partitioner partitioner;
   private final HankTimerEventAggregator getRequestsTimerAggregator;
+  // Null when get coalescing is disabled
+  private final ConcurrentMap<ByteBuffer, InFlightGet> inFlightGets;
+  // Keys of GET BULK requests waiting for an executor thread, and keys rejected since statistics were last read
+  private final AtomicLong numQueuedKeys = new AtomicLong(0);
+  private final AtomicLong numRejectedKeys = new AtomicLong(0);
 
   DomainAccessor(HostDomain hostDomain,
                  PartitionAccessor[] partitionAccessors,
                  Partitioner partitioner,
                  int getTimerAggregatorWindow) throws IOException {
+    this(hostDomain, partitionAccessors, partitioner, getTimerAggregatorWindow, false);
+  }
+
+  DomainAccessor(HostDomain hostDomain,
+                 PartitionAccessor[] partitionAccessors,
+                 Partitioner partitioner,
+                 int getTimerAggregatorWindow,
+                 boolean getCoalescingEnabled) throws IOException {
     this.hostDomain = hostDomain;
-    this.partitionAccessors = partitionAccessors;
+    this.partitionAccessors = new AtomicReferenceArray<PartitionAccessor>(partitionAccessors);
     this.partitioner = partitioner;
     this.getRequestsTimerAggregator = new HankTimerEventAggregator("GET " + hostDomain.getDomain().getName(),
         getTimerAggregatorWindow);
+    this.inFlightGets = getCoalescingEnabled ? new ConcurrentHashMap<ByteBuffer, InFlightGet>() : null;
   }
 
   public HankResponse get(ByteBuffer key, ReaderResult result) throws IOException {
-    HankTimer timer = getRequestsTimerAggregator.getTimer();
+    return get(key, result, null);
+  }
+
+  // See PartitionAccessor for the reusable response, which can be null
+  public HankResponse get(ByteBuffer key, ReaderResult result, HankResponse reusableResponse) throws IOException {
+    long startNanos = System.nanoTime();
     try {
-      int partition = partitioner.partition(key, partitionAccessors.length);
-      PartitionAccessor partitionAccessor = partitionAccessors[partition];
+      int partition = partitioner.partition(key, partitionAccessors.length());
+      PartitionAccessor partitionAccessor = acquirePartitionAccessor(partition);
       if (partitionAccessor == null) {
         LOG.error("Failed to perform get because of an Exception: wrong host for domain: " + hostDomain.getDomain().getName()
             + ", partition: " + partition + ", key: " + BytesUtils.bytesToHexString(key) + ", response: " + WRONG_HOST);
         return WRONG_HOST;
       }
-      return partitionAccessor.get(key, result);
+      try {
+        if (inFlightGets == null) {
+          return partitionAccessor.get(key, result, reusableResponse);
+        } else {
+          return getCoalesced(partitionAccessor, key, result, reusableResponse);
+        }
+      } finally {
+        partitionAccessor.release();
+      }
+    } finally {
+      getRequestsTimerAggregator.addNanos(System.nanoTime() - startNanos);
+    }
+  }
+
+  public void addQueuedKeys(int numKeys) {
+    numQueuedKeys.addAndGet(numKeys);
+  }
+
+  public void addRejectedKeys(int numKeys) {
+    numRejectedKeys.addAndGet(numKeys);
+  }
+
+  public int getPartition(ByteBuffer key) {
+    return partitioner.partition(key, partitionAccessors.length());
+  }
+
+  // All keys must belong to the given partition. Bulk gets are not coalesced.
+  public HankResponse[] getBulk(int partition, List<ByteBuffer> keys, ReaderResult[] results) throws IOException {
+    long startNanos = System.nanoTime();
+    try {
+      PartitionAccessor partitionAccessor = acquirePartitionAccessor(partition);
+      if (partitionAccessor == null) {
+        LOG.error("Failed to perform bulk get because of an Exception: wrong host for domain: " + hostDomain.getDomain().getName()
+            + ", partition: " + partition + ", response: " + WRONG_HOST);
+        HankResponse[] responses = new HankResponse[keys.size()];
+        Arrays.fill(responses, WRONG_HOST);
+        return responses;
+      }
+      try {
+        return partitionAccessor.getBulk(keys, results);
+      } finally {
+        partitionAccessor.release();
+      }
     } finally {
-      getRequestsTimerAggregator.add(timer);
+      getRequestsTimerAggregator.addNanos(System.nanoTime() - startNanos, keys.size());
     }
   }
 
+  // Scans are not timed with gets
+  public HankScanResponse scan(int partition, ByteBuffer cursor, int maxNumRecords, ScanThrottle throttle)
+      throws IOException {
+    PartitionAccessor partitionAccessor = acquirePartitionAccessor(partition);
+    if (partitionAccessor == null) {
+      LOG.error("Failed to perform scan because of an Exception: wrong host for domain: " + hostDomain.getDomain().getName()
+          + ", partition: " + partition + ", response: " + WRONG_HOST_SCAN);
+      return WRONG_HOST_SCAN;
+    }
+    try {
+      return partitionAccessor.scan(cursor, maxNumRecords, throttle);
+    } finally {
+      partitionAccessor.release();
+    }
+  }
+
+  private HankResponse getCoalesced(PartitionAccessor partitionAccessor,
+                                    ByteBuffer key,
+                                    ReaderResult result,
+                                    HankResponse reusableResponse) throws IOException {
+    InFlightGet inFlightGet = new InFlightGet();
+    InFlightGet leader = inFlightGets.putIfAbsent(key, inFlightGet);
+    if (leader != null) {
+      HankResponse response = leader.await();
+      if (response != null) {
+        partitionAccessor.countCoalescedGet(response);
+        return response;
+      }
+      // The leader failed or completed before this get could join it
+      return partitionAccessor.get(key, result, reusableResponse);
+    }
+    HankResponse response = null;
+    try {
+      response = partitionAccessor.get(key, result, reusableResponse);
+      return response;
+    } finally {
+      inFlightGets.remove(key, inFlightGet);
+      inFlightGet.complete(response);
+    }
+  }
+
+  // Retry when the accessor is shut down concurrently, since it has been swapped out and its replacement can be used
+  private PartitionAccessor acquirePartitionAccessor(int partition) {
+    while (true) {
+      PartitionAccessor partitionAccessor = partitionAccessors.get(partition);
+      if (partitionAccessor == null || partitionAccessor.acquire()) {
+        return partitionAccessor;
+      }
+    }
+  }
+
+  // Atomically replace the accessor of a partition, which can be null, and shut down the previous one.
+  // Its Reader is closed once gets that are using it complete.
+  public void swapPartitionAccessor(int partitionNumber, PartitionAccessor partitionAccessor) {
+    PartitionAccessor previous = partitionAccessors.getAndSet(partitionNumber, partitionAccessor);
+    if (previous != null) {
+      previous.shutDown();
+    }
+  }
+
+  public int getNumPartitions() {
+    return partitionAccessors.length();
+  }
+
+  // Average GET duration in ms over the last complete timer window
+  public double getRecentGetLatencyMs() {
+    return getRequestsTimerAggregator.getLastWindowAverageDuration();
+  }
+
   public String getName() {
     return hostDomain.getDomain().getName();
   }
@@ -79,22 +222,64 @@ public class DomainAccessor {
 
   public void shutDown() {
     // Shutdown partition accessors
-    for (PartitionAccessor partitionAccessor : partitionAccessors) {
-      if (partitionAccessor != null) {
-        partitionAccessor.shutDown();
-      }
+    for (int i = 0; i < partitionAccessors.length(); ++i) {
+      swapPartitionAccessor(i, null);
     }
   }
 
   public RuntimeStatisticsAggregator getRuntimeStatistics() {
     RuntimeStatisticsAggregator runtimeStatisticsAggregator = new RuntimeStatisticsAggregator();
-    for (PartitionAccessor partitionAccessor : partitionAccessors) {
+    for (int i = 0; i < partitionAccessors.length(); ++i) {
+      PartitionAccessor partitionAccessor = partitionAccessors.get(i);
       if (partitionAccessor != null) {
         runtimeStatisticsAggregator.add(partitionAccessor.getRuntimeStatistics());
       }
     }
     runtimeStatisticsAggregator.setGetRequestsPopulationStatistics(
         getRequestsTimerAggregator.getAndResetPopulationStatistics());
+    runtimeStatisticsAggregator.setQueueStatistics(numQueuedKeys.get(), numRejectedKeys.getAndSet(0));
     return runtimeStatisticsAggregator;
   }
+
+  // A get that other gets for the same key can wait on. The leader's value lives in its thread's ReaderResult,
+  // which is reused by its next get, so waiters are handed a copy made while the leader still owns it.
+  private static class InFlightGet {
+
+    private boolean done = false;
+    private int numWaiters = 0;
+    private HankResponse response = null;
+
+    // Return null if the response is not available and the caller should perform the read itself
+    private synchronized HankResponse await() {
+      if (done) {
+        return null;
+      }
+      ++numWaiters;
+      while (!done) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return null;
+        }
+      }
+      if (response != null && response.is_set_value()) {
+        return HankResponse.value(response.buffer_for_value().duplicate());
+      }
+      return response;
+    }
+
+    private synchronized void complete(HankResponse leaderResponse) {
+      done = true;
+      if (numWaiters > 0 && leaderResponse != null) {
+        if (leaderResponse.is_set_value()) {
+          // The value might be borrowed from a direct buffer
+          response = HankResponse.value(ReaderResult.deepCopy(leaderResponse.buffer_for_value()));
+        } else {
+          response = leaderResponse;
+        }
+      }
+      notifyAll();
+    }
+  }
 }
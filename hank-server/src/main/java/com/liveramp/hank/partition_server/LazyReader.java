@@ -0,0 +1,155 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.partition_server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.liveramp.hank.storage.BulkReader;
+import com.liveramp.hank.storage.CacheStatistics;
+import com.liveramp.hank.storage.Reader;
+import com.liveramp.hank.storage.ReaderResult;
+import com.liveramp.hank.storage.ScanPage;
+import com.liveramp.hank.storage.ScanReader;
+
+/**
+ * Reader that opens the Reader it delegates to on first access, or when open() is called, whichever comes first.
+ * <p/>
+ * Opening blocks: the access that opens the Reader waits for the whole open, and concurrent accesses to the
+ * partition (and the threads serving them) wait behind it. If opening fails, accesses fail right away with that
+ * failure until a backoff period has elapsed, and the next access then attempts to open the Reader again.
+ */
+public abstract class LazyReader implements BulkReader, ScanReader {
+
+  private static final Logger LOG = Logger.getLogger(LazyReader.class);
+
+  private static final long DEFAULT_OPEN_RETRY_BACKOFF_MS = 10 * 1000;
+
+  private final Integer versionNumber;
+  private final long openRetryBackoffMs;
+  private volatile Reader reader;
+  private IOException openException;
+  private long openRetryTimeMs;
+  private boolean closed = false;
+
+  // The version number is reported before the Reader is opened
+  public LazyReader(Integer versionNumber) {
+    this(versionNumber, DEFAULT_OPEN_RETRY_BACKOFF_MS);
+  }
+
+  public LazyReader(Integer versionNumber, long openRetryBackoffMs) {
+    this.versionNumber = versionNumber;
+    this.openRetryBackoffMs = openRetryBackoffMs;
+  }
+
+  protected abstract Reader doOpen() throws IOException;
+
+  public Reader open() throws IOException {
+    Reader result = reader;
+    if (result != null) {
+      return result;
+    }
+    synchronized (this) {
+      if (reader != null) {
+        return reader;
+      }
+      if (closed) {
+        throw new IOException("Reader is closed");
+      }
+      if (openException != null && System.currentTimeMillis() < openRetryTimeMs) {
+        throw new IOException("Failed to open Reader, not retrying before " + openRetryBackoffMs + "ms have elapsed",
+            openException);
+      }
+      LOG.info("Opening Reader with version " + versionNumber + ". Accesses to it wait until it is open.");
+      long startTimeMs = System.currentTimeMillis();
+      try {
+        reader = doOpen();
+      } catch (IOException e) {
+        openException = e;
+        openRetryTimeMs = System.currentTimeMillis() + openRetryBackoffMs;
+        LOG.error("Failed to open Reader with version " + versionNumber + ". Retrying on access after "
+            + openRetryBackoffMs + "ms.", e);
+        throw e;
+      }
+      openException = null;
+      LOG.info("Opened Reader with version " + versionNumber + " in " + (System.currentTimeMillis() - startTimeMs) + "ms");
+      return reader;
+    }
+  }
+
+  public boolean isOpen() {
+    return reader != null;
+  }
+
+  @Override
+  public void get(ByteBuffer key, ReaderResult result) throws IOException {
+    open().get(key, result);
+  }
+
+  @Override
+  public void getBulk(List<ByteBuffer> keys, ReaderResult[] results) throws IOException {
+    Reader reader = open();
+    if (reader instanceof BulkReader) {
+      ((BulkReader)reader).getBulk(keys, results);
+    } else {
+      for (int i = 0; i < keys.size(); ++i) {
+        reader.get(keys.get(i), results[i]);
+      }
+    }
+  }
+
+  @Override
+  public void scan(ByteBuffer afterKeyHash, ScanPage page) throws IOException {
+    Reader reader = open();
+    if (!(reader instanceof ScanReader)) {
+      throw new IOException("Reader does not support scans: " + reader);
+    }
+    ((ScanReader)reader).scan(afterKeyHash, page);
+  }
+
+  @Override
+  public Integer getVersionNumber() {
+    return versionNumber;
+  }
+
+  // Return null until the Reader is opened, there are no statistics to report yet
+  @Override
+  public CacheStatistics getCacheStatistics() {
+    Reader reader = this.reader;
+    if (reader == null) {
+      return null;
+    }
+    return reader.getCacheStatistics();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    closed = true;
+    if (reader != null) {
+      reader.close();
+      reader = null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "LazyReader [" + reader + "]";
+  }
+}
@@ -18,13 +18,22 @@ package com.liveramp.hank.partition_server;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
 import com.liveramp.hank.coordinator.HostDomainPartition;
+import com.liveramp.hank.generated.HankException;
 import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.generated.HankScanPage;
+import com.liveramp.hank.generated.HankScanResponse;
+import com.liveramp.hank.storage.BulkReader;
 import com.liveramp.hank.storage.Reader;
 import com.liveramp.hank.storage.ReaderResult;
+import com.liveramp.hank.storage.ScanPage;
+import com.liveramp.hank.storage.ScanReader;
 import com.liveramp.hank.util.AtomicLongCollection;
 import com.liveramp.hank.util.HankTimer;
 
@@ -32,21 +41,30 @@ import com.liveramp.hank.util.HankTimer;
  * Wrapper class that stores: 1. HostDomainPartition 2. Reader: The Reader
  * associated with the HostDomainPartition 3. AtomicLongCollection: counters
  * for number of requests and hits in a given time window
+ * <p/>
+ * Accessors are reference counted so that they can be replaced while serving: readers acquire the accessor
+ * before using it and release it afterwards, and the Reader is closed once the accessor has been shut down
+ * and all in-flight reads have released it.
  */
 public class PartitionAccessor {
 
   private static final HankResponse NOT_FOUND = HankResponse.not_found(true);
   private static final Logger LOG = Logger.getLogger(PartitionAccessor.class);
 
+  // Indices of the window counters
+  private static final int NUM_REQUESTS = 0;
+  private static final int NUM_HITS = 1;
+  private static final int RESPONSES_NUM_BYTES = 2;
+  private static final int NUM_L1_CACHE_HITS = 3;
+  private static final int NUM_L2_CACHE_HITS = 4;
+  private static final int NUM_COALESCED_HITS = 5;
+
   private final HostDomainPartition partition;
   private final Reader reader;
   private final HankTimer windowTimer = new HankTimer();
-  //0: num requests
-  //1: num hits
-  //2: responses data num bytes
-  //3: num L1 cache hits
-  //4: num L2 cache hits
   private final AtomicLongCollection countersWindow;
+  // One reference is held by the owner until shutDown() is called
+  private final AtomicInteger numReferences = new AtomicInteger(1);
 
   public PartitionAccessor(HostDomainPartition partition, Reader reader) {
     if (reader == null) {
@@ -55,7 +73,7 @@ public class PartitionAccessor {
     this.partition = partition;
     this.reader = reader;
     windowTimer.restart();
-    countersWindow = new AtomicLongCollection(5, new long[]{0, 0, 0, 0, 0});
+    countersWindow = new AtomicLongCollection(6, new long[]{0, 0, 0, 0, 0, 0});
   }
 
   public HostDomainPartition getHostDomainPartition() {
@@ -63,31 +81,143 @@ public class PartitionAccessor {
   }
 
   public HankResponse get(ByteBuffer key, ReaderResult result) throws IOException {
-    // Increment requests counter
+    return get(key, result, null);
+  }
+
+  // When not null, the reusable response is set and returned instead of allocating a response for found values.
+  // It then points to the result's buffer, like an allocated response would.
+  public HankResponse get(ByteBuffer key, ReaderResult result, HankResponse reusableResponse) throws IOException {
     LOG.trace("Partition GET");
     reader.get(key, result);
-    int l1CacheHit = result.getL1CacheHit() ? 1 : 0;
-    int l2CacheHit = result.getL2CacheHit() ? 1 : 0;
+    return getResponse(result, reusableResponse);
+  }
+
+  // Look up keys in the order of the data they need when the Reader supports it. Each key gets its own result.
+  public HankResponse[] getBulk(List<ByteBuffer> keys, ReaderResult[] results) throws IOException {
+    LOG.trace("Partition GET BULK");
+    if (reader instanceof BulkReader) {
+      ((BulkReader)reader).getBulk(keys, results);
+    } else {
+      for (int i = 0; i < keys.size(); ++i) {
+        reader.get(keys.get(i), results[i]);
+      }
+    }
+    HankResponse[] responses = new HankResponse[keys.size()];
+    for (int i = 0; i < keys.size(); ++i) {
+      responses[i] = getResponse(results[i], null);
+    }
+    return responses;
+  }
+
+  // Return the records that follow the cursor. Cursors are the version number of the scanned Reader followed by the
+  // last returned key hash, so that a scan can not be resumed on another version of the partition.
+  // When the throttle refuses the page, an empty page is returned with the same cursor.
+  public HankScanResponse scan(ByteBuffer cursor, int maxNumRecords, ScanThrottle throttle) throws IOException {
+    LOG.trace("Partition SCAN");
+    if (!(reader instanceof ScanReader)) {
+      return HankScanResponse.xception(HankException.internal_error("Reader does not support scans: " + reader));
+    }
+    int versionNumber = reader.getVersionNumber() == null ? -1 : reader.getVersionNumber();
+    ByteBuffer afterKeyHash = null;
+    if (cursor != null && cursor.hasRemaining()) {
+      if (cursor.remaining() < 4 || cursor.getInt(cursor.position()) != versionNumber) {
+        return HankScanResponse.xception(HankException.internal_error(
+            "Scan cursor does not match the current version of the partition: " + versionNumber));
+      }
+      afterKeyHash = cursor.duplicate();
+      afterKeyHash.position(afterKeyHash.position() + 4);
+    }
+    HankScanPage result = new HankScanPage();
+    result.set_version_number(versionNumber);
+    if (!throttle.tryAcquire()) {
+      result.set_key_hashes(new ArrayList<ByteBuffer>());
+      result.set_values(new ArrayList<ByteBuffer>());
+      // An unset cursor would mean that the scan is complete
+      result.set_cursor(cursor == null ? ByteBuffer.allocate(0) : cursor.duplicate());
+      return HankScanResponse.page(result);
+    }
+    ScanPage page = new ScanPage(maxNumRecords);
+    try {
+      ((ScanReader)reader).scan(afterKeyHash, page);
+    } finally {
+      throttle.release(page.getNumBytes());
+    }
+    result.set_key_hashes(page.getKeyHashes());
+    result.set_values(page.getValues());
+    if (!page.isComplete()) {
+      ByteBuffer lastKeyHash = page.getLastKeyHash();
+      ByteBuffer nextCursor = ByteBuffer.allocate(4 + lastKeyHash.remaining());
+      nextCursor.putInt(versionNumber);
+      nextCursor.put(lastKeyHash.duplicate());
+      nextCursor.flip();
+      result.set_cursor(nextCursor);
+    }
+    return HankScanResponse.page(result);
+  }
+
+  // Counters are incremented one by one, which does not allocate
+  private HankResponse getResponse(ReaderResult result, HankResponse reusableResponse) {
+    countersWindow.add(NUM_REQUESTS, 1);
+    if (result.getL1CacheHit()) {
+      countersWindow.add(NUM_L1_CACHE_HITS, 1);
+    }
+    if (result.getL2CacheHit()) {
+      countersWindow.add(NUM_L2_CACHE_HITS, 1);
+    }
     if (result.isFound()) {
-      countersWindow.increment(1, 1, result.getBuffer().remaining(), l1CacheHit, l2CacheHit);
-      return HankResponse.value(result.getBuffer());
+      countersWindow.add(NUM_HITS, 1);
+      countersWindow.add(RESPONSES_NUM_BYTES, result.getBuffer().remaining());
+      if (reusableResponse == null) {
+        return HankResponse.value(result.getBuffer());
+      }
+      reusableResponse.set_value(result.getBuffer());
+      return reusableResponse;
     } else {
-      countersWindow.increment(1, 0, 0, l1CacheHit, l2CacheHit);
       return NOT_FOUND;
     }
   }
 
+  // Account for a request that was answered with the response of an identical in-flight request
+  public void countCoalescedGet(HankResponse response) {
+    countersWindow.add(NUM_REQUESTS, 1);
+    countersWindow.add(NUM_COALESCED_HITS, 1);
+    if (response.is_set_value()) {
+      countersWindow.add(NUM_HITS, 1);
+      countersWindow.add(RESPONSES_NUM_BYTES, response.buffer_for_value().remaining());
+    }
+  }
+
+  // Return false if the accessor has been shut down and can not be used anymore
+  public boolean acquire() {
+    while (true) {
+      int current = numReferences.get();
+      if (current <= 0) {
+        return false;
+      }
+      if (numReferences.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  public void release() {
+    if (numReferences.decrementAndGet() == 0) {
+      closeReader();
+    }
+  }
+
   public PartitionAccessorRuntimeStatistics getRuntimeStatistics() {
     // Copy duration and counts
     long windowDurationNanos = windowTimer.getDuration();
     windowTimer.restart();
     // Get atomic counters
-    long[] counters = countersWindow.getAsArrayAndSet(0, 0, 0, 0, 0);
-    long numRequestsInWindow = counters[0];
-    long numHitsInWindow = counters[1];
-    long responsesNumBytesInWindow = counters[2];
-    long numL1CacheHitsInWindow = counters[3];
-    long numL2CacheHitsInWindow = counters[4];
+    long[] counters = countersWindow.getAsArrayAndSet(0, 0, 0, 0, 0, 0);
+    long numRequestsInWindow = counters[NUM_REQUESTS];
+    long numHitsInWindow = counters[NUM_HITS];
+    long responsesNumBytesInWindow = counters[RESPONSES_NUM_BYTES];
+    long numL1CacheHitsInWindow = counters[NUM_L1_CACHE_HITS];
+    long numL2CacheHitsInWindow = counters[NUM_L2_CACHE_HITS];
+    long numCoalescedHitsInWindow = counters[NUM_COALESCED_HITS];
     double throughput = 0;
     double responseDataThroughput = 0;
     if (windowDurationNanos != 0) {
@@ -101,10 +231,16 @@ public class PartitionAccessor {
         responseDataThroughput,
         numL1CacheHitsInWindow,
         numL2CacheHitsInWindow,
+        numCoalescedHitsInWindow,
         reader.getCacheStatistics());
   }
 
+  // Release the owner's reference. The Reader is closed when the last in-flight read completes.
   public void shutDown() {
+    release();
+  }
+
+  private void closeReader() {
     if (reader != null) {
       try {
         reader.close();
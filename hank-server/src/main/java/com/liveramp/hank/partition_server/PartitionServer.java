@@ -80,6 +80,7 @@ public class PartitionServer implements HostCommandQueueChangeListener, WatchedN
   private Thread offlineWatcherThread;
 
   private TThreadedSelectorServer dataServer;
+  private volatile IfaceWithShutdown handler;
   private Thread dataServerThread;
   private boolean waitForDataServer;
 
@@ -131,6 +132,8 @@ public class PartitionServer implements HostCommandQueueChangeListener, WatchedN
 
     addServerOfflineWatcher();
 
+    Hosts.setOnlineUpdateEnabled(host, configurator.getOnlineUpdateEnabled());
+
     while (host.getState() != HostState.IDLE) {
       LOG.info("Waiting for Host state " + HostState.IDLE + " to propagate.");
       Thread.sleep(100);
@@ -154,10 +157,10 @@ public class PartitionServer implements HostCommandQueueChangeListener, WatchedN
     }
     // Shuting down
     LOG.info("Partition server main thread is stopping.");
+    // Stop updating if necessary. Online updates need to stop before the handler is shut down.
+    stopUpdating();
     // Stop serving data
     stopServingData();
-    // Stop updating if necessary
-    stopUpdating();
     // Signal OFFLINE
     setStateSynchronized(HostState.OFFLINE); // In case of exception, server will stop and state will be coherent.
     // Remove shutdown hook. We don't need it anymore as we just set the host state to OFFLINE
@@ -238,6 +241,12 @@ public class PartitionServer implements HostCommandQueueChangeListener, WatchedN
     return new UpdateManager(configurator, host, ringGroup);
   }
 
+  // Update manager that swaps new partition versions into the given handler while it is serving
+  protected IUpdateManager getOnlineUpdateManager(PartitionServerHandler handler) throws IOException {
+    return new UpdateManager(configurator, host, ringGroup, handler,
+        new UpdateThrottle(handler, configurator.getOnlineUpdateMaxGetLatencyMs()));
+  }
+
   @Override
   public synchronized void onCommandQueueChange(Host host) {
     LOG.info("Command queue changed.");
@@ -348,9 +357,21 @@ public class PartitionServer implements HostCommandQueueChangeListener, WatchedN
     switch (state) {
       case IDLE:
         host.setState(HostState.UPDATING); // In case of exception, server will stop and state will be coherent.
-        executeUpdate();
+        executeUpdate(null);
         // Next command is set by the updater thread
         break;
+      case SERVING:
+        IfaceWithShutdown currentHandler = handler;
+        if (configurator.getOnlineUpdateEnabled() && currentHandler instanceof PartitionServerHandler) {
+          // Keep serving, new partition versions are swapped in as they are ready
+          LOG.info("Updating online while serving.");
+          executeUpdate((PartitionServerHandler)currentHandler);
+          // Next command is set by the updater thread
+        } else {
+          LOG.info(ignoreIncompatibleCommandMessage(HostCommand.EXECUTE_UPDATE, state));
+          host.nextCommand(); // In case of exception, server will stop and state will be coherent.
+        }
+        break;
       default:
         LOG.info(ignoreIncompatibleCommandMessage(HostCommand.EXECUTE_UPDATE, state));
         host.nextCommand(); // In case of exception, server will stop and state will be coherent.
@@ -370,7 +391,8 @@ public class PartitionServer implements HostCommandQueueChangeListener, WatchedN
     }
   }
 
-  private void executeUpdate() {
+  // Perform an online update when a serving handler is given, an offline update otherwise
+  private void executeUpdate(final PartitionServerHandler onlineUpdateHandler) {
     if (updateThread != null) {
       LOG.error("Update got called while one is already running!");
       return;
@@ -379,17 +401,24 @@ public class PartitionServer implements HostCommandQueueChangeListener, WatchedN
       @Override
       public void run() {
         try {
-          IUpdateManager updateManager = getUpdateManager();
+          IUpdateManager updateManager;
+          if (onlineUpdateHandler != null) {
+            updateManager = getOnlineUpdateManager(onlineUpdateHandler);
+          } else {
+            updateManager = getUpdateManager();
+          }
           updateManager.update();
           LOG.info("Update succeeded.");
         } catch (Throwable e) {
           LOG.fatal("Update failed. Updater encountered a fatal error:", e);
         }
-        // Go back to IDLE even in case of failure
-        try {
-          setStateSynchronized(HostState.IDLE); // In case of exception, server will stop and state will be coherent.
-        } catch (IOException e) {
-          LOG.fatal("Failed to record state change.", e);
+        // Go back to IDLE even in case of failure. Online updates keep serving.
+        if (onlineUpdateHandler == null) {
+          try {
+            setStateSynchronized(HostState.IDLE); // In case of exception, server will stop and state will be coherent.
+          } catch (IOException e) {
+            LOG.fatal("Failed to record state change.", e);
+          }
         }
         // Move on to next command
         try {
@@ -418,13 +447,15 @@ public class PartitionServer implements HostCommandQueueChangeListener, WatchedN
     try {
       // Set up the service handler
       handler = getHandler();
+      this.handler = handler;
       // Launch the thrift server
       TNonblockingServerSocket serverSocket = new TNonblockingServerSocket(configurator.getServicePort());
       TThreadedSelectorServer.Args options = new TThreadedSelectorServer.Args(serverSocket);
       options.processor(new com.liveramp.hank.generated.PartitionServer.Processor(handler));
       options.workerThreads(configurator.getNumConcurrentQueries());
       options.selectorThreads(4);
-      options.protocolFactory(new TCompactProtocol.Factory());
+      // Compatible with TCompactProtocol clients
+      options.protocolFactory(new PartitionServerCompactProtocol.Factory());
       dataServer = new TThreadedSelectorServer(options);
       LOG.info("Launching Thrift server.");
       dataServer.serve();
@@ -439,6 +470,7 @@ public class PartitionServer implements HostCommandQueueChangeListener, WatchedN
     } finally {
       // Always shut down the handler
       if (handler != null) {
+        this.handler = null;
         LOG.debug("Shutting down Partition Server handler.");
         handler.shutDown();
       }
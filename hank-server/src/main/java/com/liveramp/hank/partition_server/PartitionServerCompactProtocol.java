@@ -0,0 +1,84 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.partition_server;
+
+import java.nio.ByteBuffer;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.apache.thrift.transport.TTransport;
+
+/**
+ * TCompactProtocol that can also write binary fields from direct buffers, such as values that Readers borrow from
+ * memory mapped files. TCompactProtocol only supports heap buffers. The wire format is unchanged.
+ * <p/>
+ * Direct buffers are written to the transport one chunk at a time, through a small thread local array, so that large
+ * values are not first copied into a heap buffer of their own.
+ */
+public class PartitionServerCompactProtocol extends TCompactProtocol {
+
+  private static final int DIRECT_BUFFER_CHUNK_SIZE = 8 << 10;
+  private static final ThreadLocal<byte[]> directBufferChunk = new ThreadLocal<byte[]>() {
+    @Override
+    protected byte[] initialValue() {
+      return new byte[DIRECT_BUFFER_CHUNK_SIZE];
+    }
+  };
+
+  private final byte[] varintBuffer = new byte[5];
+
+  public static class Factory implements TProtocolFactory {
+
+    @Override
+    public TProtocol getProtocol(TTransport transport) {
+      return new PartitionServerCompactProtocol(transport);
+    }
+  }
+
+  public PartitionServerCompactProtocol(TTransport transport) {
+    super(transport);
+  }
+
+  @Override
+  public void writeBinary(ByteBuffer bin) throws TException {
+    if (bin.hasArray()) {
+      super.writeBinary(bin);
+      return;
+    }
+    writeVarint32(bin.remaining());
+    byte[] chunk = directBufferChunk.get();
+    ByteBuffer source = bin.duplicate();
+    while (source.hasRemaining()) {
+      int chunkSize = Math.min(chunk.length, source.remaining());
+      source.get(chunk, 0, chunkSize);
+      getTransport().write(chunk, 0, chunkSize);
+    }
+  }
+
+  // Same encoding as TCompactProtocol, which does not expose it
+  private void writeVarint32(int n) throws TException {
+    int size = 0;
+    while ((n & ~0x7F) != 0) {
+      varintBuffer[size++] = (byte)((n & 0x7F) | 0x80);
+      n >>>= 7;
+    }
+    varintBuffer[size++] = (byte)n;
+    getTransport().write(varintBuffer, 0, size);
+  }
+}
@@ -18,16 +18,25 @@ package com.liveramp.hank.partition_server;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.liveramp.commons.util.BytesUtils;
 import com.liveramp.hank.config.PartitionServerConfigurator;
@@ -44,34 +53,60 @@ import com.liveramp.hank.coordinator.Ring;
 import com.liveramp.hank.generated.HankBulkResponse;
 import com.liveramp.hank.generated.HankException;
 import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.generated.HankScanResponse;
 import com.liveramp.hank.storage.Reader;
 import com.liveramp.hank.storage.ReaderResult;
+import com.liveramp.hank.storage.SharedReaderCache;
 import com.liveramp.hank.storage.StorageEngine;
 import com.liveramp.hank.util.UpdateStatisticsRunnable;
 import org.apache.log4j.Logger;
 
 /**
  * Implements the actual data serving logic of the PartitionServer
+ * <p/>
+ * During online updates, Readers of updated partitions are loaded and swapped in while serving.
+ * <p/>
+ * GET BULK requests are executed by a pool of threads. Optionally, large requests are executed by a separate batch
+ * pool so that they do not delay interactive ones, and requests are rejected with an overloaded exception when too
+ * many tasks are already waiting, so that clients can fail over to other replicas instead of queuing up.
+ * <p/>
+ * At startup, Readers are loaded by a bounded pool per data directory. Optionally, serving starts right away and
+ * Readers are opened in the background, or on first access.
  */
-public class PartitionServerHandler implements IfaceWithShutdown {
+public class PartitionServerHandler implements IfaceWithShutdown, PartitionUpdateListener {
 
   private final static Logger LOG = Logger.getLogger(PartitionServerHandler.class);
 
   private final Host host;
   private static final HankResponse NO_SUCH_DOMAIN = HankResponse.xception(HankException.no_such_domain(true));
   private static final HankBulkResponse NO_SUCH_DOMAIN_BULK = HankBulkResponse.xception(HankException.no_such_domain(true));
+  private static final HankScanResponse NO_SUCH_DOMAIN_SCAN = HankScanResponse.xception(HankException.no_such_domain(true));
+  private static final HankBulkResponse OVERLOADED_BULK = HankBulkResponse.xception(HankException.overloaded(true));
   private final int getBulkTaskSize;
   private final int bufferReuseMaxSize;
   private static final long GET_BULK_TASK_EXECUTOR_KEEP_ALIVE_VALUE = 1;
   private static final TimeUnit GET_BULK_TASK_EXECUTOR_KEEP_ALIVE_UNIT = TimeUnit.DAYS;
 
-  private static final ReaderResultThreadLocal readerResultThreadLocal = new ReaderResultThreadLocal();
-  private final DomainAccessor[] domainAccessors;
+  private static final GetContextThreadLocal getContextThreadLocal = new GetContextThreadLocal();
+  // Copy on write, so that domains can be added during online updates
+  private volatile DomainAccessor[] domainAccessors;
+  private final PartitionServerConfigurator configurator;
+  private final int numTotalPartitions;
+  private final SharedReaderCache sharedReaderCache;
   private final ThreadPoolExecutor getBulkTaskExecutor;
+  // Null when there is no batch lane
+  private final ThreadPoolExecutor batchGetBulkTaskExecutor;
+  private final int batchGetBulkMinNumKeys;
+  private final ScanThrottle scanThrottle;
   private static final long GET_BULK_TASK_EXECUTOR_AWAIT_TERMINATION_VALUE = 1;
   private static final TimeUnit GET_BULK_TASK_EXECUTOR_AWAIT_TERMINATION_UNIT = TimeUnit.SECONDS;
   private static final double USED_SIZE_THRESHOLD_FOR_VALUE_BUFFER_DEEP_COPY = 0.75;
 
+  private final List<ExecutorService> readerLoadExecutors;
+  private final int numTotalReaders;
+  private final AtomicInteger numLoadedReaders = new AtomicInteger(0);
+  private static final long READER_LOAD_PROGRESS_REPORT_PERIOD_MS = 1000;
+
   private final UpdateStatisticsRunnable updateRuntimeStatisticsRunnable;
   private final Thread updateRuntimeStatisticsThread;
   private static final int UPDATE_RUNTIME_STATISTICS_THREAD_SLEEP_TIME_MS_DEFAULT = 30000;
@@ -80,21 +115,23 @@ public class PartitionServerHandler implements IfaceWithShutdown {
   public PartitionServerHandler(PartitionServerAddress address,
                                 PartitionServerConfigurator configurator,
                                 Coordinator coordinator) throws IOException {
-
-    // Create the GET executor
-    getBulkTaskExecutor = new ThreadPoolExecutor(
-        configurator.getNumConcurrentGetBulkTasks(),
-        configurator.getNumConcurrentGetBulkTasks(),
-        GET_BULK_TASK_EXECUTOR_KEEP_ALIVE_VALUE,
-        GET_BULK_TASK_EXECUTOR_KEEP_ALIVE_UNIT,
-        new LinkedBlockingQueue<Runnable>(),
-        new GetBulkThreadFactory());
+    this.configurator = configurator;
+
+    // Create the GET executors
+    getBulkTaskExecutor = createGetBulkTaskExecutor(configurator.getNumConcurrentGetBulkTasks(),
+        configurator.getGetBulkTaskQueueSize(), "GET BULK Thread ");
+    batchGetBulkMinNumKeys = configurator.getBatchGetBulkMinNumKeys();
+    if (batchGetBulkMinNumKeys > 0) {
+      batchGetBulkTaskExecutor = createGetBulkTaskExecutor(configurator.getNumConcurrentBatchGetBulkTasks(),
+          configurator.getGetBulkTaskQueueSize(), "BATCH GET BULK Thread ");
+    } else {
+      batchGetBulkTaskExecutor = null;
+    }
 
     getBulkTaskSize = configurator.getGetBulkTaskSize();
     bufferReuseMaxSize = configurator.getBufferReuseMaxSize();
 
-    // Prestart core threads
-    getBulkTaskExecutor.prestartAllCoreThreads();
+    scanThrottle = new ScanThrottle(configurator.getScanMaxBytesPerSecond());
 
     // Find the ring
     Ring ring = coordinator.getRingGroup(configurator.getRingGroupName()).getRingForHost(address);
@@ -130,6 +167,21 @@ public class PartitionServerHandler implements IfaceWithShutdown {
       }
     }
     LOG.info("Detected " + numTotalPartitions + " loadable partitions for " + host);
+    this.numTotalPartitions = numTotalPartitions;
+
+    // Create the cache shared by all Readers, if enabled
+    if (configurator.getSharedCacheEnabled()
+        && (configurator.getCacheNumBytesCapacity() > 0 || configurator.getCacheNumItemsCapacity() > 0)) {
+      sharedReaderCache = new SharedReaderCache(
+          configurator.getCacheNumBytesCapacity(),
+          configurator.getCacheNumItemsCapacity(),
+          numTotalPartitions,
+          configurator.getSharedCacheDomainReservedNumBytes());
+      LOG.info("Readers will share a cache of " + configurator.getCacheNumBytesCapacity() + " bytes and "
+          + configurator.getCacheNumItemsCapacity() + " items");
+    } else {
+      sharedReaderCache = null;
+    }
 
     // Determine the max domain id so we can bound the arrays
     int maxDomainId = 0;
@@ -141,13 +193,17 @@ public class PartitionServerHandler implements IfaceWithShutdown {
     }
     domainAccessors = new DomainAccessor[maxDomainId + 1];
 
-    // Loop over the domains and get set up
-    List<Exception> exceptions = new ArrayList<Exception>();
+    // Build the Reader load tasks, organized per data directory
+    boolean lazyReaderLoadingEnabled = configurator.getLazyReaderLoadingEnabled();
+    List<Exception> exceptions = Collections.synchronizedList(new ArrayList<Exception>());
+    Map<String, List<ReaderLoadTask>> dataDirectoryToReaderLoadTasks = new HashMap<String, List<ReaderLoadTask>>();
+    List<Domain> domains = new ArrayList<Domain>();
+    List<HostDomain> hostDomains = new ArrayList<HostDomain>();
+    List<PartitionAccessor[]> hostDomainsPartitionAccessors = new ArrayList<PartitionAccessor[]>();
+    int numTotalReaders = 0;
     for (DomainAndVersion dgvdv : domainGroup.getDomainVersions()) {
       Domain domain = dgvdv.getDomain();
-      StorageEngine engine = domain.getStorageEngine();
 
-      int domainId = dgvdv.getDomain().getId();
       HostDomain hostDomain = host.getHostDomain(domain);
       if (hostDomain == null) {
         LOG.error(String.format("Could not get HostDomain of Domain %s on Host %s. Skipping.", domain, host));
@@ -162,9 +218,10 @@ public class PartitionServerHandler implements IfaceWithShutdown {
       LOG.info(String.format("Loading %d/%d partitions of domain %s",
           partitions.size(), domain.getNumParts(), domain.getName()));
 
-      // Instantiate the PartitionAccessor array
+      // Instantiate the PartitionAccessor array. It is filled by the load tasks.
       PartitionAccessor[] partitionAccessors =
           new PartitionAccessor[domain.getNumParts()];
+      StorageEngine engine = domain.getStorageEngine();
       for (HostDomainPartition partition : partitions) {
         if (partition.getCurrentDomainVersion() == null) {
           LOG.error(String.format(
@@ -172,42 +229,50 @@ public class PartitionServerHandler implements IfaceWithShutdown {
               partition.getPartitionNumber(), domain.getName()));
           continue;
         }
-
-        Reader reader;
-        try {
-          reader = engine.getReader(configurator.getReaderConfigurator(numTotalPartitions), partition.getPartitionNumber());
-        } catch (IOException e) {
-          // Something went wrong when loading this partition's Reader. Set it deletable and signal failure.
-          if (!partition.isDeletable()) {
-            partition.setDeletable(true);
-          }
-          final String msg = String.format("Could not load Reader for partition #%d of domain %s because of an exception.",
-              partition.getPartitionNumber(), domain.getName());
-          LOG.error(msg, e);
-          exceptions.add(new IOException(msg, e));
-          continue;
-        }
-        // Check that Reader's version number and current domain group version number match
-        if (reader.getVersionNumber() != null && !reader.getVersionNumber().equals(partition.getCurrentDomainVersion())) {
-          // Something went wrong when loading this partition's Reader. Set it deletable and signal failure.
-          partition.setDeletable(true);
-          final String msg = String.format("Could not load Reader for partition #%d of domain %s because version numbers reported by the Reader (%d) and by metadata (%d) differ.",
-              partition.getPartitionNumber(), domain.getName(), reader.getVersionNumber(), partition.getCurrentDomainVersion());
-          LOG.error(msg);
-          exceptions.add(new IOException(msg));
-          continue;
+        LazyReader lazyReader = null;
+        if (lazyReaderLoadingEnabled) {
+          // Serve right away, the Reader is opened by its load task or by the first access
+          lazyReader = createLazyReader(domain, partition);
+          partitionAccessors[partition.getPartitionNumber()] = new PartitionAccessor(partition, lazyReader);
         }
-        LOG.info(String.format("Loaded Reader for domain %s, partition #%d",
-            domain.getName(), partition.getPartitionNumber()));
-        partitionAccessors[partition.getPartitionNumber()] = new PartitionAccessor(partition, reader);
-        // Loading succeeded, if the partition was deletable, it should not be
-        if (partition.isDeletable()) {
-          partition.setDeletable(false);
+        String dataDirectory = engine.getDataDirectory(configurator, partition.getPartitionNumber());
+        List<ReaderLoadTask> readerLoadTasks = dataDirectoryToReaderLoadTasks.get(dataDirectory);
+        if (readerLoadTasks == null) {
+          readerLoadTasks = new ArrayList<ReaderLoadTask>();
+          dataDirectoryToReaderLoadTasks.put(dataDirectory, readerLoadTasks);
         }
+        readerLoadTasks.add(new ReaderLoadTask(domain, partition, partitionAccessors, lazyReader, exceptions));
+        ++numTotalReaders;
+      }
+      domains.add(domain);
+      hostDomains.add(hostDomain);
+      hostDomainsPartitionAccessors.add(partitionAccessors);
+    }
+    this.numTotalReaders = numTotalReaders;
+
+    // Load Readers concurrently, with a bounded number of loads per data directory
+    Hosts.setReaderLoadProgress(host, 0, numTotalReaders);
+    readerLoadExecutors = new ArrayList<ExecutorService>();
+    for (Map.Entry<String, List<ReaderLoadTask>> entry : dataDirectoryToReaderLoadTasks.entrySet()) {
+      LOG.info("Number of Reader load tasks scheduled in " + entry.getKey() + ": " + entry.getValue().size());
+      ExecutorService executor = Executors.newFixedThreadPool(configurator.getNumConcurrentReaderLoadsPerDataDirectory(),
+          new ReaderLoadThreadFactory(entry.getKey()));
+      for (ReaderLoadTask readerLoadTask : entry.getValue()) {
+        executor.execute(readerLoadTask);
       }
-      // configure and store the DomainAccessors
-      domainAccessors[domainId] = new DomainAccessor(hostDomain, partitionAccessors, domain.getPartitioner(),
-          configurator.getGetTimerAggregatorWindow());
+      // Submitted tasks still run
+      executor.shutdown();
+      readerLoadExecutors.add(executor);
+    }
+    if (!lazyReaderLoadingEnabled) {
+      waitForReaderLoads(exceptions);
+    }
+
+    // Configure and store the DomainAccessors
+    for (int i = 0; i < hostDomains.size(); ++i) {
+      Domain domain = domains.get(i);
+      domainAccessors[domain.getId()] = new DomainAccessor(hostDomains.get(i), hostDomainsPartitionAccessors.get(i),
+          domain.getPartitioner(), configurator.getGetTimerAggregatorWindow(), configurator.getGetCoalescingEnabled());
     }
     // If there was a failure, abort and skip current command.
     if (!exceptions.isEmpty()) {
@@ -220,16 +285,153 @@ public class PartitionServerHandler implements IfaceWithShutdown {
     updateRuntimeStatisticsThread.start();
   }
 
+  // Core threads are prestarted. Tasks are rejected once the queue is full, unless its size is 0 (unbounded).
+  private static ThreadPoolExecutor createGetBulkTaskExecutor(int numThreads, int queueSize, String threadNamePrefix) {
+    BlockingQueue<Runnable> queue;
+    if (queueSize > 0) {
+      queue = new LinkedBlockingQueue<Runnable>(queueSize);
+    } else {
+      queue = new LinkedBlockingQueue<Runnable>();
+    }
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        numThreads,
+        numThreads,
+        GET_BULK_TASK_EXECUTOR_KEEP_ALIVE_VALUE,
+        GET_BULK_TASK_EXECUTOR_KEEP_ALIVE_UNIT,
+        queue,
+        new GetBulkThreadFactory(threadNamePrefix));
+    executor.prestartAllCoreThreads();
+    return executor;
+  }
+
+  // Wait for the Reader load tasks to finish, reporting progress
+  private void waitForReaderLoads(List<Exception> exceptions) throws IOException {
+    for (ExecutorService executor : readerLoadExecutors) {
+      boolean keepWaiting = true;
+      while (keepWaiting) {
+        try {
+          if (executor.awaitTermination(READER_LOAD_PROGRESS_REPORT_PERIOD_MS, TimeUnit.MILLISECONDS)) {
+            keepWaiting = false;
+          }
+          Hosts.setReaderLoadProgress(host, numLoadedReaders.get(), numTotalReaders);
+        } catch (InterruptedException e) {
+          // Stop loading, but keep waiting for the loads that are running
+          LOG.info("Interrupted while loading Readers. Stopping.");
+          for (ExecutorService otherExecutor : readerLoadExecutors) {
+            otherExecutor.shutdownNow();
+          }
+          exceptions.add(new IOException("Failed to load Readers: interruption was requested."));
+        }
+      }
+    }
+  }
+
+  // The Reader is opened once, by whoever needs it first
+  private LazyReader createLazyReader(final Domain domain, final HostDomainPartition partition) throws IOException {
+    return new LazyReader(partition.getCurrentDomainVersion()) {
+      @Override
+      protected Reader doOpen() throws IOException {
+        return loadReader(domain, partition);
+      }
+    };
+  }
+
+  private PartitionAccessor loadPartitionAccessor(Domain domain, HostDomainPartition partition) throws IOException {
+    return new PartitionAccessor(partition, loadReader(domain, partition));
+  }
+
+  // Load the Reader of a partition and check its version. In case of failure, the partition is set deletable.
+  private Reader loadReader(Domain domain, HostDomainPartition partition) throws IOException {
+    StorageEngine engine = domain.getStorageEngine();
+    Reader reader;
+    try {
+      reader = engine.getReader(configurator.getReaderConfigurator(numTotalPartitions, sharedReaderCache),
+          partition.getPartitionNumber());
+    } catch (IOException e) {
+      // Something went wrong when loading this partition's Reader. Set it deletable and signal failure.
+      if (!partition.isDeletable()) {
+        partition.setDeletable(true);
+      }
+      final String msg = String.format("Could not load Reader for partition #%d of domain %s because of an exception.",
+          partition.getPartitionNumber(), domain.getName());
+      LOG.error(msg, e);
+      throw new IOException(msg, e);
+    }
+    // Check that Reader's version number and current domain group version number match
+    if (reader.getVersionNumber() != null && !reader.getVersionNumber().equals(partition.getCurrentDomainVersion())) {
+      // Something went wrong when loading this partition's Reader. Set it deletable and signal failure.
+      partition.setDeletable(true);
+      final String msg = String.format("Could not load Reader for partition #%d of domain %s because version numbers reported by the Reader (%d) and by metadata (%d) differ.",
+          partition.getPartitionNumber(), domain.getName(), reader.getVersionNumber(), partition.getCurrentDomainVersion());
+      LOG.error(msg);
+      reader.close();
+      throw new IOException(msg);
+    }
+    LOG.info(String.format("Loaded Reader for domain %s, partition #%d",
+        domain.getName(), partition.getPartitionNumber()));
+    // Loading succeeded, if the partition was deletable, it should not be
+    if (partition.isDeletable()) {
+      partition.setDeletable(false);
+    }
+    return reader;
+  }
+
+  // Load the new version of an updated partition and swap it in. If loading fails, the previous version keeps
+  // being served.
+  @Override
+  public void onPartitionUpdated(HostDomain hostDomain, HostDomainPartition partition) throws IOException {
+    Domain domain = hostDomain.getDomain();
+    PartitionAccessor partitionAccessor = loadPartitionAccessor(domain, partition);
+    getOrCreateDomainAccessor(hostDomain).swapPartitionAccessor(partition.getPartitionNumber(), partitionAccessor);
+    LOG.info(String.format("Swapped in Reader for domain %s, partition #%d, version %d",
+        domain.getName(), partition.getPartitionNumber(), partition.getCurrentDomainVersion()));
+  }
+
+  @Override
+  public void onPartitionDeleted(HostDomain hostDomain, int partitionNumber) {
+    DomainAccessor domainAccessor = getDomainAccessor(hostDomain.getDomain().getId());
+    if (domainAccessor != null && partitionNumber < domainAccessor.getNumPartitions()) {
+      domainAccessor.swapPartitionAccessor(partitionNumber, null);
+    }
+  }
+
+  private synchronized DomainAccessor getOrCreateDomainAccessor(HostDomain hostDomain) throws IOException {
+    Domain domain = hostDomain.getDomain();
+    DomainAccessor domainAccessor = getDomainAccessor(domain.getId());
+    if (domainAccessor != null) {
+      return domainAccessor;
+    }
+    domainAccessor = new DomainAccessor(hostDomain, new PartitionAccessor[domain.getNumParts()], domain.getPartitioner(),
+        configurator.getGetTimerAggregatorWindow(), configurator.getGetCoalescingEnabled());
+    DomainAccessor[] newDomainAccessors =
+        Arrays.copyOf(domainAccessors, Math.max(domainAccessors.length, domain.getId() + 1));
+    newDomainAccessors[domain.getId()] = domainAccessor;
+    domainAccessors = newDomainAccessors;
+    return domainAccessor;
+  }
+
+  // Highest average GET duration in ms over the last complete timer window of each domain
+  public double getRecentGetLatencyMs() {
+    double result = 0;
+    for (DomainAccessor domainAccessor : domainAccessors) {
+      if (domainAccessor != null) {
+        result = Math.max(result, domainAccessor.getRecentGetLatencyMs());
+      }
+    }
+    return result;
+  }
+
   @Override
   public HankResponse get(int domainId, ByteBuffer key) {
-    ReaderResult result = readerResultThreadLocal.get();
+    GetContext context = getContextThreadLocal.get();
+    // Clear first, so that a value borrowed by the previous GET is not mistaken for the buffer
+    context.result.clear();
     // If buffer exceeds limit, reset it
-    if (result.getBuffer() != null && result.getBuffer().capacity() > bufferReuseMaxSize) {
-      readerResultThreadLocal.remove();
-      result = readerResultThreadLocal.get();
+    if (context.result.getBuffer() != null && context.result.getBuffer().capacity() > bufferReuseMaxSize) {
+      getContextThreadLocal.remove();
+      context = getContextThreadLocal.get();
     }
-    result.clear();
-    return _get(this, domainId, key, result);
+    return _get(this, domainId, key, context.result, context.response);
   }
 
   @Override
@@ -239,44 +441,186 @@ public class PartitionServerHandler implements IfaceWithShutdown {
       if (domainAccessor == null) {
         return NO_SUCH_DOMAIN_BULK;
       }
-      // Build and execute all get bulk tasks
-      HankBulkResponse bulkResponse = HankBulkResponse.responses(new ArrayList<HankResponse>(keys.size()));
-      GetBulkTask[] tasks = new GetBulkTask[(keys.size() / getBulkTaskSize) + 1];
-      int maxTaskIndex = 0;
-      for (int i = 0; i < keys.size(); i += getBulkTaskSize) {
-        GetBulkTask task = new GetBulkTask(new GetBulkRunnable(domainId, keys, i));
-        // No need to synchronize since ThreadPoolExecutor's execute() is thread-safe
-        getBulkTaskExecutor.execute(task);
-        tasks[maxTaskIndex++] = task;
+      List<Integer> keyIndices = new ArrayList<Integer>(keys.size());
+      for (int i = 0; i < keys.size(); ++i) {
+        keyIndices.add(i);
+      }
+      List<GetBulkTask> tasks = new ArrayList<GetBulkTask>();
+      ThreadPoolExecutor executor = getGetBulkTaskExecutor(keys.size());
+      try {
+        executeGetBulkTasks(executor, domainAccessor, domainId, keys, keyIndices, tasks);
+      } catch (RejectedExecutionException e) {
+        cancelGetBulkTasks(executor, tasks);
+        domainAccessor.addRejectedKeys(keys.size());
+        return OVERLOADED_BULK;
       }
-      // Wait for all get tasks and retrieve responses
-      for (int taskIndex = 0; taskIndex < maxTaskIndex; ++taskIndex) {
-        HankResponse[] responses = tasks[taskIndex].getResponses();
-        for (HankResponse response : responses) {
-          // Check if we have retrieved all responses
-          if (bulkResponse.get_responses().size() == keys.size()) {
-            break;
+      return getBulkResponse(tasks, new HankResponse[keys.size()]);
+    } catch (Throwable t) {
+      String errMsg = "Throwable during GET BULK";
+      LOG.fatal(errMsg, t);
+      return HankBulkResponse.xception(
+          HankException.internal_error(errMsg + " " + (t.getMessage() != null ? t.getMessage() : "")));
+    }
+  }
+
+  public HankBulkResponse getMultiBulk(List<Integer> domainIds, List<ByteBuffer> keys) {
+    try {
+      if (domainIds.size() != keys.size()) {
+        return HankBulkResponse.xception(HankException.internal_error("GET MULTI BULK got "
+            + domainIds.size() + " domains for " + keys.size() + " keys"));
+      }
+      // Group keys per domain
+      Map<Integer, List<Integer>> domainIdToKeyIndices = new TreeMap<Integer, List<Integer>>();
+      for (int i = 0; i < keys.size(); ++i) {
+        List<Integer> keyIndices = domainIdToKeyIndices.get(domainIds.get(i));
+        if (keyIndices == null) {
+          keyIndices = new ArrayList<Integer>();
+          domainIdToKeyIndices.put(domainIds.get(i), keyIndices);
+        }
+        keyIndices.add(i);
+      }
+      // Execute tasks for all domains at once. Keys of unknown domains get their own exception.
+      HankResponse[] responses = new HankResponse[keys.size()];
+      List<GetBulkTask> tasks = new ArrayList<GetBulkTask>();
+      ThreadPoolExecutor executor = getGetBulkTaskExecutor(keys.size());
+      try {
+        for (Map.Entry<Integer, List<Integer>> entry : domainIdToKeyIndices.entrySet()) {
+          DomainAccessor domainAccessor = getDomainAccessor(entry.getKey());
+          if (domainAccessor == null) {
+            for (int keyIndex : entry.getValue()) {
+              responses[keyIndex] = NO_SUCH_DOMAIN;
+            }
           } else {
-            bulkResponse.get_responses().add(response);
+            executeGetBulkTasks(executor, domainAccessor, entry.getKey(), keys, entry.getValue(), tasks);
           }
         }
+      } catch (RejectedExecutionException e) {
+        cancelGetBulkTasks(executor, tasks);
+        for (Map.Entry<Integer, List<Integer>> entry : domainIdToKeyIndices.entrySet()) {
+          DomainAccessor domainAccessor = getDomainAccessor(entry.getKey());
+          if (domainAccessor != null) {
+            domainAccessor.addRejectedKeys(entry.getValue().size());
+          }
+        }
+        return OVERLOADED_BULK;
       }
-      return bulkResponse;
+      return getBulkResponse(tasks, responses);
     } catch (Throwable t) {
-      String errMsg = "Throwable during GET BULK";
+      String errMsg = "Throwable during GET MULTI BULK";
       LOG.fatal(errMsg, t);
       return HankBulkResponse.xception(
           HankException.internal_error(errMsg + " " + (t.getMessage() != null ? t.getMessage() : "")));
     }
   }
 
-  private HankResponse _get(PartitionServerHandler partitionServerHandler, int domainId, ByteBuffer key, ReaderResult result) {
+  @Override
+  public HankScanResponse scan(int domainId, int partitionNumber, ByteBuffer cursor, int maxNumRecords) {
+    DomainAccessor domainAccessor = getDomainAccessor(domainId);
+    if (domainAccessor == null) {
+      return NO_SUCH_DOMAIN_SCAN;
+    }
+    try {
+      if (partitionNumber < 0 || partitionNumber >= domainAccessor.getNumPartitions() || maxNumRecords <= 0) {
+        return HankScanResponse.xception(HankException.internal_error(String.format(
+            "Invalid SCAN of partition %d with %d records per page. Domain: %s (domain #%d)",
+            partitionNumber, maxNumRecords, domainAccessor.getName(), domainId)));
+      }
+      // Pages that do not fit in the scan budget are returned empty, with the same cursor
+      return domainAccessor.scan(partitionNumber, cursor, maxNumRecords, scanThrottle);
+    } catch (IOException e) {
+      String errMsg = String.format(
+          "Exception during SCAN. Domain: %s (domain #%d) Partition: %d",
+          domainAccessor.getName(), domainId, partitionNumber);
+      LOG.error(errMsg, e);
+      return HankScanResponse.xception(
+          HankException.internal_error(errMsg + " " + (e.getMessage() != null ? e.getMessage() : "")));
+    } catch (Throwable t) {
+      String errMsg = "Throwable during SCAN";
+      LOG.fatal(errMsg, t);
+      return HankScanResponse.xception(
+          HankException.internal_error(errMsg + " " + (t.getMessage() != null ? t.getMessage() : "")));
+    }
+  }
+
+  // Requests with many keys go to the batch lane, when there is one
+  private ThreadPoolExecutor getGetBulkTaskExecutor(int numKeys) {
+    if (batchGetBulkTaskExecutor != null && numKeys >= batchGetBulkMinNumKeys) {
+      return batchGetBulkTaskExecutor;
+    } else {
+      return getBulkTaskExecutor;
+    }
+  }
+
+  // Group the given keys of a domain per partition, and execute tasks with up to getBulkTaskSize keys
+  // of a single partition each, so that each task can order its reads.
+  // Throws a RejectedExecutionException if the executor's queue is full.
+  private void executeGetBulkTasks(ThreadPoolExecutor executor,
+                                   DomainAccessor domainAccessor,
+                                   int domainId,
+                                   List<ByteBuffer> keys,
+                                   List<Integer> keyIndices,
+                                   List<GetBulkTask> tasks) {
+    Map<Integer, List<Integer>> partitionToKeyIndices = new TreeMap<Integer, List<Integer>>();
+    for (int keyIndex : keyIndices) {
+      int partition = domainAccessor.getPartition(keys.get(keyIndex));
+      List<Integer> partitionKeyIndices = partitionToKeyIndices.get(partition);
+      if (partitionKeyIndices == null) {
+        partitionKeyIndices = new ArrayList<Integer>();
+        partitionToKeyIndices.put(partition, partitionKeyIndices);
+      }
+      partitionKeyIndices.add(keyIndex);
+    }
+    for (Map.Entry<Integer, List<Integer>> entry : partitionToKeyIndices.entrySet()) {
+      List<Integer> partitionKeyIndices = entry.getValue();
+      for (int i = 0; i < partitionKeyIndices.size(); i += getBulkTaskSize) {
+        GetBulkTask task = new GetBulkTask(new GetBulkRunnable(domainAccessor, domainId, entry.getKey(), keys,
+            partitionKeyIndices.subList(i, Math.min(i + getBulkTaskSize, partitionKeyIndices.size()))));
+        domainAccessor.addQueuedKeys(task.getKeyIndices().size());
+        try {
+          // No need to synchronize since ThreadPoolExecutor's execute() is thread-safe
+          executor.execute(task);
+        } catch (RejectedExecutionException e) {
+          task.dequeue();
+          throw e;
+        }
+        tasks.add(task);
+      }
+    }
+  }
+
+  // Cancel the tasks of a rejected request, so that they do not use threads for a response that will not be sent
+  private static void cancelGetBulkTasks(ThreadPoolExecutor executor, List<GetBulkTask> tasks) {
+    for (GetBulkTask task : tasks) {
+      task.cancel(false);
+      executor.remove(task);
+      task.dequeue();
+    }
+  }
+
+  // Wait for all get tasks and put responses back in the order of the keys
+  private static HankBulkResponse getBulkResponse(List<GetBulkTask> tasks, HankResponse[] responses)
+      throws ExecutionException, InterruptedException {
+    for (GetBulkTask task : tasks) {
+      HankResponse[] taskResponses = task.getResponses();
+      List<Integer> keyIndices = task.getKeyIndices();
+      for (int i = 0; i < taskResponses.length; ++i) {
+        responses[keyIndices.get(i)] = taskResponses[i];
+      }
+    }
+    return HankBulkResponse.responses(new ArrayList<HankResponse>(Arrays.asList(responses)));
+  }
+
+  private HankResponse _get(PartitionServerHandler partitionServerHandler,
+                            int domainId,
+                            ByteBuffer key,
+                            ReaderResult result,
+                            HankResponse reusableResponse) {
     DomainAccessor domainAccessor = partitionServerHandler.getDomainAccessor(domainId);
     if (domainAccessor == null) {
       return NO_SUCH_DOMAIN;
     }
     try {
-      return domainAccessor.get(key, result);
+      return domainAccessor.get(key, result, reusableResponse);
     } catch (IOException e) {
       String errMsg = String.format(
           "Exception during GET. Domain: %s (domain #%d) Key: %s",
@@ -292,11 +636,19 @@ public class PartitionServerHandler implements IfaceWithShutdown {
     }
   }
 
-  private static class ReaderResultThreadLocal extends ThreadLocal<ReaderResult> {
+  // The result and response are reused by all GETs served by a worker thread, so that a GET does not allocate them.
+  // This is safe since the response is serialized by the worker thread before it serves another request.
+  private static class GetContext {
+
+    private final ReaderResult result = new ReaderResult();
+    private final HankResponse response = new HankResponse();
+  }
+
+  private static class GetContextThreadLocal extends ThreadLocal<GetContext> {
 
     @Override
-    protected ReaderResult initialValue() {
-      return new ReaderResult();
+    protected GetContext initialValue() {
+      return new GetContext();
     }
   }
 
@@ -307,69 +659,167 @@ public class PartitionServerHandler implements IfaceWithShutdown {
     }
   }
 
+  private static class ReaderLoadThreadFactory implements ThreadFactory {
+
+    private final String dataDirectory;
+    private int threadId = 0;
+
+    public ReaderLoadThreadFactory(String dataDirectory) {
+      this.dataDirectory = dataDirectory;
+    }
+
+    @Override
+    public synchronized Thread newThread(Runnable runnable) {
+      return new Thread(runnable, "Reader Load Thread: " + dataDirectory + " #" + threadId++);
+    }
+  }
+
+  private class ReaderLoadTask implements Runnable {
+
+    private final Domain domain;
+    private final HostDomainPartition partition;
+    private final PartitionAccessor[] partitionAccessors;
+    private final LazyReader lazyReader;
+    private final List<Exception> exceptions;
+
+    // When the lazy Reader is not null, it is already being served and only needs to be opened
+    public ReaderLoadTask(Domain domain,
+                          HostDomainPartition partition,
+                          PartitionAccessor[] partitionAccessors,
+                          LazyReader lazyReader,
+                          List<Exception> exceptions) {
+      this.domain = domain;
+      this.partition = partition;
+      this.partitionAccessors = partitionAccessors;
+      this.lazyReader = lazyReader;
+      this.exceptions = exceptions;
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (lazyReader != null) {
+          lazyReader.open();
+        } else {
+          partitionAccessors[partition.getPartitionNumber()] = loadPartitionAccessor(domain, partition);
+        }
+      } catch (IOException e) {
+        // Lazy Readers that failed to open report it to every access instead
+        if (lazyReader == null) {
+          exceptions.add(e);
+        }
+      } finally {
+        numLoadedReaders.incrementAndGet();
+      }
+    }
+  }
+
   private static class GetBulkThreadFactory implements ThreadFactory {
 
+    private final String threadNamePrefix;
     private int threadId = 0;
 
+    public GetBulkThreadFactory(String threadNamePrefix) {
+      this.threadNamePrefix = threadNamePrefix;
+    }
+
     @Override
     public Thread newThread(Runnable runnable) {
-      return new GetThread(runnable, "GET BULK Thread " + threadId++);
+      return new GetThread(runnable, threadNamePrefix + threadId++);
     }
   }
 
   private class GetBulkRunnable implements Runnable {
 
+    private final DomainAccessor domainAccessor;
     private final int domainId;
+    private final int partition;
     private final List<ByteBuffer> keys;
-    private final int firstKeyIndex;
+    private final List<Integer> keyIndices;
+    private final AtomicBoolean dequeued = new AtomicBoolean(false);
     private HankResponse[] responses;
 
-    // Perform GET requests for keys starting at firstKeyIndex and in a window of size GET_BULK_TASK_SIZE
-    public GetBulkRunnable(int domainId, List<ByteBuffer> keys, int firstKeyIndex) {
+    // Perform GET requests for the keys at the given indices, which all belong to the given partition
+    public GetBulkRunnable(DomainAccessor domainAccessor,
+                           int domainId,
+                           int partition,
+                           List<ByteBuffer> keys,
+                           List<Integer> keyIndices) {
+      this.domainAccessor = domainAccessor;
       this.domainId = domainId;
+      this.partition = partition;
       this.keys = keys;
-      this.firstKeyIndex = firstKeyIndex;
+      this.keyIndices = keyIndices;
+    }
+
+    // Keys stop counting as queued exactly once, when the task starts or when it is cancelled before starting
+    public boolean dequeue() {
+      if (dequeued.compareAndSet(false, true)) {
+        domainAccessor.addQueuedKeys(-keyIndices.size());
+        return true;
+      } else {
+        return false;
+      }
     }
 
     @Override
     public void run() {
-      ReaderResult result = readerResultThreadLocal.get();
-      result.clear();
-      responses = new HankResponse[getBulkTaskSize];
-      // Perform GET requests for keys starting at firstKeyIndex up to GET_BULK_TASK_SIZE keys or until the last key
-      for (int keyOffset = 0; keyOffset < getBulkTaskSize
-          && (firstKeyIndex + keyOffset) < keys.size(); keyOffset++) {
-        HankResponse response =
-            _get(PartitionServerHandler.this, domainId, keys.get(firstKeyIndex + keyOffset), result);
+      if (!dequeue()) {
+        // Cancelled
+        return;
+      }
+      // Each key gets its own result, since the Reader might look them up in a different order
+      List<ByteBuffer> partitionKeys = new ArrayList<ByteBuffer>(keyIndices.size());
+      ReaderResult[] results = new ReaderResult[keyIndices.size()];
+      for (int i = 0; i < keyIndices.size(); ++i) {
+        partitionKeys.add(keys.get(keyIndices.get(i)));
+        results[i] = new ReaderResult();
+      }
+      try {
+        responses = domainAccessor.getBulk(partition, partitionKeys, results);
+      } catch (IOException e) {
+        String errMsg = String.format(
+            "Exception during GET BULK. Domain: %s (domain #%d) Partition: %d",
+            domainAccessor.getName(), domainId, partition);
+        LOG.error(errMsg, e);
+        setResponses(HankResponse.xception(
+            HankException.internal_error(errMsg + " " + (e.getMessage() != null ? e.getMessage() : ""))));
+        return;
+      } catch (Throwable t) {
+        String errMsg = "Throwable during GET BULK";
+        LOG.fatal(errMsg, t);
+        setResponses(HankResponse.xception(
+            HankException.internal_error(errMsg + " " + (t.getMessage() != null ? t.getMessage() : ""))));
+        return;
+      }
+      for (HankResponse response : responses) {
         // If a value was found, we have the choice to keep the buffer that was used to read the value, or do a deep
-        // copy into the response. This decision is based on a size difference threshold.
-        // This allows us to do bulk requests that are large even when the read buffer ends up being much larger
-        // than the stored value (since in that case we will just do a deep copy of the value
-        // in an appropriately-sized buffer).
+        // copy into the response. This decision is based on a size difference threshold, so that large bulk
+        // requests do not hold on to read buffers that are much larger than the stored values. Values borrowed by
+        // Readers are views of exactly their size, or direct buffers that do not hold on to heap memory.
         if (response.is_set_value()) {
           ByteBuffer valueBuffer = response.buffer_for_value();
           // If buffer used space is less than a threshold times its capacity, do a deep copy.
-          if (((double)valueBuffer.limit())
+          if (!valueBuffer.isDirect() && ((double)valueBuffer.limit())
               < (USED_SIZE_THRESHOLD_FOR_VALUE_BUFFER_DEEP_COPY * valueBuffer.capacity())) {
-            // Deep copy the value. Hence we can reuse the result buffer.
             response.set_value(BytesUtils.byteBufferDeepCopy(valueBuffer));
-            result.clear();
-          } else {
-            // Keep the ReaderResult's buffer in the response. Hence we need to create a new result buffer.
-            // Initialize it with the same capacity we had.
-            result = new ReaderResult(valueBuffer.capacity());
           }
         }
-        // Store response
-        responses[keyOffset] = response;
       }
-      // Update the thread local result buffer to point to the latest one used (which is valid for reuse)
-      readerResultThreadLocal.set(result);
+    }
+
+    private void setResponses(HankResponse response) {
+      responses = new HankResponse[keyIndices.size()];
+      Arrays.fill(responses, response);
     }
 
     public HankResponse[] getResponses() {
       return responses;
     }
+
+    public List<Integer> getKeyIndices() {
+      return keyIndices;
+    }
   }
 
   private class GetBulkTask extends FutureTask<Object> {
@@ -386,9 +836,18 @@ public class PartitionServerHandler implements IfaceWithShutdown {
       this.get();
       return runnable.getResponses();
     }
+
+    public List<Integer> getKeyIndices() {
+      return runnable.getKeyIndices();
+    }
+
+    public boolean dequeue() {
+      return runnable.dequeue();
+    }
   }
 
   private DomainAccessor getDomainAccessor(int domainId) {
+    DomainAccessor[] domainAccessors = this.domainAccessors;
     if (domainId < domainAccessors.length) {
       return domainAccessors[domainId];
     } else {
@@ -401,12 +860,20 @@ public class PartitionServerHandler implements IfaceWithShutdown {
    */
   private class UpdateRuntimeStatisticsRunnable extends UpdateStatisticsRunnable implements Runnable {
 
+    private int reportedNumLoadedReaders = -1;
+
     public UpdateRuntimeStatisticsRunnable() {
       super(UPDATE_RUNTIME_STATISTICS_THREAD_SLEEP_TIME_MS_DEFAULT);
     }
 
     @Override
     public void runCore() throws IOException {
+      // Readers keep loading in the background when loading is lazy
+      int numLoadedReaders = PartitionServerHandler.this.numLoadedReaders.get();
+      if (numLoadedReaders != reportedNumLoadedReaders) {
+        Hosts.setReaderLoadProgress(host, numLoadedReaders, numTotalReaders);
+        reportedNumLoadedReaders = numLoadedReaders;
+      }
       Map<Domain, RuntimeStatisticsAggregator> runtimeStatisticsAggregators
           = new HashMap<Domain, RuntimeStatisticsAggregator>();
       // Compute aggregate partition runtime statistics
@@ -441,6 +908,10 @@ public class PartitionServerHandler implements IfaceWithShutdown {
     } catch (InterruptedException e) {
       LOG.info("Interrupted while waiting for update runtime statistics thread to terminate during shutdown.");
     }
+    // Stop loading Readers. Readers being opened are closed with their domain accessors.
+    for (ExecutorService executor : readerLoadExecutors) {
+      executor.shutdownNow();
+    }
     // Shut down domain accessors
     for (DomainAccessor domainAccessor : domainAccessors) {
       if (domainAccessor != null) {
@@ -448,9 +919,16 @@ public class PartitionServerHandler implements IfaceWithShutdown {
       }
     }
     // Shut down GET tasks
-    getBulkTaskExecutor.shutdown();
+    shutDownGetBulkTaskExecutor(getBulkTaskExecutor);
+    if (batchGetBulkTaskExecutor != null) {
+      shutDownGetBulkTaskExecutor(batchGetBulkTaskExecutor);
+    }
+  }
+
+  private static void shutDownGetBulkTaskExecutor(ThreadPoolExecutor executor) {
+    executor.shutdown();
     try {
-      while (!getBulkTaskExecutor.awaitTermination(GET_BULK_TASK_EXECUTOR_AWAIT_TERMINATION_VALUE,
+      while (!executor.awaitTermination(GET_BULK_TASK_EXECUTOR_AWAIT_TERMINATION_VALUE,
           GET_BULK_TASK_EXECUTOR_AWAIT_TERMINATION_UNIT)) {
         LOG.debug("Waiting for termination of GET BULK task executor during shutdown.");
       }
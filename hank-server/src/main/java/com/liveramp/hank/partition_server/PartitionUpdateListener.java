@@ -0,0 +1,33 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.partition_server;
+
+import java.io.IOException;
+
+import com.liveramp.hank.coordinator.HostDomain;
+import com.liveramp.hank.coordinator.HostDomainPartition;
+
+// Notified by the update manager during online updates, so that new partition versions can be served
+// as soon as they are ready
+interface PartitionUpdateListener {
+
+  // Called once a partition has been updated and its current version recorded
+  public void onPartitionUpdated(HostDomain hostDomain, HostDomainPartition partition) throws IOException;
+
+  // Called before a partition's files are deleted
+  public void onPartitionDeleted(HostDomain hostDomain, int partitionNumber);
+}
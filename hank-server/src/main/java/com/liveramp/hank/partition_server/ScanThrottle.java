@@ -0,0 +1,70 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.partition_server;
+
+/**
+ * Limits the rate at which partition scans return data, so that they do not take the disk bandwidth away from
+ * GETs. All scans share the same budget, and each page delays the following ones by the time it takes to
+ * return its bytes at the maximum rate.
+ * <p/>
+ * Scans never wait for the budget, since they run on the threads that serve GETs. Pages that do not fit in the
+ * budget are refused instead, and clients are expected to back off and retry. Only one page is read at a time, so
+ * the budget can not be overdrawn by more than a page.
+ */
+class ScanThrottle {
+
+  private final long maxNumBytesPerSecond;
+  private long nextPageNanos = 0;
+  private boolean pageInProgress = false;
+
+  // Throttling is disabled when the maximum is not positive
+  public ScanThrottle(long maxNumBytesPerSecond) {
+    this.maxNumBytesPerSecond = maxNumBytesPerSecond;
+  }
+
+  // Return whether a page can be read now. If so, release() must be called once it has been read.
+  public synchronized boolean tryAcquire() {
+    return tryAcquire(System.nanoTime());
+  }
+
+  synchronized boolean tryAcquire(long nowNanos) {
+    if (maxNumBytesPerSecond <= 0) {
+      return true;
+    }
+    if (pageInProgress || nextPageNanos - nowNanos > 0) {
+      return false;
+    }
+    pageInProgress = true;
+    return true;
+  }
+
+  // Charge the bytes of a page read after a successful tryAcquire()
+  public synchronized void release(long numBytes) {
+    release(numBytes, System.nanoTime());
+  }
+
+  synchronized void release(long numBytes, long nowNanos) {
+    if (maxNumBytesPerSecond <= 0) {
+      return;
+    }
+    if (nextPageNanos - nowNanos < 0) {
+      nextPageNanos = nowNanos;
+    }
+    nextPageNanos += (long)(numBytes * 1000000000d / maxNumBytesPerSecond);
+    pageInProgress = false;
+  }
+}
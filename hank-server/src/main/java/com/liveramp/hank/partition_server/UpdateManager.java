@@ -149,15 +149,11 @@ public class UpdateManager implements IUpdateManager {
         Domain domain = entry1.getKey();
         List<PartitionUpdateTaskStatistics> partitionUpdateTaskStatisticsList = entry1.getValue();
         for (PartitionUpdateTaskStatistics partitionUpdateTaskStatistics : partitionUpdateTaskStatisticsList) {
+          getDurationAggregator(hankTimerDurationAggregators, domain.getName() + " - partition update task")
+              .add(partitionUpdateTaskStatistics.getEndTimeMs() - partitionUpdateTaskStatistics.getStartTimeMs());
           for (Map.Entry<String, Long> entry2 : partitionUpdateTaskStatistics.getDurationsMs().entrySet()) {
-            String name = domain.getName() + " - " + entry2.getKey();
-            Long duration = entry2.getValue();
-            DurationAggregator aggregator = hankTimerDurationAggregators.get(name);
-            if (aggregator == null) {
-              aggregator = new DurationAggregator(name);
-              hankTimerDurationAggregators.put(name, aggregator);
-            }
-            aggregator.add(duration);
+            getDurationAggregator(hankTimerDurationAggregators, domain.getName() + " - " + entry2.getKey())
+                .add(entry2.getValue());
           }
         }
       }
@@ -165,6 +161,15 @@ public class UpdateManager implements IUpdateManager {
         aggregator.logStats();
       }
     }
+
+    private DurationAggregator getDurationAggregator(Map<String, DurationAggregator> aggregators, String name) {
+      DurationAggregator aggregator = aggregators.get(name);
+      if (aggregator == null) {
+        aggregator = new DurationAggregator(name);
+        aggregators.put(name, aggregator);
+      }
+      return aggregator;
+    }
   }
 
   private final class PartitionUpdateTask implements Runnable, Comparable<PartitionUpdateTask> {
@@ -210,6 +215,10 @@ public class UpdateManager implements IUpdateManager {
         // If unable to determine the version, this partition is deletable (the corresponding domain is not in the
         // target domain group version)
         if (partition.isDeletable() || targetDomainAndVersion == null) {
+          // Stop serving the partition before deleting its files
+          if (partitionUpdateListener != null) {
+            partitionUpdateListener.onPartitionDeleted(hostDomain, partition.getPartitionNumber());
+          }
           deletePartition(hostDomain, partition);
         } else {
           // Determine Domain Version
@@ -225,6 +234,11 @@ public class UpdateManager implements IUpdateManager {
             return;
           }
 
+          // Wait for serving latency to be within budget before starting to use IO
+          if (updateThrottle != null) {
+            updateThrottle.waitForServingLatency();
+          }
+
           // Mark the beginning of the update by first unsetting the partition's current version number.
           // That way, if the update fails, we will have to update it again, and won't be able to serve it.
           partition.setCurrentDomainVersion(null);
@@ -241,6 +255,11 @@ public class UpdateManager implements IUpdateManager {
           LOG.info(String.format(
               "Completed partition update of domain %s partition %d to version %d.",
               domain.getName(), partition.getPartitionNumber(), targetDomainVersion.getVersionNumber()));
+
+          // Serve the new version
+          if (partitionUpdateListener != null) {
+            partitionUpdateListener.onPartitionUpdated(hostDomain, partition);
+          }
         }
       } catch (Throwable t) {
         LOG.fatal(String.format("Failed to complete partition update of domain %s partition %d.",
@@ -316,11 +335,24 @@ public class UpdateManager implements IUpdateManager {
   private final PartitionServerConfigurator configurator;
   private final Host host;
   private final RingGroup ringGroup;
+  private final PartitionUpdateListener partitionUpdateListener;
+  private final UpdateThrottle updateThrottle;
 
   public UpdateManager(PartitionServerConfigurator configurator, Host host, RingGroup ringGroup) throws IOException {
+    this(configurator, host, ringGroup, null, null);
+  }
+
+  // The listener and throttle are used for online updates, and can be null
+  public UpdateManager(PartitionServerConfigurator configurator,
+                       Host host,
+                       RingGroup ringGroup,
+                       PartitionUpdateListener partitionUpdateListener,
+                       UpdateThrottle updateThrottle) throws IOException {
     this.configurator = configurator;
     this.host = host;
     this.ringGroup = ringGroup;
+    this.partitionUpdateListener = partitionUpdateListener;
+    this.updateThrottle = updateThrottle;
   }
 
   @Override
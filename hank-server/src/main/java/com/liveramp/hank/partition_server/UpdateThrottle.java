@@ -0,0 +1,57 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.partition_server;
+
+import org.apache.log4j.Logger;
+
+import com.liveramp.hank.util.HankTimer;
+
+/**
+ * Delays partition updates while the partition server's GET latency is above a budget, so that the IO of an
+ * online update does not degrade serving. The wait is bounded so that updates always make progress.
+ */
+class UpdateThrottle {
+
+  private static final Logger LOG = Logger.getLogger(UpdateThrottle.class);
+
+  private static final long CHECK_INTERVAL_MS = 500;
+  private static final long MAX_WAIT_MS = 60 * 1000;
+
+  private final PartitionServerHandler handler;
+  private final long maxGetLatencyMs;
+
+  public UpdateThrottle(PartitionServerHandler handler, long maxGetLatencyMs) {
+    this.handler = handler;
+    this.maxGetLatencyMs = maxGetLatencyMs;
+  }
+
+  public void waitForServingLatency() throws InterruptedException {
+    if (maxGetLatencyMs <= 0) {
+      return;
+    }
+    HankTimer timer = new HankTimer();
+    double getLatencyMs = handler.getRecentGetLatencyMs();
+    while (getLatencyMs > maxGetLatencyMs && timer.getDurationMs() < MAX_WAIT_MS) {
+      Thread.sleep(CHECK_INTERVAL_MS);
+      getLatencyMs = handler.getRecentGetLatencyMs();
+    }
+    if (timer.getDurationMs() >= CHECK_INTERVAL_MS) {
+      LOG.info(String.format("Delayed partition update by %dms since GET latency (%.2fms) was above %dms",
+          timer.getDurationMs(), getLatencyMs, maxGetLatencyMs));
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.performance;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import com.liveramp.hank.storage.cueball.CueballBlockSearch;
+import com.liveramp.hank.util.HankTimer;
+
+// Compare linear, binary and interpolation search inside a single Cueball block,
+// for blocks of various fill levels.
+public class PerformanceTestCueballBlockSearch {
+
+  private static final int KEY_HASH_SIZE = 10;
+  private static final int VALUE_SIZE = 16;
+  private static final int FULL_RECORD_SIZE = KEY_HASH_SIZE + VALUE_SIZE;
+  private static final int[] NUM_RECORDS_PER_BLOCK = {16, 64, 256, 1024, 4096, 16384};
+  private static final int NUM_LOOKUPS = 2000000;
+  private static final int NUM_ITERATIONS = 3;
+
+  private static final int LINEAR = 0;
+  private static final int BINARY = 1;
+  private static final int INTERPOLATION = 2;
+  private static final String[] METHOD_NAMES = {"linear", "binary", "interpolation"};
+
+  public static void main(String[] args) throws Exception {
+    Random random = new Random(0);
+    for (int numRecords : NUM_RECORDS_PER_BLOCK) {
+      byte[][] keyHashes = getSortedKeyHashes(numRecords, random);
+      ByteBuffer block = ByteBuffer.allocate(numRecords * FULL_RECORD_SIZE);
+      for (int i = 0; i < numRecords; ++i) {
+        block.position(i * FULL_RECORD_SIZE);
+        block.put(keyHashes[i]);
+      }
+      // Half of the lookups are misses
+      byte[][] lookups = new byte[numRecords * 2][];
+      byte[][] misses = getSortedKeyHashes(numRecords, random);
+      for (int i = 0; i < numRecords; ++i) {
+        lookups[2 * i] = keyHashes[i];
+        lookups[2 * i + 1] = misses[i];
+      }
+      for (int iteration = 0; iteration < NUM_ITERATIONS; ++iteration) {
+        for (int method = 0; method < METHOD_NAMES.length; ++method) {
+          // Linear search is too slow to do as many lookups in large blocks
+          int numLookups = method == LINEAR ? NUM_LOOKUPS / Math.max(1, numRecords / 64) : NUM_LOOKUPS;
+          HankTimer timer = new HankTimer();
+          long numFound = doLookups(method, block, lookups, random, numLookups);
+          double elapsedMs = timer.getDurationMs();
+          // Only report the last (warm) iteration
+          if (iteration == NUM_ITERATIONS - 1) {
+            System.out.println(String.format("%d records per block, %s search: %.2f ns/lookup (%d found)",
+                numRecords, METHOD_NAMES[method], elapsedMs * 1000000.0 / numLookups, numFound));
+          }
+        }
+      }
+    }
+  }
+
+  private static long doLookups(int method, ByteBuffer block, byte[][] lookups, Random random, int numLookups) {
+    long numFound = 0;
+    int limit = block.capacity();
+    for (int i = 0; i < numLookups; ++i) {
+      byte[] keyHash = lookups[random.nextInt(lookups.length)];
+      int offset;
+      switch (method) {
+        case LINEAR:
+          offset = CueballBlockSearch.linearSearch(block, 0, limit, keyHash, KEY_HASH_SIZE, FULL_RECORD_SIZE);
+          break;
+        case BINARY:
+          offset = CueballBlockSearch.binarySearch(block, 0, limit, keyHash, KEY_HASH_SIZE, FULL_RECORD_SIZE);
+          break;
+        case INTERPOLATION:
+          offset = CueballBlockSearch.interpolationSearch(block, 0, limit, keyHash, KEY_HASH_SIZE, FULL_RECORD_SIZE);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown search method: " + method);
+      }
+      if (offset >= 0) {
+        ++numFound;
+      }
+    }
+    return numFound;
+  }
+
+  // Realistic key hashes, as produced by a cryptographic hash function
+  private static byte[][] getSortedKeyHashes(int numRecords, Random random) throws NoSuchAlgorithmException {
+    MessageDigest md5 = MessageDigest.getInstance("MD5");
+    byte[][] result = new byte[numRecords][];
+    for (int i = 0; i < numRecords; ++i) {
+      result[i] = Arrays.copyOf(md5.digest(Long.toString(random.nextLong()).getBytes()), KEY_HASH_SIZE);
+    }
+    Arrays.sort(result, new Comparator<byte[]>() {
+      @Override
+      public int compare(byte[] a, byte[] b) {
+        for (int i = 0; i < a.length; ++i) {
+          int diff = (a[i] & 0xff) - (b[i] & 0xff);
+          if (diff != 0) {
+            return diff;
+          }
+        }
+        return 0;
+      }
+    });
+    return result;
+  }
+}
@@ -0,0 +1,160 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.performance;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import com.liveramp.commons.util.BytesUtils;
+import com.liveramp.hank.compression.cueball.NoCueballCompressionCodec;
+import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.hasher.Hasher;
+import com.liveramp.hank.hasher.Murmur64Hasher;
+import com.liveramp.hank.partition_server.PartitionAccessor;
+import com.liveramp.hank.storage.ReaderResult;
+import com.liveramp.hank.storage.cueball.Cueball;
+import com.liveramp.hank.storage.cueball.CueballReader;
+import com.liveramp.hank.storage.cueball.CueballWriter;
+import com.liveramp.hank.test.coordinator.MockHostDomainPartition;
+import com.liveramp.hank.util.EncodingHelper;
+import com.liveramp.hank.util.HankTimer;
+import com.liveramp.hank.util.HankTimerEventAggregator;
+
+// Measure the time and the bytes allocated per GET on the partition server's read path: a memory mapped Cueball
+// Reader, the partition accessor and the GET timer aggregator. GETs that allocate their response and timer are
+// compared with GETs that reuse a response and time themselves with System.nanoTime(), as the partition server does.
+// Usage: PerformanceTestGetAllocation <local tmp dir>
+public class PerformanceTestGetAllocation {
+
+  private static final int NUM_RECORDS = 1 << 20;
+  private static final int KEY_SIZE = 8;
+  private static final int KEY_HASH_SIZE = 10;
+  private static final int VALUE_SIZE = 16;
+  private static final int HASH_INDEX_BITS = 12;
+  private static final int NUM_GETS = 10000000;
+  private static final int NUM_ITERATIONS = 3;
+  private static final int TIMER_AGGREGATOR_WINDOW = 1000;
+
+  public static void main(String[] args) throws Exception {
+    String localTmpDir = args[0];
+    Hasher hasher = new Murmur64Hasher();
+    ByteBuffer[] keys = getKeys(hasher);
+    writePartition(localTmpDir, hasher, keys);
+    CueballReader reader = new CueballReader(localTmpDir, KEY_HASH_SIZE, hasher, VALUE_SIZE, HASH_INDEX_BITS,
+        new NoCueballCompressionCodec(), 0, 0, true, false);
+    PartitionAccessor partitionAccessor = new PartitionAccessor(new MockHostDomainPartition(0, 0), reader);
+    HankTimerEventAggregator timerAggregator = new HankTimerEventAggregator("GET", TIMER_AGGREGATOR_WINDOW);
+    // Look keys up in random order
+    Random random = new Random(0);
+    for (int i = keys.length - 1; i > 0; --i) {
+      int j = random.nextInt(i + 1);
+      ByteBuffer key = keys[i];
+      keys[i] = keys[j];
+      keys[j] = key;
+    }
+    for (int iteration = 0; iteration < NUM_ITERATIONS; ++iteration) {
+      for (boolean reuse : new boolean[]{false, true}) {
+        long allocatedBytes = getThreadAllocatedBytes();
+        HankTimer timer = new HankTimer();
+        long numFound = doGets(partitionAccessor, timerAggregator, keys, reuse);
+        double elapsedMs = timer.getDurationMs();
+        allocatedBytes = getThreadAllocatedBytes() - allocatedBytes;
+        // Only report the last (warm) iteration
+        if (iteration == NUM_ITERATIONS - 1) {
+          System.out.println(String.format("%s responses: %.2f ns/get, %.2f bytes allocated/get (%d found)",
+              reuse ? "Reused" : "Allocated", elapsedMs * 1000000.0 / NUM_GETS, (double)allocatedBytes / NUM_GETS,
+              numFound));
+        }
+      }
+    }
+    reader.close();
+  }
+
+  private static long doGets(PartitionAccessor partitionAccessor,
+                             HankTimerEventAggregator timerAggregator,
+                             ByteBuffer[] keys,
+                             boolean reuse) throws IOException {
+    ReaderResult result = new ReaderResult();
+    HankResponse reusableResponse = new HankResponse();
+    long numFound = 0;
+    for (int i = 0; i < NUM_GETS; ++i) {
+      ByteBuffer key = keys[i % keys.length];
+      result.clear();
+      HankResponse response;
+      if (reuse) {
+        long startNanos = System.nanoTime();
+        response = partitionAccessor.get(key, result, reusableResponse);
+        timerAggregator.addNanos(System.nanoTime() - startNanos);
+      } else {
+        HankTimer timer = timerAggregator.getTimer();
+        response = partitionAccessor.get(key, result);
+        timerAggregator.add(timer);
+      }
+      if (response.is_set_value()) {
+        ++numFound;
+      }
+    }
+    return numFound;
+  }
+
+  // Keys sorted by hash, since Cueball records are written in key hash order
+  private static ByteBuffer[] getKeys(final Hasher hasher) {
+    ByteBuffer[] keys = new ByteBuffer[NUM_RECORDS];
+    for (int i = 0; i < NUM_RECORDS; ++i) {
+      byte[] key = new byte[KEY_SIZE];
+      EncodingHelper.encodeLittleEndianFixedWidthLong(i, key);
+      keys[i] = ByteBuffer.wrap(key);
+    }
+    Arrays.sort(keys, new Comparator<ByteBuffer>() {
+      @Override
+      public int compare(ByteBuffer a, ByteBuffer b) {
+        return BytesUtils.compareBytesUnsigned(hash(hasher, a), 0, hash(hasher, b), 0, KEY_HASH_SIZE);
+      }
+    });
+    return keys;
+  }
+
+  private static byte[] hash(Hasher hasher, ByteBuffer key) {
+    byte[] keyHash = new byte[KEY_HASH_SIZE];
+    hasher.hash(key, KEY_HASH_SIZE, keyHash);
+    return keyHash;
+  }
+
+  private static void writePartition(String localTmpDir, Hasher hasher, ByteBuffer[] keys) throws IOException {
+    new File(localTmpDir).mkdirs();
+    CueballWriter writer = new CueballWriter(new FileOutputStream(localTmpDir + "/" + Cueball.getName(0, true)),
+        KEY_HASH_SIZE, hasher, VALUE_SIZE, new NoCueballCompressionCodec(), HASH_INDEX_BITS);
+    byte[] value = new byte[VALUE_SIZE];
+    for (ByteBuffer key : keys) {
+      Arrays.fill(value, key.get(0));
+      writer.write(key, ByteBuffer.wrap(value));
+    }
+    writer.close();
+  }
+
+  // Requires a JVM that supports measuring thread allocations
+  private static long getThreadAllocatedBytes() {
+    return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
@@ -0,0 +1,109 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.performance;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.liveramp.commons.util.ByteBufferMemoryUsageEstimator;
+import com.liveramp.hank.util.ConcurrentMemoryBoundCache;
+import com.liveramp.hank.util.HankTimer;
+
+// Measure reader cache throughput under contention. A concurrency level of 1 behaves
+// like a single synchronized LRU map.
+public class PerformanceTestMemoryBoundCache {
+
+  private static final int[] NUM_THREADS = {1, 8, 32, 64};
+  private static final int[] CONCURRENCY_LEVELS = {1, ConcurrentMemoryBoundCache.DEFAULT_CONCURRENCY_LEVEL, 64};
+  private static final int NUM_KEYS = 200000;
+  private static final int NUM_ITEMS_CAPACITY = 100000;
+  private static final int KEY_SIZE = 10;
+  private static final int VALUE_SIZE = 16;
+  private static final int NUM_OPERATIONS_PER_THREAD = 200000;
+  private static final int NUM_ITERATIONS = 3;
+
+  public static void main(String[] args) throws Exception {
+    final ByteBuffer[] keys = new ByteBuffer[NUM_KEYS];
+    Random random = new Random(0);
+    for (int i = 0; i < NUM_KEYS; ++i) {
+      byte[] key = new byte[KEY_SIZE];
+      random.nextBytes(key);
+      keys[i] = ByteBuffer.wrap(key);
+    }
+    for (int concurrencyLevel : CONCURRENCY_LEVELS) {
+      for (int numThreads : NUM_THREADS) {
+        for (int iteration = 0; iteration < NUM_ITERATIONS; ++iteration) {
+          ConcurrentMemoryBoundCache<ByteBuffer, ByteBuffer> cache = new ConcurrentMemoryBoundCache<ByteBuffer, ByteBuffer>(
+              true, 0, NUM_ITEMS_CAPACITY, concurrencyLevel,
+              new ByteBufferMemoryUsageEstimator(), new ByteBufferMemoryUsageEstimator());
+          HankTimer timer = new HankTimer();
+          long numHits = run(cache, keys, numThreads);
+          long elapsedNs = timer.getDuration();
+          // Only report the last (warm) iteration
+          if (iteration == NUM_ITERATIONS - 1) {
+            long numOperations = (long)numThreads * NUM_OPERATIONS_PER_THREAD;
+            System.out.println(String.format("%d segments, %d threads: %.2f M ops/s, %.1f ns/op per thread, %.1f%% hits",
+                cache.getNumSegments(), numThreads,
+                numOperations * 1000.0 / elapsedNs,
+                (double)elapsedNs * numThreads / numOperations,
+                100.0 * numHits / numOperations));
+          }
+        }
+      }
+    }
+  }
+
+  // Each thread does gets, and puts on misses, with a skewed key distribution
+  private static long run(final ConcurrentMemoryBoundCache<ByteBuffer, ByteBuffer> cache,
+                          final ByteBuffer[] keys,
+                          int numThreads) throws InterruptedException {
+    final AtomicLong numHits = new AtomicLong();
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(numThreads);
+    for (int t = 0; t < numThreads; ++t) {
+      final Random random = new Random(t);
+      new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+          long hits = 0;
+          for (int i = 0; i < NUM_OPERATIONS_PER_THREAD; ++i) {
+            // Squaring a uniform variable favors low indices
+            double x = random.nextDouble();
+            ByteBuffer key = keys[(int)(x * x * keys.length)];
+            if (cache.get(key) != null) {
+              ++hits;
+            } else {
+              cache.put(key, ByteBuffer.allocate(VALUE_SIZE));
+            }
+          }
+          numHits.addAndGet(hits);
+          done.countDown();
+        }
+      }).start();
+    }
+    start.countDown();
+    done.await();
+    return numHits.get();
+  }
+}
@@ -161,6 +161,17 @@ public class RingGroupUpdateTransitionFunctionImpl implements RingGroupUpdateTra
       return;
     }
 
+    if (isFullyServing && isAssigned && !isUpToDate && numReplicasFullyServing > minNumReplicasFullyServing
+        && Hosts.isOnlineUpdateEnabled(host)) {
+      // Host is serving, assigned, not up-to-date, there are more than enough replicas serving and it can be updated
+      // while serving. Update without going idle.
+      LOG.info("Host " + host.getAddress() + " is serving, assigned, not up-to-date, there are more than enough replicas serving, and it can be updated online. Update.");
+      Hosts.enqueueCommandIfNotPresent(host, HostCommand.EXECUTE_UPDATE);
+      // The host keeps serving, but roll out the update to replicas at the same pace as offline updates
+      removeFromReplicasFullyServing(domainToPartitionToHostsFullyServing, host);
+      return;
+    }
+
     if (isFullyServing && isAssigned && !isUpToDate && numReplicasFullyServing > minNumReplicasFullyServing) {
       // Host is serving, assigned, not up-to-date and there are more than enough replicas serving. Go idle.
       LOG.info("Host " + host.getAddress() + " is serving, assigned, not up-to-date, and there are more than enough replicas serving. Go idle.");
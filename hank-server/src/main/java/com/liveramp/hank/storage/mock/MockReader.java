@@ -20,10 +20,11 @@ import java.nio.ByteBuffer;
 
 import com.liveramp.hank.config.DataDirectoriesConfigurator;
 import com.liveramp.hank.storage.CacheStatistics;
-import com.liveramp.hank.storage.Reader;
 import com.liveramp.hank.storage.ReaderResult;
+import com.liveramp.hank.storage.ScanPage;
+import com.liveramp.hank.storage.ScanReader;
 
-public class MockReader implements Reader {
+public class MockReader implements ScanReader {
 
   private final DataDirectoriesConfigurator configurator;
   private final int partitionNumber;
@@ -53,6 +54,15 @@ public class MockReader implements Reader {
     }
   }
 
+  // Partitions contain a single record, whose key hash is the partition number
+  @Override
+  public void scan(ByteBuffer afterKeyHash, ScanPage page) {
+    if (afterKeyHash == null) {
+      page.add(ByteBuffer.wrap(new byte[]{(byte)partitionNumber}), ByteBuffer.wrap(returnValue));
+    }
+    page.setComplete(true);
+  }
+
   public Integer getVersionNumber() {
     return versionNumber;
   }
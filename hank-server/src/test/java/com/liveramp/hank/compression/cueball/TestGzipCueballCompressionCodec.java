@@ -48,6 +48,13 @@ public class TestGzipCueballCompressionCodec extends BaseTestCase {
       assertEquals(testcase.length, decompressedLength);
 
       assertEquals(ByteBuffer.wrap(testcase), ByteBuffer.wrap(decompressedBytes, 0, decompressedLength));
+
+      // Decompress after the compressed bytes in the same buffer
+      byte[] buffer = new byte[compressedLength + testcase.length];
+      System.arraycopy(compressedBytes, 0, buffer, 0, compressedLength);
+      decompressedLength = codec.decompress(buffer, 0, compressedLength, buffer, compressedLength);
+      assertEquals(testcase.length, decompressedLength);
+      assertEquals(ByteBuffer.wrap(testcase), ByteBuffer.wrap(buffer, compressedLength, decompressedLength));
     }
   }
 }
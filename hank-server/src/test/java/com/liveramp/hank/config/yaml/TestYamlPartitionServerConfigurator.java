@@ -41,13 +41,27 @@ public class TestYamlPartitionServerConfigurator extends BaseTestCase {
     pw.println("    num_concurrent_queries: 5");
     pw.println("    num_concurrent_get_bulk_tasks: 1");
     pw.println("    get_bulk_task_size: 2");
+    pw.println("    get_bulk_task_queue_size: 1000");
+    pw.println("    batch_get_bulk_min_num_keys: 500");
+    pw.println("    num_concurrent_batch_get_bulk_tasks: 3");
     pw.println("    get_timer_aggregator_window: 1000");
     pw.println("    buffer_reuse_max_size: 1024");
     pw.println("    cache_num_bytes_capacity: 1000000");
     pw.println("    cache_num_items_capacity: 2000");
+    pw.println("    memory_map_enabled: true");
+    pw.println("    shared_cache_enabled: true");
+    pw.println("    shared_cache_domain_reserved_num_bytes:");
+    pw.println("      domain1: 1000");
+    pw.println("      domain2: 5000000000");
+    pw.println("    get_coalescing_enabled: true");
+    pw.println("    scan_max_bytes_per_second: 1000000");
+    pw.println("    num_concurrent_reader_loads_per_data_directory: 4");
+    pw.println("    lazy_reader_loading_enabled: true");
     pw.println("  update_daemon:");
     pw.println("    num_concurrent_updates: 5");
     pw.println("    max_concurrent_updates_per_data_directory: 2");
+    pw.println("    online_update_enabled: true");
+    pw.println("    online_update_max_get_latency_ms: 20");
     pw.println("coordinator:");
     pw.println("  factory: " + MockCoordinator.Factory.class.getName());
     pw.println("  options:");
@@ -60,9 +74,23 @@ public class TestYamlPartitionServerConfigurator extends BaseTestCase {
     assertEquals("rg1", conf.getRingGroupName());
     assertEquals(5, conf.getNumConcurrentUpdates());
     assertEquals(2, conf.getMaxConcurrentUpdatesPerDataDirectory());
+    assertEquals(true, conf.getOnlineUpdateEnabled());
+    assertEquals(20, conf.getOnlineUpdateMaxGetLatencyMs());
     assertEquals(5, conf.getNumConcurrentQueries());
+    assertEquals(1000, conf.getGetBulkTaskQueueSize());
+    assertEquals(500, conf.getBatchGetBulkMinNumKeys());
+    assertEquals(3, conf.getNumConcurrentBatchGetBulkTasks());
     assertEquals(1024, conf.getBufferReuseMaxSize());
     assertEquals(1000000, conf.getCacheNumBytesCapacity());
     assertEquals(2000, conf.getCacheNumItemsCapacity());
+    assertEquals(true, conf.getMemoryMapEnabled());
+    assertEquals(false, conf.getMemoryMapPrefetchEnabled());
+    assertEquals(true, conf.getSharedCacheEnabled());
+    assertEquals(Long.valueOf(1000), conf.getSharedCacheDomainReservedNumBytes().get("domain1"));
+    assertEquals(Long.valueOf(5000000000L), conf.getSharedCacheDomainReservedNumBytes().get("domain2"));
+    assertEquals(true, conf.getGetCoalescingEnabled());
+    assertEquals(1000000, conf.getScanMaxBytesPerSecond());
+    assertEquals(4, conf.getNumConcurrentReaderLoadsPerDataDirectory());
+    assertEquals(true, conf.getLazyReaderLoadingEnabled());
   }
 }
@@ -16,11 +16,13 @@
 package com.liveramp.hank.partition_server;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 import com.liveramp.hank.config.PartitionServerConfigurator;
 import com.liveramp.hank.config.ReaderConfigurator;
 import com.liveramp.hank.coordinator.Coordinator;
+import com.liveramp.hank.storage.SharedReaderCache;
 
 public class MockPartitionServerConfigurator implements PartitionServerConfigurator {
 
@@ -75,6 +77,21 @@ public class MockPartitionServerConfigurator implements PartitionServerConfigura
     return 1;
   }
 
+  @Override
+  public int getGetBulkTaskQueueSize() {
+    return 0;
+  }
+
+  @Override
+  public int getBatchGetBulkMinNumKeys() {
+    return 0;
+  }
+
+  @Override
+  public int getNumConcurrentBatchGetBulkTasks() {
+    return 1;
+  }
+
   @Override
   public int getGetTimerAggregatorWindow() {
     return 10;
@@ -96,7 +113,52 @@ public class MockPartitionServerConfigurator implements PartitionServerConfigura
   }
 
   @Override
-  public ReaderConfigurator getReaderConfigurator(int numTotalPartitions) {
+  public boolean getMemoryMapEnabled() {
+    return false;
+  }
+
+  @Override
+  public boolean getMemoryMapPrefetchEnabled() {
+    return false;
+  }
+
+  @Override
+  public SharedReaderCache getSharedReaderCache() {
+    return null;
+  }
+
+  @Override
+  public boolean getSharedCacheEnabled() {
+    return false;
+  }
+
+  @Override
+  public Map<String, Long> getSharedCacheDomainReservedNumBytes() {
+    return Collections.emptyMap();
+  }
+
+  @Override
+  public boolean getGetCoalescingEnabled() {
+    return false;
+  }
+
+  @Override
+  public long getScanMaxBytesPerSecond() {
+    return 0;
+  }
+
+  @Override
+  public int getNumConcurrentReaderLoadsPerDataDirectory() {
+    return 1;
+  }
+
+  @Override
+  public boolean getLazyReaderLoadingEnabled() {
+    return false;
+  }
+
+  @Override
+  public ReaderConfigurator getReaderConfigurator(int numTotalPartitions, SharedReaderCache sharedReaderCache) {
     return null;
   }
 
@@ -109,4 +171,14 @@ public class MockPartitionServerConfigurator implements PartitionServerConfigura
   public int getMaxConcurrentUpdatesPerDataDirectory() {
     return 10;
   }
+
+  @Override
+  public boolean getOnlineUpdateEnabled() {
+    return false;
+  }
+
+  @Override
+  public long getOnlineUpdateMaxGetLatencyMs() {
+    return 0;
+  }
 }
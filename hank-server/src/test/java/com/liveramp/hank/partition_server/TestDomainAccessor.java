@@ -5,11 +5,21 @@ import com.liveramp.hank.test.coordinator.MockHostDomain;
 import com.liveramp.hank.test.coordinator.MockHostDomainPartition;
 import com.liveramp.hank.coordinator.mock.MockDomain;
 import com.liveramp.hank.test.partitioner.MapPartitioner;
+import com.liveramp.hank.generated.HankScanPage;
+import com.liveramp.hank.storage.CacheStatistics;
 import com.liveramp.hank.storage.ReaderResult;
 import com.liveramp.hank.storage.mock.MockReader;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class TestDomainAccessor extends BaseTestCase {
   @Test
@@ -29,4 +39,148 @@ public class TestDomainAccessor extends BaseTestCase {
     drs.get(key, new ReaderResult());
     drs.get(nullKey, new ReaderResult());
   }
+
+  @Test
+  public void testSwapPartitionAccessor() throws Exception {
+    ByteBuffer key = ByteBuffer.wrap("key".getBytes());
+    ClosingMockReader oldReader = new ClosingMockReader("v1".getBytes());
+    ClosingMockReader newReader = new ClosingMockReader("v2".getBytes());
+    PartitionAccessor oldPartitionAccessor = new PartitionAccessor(new MockHostDomainPartition(0, 1), oldReader);
+    DomainAccessor drs = new DomainAccessor(new MockHostDomain(new MockDomain("domain")),
+        new PartitionAccessor[]{oldPartitionAccessor}, new MapPartitioner(key, 0), 0);
+
+    assertEquals(ByteBuffer.wrap("v1".getBytes()), drs.get(key, new ReaderResult()).buffer_for_value());
+
+    // An in-flight read keeps the previous Reader open after the swap
+    assertTrue(oldPartitionAccessor.acquire());
+    drs.swapPartitionAccessor(0, new PartitionAccessor(new MockHostDomainPartition(0, 2), newReader));
+    assertEquals(ByteBuffer.wrap("v2".getBytes()), drs.get(key, new ReaderResult()).buffer_for_value());
+    assertFalse(oldReader.closed);
+    oldPartitionAccessor.release();
+    assertTrue(oldReader.closed);
+    assertFalse(oldPartitionAccessor.acquire());
+
+    // Removing the partition
+    drs.swapPartitionAccessor(0, null);
+    assertTrue(newReader.closed);
+    assertTrue(drs.get(key, new ReaderResult()).get_xception().get_wrong_host());
+  }
+
+  @Test
+  public void testGetCoalescing() throws Exception {
+    final ByteBuffer key = ByteBuffer.wrap("key".getBytes());
+    final BlockingMockReader reader = new BlockingMockReader("v".getBytes());
+    final DomainAccessor drs = new DomainAccessor(new MockHostDomain(new MockDomain("domain")),
+        new PartitionAccessor[]{new PartitionAccessor(new MockHostDomainPartition(0, 1), reader)},
+        new MapPartitioner(key, 0), 0, true);
+
+    final AtomicReference<ByteBuffer> leaderValue = new AtomicReference<ByteBuffer>();
+    final AtomicReference<ByteBuffer> followerValue = new AtomicReference<ByteBuffer>();
+    Thread leader = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          leaderValue.set(drs.get(key, new ReaderResult()).buffer_for_value());
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    });
+    Thread follower = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          followerValue.set(drs.get(key, new ReaderResult()).buffer_for_value());
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    });
+    leader.start();
+    reader.entered.await();
+    follower.start();
+    // Wait for the follower to wait on the leader's read
+    while (follower.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    reader.proceed.countDown();
+    leader.join();
+    follower.join();
+
+    assertEquals(1, reader.numGets.get());
+    assertEquals(ByteBuffer.wrap("v".getBytes()), leaderValue.get());
+    assertEquals(ByteBuffer.wrap("v".getBytes()), followerValue.get());
+    assertEquals(0.5, drs.getRuntimeStatistics().getCoalescedHitRate(), 0.0);
+
+    // Gets that are not concurrent are not coalesced
+    assertEquals(ByteBuffer.wrap("v".getBytes()), drs.get(key, new ReaderResult()).buffer_for_value());
+    assertEquals(2, reader.numGets.get());
+  }
+
+  @Test
+  public void testThrottledScan() throws Exception {
+    ByteBuffer key = ByteBuffer.wrap("key".getBytes());
+    DomainAccessor drs = new DomainAccessor(new MockHostDomain(new MockDomain("domain")),
+        new PartitionAccessor[]{new PartitionAccessor(new MockHostDomainPartition(0, 1),
+            new MockReader(null, 0, "v".getBytes(), 1))},
+        new MapPartitioner(key, 0), 0);
+    // The first page uses up the budget for a long time
+    ScanThrottle throttle = new ScanThrottle(1);
+
+    HankScanPage page = drs.scan(0, null, 10, throttle).get_page();
+    assertEquals(1, page.get_key_hashes_size());
+    assertFalse(page.is_set_cursor());
+
+    // Refused pages are empty and resume from the same cursor
+    HankScanPage refusedPage = drs.scan(0, null, 10, throttle).get_page();
+    assertEquals(0, refusedPage.get_key_hashes_size());
+    assertEquals(0, refusedPage.get_values_size());
+    assertEquals(ByteBuffer.allocate(0), refusedPage.buffer_for_cursor());
+    assertEquals(1, refusedPage.get_version_number());
+
+    ByteBuffer cursor = ByteBuffer.wrap(new byte[]{0, 0, 0, 1, 0});
+    assertEquals(cursor, drs.scan(0, cursor, 10, throttle).get_page().buffer_for_cursor());
+  }
+
+  private static class BlockingMockReader extends MockReader {
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch proceed = new CountDownLatch(1);
+    private final AtomicInteger numGets = new AtomicInteger(0);
+
+    public BlockingMockReader(byte[] value) {
+      super(null, 1, value, null);
+    }
+
+    @Override
+    public void get(ByteBuffer key, ReaderResult result) throws IOException {
+      numGets.incrementAndGet();
+      entered.countDown();
+      try {
+        proceed.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      super.get(key, result);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics() {
+      return new CacheStatistics(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+  }
+
+  private static class ClosingMockReader extends MockReader {
+
+    private boolean closed = false;
+
+    public ClosingMockReader(byte[] value) {
+      super(null, 1, value, null);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
 }
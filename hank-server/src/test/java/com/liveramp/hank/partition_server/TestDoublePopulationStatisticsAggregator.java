@@ -1,5 +1,7 @@
 package com.liveramp.hank.partition_server;
 
+import java.util.Arrays;
+
 import com.liveramp.hank.test.BaseTestCase;
 import org.junit.Test;
 
@@ -77,4 +79,28 @@ public class TestDoublePopulationStatisticsAggregator extends BaseTestCase {
     assertEquals(1.1, DoublePopulationStatisticsAggregator.getInterpolatedValueAtIndex(p, 0.1), .0001);
     assertEquals(3.9, DoublePopulationStatisticsAggregator.getInterpolatedValueAtIndex(p, 2.9), .0001);
   }
+
+  @Test
+  public void testCombineAndParse() {
+    DoublePopulationStatisticsAggregator a = new DoublePopulationStatisticsAggregator();
+    DoublePopulationStatisticsAggregator b = new DoublePopulationStatisticsAggregator();
+    for (int i = 1; i <= 990; ++i) {
+      a.aggregate(1);
+    }
+    for (int i = 1; i <= 10; ++i) {
+      b.aggregate(100);
+    }
+    DoublePopulationStatisticsAggregator combined = DoublePopulationStatisticsAggregator.combine(Arrays.asList(a, b));
+    assertEquals(1000, combined.getNumValues());
+    assertEquals(1.0, combined.getMinimum(), .0001);
+    assertEquals(100.0, combined.getMaximum(), .0001);
+    assertEquals(1.99, combined.getMean(), .0001);
+    assertEquals(1.0, combined.getPercentile(50), 1.0 / 64);
+    assertEquals(1.0, combined.getPercentile(99), 1.0 / 64);
+    assertEquals(100.0, combined.getPercentile(99.9), 100.0 / 64);
+
+    String[] tokens = DoublePopulationStatisticsAggregator.toString(combined).split(" ");
+    DoublePopulationStatisticsAggregator parsed = DoublePopulationStatisticsAggregator.parse(tokens, 0);
+    assertEquals(DoublePopulationStatisticsAggregator.toString(combined), DoublePopulationStatisticsAggregator.toString(parsed));
+  }
 }
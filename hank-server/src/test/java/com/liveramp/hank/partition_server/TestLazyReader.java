@@ -0,0 +1,99 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.partition_server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.liveramp.hank.storage.CacheStatistics;
+import com.liveramp.hank.storage.Reader;
+import com.liveramp.hank.storage.ReaderResult;
+import com.liveramp.hank.storage.mock.MockReader;
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestLazyReader extends BaseTestCase {
+
+  private static final byte[] VALUE = new byte[]{1};
+  private static final ByteBuffer KEY = ByteBuffer.wrap(new byte[]{2});
+
+  // Fails to open the given number of times, then succeeds
+  private static class FlakyLazyReader extends LazyReader {
+
+    private final AtomicInteger numOpens = new AtomicInteger(0);
+    private final int numFailures;
+
+    private FlakyLazyReader(int numFailures, long openRetryBackoffMs) {
+      super(1, openRetryBackoffMs);
+      this.numFailures = numFailures;
+    }
+
+    @Override
+    protected Reader doOpen() throws IOException {
+      if (numOpens.incrementAndGet() <= numFailures) {
+        throw new IOException("Failed to open");
+      }
+      return new MockReader(null, 0, VALUE, 1) {
+        @Override
+        public CacheStatistics getCacheStatistics() {
+          return new CacheStatistics(1, 2, 3, 4);
+        }
+      };
+    }
+  }
+
+  @Test
+  public void testOpenIsRetried() throws IOException {
+    FlakyLazyReader reader = new FlakyLazyReader(1, 0);
+    assertNull(reader.getCacheStatistics());
+    assertGetFails(reader);
+    assertEquals(1, reader.numOpens.get());
+
+    // Opening is attempted again on the next access
+    ReaderResult result = new ReaderResult();
+    reader.get(KEY, result);
+    assertTrue(result.isFound());
+    assertEquals(2, reader.numOpens.get());
+    assertEquals(1, reader.getCacheStatistics().getNumItems());
+  }
+
+  @Test
+  public void testOpenRetryBackoff() {
+    FlakyLazyReader reader = new FlakyLazyReader(1, 60 * 1000);
+    assertGetFails(reader);
+    // Accesses fail right away until the backoff period has elapsed
+    assertGetFails(reader);
+    assertEquals(1, reader.numOpens.get());
+    assertTrue(!reader.isOpen());
+  }
+
+  private static void assertGetFails(LazyReader reader) {
+    try {
+      reader.get(KEY, new ReaderResult());
+      fail("Should fail");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+}
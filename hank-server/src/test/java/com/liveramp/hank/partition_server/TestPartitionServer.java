@@ -25,6 +25,7 @@ import com.liveramp.hank.coordinator.RingGroup;
 import com.liveramp.hank.coordinator.mock.MockCoordinator;
 import com.liveramp.hank.generated.HankBulkResponse;
 import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.generated.HankScanResponse;
 import com.liveramp.hank.test.BaseTestCase;
 import com.liveramp.hank.test.coordinator.MockHost;
 import com.liveramp.hank.test.coordinator.MockRing;
@@ -138,6 +139,16 @@ public class TestPartitionServer extends BaseTestCase {
           return HankBulkResponse.responses(Collections.singletonList(HankResponse.not_found(true)));
         }
 
+        @Override
+        public HankBulkResponse getMultiBulk(List<Integer> domainIds, List<ByteBuffer> keys) throws TException {
+          return HankBulkResponse.responses(Collections.singletonList(HankResponse.not_found(true)));
+        }
+
+        @Override
+        public HankScanResponse scan(int domainId, int partitionNumber, ByteBuffer cursor, int maxNumRecords) throws TException {
+          return null;
+        }
+
         @Override
         public void shutDown() throws InterruptedException {
         }
@@ -0,0 +1,66 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.partition_server;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.junit.Test;
+
+import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TestPartitionServerCompactProtocol extends BaseTestCase {
+
+  @Test
+  public void testWriteDirectBuffers() throws Exception {
+    // Values span several chunks, and their length several varint bytes
+    for (int size : new int[]{0, 1, 200, 20000}) {
+      byte[] value = new byte[size];
+      for (int i = 0; i < size; ++i) {
+        value[i] = (byte)i;
+      }
+      ByteBuffer directValue = ByteBuffer.allocateDirect(size);
+      directValue.put(value);
+      directValue.flip();
+
+      byte[] expected = serialize(HankResponse.value(value), new TCompactProtocol(new TMemoryBuffer(16)));
+      TMemoryBuffer transport = new TMemoryBuffer(16);
+      byte[] serialized = serialize(HankResponse.value(directValue), new PartitionServerCompactProtocol(transport));
+      assertArrayEquals(expected, serialized);
+      // The value was not consumed
+      assertEquals(size, directValue.remaining());
+
+      HankResponse response = new HankResponse();
+      response.read(new TCompactProtocol(transport));
+      assertEquals(ByteBuffer.wrap(value), response.buffer_for_value());
+    }
+  }
+
+  private static byte[] serialize(TBase object, TProtocol protocol) throws Exception {
+    object.write(protocol);
+    TMemoryBuffer transport = (TMemoryBuffer)protocol.getTransport();
+    return Arrays.copyOf(transport.getArray(), transport.length());
+  }
+}
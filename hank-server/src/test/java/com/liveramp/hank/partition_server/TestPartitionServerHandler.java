@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.thrift.TException;
 import org.junit.Test;
@@ -34,6 +35,7 @@ import com.liveramp.hank.coordinator.DomainAndVersion;
 import com.liveramp.hank.coordinator.Host;
 import com.liveramp.hank.coordinator.HostDomain;
 import com.liveramp.hank.coordinator.HostDomainPartition;
+import com.liveramp.hank.coordinator.Hosts;
 import com.liveramp.hank.coordinator.PartitionServerAddress;
 import com.liveramp.hank.coordinator.Ring;
 import com.liveramp.hank.coordinator.RingGroup;
@@ -43,8 +45,11 @@ import com.liveramp.hank.coordinator.mock.MockDomainGroup;
 import com.liveramp.hank.generated.HankBulkResponse;
 import com.liveramp.hank.generated.HankException;
 import com.liveramp.hank.generated.HankResponse;
+import com.liveramp.hank.generated.HankScanPage;
+import com.liveramp.hank.generated.HankScanResponse;
 import com.liveramp.hank.partitioner.Partitioner;
 import com.liveramp.hank.storage.Reader;
+import com.liveramp.hank.storage.ReaderResult;
 import com.liveramp.hank.storage.mock.MockReader;
 import com.liveramp.hank.storage.mock.MockStorageEngine;
 import com.liveramp.hank.test.BaseTestCase;
@@ -139,7 +144,90 @@ public class TestPartitionServerHandler extends BaseTestCase {
     assertEquals(HankBulkResponse.responses(responses2), handler.getBulk(0, keys2));
   }
 
+  @Test
+  public void testSetUpAndServeMultiBulk() throws Exception {
+    PartitionServerHandler handler = createHandler(0);
+
+    // Keys of unknown domains fail individually
+    List<HankResponse> responses = new ArrayList<HankResponse>();
+    responses.add(HankResponse.value(V1));
+    responses.add(HankResponse.xception(HankException.no_such_domain(true)));
+    responses.add(HankResponse.xception(HankException.wrong_host(true)));
+    responses.add(HankResponse.value(V1));
+    assertEquals(HankBulkResponse.responses(responses),
+        handler.getMultiBulk(Arrays.asList(0, 1, 0, 0), Arrays.asList(K1, K1, K2, K5)));
+
+    // Number of domains and keys do not match
+    assertEquals(true, handler.getMultiBulk(Arrays.asList(0), Arrays.asList(K1, K5)).is_set_xception());
+  }
+
+  @Test
+  public void testScan() throws Exception {
+    PartitionServerHandler handler = createHandler(0);
+
+    HankScanPage page = new HankScanPage();
+    page.set_key_hashes(Arrays.asList(ByteBuffer.wrap(new byte[]{4})));
+    page.set_values(Arrays.asList(ByteBuffer.wrap(V1)));
+    page.set_version_number(0);
+    assertEquals(HankScanResponse.page(page), handler.scan(0, 4, null, 10));
+
+    // Resume after the last record
+    ByteBuffer cursor = ByteBuffer.wrap(new byte[]{0, 0, 0, 0, 4});
+    HankScanPage lastPage = new HankScanPage();
+    lastPage.set_key_hashes(new ArrayList<ByteBuffer>());
+    lastPage.set_values(new ArrayList<ByteBuffer>());
+    lastPage.set_version_number(0);
+    assertEquals(HankScanResponse.page(lastPage), handler.scan(0, 4, cursor, 10));
+
+    // Cursor of another version
+    assertEquals(true, handler.scan(0, 4, ByteBuffer.wrap(new byte[]{0, 0, 0, 1, 4}), 10).is_set_xception());
+
+    assertEquals(HankScanResponse.xception(HankException.wrong_host(true)), handler.scan(0, 1, null, 10));
+    assertEquals(HankScanResponse.xception(HankException.no_such_domain(true)), handler.scan(1, 0, null, 10));
+    assertEquals(true, handler.scan(0, 5, null, 10).is_set_xception());
+    assertEquals(true, handler.scan(0, 0, null, 0).is_set_xception());
+  }
+
+  @Test
+  public void testRejectGetBulkWhenOverloaded() throws Exception {
+    final CountDownLatch proceed = new CountDownLatch(1);
+    PartitionServerHandler handler = createHandler(0, 1, proceed, false);
+
+    // With a single thread that blocks and a single queued task, a third task is always rejected
+    assertEquals(HankBulkResponse.xception(HankException.overloaded(true)),
+        handler.getBulk(0, Arrays.asList(K1, K1, K1)));
+
+    proceed.countDown();
+    assertEquals(HankBulkResponse.responses(Arrays.asList(HankResponse.value(V1))),
+        handler.getBulk(0, Arrays.asList(K1)));
+  }
+
+  @Test
+  public void testLazyReaderLoading() throws Exception {
+    // Readers are loaded before serving starts
+    createHandler(0);
+    assertEquals(1.0, Hosts.computeReaderLoadProgress(mockHostConfig), 0.0);
+
+    // Serving starts before Readers are loaded
+    PartitionServerHandler handler = createHandler(0, 0, null, true);
+    assertEquals(HankResponse.value(V1), handler.get(0, K1));
+    assertEquals(HankResponse.value(V1), handler.get(0, K5));
+
+    // Failing to load a Reader does not prevent serving other partitions
+    handler = createHandler(42, 0, null, true);
+    assertEquals(true, handler.get(0, K1).is_set_xception());
+    assertEquals(HankResponse.xception(HankException.wrong_host(true)), handler.get(0, K2));
+  }
+
   private PartitionServerHandler createHandler(final int readerVersionNumber) throws IOException {
+    return createHandler(readerVersionNumber, 0, null, false);
+  }
+
+  // When proceed is not null, reads block until it is counted down
+  private PartitionServerHandler createHandler(final int readerVersionNumber,
+                                               final int getBulkTaskQueueSize,
+                                               final CountDownLatch proceed,
+                                               final boolean lazyReaderLoadingEnabled) throws IOException {
     Partitioner partitioner = new MapPartitioner(K1, 0, K2, 1, K3, 2, K4, 3,
         K5, 4);
     MockStorageEngine storageEngine = new MockStorageEngine() {
@@ -151,6 +239,18 @@ public class TestPartitionServerHandler extends BaseTestCase {
           public Integer getVersionNumber() {
             return readerVersionNumber;
           }
+
+          @Override
+          public void get(ByteBuffer key, ReaderResult result) throws IOException {
+            if (proceed != null) {
+              try {
+                proceed.await();
+              } catch (InterruptedException e) {
+                throw new IOException(e);
+              }
+            }
+            super.get(key, result);
+          }
         };
       }
     };
@@ -186,7 +286,17 @@ public class TestPartitionServerHandler extends BaseTestCase {
       }
     };
     PartitionServerConfigurator config = new MockPartitionServerConfigurator(12345,
-        mockCoordinator, "myRingGroupName", "/tmp/local/data/dir");
+        mockCoordinator, "myRingGroupName", "/tmp/local/data/dir") {
+      @Override
+      public int getGetBulkTaskQueueSize() {
+        return getBulkTaskQueueSize;
+      }
+
+      @Override
+      public boolean getLazyReaderLoadingEnabled() {
+        return lazyReaderLoadingEnabled;
+      }
+    };
     PartitionServerHandler handler = new PartitionServerHandler(new PartitionServerAddress(
         "localhost", 12345), config, mockCoordinator);
     return handler;
@@ -0,0 +1,82 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.partition_server;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.liveramp.hank.storage.CacheStatistics;
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestRuntimeStatisticsAggregator extends BaseTestCase {
+
+  @Test
+  public void testToStringAndParse() {
+    RuntimeStatisticsAggregator aggregator = new RuntimeStatisticsAggregator(100.0, 2048.0, 1000, 900, 100, 50, 10,
+        new DoublePopulationStatisticsAggregator(1.0, 3.0, 3, 6.0, new double[]{1.0, 2.0, 3.0}),
+        new CacheStatistics(10, 100, 400, 4000, 64, 5, 1, 7, 8, 9, 1024));
+    aggregator.setQueueStatistics(4, 20);
+    String str = RuntimeStatisticsAggregator.toString(aggregator);
+    assertEquals(str, RuntimeStatisticsAggregator.toString(RuntimeStatisticsAggregator.parse(str)));
+  }
+
+  @Test
+  public void testAddWithoutCacheStatistics() {
+    RuntimeStatisticsAggregator aggregator = new RuntimeStatisticsAggregator();
+    aggregator.add(new PartitionAccessorRuntimeStatistics(10, 5, 1.0, 2.0, 0, 0, new CacheStatistics(1, 2, 3, 4)));
+    // A Reader that is not open yet has no cache statistics
+    aggregator.add(new PartitionAccessorRuntimeStatistics(10, 5, 1.0, 2.0, 0, 0, null));
+    assertEquals(0.5, aggregator.getHitRate(), 0.001);
+    assertEquals(1, aggregator.getCacheStatistics().getNumItems());
+    assertEquals(2, aggregator.getCacheStatistics().getMaxNumItems());
+  }
+
+  @Test
+  public void testParseLegacyFormat() {
+    // As written by servers that predate the versioned format: counters, cache statistics, population
+    // statistics and a random sample of latencies
+    RuntimeStatisticsAggregator aggregator = RuntimeStatisticsAggregator.parse(
+        "100.0 2048.0 1000 900 100 45 10 100 400 4000 1.0 3.0 1000 2000.0 1.0 2.0 3.0");
+
+    assertEquals(100.0, aggregator.getThroughput(), 0.001);
+    assertEquals(2048.0, aggregator.getResponseDataThroughput(), 0.001);
+    assertEquals(0.9, aggregator.getHitRate(), 0.001);
+    assertEquals(0.1, aggregator.getL1CacheHitRate(), 0.001);
+    assertEquals(0.05, aggregator.getL2CacheHitRate(), 0.001);
+    assertEquals(0, aggregator.getCoalescedHitRate(), 0.001);
+    assertEquals(0, aggregator.getNumQueuedKeys());
+    assertEquals(0, aggregator.getRejectionRate(), 0.001);
+
+    assertEquals(10, aggregator.getCacheStatistics().getNumItems());
+    assertEquals(100, aggregator.getCacheStatistics().getMaxNumItems());
+    assertEquals(400, aggregator.getCacheStatistics().getNumManagedBytes());
+    assertEquals(4000, aggregator.getCacheStatistics().getMaxNumManagedBytes());
+
+    DoublePopulationStatisticsAggregator populationStatistics = aggregator.getGetRequestsPopulationStatistics();
+    double median = populationStatistics.getPercentile(50);
+    assertTrue(median >= 1.0 && median <= 3.0);
+
+    // Legacy statistics can be combined with current ones
+    RuntimeStatisticsAggregator combined = RuntimeStatisticsAggregator.combine(Arrays.asList(
+        aggregator, RuntimeStatisticsAggregator.parse(RuntimeStatisticsAggregator.toString(aggregator))));
+    assertEquals(200.0, combined.getThroughput(), 0.001);
+  }
+}
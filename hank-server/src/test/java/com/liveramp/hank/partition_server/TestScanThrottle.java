@@ -0,0 +1,62 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.partition_server;
+
+import org.junit.Test;
+
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestScanThrottle extends BaseTestCase {
+
+  @Test
+  public void testPacing() {
+    // 1000 bytes per second, so 500 bytes take 500ms
+    ScanThrottle throttle = new ScanThrottle(1000);
+    long now = 1000000000L;
+
+    assertTrue(throttle.tryAcquire(now));
+    // Only one page is read at a time
+    assertFalse(throttle.tryAcquire(now));
+    throttle.release(500, now);
+
+    assertFalse(throttle.tryAcquire(now));
+    assertFalse(throttle.tryAcquire(now + 499000000L));
+    assertTrue(throttle.tryAcquire(now + 500000000L));
+    throttle.release(0, now + 500000000L);
+
+    // Unused budget does not accumulate
+    assertTrue(throttle.tryAcquire(now + 10000000000L));
+    throttle.release(1000, now + 10000000000L);
+    assertFalse(throttle.tryAcquire(now + 10999000000L));
+    assertTrue(throttle.tryAcquire(now + 11000000000L));
+  }
+
+  @Test
+  public void testDisabled() {
+    for (long maxNumBytesPerSecond : new long[]{0, -1}) {
+      ScanThrottle throttle = new ScanThrottle(maxNumBytesPerSecond);
+      for (int i = 0; i < 10; ++i) {
+        assertTrue(throttle.tryAcquire());
+        assertTrue(throttle.tryAcquire());
+        throttle.release(Long.MAX_VALUE / 2);
+      }
+    }
+  }
+}
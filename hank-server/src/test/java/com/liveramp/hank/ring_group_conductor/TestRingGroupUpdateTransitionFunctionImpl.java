@@ -34,6 +34,7 @@ import com.liveramp.hank.coordinator.HostCommand;
 import com.liveramp.hank.coordinator.HostDomain;
 import com.liveramp.hank.coordinator.HostDomainPartition;
 import com.liveramp.hank.coordinator.HostState;
+import com.liveramp.hank.coordinator.Hosts;
 import com.liveramp.hank.coordinator.PartitionServerAddress;
 import com.liveramp.hank.coordinator.Ring;
 import com.liveramp.hank.coordinator.mock.MockDomain;
@@ -321,6 +322,30 @@ public class TestRingGroupUpdateTransitionFunctionImpl extends BaseTestCase {
     assertFalse(isAssigned(r2, r2h1, v3));
   }
 
+  @Test
+  public void testUpdatesFirstRingOnlineWhenStartingUpdate() throws IOException {
+    domainGroup.setDomainVersions(versionsMap2);
+
+    setUpRing(r0, v1, v2, HostState.SERVING);
+    setUpRing(r1, v1, v2, HostState.SERVING);
+    setUpRing(r2, v1, v2, HostState.SERVING);
+    for (Host host : Arrays.asList(r0h0, r0h1, r1h0, r1h1, r2h0, r2h1)) {
+      Hosts.setOnlineUpdateEnabled(host, true);
+    }
+
+    testTransitionFunction.manageTransitions(rg);
+
+    // All serving hosts in r0 should have received execute update without going idle
+    assertEquals(HostCommand.EXECUTE_UPDATE, r0h0.getAndClearLastEnqueuedCommand());
+    assertEquals(HostCommand.EXECUTE_UPDATE, r0h1.getAndClearLastEnqueuedCommand());
+
+    // No commands should have been issued to other rings
+    assertNull(r1h0.getAndClearLastEnqueuedCommand());
+    assertNull(r1h1.getAndClearLastEnqueuedCommand());
+    assertNull(r2h0.getAndClearLastEnqueuedCommand());
+    assertNull(r2h1.getAndClearLastEnqueuedCommand());
+  }
+
   @Test
   public void testTakesDownFirstRingForUpdateWhenStartingUpdate() throws IOException {
     domainGroup.setDomainVersions(versionsMap2);
@@ -0,0 +1,123 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.liveramp.hank.coordinator.mock.MockDomain;
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestSharedReaderCache extends BaseTestCase {
+
+  // Key and value of 4 bytes each, plus estimator overhead
+  private static final long ENTRY_NUM_BYTES = 2 * (4 + 48);
+
+  @Test
+  public void testSharedCapacity() {
+    SharedReaderCache sharedCache = new SharedReaderCache(0, 32, 4);
+    ReaderCache hot = sharedCache.getReaderCache(new MockDomain("a"), 0);
+    ReaderCache cold = sharedCache.getReaderCache(new MockDomain("a"), 1);
+
+    // Readers are isolated from each other
+    hot.put(key(1), key(10));
+    cold.put(key(1), key(11));
+    assertEquals(key(10), hot.get(key(1)));
+    assertEquals(key(11), cold.get(key(1)));
+
+    // A hot partition can use more than an even split of the capacity
+    for (int i = 0; i < 1000; ++i) {
+      hot.put(key(i), key(i));
+    }
+    assertTrue(hot.size() > 8);
+    assertEquals(32, hot.size() + cold.size());
+    assertEquals(hot.size(), sharedCache.size() - cold.size());
+    assertEquals(hot.size() * ENTRY_NUM_BYTES, hot.getNumManagedBytes());
+    assertEquals(8, hot.getMaxNumItems());
+    assertEquals(sharedCache.getNumManagedBytes(), sharedCache.getDomainNumManagedBytes("a"));
+  }
+
+  @Test
+  public void testDomainReservation() {
+    SharedReaderCache sharedCache = new SharedReaderCache(0, 32, 2,
+        Collections.singletonMap("reserved", 8 * ENTRY_NUM_BYTES));
+    ReaderCache reserved = sharedCache.getReaderCache(new MockDomain("reserved"), 0);
+    ReaderCache other = sharedCache.getReaderCache(new MockDomain("other"), 0);
+    for (int i = 0; i < 100; ++i) {
+      reserved.put(key(i), key(i));
+    }
+    for (int i = 0; i < 1000; ++i) {
+      other.put(key(i), key(i));
+    }
+    // Each segment keeps the entries of the reserved domain as long as it can evict others
+    assertTrue(reserved.size() >= 8);
+    assertEquals(32, reserved.size() + other.size());
+    assertEquals(reserved.size() * ENTRY_NUM_BYTES, sharedCache.getDomainNumManagedBytes("reserved"));
+
+    // Without reservation, they would have been evicted
+    SharedReaderCache unreservedCache = new SharedReaderCache(0, 32, 2);
+    ReaderCache unreserved = unreservedCache.getReaderCache(new MockDomain("reserved"), 0);
+    other = unreservedCache.getReaderCache(new MockDomain("other"), 0);
+    for (int i = 0; i < 100; ++i) {
+      unreserved.put(key(i), key(i));
+    }
+    for (int i = 0; i < 1000; ++i) {
+      other.put(key(i), key(i));
+    }
+    assertEquals(0, unreserved.size());
+  }
+
+  @Test
+  public void testReplace() {
+    SharedReaderCache sharedCache = new SharedReaderCache(1 << 20, 0, 1);
+    ReaderCache cache = sharedCache.getReaderCache(null, 0);
+    assertNull(cache.get(key(1)));
+    cache.put(key(1), key(1));
+    cache.put(key(1), key(2));
+    assertEquals(key(2), cache.get(key(1)));
+    assertEquals(1, cache.size());
+    assertEquals(ENTRY_NUM_BYTES, cache.getNumManagedBytes());
+    assertEquals(ENTRY_NUM_BYTES, sharedCache.getNumManagedBytes());
+  }
+
+  @Test
+  public void testRemove() {
+    SharedReaderCache sharedCache = new SharedReaderCache(1 << 20, 0, 1);
+    ReaderCache cache = sharedCache.getReaderCache(null, 0);
+    ByteBuffer value = key(2);
+    cache.put(key(1), value);
+
+    // Only removed if mapped to the same value instance
+    cache.remove(key(1), key(2));
+    assertEquals(1, cache.size());
+    cache.remove(key(1), value);
+    assertNull(cache.get(key(1)));
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getNumManagedBytes());
+    assertEquals(0, sharedCache.getNumManagedBytes());
+  }
+
+  private static ByteBuffer key(int i) {
+    return ByteBuffer.allocate(4).putInt(0, i);
+  }
+}
@@ -0,0 +1,101 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestTinyLfuReaderCache extends BaseTestCase {
+
+  @Test
+  public void testScanDoesNotEvictPopularKeys() {
+    // The sketch is large enough for the whole working set, so that estimates are accurate
+    TinyLfuReaderCache cache = new TinyLfuReaderCache(new LocalReaderCache(0, 1), new LocalReaderCache(0, 100), 2000);
+
+    // Popular keys are requested, then cached
+    for (int i = 0; i < 100; ++i) {
+      assertNull(cache.get(key(i)));
+      assertNull(cache.get(key(i)));
+      cache.put(key(i), key(i));
+    }
+    assertEquals(0, cache.getNumAdmissionRejects());
+    int numCachedPopularKeys = getNumCachedKeys(cache, 0, 100);
+    assertTrue(numCachedPopularKeys > 50);
+
+    // A scan of keys that are only requested once
+    for (int i = 1000; i < 2000; ++i) {
+      assertNull(cache.get(key(i)));
+      cache.put(key(i), key(i));
+    }
+    assertEquals(1000, cache.getNumAdmissionRejects());
+    assertEquals(numCachedPopularKeys, getNumCachedKeys(cache, 0, 100));
+
+    // Without admission policy, the scan would have evicted everything
+    ReaderCache lruCache = new LocalReaderCache(0, 100);
+    for (int i = 0; i < 100; ++i) {
+      lruCache.put(key(i), key(i));
+    }
+    for (int i = 1000; i < 2000; ++i) {
+      lruCache.put(key(i), key(i));
+    }
+    assertEquals(0, getNumCachedKeys(lruCache, 0, 100));
+  }
+
+  @Test
+  public void testPromotionFromWindow() {
+    ReaderCache window = new LocalReaderCache(0, 10);
+    ReaderCache main = new LocalReaderCache(0, 10);
+    TinyLfuReaderCache cache = new TinyLfuReaderCache(window, main, 10);
+
+    // Put on first request, rejected to the window
+    assertNull(cache.get(key(1)));
+    cache.put(key(1), key(2));
+    assertEquals(1, cache.getNumAdmissionRejects());
+    assertNull(main.get(key(1)));
+
+    // Second request is served from the window and moves the entry to the main cache
+    assertEquals(key(2), cache.get(key(1)));
+    assertNotNull(main.get(key(1)));
+    assertNull(window.get(key(1)));
+    assertEquals(1, cache.size());
+    assertEquals(main.getNumManagedBytes(), cache.getNumManagedBytes());
+    assertEquals(key(2), cache.get(key(1)));
+    assertEquals(20, cache.getMaxNumItems());
+  }
+
+  private static int getNumCachedKeys(ReaderCache cache, int from, int to) {
+    int result = 0;
+    for (int i = from; i < to; ++i) {
+      if (cache.get(key(i)) != null) {
+        ++result;
+      }
+    }
+    return result;
+  }
+
+  private static ByteBuffer key(int i) {
+    return ByteBuffer.allocate(4).putInt(0, i);
+  }
+}
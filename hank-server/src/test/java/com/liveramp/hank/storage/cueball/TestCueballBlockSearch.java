@@ -0,0 +1,102 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage.cueball;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.liveramp.hank.util.EncodingHelper;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestCueballBlockSearch {
+
+  private static final int KEY_HASH_SIZE = 10;
+  private static final int VALUE_SIZE = 4;
+  private static final int FULL_RECORD_SIZE = KEY_HASH_SIZE + VALUE_SIZE;
+
+  @Test
+  public void testEmptyBlock() {
+    ByteBuffer block = ByteBuffer.allocate(0);
+    byte[] keyHash = new byte[KEY_HASH_SIZE];
+    assertEquals(-1, CueballBlockSearch.linearSearch(block, 0, 0, keyHash, KEY_HASH_SIZE, FULL_RECORD_SIZE));
+    assertEquals(-1, CueballBlockSearch.binarySearch(block, 0, 0, keyHash, KEY_HASH_SIZE, FULL_RECORD_SIZE));
+    assertEquals(-1, CueballBlockSearch.interpolationSearch(block, 0, 0, keyHash, KEY_HASH_SIZE, FULL_RECORD_SIZE));
+  }
+
+  @Test
+  public void testSearches() {
+    Random random = new Random(42);
+    for (int numRecords : new int[]{1, 2, 3, 10, 100, 1000, 5000}) {
+      // Generate present and absent key hashes
+      SortedSet<Long> present = new TreeSet<Long>();
+      while (present.size() < numRecords) {
+        present.add(random.nextLong() & Long.MAX_VALUE);
+      }
+      // Store records at an offset in the buffer
+      int offset = 7;
+      ByteBuffer block = ByteBuffer.allocate(offset + numRecords * FULL_RECORD_SIZE);
+      int recordIndex = 0;
+      for (long keyHash : present) {
+        block.position(offset + recordIndex * FULL_RECORD_SIZE);
+        block.put(keyHash(keyHash));
+        block.putInt(recordIndex);
+        ++recordIndex;
+      }
+      int limit = block.capacity();
+
+      recordIndex = 0;
+      for (long keyHash : present) {
+        int expected = offset + recordIndex * FULL_RECORD_SIZE + KEY_HASH_SIZE;
+        byte[] keyHashBytes = keyHash(keyHash);
+        assertEquals(expected, CueballBlockSearch.linearSearch(block, offset, limit, keyHashBytes, KEY_HASH_SIZE, FULL_RECORD_SIZE));
+        assertEquals(expected, CueballBlockSearch.binarySearch(block, offset, limit, keyHashBytes, KEY_HASH_SIZE, FULL_RECORD_SIZE));
+        assertEquals(expected, CueballBlockSearch.interpolationSearch(block, offset, limit, keyHashBytes, KEY_HASH_SIZE, FULL_RECORD_SIZE));
+        assertEquals(recordIndex, block.getInt(expected));
+        ++recordIndex;
+      }
+
+      for (int i = 0; i < 1000; ++i) {
+        long keyHash = random.nextLong() & Long.MAX_VALUE;
+        if (present.contains(keyHash)) {
+          continue;
+        }
+        byte[] keyHashBytes = keyHash(keyHash);
+        assertEquals(-1, CueballBlockSearch.linearSearch(block, offset, limit, keyHashBytes, KEY_HASH_SIZE, FULL_RECORD_SIZE));
+        assertEquals(-1, CueballBlockSearch.binarySearch(block, offset, limit, keyHashBytes, KEY_HASH_SIZE, FULL_RECORD_SIZE));
+        assertEquals(-1, CueballBlockSearch.interpolationSearch(block, offset, limit, keyHashBytes, KEY_HASH_SIZE, FULL_RECORD_SIZE));
+      }
+    }
+  }
+
+  // Big endian encoding of the given value, followed by constant bytes
+  private static byte[] keyHash(long value) {
+    byte[] result = new byte[KEY_HASH_SIZE];
+    byte[] littleEndian = new byte[8];
+    EncodingHelper.encodeLittleEndianFixedWidthLong(value, littleEndian);
+    for (int i = 0; i < 8; ++i) {
+      result[i] = littleEndian[7 - i];
+    }
+    result[8] = 1;
+    result[9] = 2;
+    return result;
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage.cueball;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.liveramp.hank.compression.cueball.NoCueballCompressionCodec;
+import com.liveramp.hank.hasher.IdentityHasher;
+import com.liveramp.hank.storage.CacheStatistics;
+import com.liveramp.hank.storage.ReaderResult;
+import com.liveramp.hank.test.BaseTestCase;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestCueballBloomFilter extends BaseTestCase {
+
+  private static final int KEY_HASH_SIZE = 8;
+  private static final int VALUE_SIZE = 4;
+  private static final int HASH_INDEX_BITS = 8;
+  private static final int BITS_PER_KEY = 10;
+  private static final int NUM_KEYS = 20000;
+
+  private final String root = localTmpDir + "/1";
+
+  @Test
+  public void testSegmentSizes() {
+    assertEquals(0, CueballBloomFilter.getSegmentNumLongs(0, BITS_PER_KEY));
+    assertEquals(1, CueballBloomFilter.getSegmentNumLongs(1, BITS_PER_KEY));
+    assertEquals(4, CueballBloomFilter.getSegmentNumLongs(20, BITS_PER_KEY));
+    assertEquals(8, CueballBloomFilter.getSegmentNumLongs(50, BITS_PER_KEY));
+    assertEquals(16, CueballBloomFilter.getSegmentNumLongs(52, BITS_PER_KEY));
+    assertEquals(7, CueballBloomFilter.getNumProbes(BITS_PER_KEY));
+  }
+
+  @Test
+  public void testReaderWithBloomFilter() throws Exception {
+    new File(root).mkdirs();
+    Random random = new Random(0);
+
+    // Sorted key hashes
+    SortedSet<Long> keys = new TreeSet<Long>();
+    while (keys.size() < NUM_KEYS) {
+      keys.add(random.nextLong() & Long.MAX_VALUE);
+    }
+    String basePath = root + "/" + Cueball.getName(0, true);
+    CueballWriter writer = new CueballWriter(new FileOutputStream(basePath), KEY_HASH_SIZE, new IdentityHasher(),
+        VALUE_SIZE, new NoCueballCompressionCodec(), HASH_INDEX_BITS,
+        new CueballBloomFilterWriter(new FileOutputStream(CueballBloomFilter.getPath(basePath)), HASH_INDEX_BITS, BITS_PER_KEY));
+    for (long key : keys) {
+      writer.write(key(key), ByteBuffer.wrap(new byte[]{1, 2, 3, 4}));
+    }
+    writer.close();
+    assertTrue(CueballBloomFilter.exists(basePath));
+
+    CueballReader reader = new CueballReader(root, KEY_HASH_SIZE, new IdentityHasher(), VALUE_SIZE,
+        HASH_INDEX_BITS, new NoCueballCompressionCodec(), 0, 0);
+    ReaderResult result = new ReaderResult();
+
+    // No false negatives
+    for (long key : keys) {
+      reader.get(key(key), result);
+      assertTrue(result.isFound());
+      assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), result.getBuffer());
+    }
+
+    int numAbsentKeys = 0;
+    while (numAbsentKeys < NUM_KEYS) {
+      long key = random.nextLong() & Long.MAX_VALUE;
+      if (!keys.contains(key)) {
+        reader.get(key(key), result);
+        assertFalse(result.isFound());
+        ++numAbsentKeys;
+      }
+    }
+
+    CacheStatistics statistics = reader.getCacheStatistics();
+    assertTrue(statistics.getBloomFilterNumBytes() >= NUM_KEYS * BITS_PER_KEY / 8);
+    assertEquals(NUM_KEYS, statistics.getBloomFilterNumNegatives() + statistics.getBloomFilterNumFalsePositives());
+    // Expected rate is around 1% with 10 bits per key
+    assertTrue(statistics.getBloomFilterFalsePositiveRate() < 0.03);
+    reader.close();
+  }
+
+  private static ByteBuffer key(long key) {
+    return ByteBuffer.allocate(KEY_HASH_SIZE).putLong(0, key);
+  }
+}
@@ -19,11 +19,16 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.junit.Test;
 
 import com.liveramp.hank.compression.cueball.NoCueballCompressionCodec;
+import com.liveramp.hank.storage.CacheStatistics;
+import com.liveramp.hank.storage.DecompressedBlockCache;
+import com.liveramp.hank.storage.LocalReaderCache;
 import com.liveramp.hank.storage.ReaderResult;
+import com.liveramp.hank.storage.ScanPage;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -107,4 +112,156 @@ public class TestCueballReader extends AbstractCueballTest {
     assertEquals(false, result.getL2CacheHit());
     result.clear();
   }
+
+  @Test
+  public void testReadMemoryMapped() throws Exception {
+    String root = localTmpDir + "/2";
+    new File(root).mkdir();
+    OutputStream os = new FileOutputStream(root + "/00000.base.cueball");
+    os.write(EXPECTED_DATA);
+    os.flush();
+    os.close();
+
+    CueballReader reader = new CueballReader(root, 10, HASHER, 5, 1, new NoCueballCompressionCodec(), 1 << 20, 1, true, true);
+
+    ReaderResult result = new ReaderResult();
+    reader.get(ByteBuffer.wrap(KEY1), result);
+    assertTrue(result.isFound());
+    assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 1, 2, 1}), result.getBuffer());
+    result.clear();
+
+    reader.get(ByteBuffer.wrap(KEY2), result);
+    assertTrue(result.isFound());
+    assertEquals(ByteBuffer.wrap(new byte[]{2, 1, 2, 1, 2}), result.getBuffer());
+    result.clear();
+
+    reader.get(ByteBuffer.wrap(KEY3), result);
+    assertTrue(result.isFound());
+    assertEquals(ByteBuffer.wrap(new byte[]{(byte)0x8f, 1, 2, 1, 2}), result.getBuffer());
+    result.clear();
+
+    // non-existent key in occupied bucket
+    reader.get(ByteBuffer.wrap(KEY4), result);
+    assertFalse(result.isFound());
+    result.clear();
+
+    reader.get(ByteBuffer.wrap(KEY10), result);
+    assertFalse(result.isFound());
+    result.clear();
+
+    reader.close();
+  }
+
+  @Test
+  public void testGetBulk() throws Exception {
+    String root = localTmpDir + "/4";
+    new File(root).mkdir();
+    OutputStream os = new FileOutputStream(root + "/00000.base.cueball");
+    os.write(EXPECTED_DATA);
+    os.flush();
+    os.close();
+
+    CueballReader reader = new CueballReader(root, 10, HASHER, 5, 1, new NoCueballCompressionCodec(), 1 << 20, 1);
+
+    ReaderResult[] results = new ReaderResult[5];
+    for (int i = 0; i < results.length; ++i) {
+      results[i] = new ReaderResult();
+    }
+    // Results are in request order, whatever the order of the reads
+    reader.getBulk(Arrays.asList(ByteBuffer.wrap(KEY2), ByteBuffer.wrap(KEY4), ByteBuffer.wrap(KEY1),
+        ByteBuffer.wrap(KEY10), ByteBuffer.wrap(KEY3)), results);
+
+    assertTrue(results[0].isFound());
+    assertEquals(ByteBuffer.wrap(new byte[]{2, 1, 2, 1, 2}), results[0].getBuffer());
+    assertFalse(results[1].isFound());
+    assertTrue(results[2].isFound());
+    assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 1, 2, 1}), results[2].getBuffer());
+    assertFalse(results[3].isFound());
+    assertTrue(results[4].isFound());
+    assertEquals(ByteBuffer.wrap(new byte[]{(byte)0x8f, 1, 2, 1, 2}), results[4].getBuffer());
+
+    reader.close();
+  }
+
+  @Test
+  public void testScan() throws Exception {
+    String root = localTmpDir + "/5";
+    new File(root).mkdir();
+    OutputStream os = new FileOutputStream(root + "/00000.base.cueball");
+    os.write(EXPECTED_DATA);
+    os.flush();
+    os.close();
+
+    CueballReader reader = new CueballReader(root, 10, HASHER, 5, 1, new NoCueballCompressionCodec(), 1 << 20, 1);
+
+    ScanPage page = new ScanPage(2);
+    reader.scan(null, page);
+    assertEquals(2, page.getNumRecords());
+    assertEquals(ByteBuffer.wrap(Arrays.copyOfRange(EXPECTED_DATA, 0, 10)), page.getKeyHashes().get(0));
+    assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 1, 2, 1}), page.getValues().get(0));
+    assertEquals(ByteBuffer.wrap(Arrays.copyOfRange(EXPECTED_DATA, 15, 25)), page.getKeyHashes().get(1));
+    assertEquals(ByteBuffer.wrap(new byte[]{2, 1, 2, 1, 2}), page.getValues().get(1));
+    assertFalse(page.isComplete());
+
+    // Resume in the next block
+    ScanPage nextPage = new ScanPage(2);
+    reader.scan(page.getLastKeyHash(), nextPage);
+    assertEquals(1, nextPage.getNumRecords());
+    assertEquals(ByteBuffer.wrap(Arrays.copyOfRange(EXPECTED_DATA, 30, 40)), nextPage.getKeyHashes().get(0));
+    assertEquals(ByteBuffer.wrap(new byte[]{(byte)0x8f, 1, 2, 1, 2}), nextPage.getValues().get(0));
+    assertTrue(nextPage.isComplete());
+
+    // Resume in the middle of a block
+    ScanPage middlePage = new ScanPage(1);
+    reader.scan(page.getKeyHashes().get(0), middlePage);
+    assertEquals(1, middlePage.getNumRecords());
+    assertEquals(page.getKeyHashes().get(1), middlePage.getKeyHashes().get(0));
+    assertFalse(middlePage.isComplete());
+
+    // Scans do not fill the cache
+    assertEquals(0, reader.getCacheStatistics().getNumItems());
+
+    reader.close();
+  }
+
+  @Test
+  public void testReadWithBlockCache() throws Exception {
+    String root = localTmpDir + "/3";
+    new File(root).mkdir();
+    OutputStream os = new FileOutputStream(root + "/00000.base.cueball");
+    os.write(EXPECTED_DATA);
+    os.flush();
+    os.close();
+
+    // Value cache is disabled, so that lookups go to the block cache
+    DecompressedBlockCache blockCache = new DecompressedBlockCache(1 << 20, 0);
+    CueballReader reader = new CueballReader(root, 10, HASHER, 5, 1, new NoCueballCompressionCodec(),
+        new LocalReaderCache(0, 0), false, false, blockCache);
+
+    ReaderResult result = new ReaderResult();
+    for (int i = 0; i < 2; ++i) {
+      reader.get(ByteBuffer.wrap(KEY1), result);
+      assertTrue(result.isFound());
+      assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 1, 2, 1}), result.getBuffer());
+      result.clear();
+
+      reader.get(ByteBuffer.wrap(KEY2), result);
+      assertTrue(result.isFound());
+      assertEquals(ByteBuffer.wrap(new byte[]{2, 1, 2, 1, 2}), result.getBuffer());
+      result.clear();
+
+      reader.get(ByteBuffer.wrap(KEY4), result);
+      assertFalse(result.isFound());
+      result.clear();
+    }
+
+    // Every block is decompressed only once
+    CacheStatistics cacheStatistics = reader.getCacheStatistics();
+    assertEquals(6, cacheStatistics.getBlockCacheNumHits() + cacheStatistics.getBlockCacheNumMisses());
+    assertEquals(blockCache.size(), cacheStatistics.getBlockCacheNumMisses());
+    assertTrue(cacheStatistics.getBlockCacheNumHits() >= 3);
+    assertTrue(cacheStatistics.getBlockCacheNumBytesSaved() > 0);
+
+    reader.close();
+  }
 }
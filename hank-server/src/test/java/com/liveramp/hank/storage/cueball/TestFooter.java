@@ -35,7 +35,7 @@ public class TestFooter extends BaseTestCase {
     assertEquals(40, footer.getFileSize());
     assertEquals(250, footer.getMaxCompressedBufferSize());
     assertEquals(130, footer.getMaxUncompressedBufferSize());
-    assertTrue(Arrays.equals(new long[]{5, 25, 125, 255}, footer.getHashIndex()));
+    assertTrue(Arrays.equals(new long[]{5, 25, 125, 255}, footer.getHashIndex().toArray()));
   }
 
   private static final List<byte[]> INVALID_CASES = Arrays.asList(
@@ -0,0 +1,69 @@
+/**
+ *  Copyright 2014 LiveRamp
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.liveramp.hank.storage.cueball;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.liveramp.hank.test.BaseTestCase;
+import com.liveramp.hank.util.EncodingHelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestHashIndex extends BaseTestCase {
+
+  @Test
+  public void testCompact() {
+    // Spans several chunks, with empty blocks and offsets above 4GB
+    long[] offsets = new long[1024];
+    long offset = 5L << 32;
+    for (int i = 0; i < offsets.length; ++i) {
+      if (i % 3 == 0 || (i >= 256 && i < 512)) {
+        offsets[i] = -1;
+      } else {
+        offsets[i] = offset;
+        offset += 1000 + i;
+      }
+    }
+    HashIndex hashIndex = new HashIndex(encode(offsets), offsets.length);
+    assertTrue(hashIndex.isCompact());
+    assertEquals(offsets.length, hashIndex.size());
+    assertEquals(4 * 8 + 4 * 1024, hashIndex.getNumOffHeapBytes());
+    assertTrue(Arrays.equals(offsets, hashIndex.toArray()));
+  }
+
+  @Test
+  public void testLargeBlocks() {
+    // Blocks of the same chunk more than 4GB apart
+    long[] offsets = new long[]{0, -1, 1L << 32, (1L << 33) + 1};
+    HashIndex hashIndex = new HashIndex(encode(offsets), offsets.length);
+    assertFalse(hashIndex.isCompact());
+    assertEquals(8 * 4, hashIndex.getNumOffHeapBytes());
+    assertTrue(Arrays.equals(offsets, hashIndex.toArray()));
+  }
+
+  private static byte[] encode(long[] offsets) {
+    byte[] result = new byte[8 * offsets.length];
+    for (int i = 0; i < offsets.length; ++i) {
+      EncodingHelper.encodeLittleEndianFixedWidthLong(offsets[i], result, 8 * i, 8);
+    }
+    return result;
+  }
+}
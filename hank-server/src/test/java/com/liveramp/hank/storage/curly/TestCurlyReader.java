@@ -20,9 +20,17 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import com.liveramp.hank.compression.CompressionCodec;
+import com.liveramp.hank.compression.cueball.NoCueballCompressionCodec;
+import com.liveramp.hank.hasher.IdentityHasher;
+import com.liveramp.hank.storage.LocalReaderCache;
 import com.liveramp.hank.storage.ReaderResult;
+import com.liveramp.hank.storage.ScanPage;
+import com.liveramp.hank.storage.cueball.Cueball;
+import com.liveramp.hank.storage.cueball.CueballReader;
+import com.liveramp.hank.storage.cueball.CueballWriter;
 import com.liveramp.hank.storage.map.MapReader;
 
 public class TestCurlyReader extends AbstractCurlyTestBase {
@@ -105,6 +113,78 @@ public class TestCurlyReader extends AbstractCurlyTestBase {
     assertEquals(false, result.getL1CacheHit());
     assertEquals(true, result.getL2CacheHit());
     result.clear();
+
+    ReaderResult[] results = new ReaderResult[3];
+    for (int i = 0; i < results.length; ++i) {
+      results[i] = new ReaderResult();
+    }
+    reader.getBulk(Arrays.asList(KEY5, KEY4, KEY2), results);
+    assertTrue(results[0].isFound());
+    assertEquals(ByteBuffer.wrap(TWENTYK_BLOB), results[0].getBuffer());
+    assertFalse(results[1].isFound());
+    assertTrue(results[2].isFound());
+    assertEquals(VALUE2, results[2].getBuffer());
+  }
+
+  public void testMemoryMappedReader() throws Exception {
+    new File(TMP_TEST_CURLY_READER).mkdirs();
+    OutputStream s = new FileOutputStream(TMP_TEST_CURLY_READER + "/00000.base.curly");
+    s.write(EXPECTED_RECORD_FILE);
+    s.write(new byte[]{(byte)0x80, (byte)0xa0, 1});
+    s.write(TWENTYK_BLOB);
+    s.flush();
+    s.close();
+
+    MapReader keyfileReader = new MapReader(0,
+        KEY1.array(), new byte[]{0, 0, 0},
+        KEY2.array(), new byte[]{5, 0, 0},
+        KEY5.array(), new byte[]{15, 0, 0}
+    );
+
+    CurlyReader reader = new CurlyReader(CurlyReader.getLatestBase(TMP_TEST_CURLY_READER), 1024, keyfileReader,
+        new LocalReaderCache(-1, 1), null, -1, -1, null, 0, true, false);
+
+    ReaderResult result = new ReaderResult();
+
+    // Small values are copied
+    reader.get(KEY1, result);
+    assertTrue(result.isFound());
+    assertEquals(VALUE1, result.getBuffer());
+    assertFalse(result.isValueBorrowed());
+    result.clear();
+
+    // Large values are borrowed from the mapped record file
+    reader.get(KEY5, result);
+    assertTrue(result.isFound());
+    assertTrue(result.isValueBorrowed());
+    assertTrue(result.getBuffer().isDirect());
+    assertEquals(ByteBuffer.wrap(TWENTYK_BLOB), result.getBuffer());
+    result.clear();
+
+    // Or from the cache
+    reader.get(KEY5, result);
+    assertTrue(result.isFound());
+    assertTrue(result.getL2CacheHit());
+    assertTrue(result.isValueBorrowed());
+    assertEquals(ByteBuffer.wrap(TWENTYK_BLOB), result.getBuffer());
+    result.clear();
+
+    // Reading into the result's own buffer drops the borrowed value
+    reader.get(KEY2, result);
+    assertTrue(result.isFound());
+    assertFalse(result.isValueBorrowed());
+    assertEquals(VALUE2, result.getBuffer());
+    result.clear();
+
+    ReaderResult[] results = new ReaderResult[3];
+    for (int i = 0; i < results.length; ++i) {
+      results[i] = new ReaderResult();
+    }
+    reader.getBulk(Arrays.asList(KEY5, KEY4, KEY1), results);
+    assertEquals(ByteBuffer.wrap(TWENTYK_BLOB), results[0].getBuffer());
+    assertFalse(results[1].isFound());
+    assertEquals(VALUE1, results[2].getBuffer());
+    reader.close();
   }
 
   private void doTestBlockCompression(CompressionCodec blockCompressionCodec, byte[] compressedBlock) throws IOException {
@@ -143,6 +223,75 @@ public class TestCurlyReader extends AbstractCurlyTestBase {
     assertTrue(result.isFound());
     assertEquals(VALUE2, result.getBuffer());
     result.clear();
+
+    // Bulk reads decompress each block once and return results in request order
+    ReaderResult[] results = new ReaderResult[4];
+    for (int i = 0; i < results.length; ++i) {
+      results[i] = new ReaderResult();
+    }
+    reader.getBulk(Arrays.asList(KEY3, KEY4, KEY1, KEY2), results);
+    assertTrue(results[0].isFound());
+    assertEquals(VALUE3, results[0].getBuffer());
+    assertFalse(results[1].isFound());
+    assertTrue(results[2].isFound());
+    assertEquals(VALUE1, results[2].getBuffer());
+    assertTrue(results[3].isFound());
+    assertEquals(VALUE2, results[3].getBuffer());
+  }
+
+  public void testScan() throws Exception {
+    // Write a Curly base with a Cueball key file. Keys are their own hashes, so they are written in hash order.
+    String root = TMP_TEST_CURLY_READER + "/scan";
+    new File(root).mkdirs();
+    CueballWriter keyfileWriter = new CueballWriter(new FileOutputStream(root + "/" + Cueball.getName(0, true)),
+        4, new IdentityHasher(), 3, new NoCueballCompressionCodec(), 1);
+    CurlyWriter writer = new CurlyWriter(new FileOutputStream(root + "/" + Curly.getName(0, true)),
+        keyfileWriter, 3, -1);
+    int numRecords = 10;
+    for (int i = 0; i < numRecords; ++i) {
+      writer.write(scanKey(i), scanValue(i));
+    }
+    writer.close();
+
+    CueballReader keyfileReader = new CueballReader(root, 4, new IdentityHasher(), 3, 1,
+        new NoCueballCompressionCodec(), 1 << 20, 1);
+    CurlyReader reader = new CurlyReader(CurlyReader.getLatestBase(root), 1024, keyfileReader, -1, 1);
+
+    // Resume each page after the last key hash of the previous one
+    ByteBuffer afterKeyHash = null;
+    int numScannedRecords = 0;
+    for (int numRecordsInPage : new int[]{4, 4, 2}) {
+      ScanPage page = new ScanPage(4);
+      reader.scan(afterKeyHash, page);
+      assertEquals(numRecordsInPage, page.getNumRecords());
+      for (int i = 0; i < page.getNumRecords(); ++i) {
+        assertEquals(scanKey(numScannedRecords), page.getKeyHashes().get(i));
+        assertEquals(scanValue(numScannedRecords), page.getValues().get(i));
+        ++numScannedRecords;
+      }
+      // Only the last page is complete
+      assertEquals(numScannedRecords == numRecords, page.isComplete());
+      afterKeyHash = page.getLastKeyHash();
+    }
+
+    // Cursor after the end
+    ScanPage page = new ScanPage(4);
+    reader.scan(scanKey(numRecords - 1), page);
+    assertEquals(0, page.getNumRecords());
+    assertTrue(page.isComplete());
+
+    // Scans do not fill the cache
+    assertEquals(0, reader.getCacheStatistics().getNumItems());
+
+    reader.close();
+  }
+
+  private static ByteBuffer scanKey(int i) {
+    return ByteBuffer.wrap(new byte[]{0, 0, 0, (byte)i});
+  }
+
+  private static ByteBuffer scanValue(int i) {
+    return ByteBuffer.wrap(("value" + i).getBytes());
   }
 
   public void testBlockCompressionSlowNoCompression() throws Exception {
@@ -165,6 +165,8 @@ public class UiUtils {
       for (int i = 0; i < 9; ++i) {
         addBar(tooltipContent, ((i + 1) * 10) + "%", deciles[i], populationStatistics.getMaximum(), "ms");
       }
+      addBar(tooltipContent, "99%", populationStatistics.getPercentile(99), populationStatistics.getMaximum(), "ms");
+      addBar(tooltipContent, "99.9%", populationStatistics.getPercentile(99.9), populationStatistics.getMaximum(), "ms");
       addBar(tooltipContent, "max", populationStatistics.getMaximum(), populationStatistics.getMaximum(), "ms");
       tooltipContent.append("</table>");
 
@@ -183,7 +185,8 @@ public class UiUtils {
   public static String formatCacheHits(RuntimeStatisticsAggregator runtimeStatisticsAggregator) {
     double l1 = runtimeStatisticsAggregator.getL1CacheHitRate();
     double l2 = runtimeStatisticsAggregator.getL2CacheHitRate();
-    if (l1 == 0 && l2 == 0) {
+    double coalesced = runtimeStatisticsAggregator.getCoalescedHitRate();
+    if (l1 == 0 && l2 == 0 && coalesced == 0) {
       return "-";
     } else {
       String l1Str = "-";
@@ -194,6 +197,9 @@ public class UiUtils {
       if (l2 != 0) {
         l2Str = FormatUtils.formatDouble(l2 * 100.0) + "%";
       }
+      if (coalesced != 0) {
+        return l1Str + " / " + l2Str + " (" + FormatUtils.formatDouble(coalesced * 100.0) + "% coalesced)";
+      }
       return l1Str + " / " + l2Str;
     }
   }
@@ -63,6 +63,8 @@
   DomainGroup domainGroup = ringGroup.getDomainGroup();
 
   long updateETA = Hosts.computeUpdateETA(host);
+
+  double readerLoadProgress = Hosts.computeReaderLoadProgress(host);
 %>
 
     <div>
@@ -81,6 +83,15 @@
     <td>
       <%= FormatUtils.formatSecondsDuration(updateETA) %>
     </td>
+    </tr>
+      <% } %>
+
+      <% if (readerLoadProgress >= 0 && readerLoadProgress < 1) { %>
+    <tr>
+    <td>Readers Loaded:</td>
+    <td>
+      <%= FormatUtils.formatDouble(readerLoadProgress * 100) %>%
+    </td>
     </tr>
       <% } %>
 
@@ -114,6 +125,14 @@
     </td>
     </tr>
 
+    <tr>
+    <td>Queued Keys:</td>
+    <td>
+      <%= String.format("%,d", runtimeStatisticsForHost.getNumQueuedKeys()) %>
+      (<%= FormatUtils.formatDouble(runtimeStatisticsForHost.getRejectionRate() * 100) %>% rejected)
+    </td>
+    </tr>
+
     <tr>
     <td>Cache Size:</td>
     <td>
@@ -132,6 +151,33 @@
     </td>
     </tr>
 
+    <tr>
+    <td>Bloom Filters:</td>
+    <td>
+      <%= FormatUtils.formatNumBytes(runtimeStatisticsForHost.getCacheStatistics().getBloomFilterNumBytes()) %>
+      /
+      <%= String.format("%,d", runtimeStatisticsForHost.getCacheStatistics().getBloomFilterNumNegatives()) %> negatives
+      /
+      <%= FormatUtils.formatDouble(runtimeStatisticsForHost.getCacheStatistics().getBloomFilterFalsePositiveRate() * 100) %>% false positives
+    </td>
+    </tr>
+
+    <tr>
+    <td>Cache Admission Rejects:</td>
+    <td>
+      <%= String.format("%,d", runtimeStatisticsForHost.getCacheStatistics().getNumAdmissionRejects()) %>
+    </td>
+    </tr>
+
+    <tr>
+    <td>Block Cache:</td>
+    <td>
+      <%= FormatUtils.formatDouble(runtimeStatisticsForHost.getCacheStatistics().getBlockCacheHitRate() * 100) %>% hits
+      /
+      <%= FormatUtils.formatNumBytes(runtimeStatisticsForHost.getCacheStatistics().getBlockCacheNumBytesSaved()) %> saved
+    </td>
+    </tr>
+
     <tr>
     <td>Uptime:</td>
     <td>
@@ -91,6 +91,11 @@ public class WebUiServerTester extends ZkMockCoordinatorTestCase {
       public HankBulkResponse getBulk(String domainName, List<ByteBuffer> keys) throws TException {
         return null;
       }
+
+      @Override
+      public HankBulkResponse getMultiBulk(List<String> domainNames, List<ByteBuffer> keys) throws TException {
+        return null;
+      }
     };
     IClientCache clientCache = new IClientCache() {
       @Override